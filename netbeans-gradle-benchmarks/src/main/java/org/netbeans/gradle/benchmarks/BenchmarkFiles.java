@@ -0,0 +1,71 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+public final class BenchmarkFiles {
+    public static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static Path createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory("nb-gradle-bench-" + prefix).toRealPath();
+    }
+
+    public static void writeText(Path file, String content) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, UTF8)) {
+            writer.write(content);
+        }
+    }
+
+    public static void writeEmptyJar(Path file) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+
+        try (OutputStream fileOutput = Files.newOutputStream(file);
+                JarOutputStream jarOutput = new JarOutputStream(fileOutput, manifest)) {
+            jarOutput.finish();
+        }
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private BenchmarkFiles() {
+        throw new AssertionError();
+    }
+}
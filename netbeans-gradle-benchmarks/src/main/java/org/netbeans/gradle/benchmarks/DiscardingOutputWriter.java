@@ -0,0 +1,54 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+/**
+ * An {@code OutputWriter} which counts the written characters but otherwise
+ * discards everything written to it.
+ */
+public final class DiscardingOutputWriter extends OutputWriter {
+    private final CountingWriter counter;
+
+    public DiscardingOutputWriter() {
+        this(new CountingWriter());
+    }
+
+    private DiscardingOutputWriter(CountingWriter counter) {
+        super(counter);
+        this.counter = counter;
+    }
+
+    public long getWrittenCharCount() {
+        return counter.count;
+    }
+
+    @Override
+    public void println(String s, OutputListener l) throws IOException {
+        println(s);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        counter.count = 0;
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
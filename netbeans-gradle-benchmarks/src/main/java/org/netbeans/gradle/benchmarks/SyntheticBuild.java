@@ -0,0 +1,263 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.model.ProjectId;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.NbGradleProjectFactory;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.JavaExtensionDef;
+import org.netbeans.gradle.project.java.model.JavaModelSource;
+import org.netbeans.gradle.project.java.model.JavaProjectDependency;
+import org.netbeans.gradle.project.java.model.NbCodeCoverage;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGenericModelInfo;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleMultiProjectDef;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
+
+/**
+ * Defines a multi-project Gradle build generated on the disk. The build
+ * contains a root project with the given number of Java subprojects, each
+ * having a given number of source sets with source files in them. The models
+ * of the projects are created by this class directly without evaluating the
+ * build scripts, so this build can be used in offline benchmarks.
+ */
+public final class SyntheticBuild implements Closeable {
+    private static final int LIBRARY_COUNT = 40;
+
+    private final Path rootDir;
+    private final List<Path> subprojectDirs;
+    private final List<File> libraries;
+    private final int sourceSetCount;
+    private final int filesPerSourceSet;
+
+    private SyntheticBuild(Path rootDir, int subprojectCount, int sourceSetCount, int filesPerSourceSet) {
+        this.rootDir = rootDir;
+        this.sourceSetCount = sourceSetCount;
+        this.filesPerSourceSet = filesPerSourceSet;
+        this.subprojectDirs = new ArrayList<>(subprojectCount);
+        this.libraries = new ArrayList<>(LIBRARY_COUNT);
+
+        for (int i = 0; i < subprojectCount; i++) {
+            subprojectDirs.add(rootDir.resolve(subprojectName(i)));
+        }
+        for (int i = 0; i < LIBRARY_COUNT; i++) {
+            libraries.add(rootDir.resolve("libs").resolve("library" + i + "-1.0.jar").toFile());
+        }
+    }
+
+    public static SyntheticBuild create(
+            int subprojectCount,
+            int sourceSetCount,
+            int filesPerSourceSet) throws IOException {
+        ExceptionHelper.checkArgumentInRange(subprojectCount, 1, Integer.MAX_VALUE, "subprojectCount");
+        ExceptionHelper.checkArgumentInRange(sourceSetCount, 1, Integer.MAX_VALUE, "sourceSetCount");
+        ExceptionHelper.checkArgumentInRange(filesPerSourceSet, 0, Integer.MAX_VALUE, "filesPerSourceSet");
+
+        Path rootDir = BenchmarkFiles.createTempDir("build");
+        SyntheticBuild result = new SyntheticBuild(rootDir, subprojectCount, sourceSetCount, filesPerSourceSet);
+        try {
+            result.writeFiles();
+        } catch (IOException | RuntimeException ex) {
+            result.close();
+            throw ex;
+        }
+        return result;
+    }
+
+    private static String subprojectName(int index) {
+        return "subproject" + index;
+    }
+
+    private static String sourceSetName(int index) {
+        switch (index) {
+            case 0:
+                return JavaSourceSet.NAME_MAIN;
+            case 1:
+                return JavaSourceSet.NAME_TEST;
+            default:
+                return "extra" + index;
+        }
+    }
+
+    private void writeFiles() throws IOException {
+        StringBuilder settings = new StringBuilder();
+        for (Path subprojectDir: subprojectDirs) {
+            settings.append("include '").append(subprojectDir.getFileName()).append("'\n");
+        }
+
+        BenchmarkFiles.writeText(rootDir.resolve("settings.gradle"), settings.toString());
+        BenchmarkFiles.writeText(rootDir.resolve("build.gradle"), "allprojects { apply plugin: 'java' }\n");
+
+        for (File library: libraries) {
+            BenchmarkFiles.writeEmptyJar(library.toPath());
+        }
+
+        for (Path subprojectDir: subprojectDirs) {
+            BenchmarkFiles.writeText(subprojectDir.resolve("build.gradle"), "dependencies { }\n");
+
+            for (int sourceSetIndex = 0; sourceSetIndex < sourceSetCount; sourceSetIndex++) {
+                Path sourceRoot = getSourceRoot(subprojectDir, sourceSetName(sourceSetIndex));
+                for (int fileIndex = 0; fileIndex < filesPerSourceSet; fileIndex++) {
+                    String packageName = "org.example.p" + (fileIndex % 10);
+                    String className = "Class" + fileIndex;
+
+                    Path sourceFile = sourceRoot
+                            .resolve(packageName.replace('.', File.separatorChar))
+                            .resolve(className + ".java");
+                    BenchmarkFiles.writeText(sourceFile,
+                            "package " + packageName + ";\n\npublic class " + className + " {\n}\n");
+                }
+            }
+        }
+    }
+
+    private static Path getSourceRoot(Path projectDir, String sourceSetName) {
+        return projectDir.resolve("src").resolve(sourceSetName).resolve("java");
+    }
+
+    public Path getRootDir() {
+        return rootDir;
+    }
+
+    public List<Path> getSubprojectDirs() {
+        return Collections.unmodifiableList(subprojectDirs);
+    }
+
+    public List<File> getLibraries() {
+        return Collections.unmodifiableList(libraries);
+    }
+
+    public List<Path> getSourceRoots(Path projectDir) {
+        List<Path> result = new ArrayList<>(sourceSetCount);
+        for (int i = 0; i < sourceSetCount; i++) {
+            result.add(getSourceRoot(projectDir, sourceSetName(i)));
+        }
+        return result;
+    }
+
+    private static GenericProjectProperties createProperties(Path projectDir, String fullName) {
+        File projectDirFile = projectDir.toFile();
+        return new GenericProjectProperties(
+                new ProjectId("org.example", projectDirFile.getName(), "1.0"),
+                fullName,
+                projectDirFile,
+                new File(projectDirFile, "build.gradle"),
+                new File(projectDirFile, "build"));
+    }
+
+    private JavaSourceSet createSourceSet(Path projectDir, String name) {
+        File buildDir = projectDir.resolve("build").toFile();
+        File classesDir = new File(new File(buildDir, "classes"), name);
+        File resourcesDir = new File(new File(buildDir, "resources"), name);
+
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(
+                name,
+                new JavaOutputDirs(classesDir, resourcesDir, Collections.<File>emptySet()));
+        result.addSourceGroup(new JavaSourceGroup(
+                JavaSourceGroupName.JAVA,
+                Collections.singleton(getSourceRoot(projectDir, name).toFile())));
+        result.setClasspaths(new JavaClassPaths(libraries, libraries));
+        return result.create();
+    }
+
+    public NbJavaModule createJavaModule(Path projectDir) {
+        GenericProjectProperties properties = createProperties(projectDir, ":" + projectDir.getFileName());
+
+        List<JavaSourceSet> sources = new ArrayList<>(sourceSetCount);
+        for (int i = 0; i < sourceSetCount; i++) {
+            sources.add(createSourceSet(projectDir, sourceSetName(i)));
+        }
+
+        return new NbJavaModule(
+                properties,
+                new JavaCompatibilityModel("1.7", "1.7"),
+                sources,
+                Collections.<NbListedDir>emptyList(),
+                JavaTestModel.getDefaulTestModel(projectDir.toFile()),
+                NbCodeCoverage.NO_CODE_COVERAGE);
+    }
+
+    public NbJavaModel createJavaModel(Path projectDir) {
+        Map<File, JavaProjectDependency> dependencies = Collections.emptyMap();
+        return NbJavaModel.createModel(JavaModelSource.GRADLE_1_8_API, createJavaModule(projectDir), dependencies);
+    }
+
+    private NbGradleProjectTree createProjectTree() {
+        List<NbGradleProjectTree> children = new ArrayList<>(subprojectDirs.size());
+        for (Path subprojectDir: subprojectDirs) {
+            String fullName = ":" + subprojectDir.getFileName();
+            children.add(new NbGradleProjectTree(
+                    createProperties(subprojectDir, fullName),
+                    Collections.singletonList(new GradleTaskID("build", fullName + ":build")),
+                    Collections.<NbGradleProjectTree>emptyList()));
+        }
+
+        return new NbGradleProjectTree(
+                createProperties(rootDir, ":"),
+                Collections.<GradleTaskID>emptyList(),
+                children);
+    }
+
+    public List<NbGradleModel> createGradleModels() {
+        NbGradleProjectTree rootTree = createProjectTree();
+        Path settingsFile = rootDir.resolve("settings.gradle");
+
+        List<NbGradleModel> result = new ArrayList<>(subprojectDirs.size());
+        for (NbGradleProjectTree subprojectTree: rootTree.getChildren()) {
+            Path projectDir = subprojectTree.getProjectDir().toPath();
+
+            NbGradleMultiProjectDef projectDef = new NbGradleMultiProjectDef(rootTree, subprojectTree);
+            Map<String, Object> extensionModels = Collections.<String, Object>singletonMap(
+                    JavaExtensionDef.EXTENSION_NAME,
+                    createJavaModel(projectDir));
+
+            result.add(new NbGradleModel(new NbGenericModelInfo(projectDef, settingsFile), extensionModels, false));
+        }
+        return result;
+    }
+
+    public NbGradleProject loadProject(Path projectDir) throws IOException {
+        Project project = NbGradleProjectFactory.loadSafeProject(projectDir);
+        NbGradleProject result = project.getLookup().lookup(NbGradleProject.class);
+        if (result == null) {
+            throw new IOException("Not a Gradle project: " + projectDir);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new {@code JavaExtension} for the given subproject and
+     * activates it with the generated model of the subproject.
+     */
+    public JavaExtension loadJavaExtension(Path projectDir) throws IOException {
+        JavaExtension result = JavaExtension.create(loadProject(projectDir));
+        result.activateExtension(createJavaModel(projectDir));
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        BenchmarkFiles.deleteRecursively(rootDir);
+    }
+}
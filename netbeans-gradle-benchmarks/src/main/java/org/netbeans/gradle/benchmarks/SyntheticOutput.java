@@ -0,0 +1,118 @@
+package org.netbeans.gradle.benchmarks;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates output lines similar to what a Gradle build prints: task headers,
+ * download messages with URLs, compiler errors referencing project files and
+ * stack traces. The generated lines are deterministic for a given seed.
+ */
+public final class SyntheticOutput {
+    private static final String[] TASK_NAMES = {
+        "compileJava", "processResources", "classes", "compileTestJava",
+        "processTestResources", "testClasses", "test", "jar", "assemble", "build"
+    };
+
+    private static final String[] FRAME_CLASSES = {
+        "org.example.p0.Class0", "org.example.p1.Class1", "org.example.p2.Class2",
+        "java.util.ArrayList", "org.junit.runners.ParentRunner", "sun.reflect.NativeMethodAccessorImpl"
+    };
+
+    private final Random random;
+    private final Path projectDir;
+
+    public SyntheticOutput(long seed, Path projectDir) {
+        this.random = new Random(seed);
+        this.projectDir = projectDir;
+    }
+
+    private String projectFile(int index) {
+        return projectDir
+                .resolve("src")
+                .resolve("main")
+                .resolve("java")
+                .resolve("org")
+                .resolve("example")
+                .resolve("p" + (index % 10))
+                .resolve("Class" + index + ".java")
+                .toString();
+    }
+
+    private String stackFrame() {
+        String className = FRAME_CLASSES[random.nextInt(FRAME_CLASSES.length)];
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return "\tat " + className + ".method" + random.nextInt(20)
+                + "(" + simpleName + ".java:" + (1 + random.nextInt(500)) + ")";
+    }
+
+    private void addStackTrace(List<String> lines) {
+        lines.add("java.lang.IllegalStateException: Unexpected state " + random.nextInt(1000));
+        int frameCount = 5 + random.nextInt(20);
+        for (int i = 0; i < frameCount; i++) {
+            lines.add(stackFrame());
+        }
+    }
+
+    private String nextPlainLine() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return ":" + TASK_NAMES[random.nextInt(TASK_NAMES.length)];
+            case 1:
+                return ":" + TASK_NAMES[random.nextInt(TASK_NAMES.length)] + " UP-TO-DATE";
+            case 2:
+                return "Running test: Test method" + random.nextInt(1000) + "(org.example.p1.Class1Test)";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Returns the given number of output lines (or a few more if the last
+     * generated block is a stack trace).
+     */
+    public List<String> generateLines(int lineCount) {
+        List<String> lines = new ArrayList<>(lineCount + 32);
+        while (lines.size() < lineCount) {
+            int kind = random.nextInt(100);
+            if (kind < 70) {
+                lines.add(nextPlainLine());
+            }
+            else if (kind < 78) {
+                lines.add("Download https://repo1.maven.org/maven2/org/example/library"
+                        + random.nextInt(50) + "/1.0/library.jar");
+            }
+            else if (kind < 88) {
+                lines.add(projectFile(random.nextInt(20)) + ":" + (1 + random.nextInt(200))
+                        + ": error: cannot find symbol");
+            }
+            else if (kind < 90) {
+                lines.add(new File(projectFile(random.nextInt(20))).getPath()
+                        + ":" + (1 + random.nextInt(200)) + ":" + (1 + random.nextInt(80))
+                        + ": warning: [unchecked] unchecked conversion");
+            }
+            else {
+                addStackTrace(lines);
+            }
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    public static String joinLines(List<String> lines, String lineSeparator) {
+        int length = 0;
+        for (String line: lines) {
+            length += line.length() + lineSeparator.length();
+        }
+
+        StringBuilder result = new StringBuilder(length);
+        for (String line: lines) {
+            result.append(line);
+            result.append(lineSeparator);
+        }
+        return result.toString();
+    }
+}
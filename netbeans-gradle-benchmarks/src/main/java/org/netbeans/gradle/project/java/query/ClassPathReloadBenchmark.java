@@ -0,0 +1,230 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reloading the classpaths of every module of a large build, and
+ * counts the change events received by the listeners of the classpaths (each
+ * of which would cause the classpath to be scanned again by the indexer).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ClassPathReloadBenchmark {
+    private static final String[] SOURCE_SET_NAMES = {"main", "test", "integTest"};
+    private static final String[] CLASSPATH_TYPES = {"compile", "runtime", "sources"};
+
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    public enum Reload {
+        /**
+         * The reloaded model is the same as the previous one.
+         */
+        IDENTICAL,
+        /**
+         * A dependency is added to (or removed from) one of the source sets of
+         * one of the modules.
+         */
+        ONE_DEPENDENCY_CHANGED
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"IDENTICAL", "ONE_DEPENDENCY_CHANGED"})
+    public Reload reload;
+
+    @Param({"200"})
+    public int moduleCount;
+
+    @Param({"50"})
+    public int libraryCount;
+
+    private List<ReloadableClassPaths> modules;
+    private List<Map<String, List<PathResourceImplementation>>> originalResources;
+    private List<Map<String, List<PathResourceImplementation>>> changedResources;
+    private boolean changedLoaded;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EventCounts {
+        public long changeEvents;
+        public long reloads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            changeEvents = 0;
+            reloads = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws MalformedURLException {
+        modules = new ArrayList<>(moduleCount);
+        originalResources = new ArrayList<>(moduleCount);
+        changedResources = new ArrayList<>(moduleCount);
+
+        for (int moduleIndex = 0; moduleIndex < moduleCount; moduleIndex++) {
+            Map<String, List<PathResourceImplementation>> original = createResources(moduleIndex, false);
+            boolean changed = reload == Reload.ONE_DEPENDENCY_CHANGED && moduleIndex == 0;
+
+            originalResources.add(original);
+            changedResources.add(createResources(moduleIndex, changed));
+
+            ReloadableClassPaths module = implementation == Implementation.CURRENT
+                    ? new CurrentClassPaths()
+                    : new LegacyClassPaths();
+            module.update(original);
+            modules.add(module);
+        }
+        changedLoaded = false;
+    }
+
+    private Map<String, List<PathResourceImplementation>> createResources(
+            int moduleIndex,
+            boolean addDependency) throws MalformedURLException {
+
+        Map<String, List<PathResourceImplementation>> result = new HashMap<>();
+        for (String sourceSetName: SOURCE_SET_NAMES) {
+            for (String classPathType: CLASSPATH_TYPES) {
+                List<PathResourceImplementation> resources = new ArrayList<>(libraryCount + 1);
+                if ("sources".equals(classPathType)) {
+                    resources.add(ClassPathSupport.createResource(new URL(
+                            "file:/benchmark/module" + moduleIndex + "/src/" + sourceSetName + "/java/")));
+                }
+                else {
+                    for (int libraryIndex = 0; libraryIndex < libraryCount; libraryIndex++) {
+                        resources.add(ClassPathSupport.createResource(new URL(
+                                "jar:file:/benchmark/libs/library" + libraryIndex + "-1.0.jar!/")));
+                    }
+                    if (addDependency && "main".equals(sourceSetName) && "compile".equals(classPathType)) {
+                        resources.add(ClassPathSupport.createResource(new URL(
+                                "jar:file:/benchmark/libs/new-library-1.0.jar!/")));
+                    }
+                }
+                result.put(sourceSetName + ":" + classPathType, resources);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void reloadAllModules(EventCounts counts) {
+        // Alternate between the two models, so that every reload changes the
+        // classpath when a dependency is expected to change.
+        List<Map<String, List<PathResourceImplementation>>> newResources = changedLoaded
+                ? originalResources
+                : changedResources;
+        changedLoaded = !changedLoaded;
+
+        for (int moduleIndex = 0; moduleIndex < moduleCount; moduleIndex++) {
+            counts.changeEvents += modules.get(moduleIndex).update(newResources.get(moduleIndex));
+        }
+        counts.reloads++;
+    }
+
+    private interface ReloadableClassPaths {
+        /**
+         * Updates the classpaths and returns the number of change events
+         * received by the listeners of the classpaths.
+         */
+        public int update(Map<String, List<PathResourceImplementation>> newResources);
+    }
+
+    private static final class CurrentClassPaths implements ReloadableClassPaths {
+        private final ClassPathResources<String> resources;
+        private final EventCounter eventCounter;
+
+        public CurrentClassPaths() {
+            this.resources = new ClassPathResources<>();
+            this.eventCounter = new EventCounter();
+
+            for (String sourceSetName: SOURCE_SET_NAMES) {
+                for (String classPathType: CLASSPATH_TYPES) {
+                    resources.createImplementation(sourceSetName + ":" + classPathType)
+                            .addPropertyChangeListener(eventCounter);
+                }
+            }
+        }
+
+        @Override
+        public int update(Map<String, List<PathResourceImplementation>> newResources) {
+            int prevCount = eventCounter.count;
+            resources.fireChanges(resources.update(newResources));
+            return eventCounter.count - prevCount;
+        }
+    }
+
+    /**
+     * The previous way {@code GradleClassPathProvider} updated its classpaths,
+     * kept for comparison: Every classpath of the project is notified if any
+     * of them changes.
+     */
+    private static final class LegacyClassPaths implements ReloadableClassPaths {
+        private final Map<String, List<PathResourceImplementation>> resources;
+        private final PropertyChangeSupport changes;
+        private final EventCounter eventCounter;
+
+        public LegacyClassPaths() {
+            this.resources = new HashMap<>();
+            this.changes = new PropertyChangeSupport(this);
+            this.eventCounter = new EventCounter();
+
+            for (int i = 0; i < SOURCE_SET_NAMES.length * CLASSPATH_TYPES.length; i++) {
+                changes.addPropertyChangeListener(eventCounter);
+            }
+        }
+
+        @Override
+        public int update(Map<String, List<PathResourceImplementation>> newResources) {
+            Map<String, List<PathResourceImplementation>> snapshot = new HashMap<>(resources);
+            resources.putAll(newResources);
+
+            int prevCount = eventCounter.count;
+            if (!snapshot.equals(new HashMap<>(resources))) {
+                changes.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+            }
+            return eventCounter.count - prevCount;
+        }
+    }
+
+    private static final class EventCounter implements PropertyChangeListener {
+        public int count;
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            count++;
+        }
+    }
+}
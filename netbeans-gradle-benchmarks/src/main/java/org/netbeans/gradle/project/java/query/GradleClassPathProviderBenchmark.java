@@ -0,0 +1,115 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GradleClassPathProviderBenchmark {
+    private static final String[] CLASSPATH_TYPES = {
+        ClassPath.SOURCE,
+        ClassPath.COMPILE,
+        ClassPath.EXECUTE,
+        ClassPath.BOOT
+    };
+
+    @Param({"10"})
+    public int sourceSetCount;
+
+    @Param({"50"})
+    public int filesPerSourceSet;
+
+    private SyntheticBuild build;
+    private GradleClassPathProvider classPathProvider;
+    private List<FileObject> queriedFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, sourceSetCount, filesPerSourceSet);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        JavaExtension javaExt = build.loadJavaExtension(projectDir);
+        classPathProvider = javaExt.getProjectLookup().lookup(GradleClassPathProvider.class);
+
+        queriedFiles = new ArrayList<>();
+        for (Path sourceRoot: build.getSourceRoots(projectDir)) {
+            FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot.toFile());
+            if (sourceRootObj == null) {
+                throw new IOException("Missing source root: " + sourceRoot);
+            }
+
+            for (FileObject child: sourceRootObj.getChildren()) {
+                addFilesRecursively(child, queriedFiles);
+            }
+        }
+
+        for (File library: build.getLibraries()) {
+            FileObject libraryObj = FileUtil.toFileObject(library);
+            if (libraryObj != null) {
+                queriedFiles.add(libraryObj);
+            }
+        }
+
+        // Warm up the lazily created classpaths, so that we do not measure
+        // their initialization.
+        findAllClassPaths(null);
+    }
+
+    private static void addFilesRecursively(FileObject file, List<FileObject> result) {
+        if (file.isFolder()) {
+            for (FileObject child: file.getChildren()) {
+                addFilesRecursively(child, result);
+            }
+        }
+        else {
+            result.add(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    private void findAllClassPaths(Blackhole blackhole) {
+        for (FileObject file: queriedFiles) {
+            for (String type: CLASSPATH_TYPES) {
+                ClassPath classPath = classPathProvider.findClassPath(file, type);
+                if (blackhole != null) {
+                    blackhole.consume(classPath);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void findClassPath(Blackhole blackhole) {
+        findAllClassPaths(blackhole);
+    }
+}
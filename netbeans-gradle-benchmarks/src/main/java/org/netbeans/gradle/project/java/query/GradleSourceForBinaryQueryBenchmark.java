@@ -0,0 +1,153 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.event.ChangeListener;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures calling {@code getRoots()} on the results of every output
+ * directory of a module, like the Java indexer does. The query only looks at
+ * the source sets of the main module of the project, so the model is a module
+ * with lots of source sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GradleSourceForBinaryQueryBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"300"})
+    public int sourceSetCount;
+
+    private SyntheticBuild build;
+    private List<SourceForBinaryQueryImplementation2.Result> results;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, sourceSetCount, 1);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        JavaExtension javaExt = build.loadJavaExtension(projectDir);
+
+        GradleSourceForBinaryQuery query = new GradleSourceForBinaryQuery(javaExt);
+
+        results = new ArrayList<>(sourceSetCount);
+        for (JavaSourceSet sourceSet: javaExt.getCurrentModel().getMainModule().getSources()) {
+            File classesDir = sourceSet.getOutputDirs().getClassesDir();
+            results.add(implementation == Implementation.CURRENT
+                    ? query.tryFindSourceRoot(classesDir)
+                    : new LegacyResult(javaExt, classesDir));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void getRoots(Blackhole blackhole) {
+        for (SourceForBinaryQueryImplementation2.Result result: results) {
+            blackhole.consume(result.getRoots());
+        }
+    }
+
+    /**
+     * The previous implementation of {@code GradleSourceForBinaryQuery}'s
+     * result, kept for comparison.
+     */
+    private static final class LegacyResult implements SourceForBinaryQueryImplementation2.Result {
+        private static final FileObject[] NO_ROOTS = new FileObject[0];
+
+        private final JavaExtension javaExt;
+        private final File binaryRoot;
+
+        public LegacyResult(JavaExtension javaExt, File binaryRoot) {
+            this.javaExt = javaExt;
+            this.binaryRoot = binaryRoot;
+        }
+
+        private static List<File> tryGetSourceRoots(NbJavaModule module, File binaryRoot) {
+            for (JavaSourceSet sourceSet: module.getSources()) {
+                JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
+                if (NbFileUtils.isParentOrSame(outputDirs.getClassesDir(), binaryRoot)) {
+                    List<File> result = new LinkedList<>();
+
+                    for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                        result.addAll(sourceGroup.getSourceRoots());
+                    }
+
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean preferSources() {
+            return getRoots().length > 0;
+        }
+
+        @Override
+        public FileObject[] getRoots() {
+            List<File> srcRoots = tryGetSourceRoots(javaExt.getCurrentModel().getMainModule(), binaryRoot);
+            if (srcRoots == null) {
+                return NO_ROOTS;
+            }
+
+            List<FileObject> result = new ArrayList<>(srcRoots.size());
+            for (File srcRoot: srcRoots) {
+                FileObject rootObj = FileUtil.toFileObject(srcRoot);
+                if (rootObj != null) {
+                    result.add(rootObj);
+                }
+            }
+            return result.toArray(new FileObject[result.size()]);
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener listener) {
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener listener) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.spi.java.queries.MultipleRootsUnitTestForSourceQueryImplementation;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures looking up the tests and the sources of every source file of a
+ * module with many source sets, like navigating between tests and sources
+ * does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GradleUnitTestFinderBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"50"})
+    public int sourceSetCount;
+
+    @Param({"20"})
+    public int filesPerSourceSet;
+
+    private SyntheticBuild build;
+    private MultipleRootsUnitTestForSourceQueryImplementation testFinder;
+    private List<FileObject> queriedFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, sourceSetCount, filesPerSourceSet);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        JavaExtension javaExt = build.loadJavaExtension(projectDir);
+        testFinder = implementation == Implementation.CURRENT
+                ? new GradleUnitTestFinder(javaExt)
+                : new LegacyUnitTestFinder(javaExt);
+
+        queriedFiles = new ArrayList<>();
+        for (Path sourceRoot: build.getSourceRoots(projectDir)) {
+            FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot.toFile());
+            if (sourceRootObj == null) {
+                throw new IOException("Missing source root: " + sourceRoot);
+            }
+            addFilesRecursively(sourceRootObj, queriedFiles);
+        }
+    }
+
+    private static void addFilesRecursively(FileObject file, List<FileObject> result) {
+        if (file.isFolder()) {
+            for (FileObject child: file.getChildren()) {
+                addFilesRecursively(child, result);
+            }
+        }
+        else {
+            result.add(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void findUnitTestsAndSources(Blackhole blackhole) {
+        for (FileObject file: queriedFiles) {
+            blackhole.consume(testFinder.findUnitTests(file));
+            blackhole.consume(testFinder.findSources(file));
+        }
+    }
+
+    /**
+     * The previous implementation of {@code GradleUnitTestFinder}, kept for
+     * comparison.
+     */
+    private static final class LegacyUnitTestFinder implements MultipleRootsUnitTestForSourceQueryImplementation {
+        private final JavaExtension javaExt;
+
+        public LegacyUnitTestFinder(JavaExtension javaExt) {
+            this.javaExt = javaExt;
+        }
+
+        private static boolean hasSource(NbJavaModule module, FileObject source) {
+            for (JavaSourceSet sourceSet: module.getNonTestSourceSets()) {
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                        FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot);
+                        if (sourceRootObj != null && FileUtil.getRelativePath(sourceRootObj, source) != null) {
+                            return true;
+                        }
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private static URL[] urlsFromSourceSets(Collection<JavaSourceSet> sourceSets) {
+            List<URL> result = new LinkedList<>();
+            for (JavaSourceSet sourceSet: sourceSets) {
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                        URL url = FileUtil.urlForArchiveOrDir(sourceRoot);
+                        if (url != null) {
+                            result.add(url);
+                        }
+                    }
+                }
+            }
+
+            return result.toArray(new URL[result.size()]);
+        }
+
+        @Override
+        public URL[] findUnitTests(FileObject source) {
+            NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+            if (hasSource(mainModule, source)) {
+                return urlsFromSourceSets(mainModule.getTestSourceSets());
+            }
+            return null;
+        }
+
+        @Override
+        public URL[] findSources(FileObject unitTest) {
+            NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+            if (!hasSource(mainModule, unitTest)) {
+                return urlsFromSourceSets(mainModule.getNonTestSourceSets());
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.api.property.GradleProperty;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.query.GradleSourceEncodingQuery;
+import org.netbeans.spi.java.queries.SourceLevelQueryImplementation2;
+import org.netbeans.spi.queries.FileEncodingQueryImplementation;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures querying the source level and the encoding of every source file
+ * of a module, like the parser does when the sources of a project are
+ * scanned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PerFileQueryBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"10"})
+    public int sourceSetCount;
+
+    @Param({"200"})
+    public int filesPerSourceSet;
+
+    private SyntheticBuild build;
+    private SourceLevelQueryImplementation2 sourceLevelQuery;
+    private FileEncodingQueryImplementation encodingQuery;
+    private List<FileObject> queriedFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, sourceSetCount, filesPerSourceSet);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        NbGradleProject project = build.loadProject(projectDir);
+        JavaExtension javaExt = build.loadJavaExtension(projectDir);
+
+        if (implementation == Implementation.CURRENT) {
+            sourceLevelQuery = GradleSourceLevelQueryImplementation.create(javaExt);
+            encodingQuery = GradleSourceEncodingQuery.create(project);
+        }
+        else {
+            sourceLevelQuery = new LegacySourceLevelQuery(javaExt);
+            encodingQuery = new LegacySourceEncodingQuery(project);
+        }
+
+        queriedFiles = new ArrayList<>();
+        for (Path sourceRoot: build.getSourceRoots(projectDir)) {
+            FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot.toFile());
+            if (sourceRootObj == null) {
+                throw new IOException("Missing source root: " + sourceRoot);
+            }
+            addFilesRecursively(sourceRootObj, queriedFiles);
+        }
+
+        // The parser listens for the changes of the source level, so do the
+        // same to measure what happens in the IDE.
+        SourceLevelQueryImplementation2.Result result = sourceLevelQuery.getSourceLevel(queriedFiles.get(0));
+        if (result != null) {
+            result.addChangeListener(new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                }
+            });
+        }
+    }
+
+    private static void addFilesRecursively(FileObject file, List<FileObject> result) {
+        if (file.isFolder()) {
+            for (FileObject child: file.getChildren()) {
+                addFilesRecursively(child, result);
+            }
+        }
+        else {
+            result.add(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void querySourceLevel(Blackhole blackhole) {
+        for (FileObject file: queriedFiles) {
+            SourceLevelQueryImplementation2.Result result = sourceLevelQuery.getSourceLevel(file);
+            blackhole.consume(result != null ? result.getSourceLevel() : null);
+        }
+    }
+
+    @Benchmark
+    public void querySourceEncoding(Blackhole blackhole) {
+        for (FileObject file: queriedFiles) {
+            blackhole.consume(encodingQuery.getEncoding(file));
+        }
+    }
+
+    /**
+     * The previous implementation of {@code GradleSourceLevelQueryImplementation},
+     * kept for comparison.
+     */
+    private static final class LegacySourceLevelQuery implements SourceLevelQueryImplementation2 {
+        private final FileObject projectDir;
+        private final Result result;
+
+        public LegacySourceLevelQuery(JavaExtension javaExt) {
+            this.projectDir = javaExt.getProjectDirectory();
+
+            final GradleProperty.SourceLevel sourceLevel
+                    = javaExt.getOwnerProjectLookup().lookup(GradleProperty.SourceLevel.class);
+            this.result = new Result() {
+                @Override
+                public String getSourceLevel() {
+                    return sourceLevel.getValue();
+                }
+
+                @Override
+                public void addChangeListener(ChangeListener l) {
+                }
+
+                @Override
+                public void removeChangeListener(ChangeListener l) {
+                }
+            };
+        }
+
+        @Override
+        public Result getSourceLevel(FileObject javaFile) {
+            Project owner = FileOwnerQuery.getOwner(javaFile);
+            if (owner == null) {
+                return null;
+            }
+
+            return Objects.equals(projectDir, owner.getProjectDirectory())
+                    ? result
+                    : null;
+        }
+    }
+
+    /**
+     * The previous implementation of {@code GradleSourceEncodingQuery}, kept
+     * for comparison.
+     */
+    private static final class LegacySourceEncodingQuery extends FileEncodingQueryImplementation {
+        private final NbGradleProject project;
+
+        public LegacySourceEncodingQuery(NbGradleProject project) {
+            this.project = project;
+        }
+
+        @Override
+        public Charset getEncoding(FileObject file) {
+            Project ownerProject = FileOwnerQuery.getOwner(file);
+            if (ownerProject != null && project.isSameProject(ownerProject)) {
+                return project.getCommonProperties().sourceEncoding().getActiveValue();
+            }
+            else {
+                return null;
+            }
+        }
+    }
+}
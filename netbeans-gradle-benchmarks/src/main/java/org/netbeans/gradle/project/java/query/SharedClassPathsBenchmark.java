@@ -0,0 +1,139 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating the global classpaths of a build with lots of modules
+ * having the same classpath, with and without sharing the {@code ClassPath}
+ * instances between the modules.
+ * <P>
+ * The heap used after each iteration (while the classpaths are still
+ * referenced) is printed to the standard output of the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SharedClassPathsBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"300"})
+    public int moduleCount;
+
+    @Param({"1", "10"})
+    public int distinctClassPathCount;
+
+    @Param({"100"})
+    public int libraryCount;
+
+    private List<List<PathResourceImplementation>> moduleResources;
+    private SharedClassPaths sharedClassPaths;
+    private List<ClassPath> classPaths;
+    private List<SharedClassPaths.ClassPathRef> classPathRefs;
+
+    @Setup
+    public void setup() throws MalformedURLException {
+        // Each module creates its own resources, just like the
+        // GradleClassPathProvider of the module does.
+        moduleResources = new ArrayList<>(moduleCount);
+        for (int moduleIndex = 0; moduleIndex < moduleCount; moduleIndex++) {
+            int classPathIndex = moduleIndex % distinctClassPathCount;
+
+            List<PathResourceImplementation> resources = new ArrayList<>(libraryCount + 1);
+            resources.add(ClassPathSupport.createResource(
+                    new URL("file:/benchmark/classes" + classPathIndex + "/")));
+            for (int libraryIndex = 0; libraryIndex < libraryCount; libraryIndex++) {
+                resources.add(ClassPathSupport.createResource(
+                        new URL("jar:file:/benchmark/libs/library" + libraryIndex + "-1.0.jar!/")));
+            }
+            moduleResources.add(resources);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        sharedClassPaths = new SharedClassPaths();
+        classPaths = new ArrayList<>(moduleCount);
+        classPathRefs = new ArrayList<>(moduleCount);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportHeapUsage() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        long usedKiloBytes = memory.getHeapMemoryUsage().getUsed() / 1024;
+        System.out.println();
+        System.out.println("Used heap: " + usedKiloBytes + " KB, distinct ClassPath instances: "
+                + countDistinct(classPaths));
+
+        for (SharedClassPaths.ClassPathRef classPathRef: classPathRefs) {
+            classPathRef.release();
+        }
+        classPaths = null;
+        classPathRefs = null;
+    }
+
+    private static int countDistinct(List<ClassPath> classPaths) {
+        Set<ClassPath> distinct = Collections.newSetFromMap(new IdentityHashMap<ClassPath, Boolean>());
+        distinct.addAll(classPaths);
+        return distinct.size();
+    }
+
+    @Benchmark
+    public int createClassPaths() {
+        int entryCount = 0;
+        for (List<PathResourceImplementation> resources: moduleResources) {
+            ClassPath classPath;
+            if (implementation == Implementation.CURRENT) {
+                SharedClassPaths.ClassPathRef classPathRef = sharedClassPaths.acquire(resources);
+                classPathRefs.add(classPathRef);
+                classPath = classPathRef.getClassPath();
+            }
+            else {
+                classPath = ClassPathSupport.createClassPath(resources);
+            }
+
+            // The entries are created lazily, like when the indexer first
+            // looks at the classpath.
+            entryCount += classPath.entries().size();
+            classPaths.add(classPath);
+        }
+        return entryCount;
+    }
+}
@@ -0,0 +1,150 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.BenchmarkFiles;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures looking up the {@code -sources.zip} and {@code -javadoc.zip} of
+ * every jar in a directory containing lots of jars, like a flat
+ * {@code libs} directory of a build does. Lookups finding the sibling and
+ * lookups of missing siblings are measured separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SiblingArchiveLookupBenchmark {
+    private static final String SOURCES_SUFFIX = "-sources.zip";
+    private static final String JAVADOC_SUFFIX = "-javadoc.zip";
+
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"2000"})
+    public int jarCount;
+
+    private Path libsDir;
+    private List<FileObject> jarsWithSources;
+    private List<FileObject> jarsWithoutSources;
+
+    @Setup
+    public void setup() throws IOException {
+        libsDir = BenchmarkFiles.createTempDir("libs");
+
+        // Only every second jar has sources, so that the benchmark covers
+        // both found and missing siblings.
+        for (int i = 0; i < jarCount; i++) {
+            String baseName = "lib" + i;
+            BenchmarkFiles.writeEmptyJar(libsDir.resolve(baseName + ".jar"));
+            if (i % 2 == 0) {
+                BenchmarkFiles.writeEmptyJar(libsDir.resolve(baseName + SOURCES_SUFFIX));
+            }
+        }
+
+        FileObject libsDirObj = FileUtil.toFileObject(libsDir.toFile());
+        if (libsDirObj == null) {
+            throw new IOException("Missing directory: " + libsDir);
+        }
+
+        jarsWithSources = new ArrayList<>(jarCount / 2 + 1);
+        jarsWithoutSources = new ArrayList<>(jarCount / 2 + 1);
+        for (FileObject child: libsDirObj.getChildren()) {
+            if ("jar".equals(child.getExt())) {
+                if (libsDirObj.getFileObject(child.getName() + SOURCES_SUFFIX) != null) {
+                    jarsWithSources.add(child);
+                }
+                else {
+                    jarsWithoutSources.add(child);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(libsDir);
+    }
+
+    private FileObject sourcesForJar(FileObject jar) {
+        return implementation == Implementation.CURRENT
+                ? AutoJavaSourceForBinaryQuery.sourceForJar(jar)
+                : legacyArchiveForJar(jar, SOURCES_SUFFIX);
+    }
+
+    private FileObject javadocForJar(FileObject jar) {
+        return implementation == Implementation.CURRENT
+                ? AutoJavaJavadocForBinaryQuery.javadocForJar(jar)
+                : legacyArchiveForJar(jar, JAVADOC_SUFFIX);
+    }
+
+    /**
+     * Looks up the sources of the jars having sources.
+     */
+    @Benchmark
+    public void findExistingSiblingArchives(Blackhole blackhole) {
+        for (FileObject jar: jarsWithSources) {
+            blackhole.consume(sourcesForJar(jar));
+        }
+    }
+
+    /**
+     * Looks up the javadoc of every jar and the sources of the jars without
+     * sources. None of them exist.
+     */
+    @Benchmark
+    public void findMissingSiblingArchives(Blackhole blackhole) {
+        for (FileObject jar: jarsWithoutSources) {
+            blackhole.consume(sourcesForJar(jar));
+        }
+        for (FileObject jar: jarsWithSources) {
+            blackhole.consume(javadocForJar(jar));
+        }
+        for (FileObject jar: jarsWithoutSources) {
+            blackhole.consume(javadocForJar(jar));
+        }
+    }
+
+    /**
+     * The previous implementation of {@code sourceForJar} and
+     * {@code javadocForJar}, kept for comparison.
+     */
+    private static FileObject legacyArchiveForJar(FileObject binaryRoot, String suffix) {
+        String fileName = binaryRoot.getName() + suffix;
+
+        FileObject dir = binaryRoot.getParent();
+        if (dir == null) {
+            return null;
+        }
+
+        FileObject result = dir.getFileObject(fileName);
+        return result != null
+                ? FileUtil.getArchiveRoot(result)
+                : null;
+    }
+}
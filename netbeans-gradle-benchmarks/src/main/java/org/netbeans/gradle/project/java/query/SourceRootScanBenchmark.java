@@ -0,0 +1,137 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.concurrent.TaskExecutorService;
+import org.netbeans.gradle.benchmarks.BenchmarkFiles;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures finding which of the candidate source roots of a project exist,
+ * like {@code GradleProjectSources} does when the project is opened and when
+ * its model is reloaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SourceRootScanBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"1000"})
+    public int candidateRootCount;
+
+    private Path rootDir;
+    private List<File> candidateRoots;
+    private TaskExecutorService checkExecutor;
+    private DirectoryExistenceTracker reloadedTracker;
+
+    @Setup
+    public void setup() throws IOException {
+        rootDir = BenchmarkFiles.createTempDir("source-roots");
+
+        candidateRoots = new ArrayList<>(candidateRootCount);
+        for (int i = 0; i < candidateRootCount; i++) {
+            Path root = rootDir.resolve("module" + (i / 10)).resolve("src").resolve("sourceSet" + i);
+            // About half of the candidate roots exist in a typical project.
+            if (i % 2 == 0) {
+                Files.createDirectories(root);
+            }
+            candidateRoots.add(FileUtil.normalizeFile(root.toFile()));
+        }
+
+        checkExecutor = NbTaskExecutors.newStoppableExecutor(
+                "Source-Root-Scan-Benchmark",
+                NbTaskExecutors.getDefaultThreadCount());
+
+        reloadedTracker = newTracker();
+        reloadedTracker.setDirectories(candidateRoots, false);
+    }
+
+    private DirectoryExistenceTracker newTracker() {
+        return new DirectoryExistenceTracker(checkExecutor, NbTaskExecutors.getDefaultThreadCount(), new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reloadedTracker.setDirectories(Collections.<File>emptyList(), false);
+        checkExecutor.shutdown();
+        BenchmarkFiles.deleteRecursively(rootDir);
+    }
+
+    @Benchmark
+    public void initialScan(Blackhole blackhole) {
+        if (implementation == Implementation.CURRENT) {
+            DirectoryExistenceTracker tracker = newTracker();
+            tracker.setDirectories(candidateRoots, false);
+            consumeRoots(tracker, blackhole);
+            tracker.setDirectories(Collections.<File>emptyList(), false);
+        }
+        else {
+            LegacySourceRootScan.consumeRoots(candidateRoots, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void scanAfterReload(Blackhole blackhole) {
+        if (implementation == Implementation.CURRENT) {
+            reloadedTracker.setDirectories(candidateRoots, false);
+            consumeRoots(reloadedTracker, blackhole);
+        }
+        else {
+            LegacySourceRootScan.consumeRoots(candidateRoots, blackhole);
+        }
+    }
+
+    private void consumeRoots(DirectoryExistenceTracker tracker, Blackhole blackhole) {
+        for (File root: candidateRoots) {
+            blackhole.consume(tracker.tryGetDirectory(root));
+        }
+    }
+
+    /**
+     * The previous way {@code GradleProjectSources} found the existing source
+     * roots, kept for comparison.
+     */
+    private static final class LegacySourceRootScan {
+        public static void consumeRoots(List<File> candidateRoots, Blackhole blackhole) {
+            for (File root: candidateRoots) {
+                FileObject rootObj = root.isDirectory() ? FileUtil.toFileObject(root) : null;
+                blackhole.consume(rootObj);
+            }
+        }
+    }
+}
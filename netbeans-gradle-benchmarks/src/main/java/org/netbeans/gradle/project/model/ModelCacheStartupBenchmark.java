@@ -0,0 +1,87 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading the models of every project of a build from a newly
+ * created persistent cache, as done when the IDE starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ModelCacheStartupBenchmark {
+    public enum StoreType {
+        MULTI_FILE {
+            @Override
+            public PersistentModelCache createCache() {
+                return new MultiFileModelCache();
+            }
+        },
+        SINGLE_FILE {
+            @Override
+            public PersistentModelCache createCache() {
+                return new SingleFileModelCache();
+            }
+        };
+
+        public abstract PersistentModelCache createCache();
+    }
+
+    @Param({"100", "1000"})
+    public int projectCount;
+
+    @Param
+    public StoreType storeType;
+
+    private SyntheticBuild build;
+    private List<NbGradleProject> projects;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(projectCount, 3, 0);
+
+        projects = new ArrayList<>(projectCount);
+        for (Path projectDir: build.getSubprojectDirs()) {
+            projects.add(build.loadProject(projectDir));
+        }
+
+        storeType.createCache().saveGradleModels(build.createGradleModels());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void loadAllModels(Blackhole blackhole) throws IOException {
+        PersistentModelCache cache = storeType.createCache();
+
+        Path rootDir = build.getRootDir();
+        for (NbGradleProject project: projects) {
+            blackhole.consume(cache.tryGetModel(project, rootDir));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MultiFileModelCacheBenchmark {
+    @Param({"50"})
+    public int projectCount;
+
+    private SyntheticBuild build;
+    private List<NbGradleModel> models;
+    private List<NbGradleProject> projects;
+    private MultiFileModelCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(projectCount, 3, 0);
+        models = build.createGradleModels();
+
+        projects = new ArrayList<>(projectCount);
+        for (Path projectDir: build.getSubprojectDirs()) {
+            projects.add(build.loadProject(projectDir));
+        }
+
+        cache = new MultiFileModelCache();
+        cache.saveGradleModels(models);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void saveGradleModels() throws IOException {
+        cache.saveGradleModels(models);
+    }
+
+    @Benchmark
+    public void tryGetModel(Blackhole blackhole) throws IOException {
+        Path rootDir = build.getRootDir();
+        for (NbGradleProject project: projects) {
+            blackhole.consume(cache.tryGetModel(project, rootDir));
+        }
+    }
+}
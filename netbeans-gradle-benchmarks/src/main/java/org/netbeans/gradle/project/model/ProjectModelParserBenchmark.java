@@ -0,0 +1,220 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.jtrim.concurrent.TaskExecutor;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.FetchedBuildModels;
+import org.netbeans.gradle.model.FetchedModels;
+import org.netbeans.gradle.model.FetchedProjectModels;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleMultiProjectDef;
+import org.netbeans.gradle.model.GradleProjectTree;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.project.ConcurrentModelParser;
+import org.netbeans.gradle.project.NbGradleExtensionRef;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.api.entry.GradleProjectExtension2;
+import org.netbeans.gradle.project.api.entry.GradleProjectExtensionDef;
+import org.netbeans.gradle.project.api.entry.ModelLoadResult;
+import org.netbeans.gradle.project.api.entry.ParsedModel;
+import org.openide.util.Lookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing the models fetched for a large multi-project build, with
+ * the extension models of the projects parsed serially or in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProjectModelParserBenchmark {
+    private static final int EXTENSION_COUNT = 5;
+    private static final int PARSE_WORK = 2000;
+
+    private static final TaskExecutor PARALLEL_EXECUTOR
+            = NbTaskExecutors.newExecutor("Parser-Benchmark", NbTaskExecutors.getDefaultThreadCount());
+
+    public enum ParseMode {
+        SERIAL {
+            @Override
+            public TaskExecutor getExecutor() {
+                return SyncTaskExecutor.getSimpleExecutor();
+            }
+        },
+        PARALLEL {
+            @Override
+            public TaskExecutor getExecutor() {
+                return PARALLEL_EXECUTOR;
+            }
+        };
+
+        public abstract TaskExecutor getExecutor();
+    }
+
+    @Param({"500"})
+    public int projectCount;
+
+    @Param
+    public ParseMode parseMode;
+
+    private File rootDir;
+    private FetchedModels fetchedModels;
+    private List<NbGradleExtensionRef> extensions;
+
+    @Setup
+    public void setup() {
+        rootDir = new File("parser-benchmark-root").getAbsoluteFile();
+
+        List<GradleProjectTree> subprojectTrees = new ArrayList<>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            String name = "subproject" + i;
+            subprojectTrees.add(new GradleProjectTree(
+                    new GenericProjectProperties(name, ":" + name, new File(rootDir, name)),
+                    Collections.<GradleTaskID>emptyList(),
+                    Collections.<GradleProjectTree>emptyList()));
+        }
+
+        GradleProjectTree rootTree = new GradleProjectTree(
+                new GenericProjectProperties("root", ":", rootDir),
+                Collections.<GradleTaskID>emptyList(),
+                subprojectTrees);
+
+        List<FetchedProjectModels> otherModels = new ArrayList<>(projectCount);
+        for (GradleProjectTree subprojectTree: subprojectTrees) {
+            otherModels.add(createProjectModels(rootTree, subprojectTree));
+        }
+
+        fetchedModels = new FetchedModels(
+                new FetchedBuildModels(Collections.<Object, List<?>>emptyMap()),
+                createProjectModels(rootTree, rootTree),
+                otherModels);
+
+        extensions = new ArrayList<>(EXTENSION_COUNT);
+        for (int i = 0; i < EXTENSION_COUNT; i++) {
+            extensions.add(new NbGradleExtensionRef(new BenchmarkExtensionDef("bench-ext" + i), new BenchmarkExtension()));
+        }
+    }
+
+    private static FetchedProjectModels createProjectModels(GradleProjectTree rootTree, GradleProjectTree projectTree) {
+        return new FetchedProjectModels(
+                new GradleMultiProjectDef(rootTree, projectTree),
+                Collections.<Object, List<?>>emptyMap(),
+                Collections.<Class<?>, Object>emptyMap(),
+                null);
+    }
+
+    @Benchmark
+    public NbModelLoader.Result parseModels() {
+        Path settingsFile = rootDir.toPath().resolve("settings.gradle");
+        NbGradle18ModelLoader.ProjectModelParser parser = new NbGradle18ModelLoader.ProjectModelParser(
+                null,
+                extensions,
+                SettingsGradleDef.DEFAULT,
+                settingsFile,
+                Collections.<String, List<Class<?>>>emptyMap(),
+                parseMode.getExecutor());
+        return parser.parseModel(fetchedModels);
+    }
+
+    private static final class BenchmarkExtensionDef
+    implements
+            GradleProjectExtensionDef<String>,
+            ConcurrentModelParser {
+
+        private final String name;
+
+        public BenchmarkExtensionDef(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return name;
+        }
+
+        @Override
+        public Lookup getLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public Class<String> getModelType() {
+            return String.class;
+        }
+
+        @Override
+        public ParsedModel<String> parseModel(ModelLoadResult retrievedModels) {
+            GenericProjectProperties properties
+                    = retrievedModels.getMainProjectModels().lookup(GenericProjectProperties.class);
+
+            // Simulates the work of an extension processing the models of a
+            // project.
+            String projectName = properties.getProjectName();
+            int hash = 0;
+            for (int i = 0; i < PARSE_WORK; i++) {
+                hash = 31 * hash + projectName.charAt(i % projectName.length());
+            }
+            return new ParsedModel<>(projectName + hash);
+        }
+
+        @Override
+        public GradleProjectExtension2<String> createExtension(Project project) {
+            return new BenchmarkExtension();
+        }
+
+        @Override
+        public Set<String> getSuppressedExtensions() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static final class BenchmarkExtension implements GradleProjectExtension2<String> {
+        @Override
+        public Lookup getPermanentProjectLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public Lookup getProjectLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public Lookup getExtensionLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public void activateExtension(String parsedModel) {
+        }
+
+        @Override
+        public void deactivateExtension() {
+        }
+    }
+}
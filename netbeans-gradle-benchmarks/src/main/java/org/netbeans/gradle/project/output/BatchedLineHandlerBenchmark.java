@@ -0,0 +1,156 @@
+package org.netbeans.gradle.project.output;
+
+import java.awt.EventQueue;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures forwarding one million lines to a simulated output window which
+ * does some work on the EDT each time it is flushed (like the output window
+ * updating its view). The lines are flushed one by one, like the Tooling API
+ * does.
+ * <P>
+ * The time spent on the EDT in each iteration is printed to the standard
+ * output of the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BatchedLineHandlerBenchmark {
+    private static final int DISTINCT_LINE_COUNT = 10000;
+
+    public enum Implementation {
+        DIRECT,
+        BATCHED
+    }
+
+    @Param({"DIRECT", "BATCHED"})
+    public Implementation implementation;
+
+    @Param({"1000000"})
+    public int lineCount;
+
+    /**
+     * The amount of work done on the EDT for each flush, in
+     * {@code Blackhole.consumeCPU} tokens.
+     */
+    @Param({"1000"})
+    public int updateCost;
+
+    private List<String> lines;
+    private SimulatedOutputWindow outputWindow;
+
+    @Setup
+    public void setup() {
+        lines = new SyntheticOutput(42, Paths.get("benchmark-project")).generateLines(DISTINCT_LINE_COUNT);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        outputWindow = new SimulatedOutputWindow(updateCost);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportEdtTime() throws InterruptedException, InvocationTargetException {
+        // Wait for the pending updates.
+        EventQueue.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        System.out.println();
+        System.out.println("EDT time: " + TimeUnit.NANOSECONDS.toMillis(outputWindow.getEdtNanos()) + " ms"
+                + ", updates: " + outputWindow.getUpdateCount());
+    }
+
+    @Benchmark
+    public long forwardOutput() throws IOException {
+        BatchedLineHandler batchedHandler = implementation == Implementation.BATCHED
+                ? new BatchedLineHandler(outputWindow)
+                : null;
+        LineOutputWriter.Handler handler = batchedHandler != null ? batchedHandler : outputWindow;
+
+        try (Writer writer = new LineOutputWriter(handler)) {
+            for (int i = 0; i < lineCount; i++) {
+                writer.write(lines.get(i % DISTINCT_LINE_COUNT));
+                writer.write('\n');
+                writer.flush();
+            }
+        } finally {
+            if (batchedHandler != null) {
+                batchedHandler.close();
+            }
+        }
+        return outputWindow.getCharCount();
+    }
+
+    private static final class SimulatedOutputWindow implements LineOutputWriter.Handler {
+        private final int updateCost;
+        private final AtomicLong charCount;
+        private final AtomicLong updateCount;
+        private final AtomicLong edtNanos;
+        private final Runnable updateTask;
+
+        public SimulatedOutputWindow(final int updateCost) {
+            this.updateCost = updateCost;
+            this.charCount = new AtomicLong(0);
+            this.updateCount = new AtomicLong(0);
+            this.edtNanos = new AtomicLong(0);
+            this.updateTask = new Runnable() {
+                @Override
+                public void run() {
+                    long startTime = System.nanoTime();
+                    Blackhole.consumeCPU(SimulatedOutputWindow.this.updateCost);
+                    edtNanos.addAndGet(System.nanoTime() - startTime);
+                }
+            };
+        }
+
+        public long getCharCount() {
+            return charCount.get();
+        }
+
+        public long getUpdateCount() {
+            return updateCount.get();
+        }
+
+        public long getEdtNanos() {
+            return edtNanos.get();
+        }
+
+        @Override
+        public void writeLine(String line) throws IOException {
+            charCount.addAndGet(line.length() + 1);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            updateCount.incrementAndGet();
+            EventQueue.invokeLater(updateTask);
+        }
+    }
+}
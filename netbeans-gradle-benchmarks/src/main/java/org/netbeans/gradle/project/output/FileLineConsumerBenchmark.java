@@ -0,0 +1,161 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures finding links in the output of a failed compilation, printing
+ * 50,000 diagnostics for the same few source files. A new consumer is created
+ * for each invocation (like for each task execution).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FileLineConsumerBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"50000"})
+    public int diagnosticCount;
+
+    private SyntheticBuild build;
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, 1, 20);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        SyntheticOutput output = new SyntheticOutput(42, projectDir);
+
+        lines = new ArrayList<>(diagnosticCount);
+        while (lines.size() < diagnosticCount) {
+            for (String line: output.generateLines(10000)) {
+                if (lines.size() < diagnosticCount
+                        && (line.contains(": error: ") || line.contains(": warning: "))) {
+                    lines.add(line);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    private OutputLinkFinder createConsumer() {
+        switch (implementation) {
+            case CURRENT:
+                return new FileLineConsumer();
+            case LEGACY:
+                return new LegacyFileLineConsumer();
+            default:
+                throw new AssertionError(implementation.name());
+        }
+    }
+
+    @Benchmark
+    public void tryFindLink(Blackhole blackhole) {
+        OutputLinkFinder consumer = createConsumer();
+        for (String line: lines) {
+            blackhole.consume(consumer.tryFindLink(line));
+        }
+    }
+
+    /**
+     * The previous implementation of {@code FileLineConsumer}, kept for comparison.
+     * Unlike the original, this returns the link found for the first colon,
+     * so that it does the same amount of work as when it was working
+     * correctly.
+     */
+    private static final class LegacyFileLineConsumer implements OutputLinkFinder {
+        private static int trimEndIndex(String str, int endIndex) {
+            for (int i = endIndex - 1; i >= 0; i--) {
+                if (str.charAt(i) > ' ') {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+
+        private static OutputLinkDef tryFindLink(String line, File file, int otherInfoStartIndex) {
+            String otherInfo = line.substring(otherInfoStartIndex, line.length());
+            int endIndex = otherInfoStartIndex - 1;
+
+            int lineIndexSep = otherInfo.indexOf(':');
+            int lineNumber = -1;
+            if (lineIndexSep > 0) {
+                try {
+                    lineNumber = Integer.parseInt(otherInfo.substring(0, lineIndexSep).trim());
+                    endIndex = otherInfoStartIndex + lineIndexSep;
+                } catch (NumberFormatException ex) {
+                }
+            }
+
+            Runnable listener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
+            if (listener == null) {
+                return null;
+            }
+
+            return new OutputLinkDef(0, trimEndIndex(line, endIndex), listener);
+        }
+
+        private OutputLinkDef tryFindLink(String line, int sepIndex) {
+            String fileStr = line.substring(0, sepIndex).trim();
+            File file = new File(fileStr);
+            if (file.isFile()) {
+                return tryFindLink(line, file, sepIndex + 1);
+            }
+            else {
+                return null;
+            }
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            int sepIndex = line.indexOf(':');
+            if (sepIndex < 0) {
+                return null;
+            }
+
+            OutputLinkDef result = tryFindLink(line, sepIndex);
+            if (result == null) {
+                sepIndex = line.indexOf(':', sepIndex + 1);
+                if (sepIndex < 0) {
+                    return null;
+                }
+
+                return tryFindLink(line, sepIndex);
+            }
+            return result;
+        }
+    }
+}
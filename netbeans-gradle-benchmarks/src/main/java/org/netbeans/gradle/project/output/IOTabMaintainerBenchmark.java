@@ -0,0 +1,326 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.util.Exceptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures requesting and releasing output tabs from multiple threads while
+ * hundreds of tabs are open, compared to the previous implementation checking every open tab on each
+ * request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class IOTabMaintainerBenchmark {
+    private static final int KEY_COUNT = 50;
+
+    public enum Implementation {
+        CURRENT {
+            @Override
+            public TabSource<Integer, BenchmarkTab> createMaintainer(IOTabFactory<BenchmarkTab> factory) {
+                final IOTabMaintainer<Integer, BenchmarkTab> maintainer = new IOTabMaintainer<>(factory);
+                return new TabSource<Integer, BenchmarkTab>() {
+                    @Override
+                    public IOTabRef<BenchmarkTab> getTab(Integer key, String caption) {
+                        return maintainer.getTab(key, caption);
+                    }
+                };
+            }
+        },
+        LEGACY {
+            @Override
+            public TabSource<Integer, BenchmarkTab> createMaintainer(IOTabFactory<BenchmarkTab> factory) {
+                return new LegacyIOTabMaintainer<>(factory);
+            }
+        };
+
+        public abstract TabSource<Integer, BenchmarkTab> createMaintainer(IOTabFactory<BenchmarkTab> factory);
+    }
+
+    @Param({"100", "500"})
+    public int tabCount;
+
+    @Param
+    public Implementation implementation;
+
+    private TabSource<Integer, BenchmarkTab> maintainer;
+
+    @Setup
+    public void setup() throws IOException {
+        maintainer = implementation.createMaintainer(new IOTabFactory<BenchmarkTab>() {
+            @Override
+            public BenchmarkTab create(String caption) {
+                return new BenchmarkTab();
+            }
+        });
+
+        List<IOTabRef<BenchmarkTab>> tabRefs = new ArrayList<>(tabCount);
+        for (int i = 0; i < tabCount; i++) {
+            tabRefs.add(maintainer.getTab(i % KEY_COUNT, "Task " + (i % KEY_COUNT)));
+        }
+
+        for (IOTabRef<BenchmarkTab> tabRef: tabRefs) {
+            tabRef.close();
+        }
+    }
+
+    @Benchmark
+    public Object getAndReleaseTab() throws IOException {
+        int key = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+        try (IOTabRef<BenchmarkTab> tabRef = maintainer.getTab(key, "Task " + key)) {
+            return tabRef.getTab();
+        }
+    }
+
+    private interface TabSource<TabKey, IOTab> {
+        public IOTabRef<IOTab> getTab(TabKey key, String caption);
+    }
+
+    private static final class BenchmarkTab implements IOTabDef {
+        @Override
+        public boolean isDestroyed() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * The previous implementation of {@code IOTabMaintainer}, kept for comparison.
+     */
+    private static final class LegacyIOTabMaintainer<TabKey, IOTab extends IOTabDef>
+    implements
+            TabSource<TabKey, IOTab> {
+        private final Lock mainLock;
+        private final IOTabFactory<? extends IOTab> factory;
+        private final Map<TabKey, List<CountedTab<IOTab>>> currentTabs;
+        private final KeyCounter<TabKey> tabIndexes;
+
+        public LegacyIOTabMaintainer(IOTabFactory<? extends IOTab> factory) {
+            ExceptionHelper.checkNotNullArgument(factory, "factory");
+
+            this.mainLock = new ReentrantLock();
+            this.currentTabs = new HashMap<>();
+            this.factory = factory;
+            this.tabIndexes = new KeyCounter<>();
+        }
+
+        private CountedTab<IOTab> tryGetAvailable(TabKey key) {
+            CountedTab<IOTab> result;
+
+            do {
+                mainLock.lock();
+                try {
+                    List<CountedTab<IOTab>> list = currentTabs.get(key);
+                    if (list == null) {
+                        return null;
+                    }
+
+                    result = null;
+                    for (CountedTab<IOTab> tab: list) {
+                        if (result == null || tab.index < result.index) {
+                            result = tab;
+                        }
+                    }
+
+                    // Should never happen in the current implementation because
+                    // empty lists are removed and the list does not contain
+                    // null elements.
+                    if (result == null) {
+                        return null;
+                    }
+
+                    list.remove(result);
+                    if (list.isEmpty()) {
+                        currentTabs.remove(key);
+                    }
+                } finally {
+                    mainLock.unlock();
+                }
+            } while (result.isClosed());
+
+            return result;
+        }
+
+        private Set<CountedTab<IOTab>> getTabsToClose() {
+            List<CountedTab<IOTab>> allTabs = new LinkedList<>();
+
+            mainLock.lock();
+            try {
+                for (List<CountedTab<IOTab>> tabs: currentTabs.values()) {
+                    allTabs.addAll(tabs);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            Set<CountedTab<IOTab>> result = new HashSet<>();
+            for (CountedTab<IOTab> tab: allTabs) {
+                if (tab.isClosed()) {
+                    result.add(tab);
+                }
+            }
+            return result;
+        }
+
+        private void cleanupTabs() {
+            Set<CountedTab<IOTab>> toClose = getTabsToClose();
+            if (toClose.isEmpty()) {
+                return;
+            }
+
+            mainLock.lock();
+            try {
+                for (List<CountedTab<IOTab>> tabs: currentTabs.values()) {
+                    Iterator<CountedTab<IOTab>> tabsItr = tabs.iterator();
+                    while (tabsItr.hasNext()) {
+                        CountedTab<IOTab> tab = tabsItr.next();
+                        if (toClose.contains(tab)) {
+                            tabsItr.remove();
+                        }
+                    }
+                }
+
+                Iterator<Map.Entry<TabKey, List<CountedTab<IOTab>>>> entryItr
+                        = currentTabs.entrySet().iterator();
+
+                while (entryItr.hasNext()) {
+                    Map.Entry<TabKey, List<CountedTab<IOTab>>> entry = entryItr.next();
+                    if (entry.getValue().isEmpty()) {
+                        entryItr.remove();
+                    }
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        private CountedTab<IOTab> newTabWithContext(TabKey key, String caption) {
+            int index = tabIndexes.incAndGet(key);
+            try {
+                String captionWithIndex = index == 1
+                        ? caption
+                        : caption + " #" + index;
+                IOTab tab = factory.create(captionWithIndex);
+                return new CountedTab<>(index, tab);
+            } catch (Throwable ex) {
+                tabIndexes.decAndGet(key);
+                throw Exceptions.throwUnchecked(ex);
+            }
+        }
+
+        public IOTabRef<IOTab> getNewTab(TabKey key, String caption) {
+            ExceptionHelper.checkNotNullArgument(key, "key");
+            ExceptionHelper.checkNotNullArgument(caption, "caption");
+
+            CountedTab<IOTab> result = newTabWithContext(key, caption);
+            return new IOTabRefImpl(key, result);
+        }
+
+        @Override
+        public IOTabRef<IOTab> getTab(TabKey key, String caption) {
+            ExceptionHelper.checkNotNullArgument(key, "key");
+            ExceptionHelper.checkNotNullArgument(caption, "caption");
+
+            cleanupTabs();
+
+            CountedTab<IOTab> result = tryGetAvailable(key);
+            if (result == null) {
+                result = newTabWithContext(key, caption);
+            }
+            else {
+                tabIndexes.incAndGet(key);
+            }
+
+            return new IOTabRefImpl(key, result);
+        }
+
+        private class IOTabRefImpl implements IOTabRef<IOTab> {
+            private final TabKey key;
+            private final CountedTab<IOTab> tab;
+            private final AtomicBoolean closed;
+
+            public IOTabRefImpl(TabKey key, CountedTab<IOTab> tab) {
+                this.key = key;
+                this.tab = tab;
+                this.closed = new AtomicBoolean(false);
+            }
+
+            @Override
+            public IOTab getTab() {
+                return tab.tab;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed.compareAndSet(false, true)) {
+                    return;
+                }
+
+                tabIndexes.decAndGet(key);
+
+                mainLock.lock();
+                try {
+                    List<CountedTab<IOTab>> tabList = currentTabs.get(key);
+                    if (tabList == null) {
+                        tabList = new LinkedList<>();
+                        currentTabs.put(key, tabList);
+                    }
+                    tabList.add(tab);
+                } finally {
+                    mainLock.unlock();
+
+                    // Fixes memory leak: #256355 (netbeans.org/bugzilla)
+                    // Also, removes the boldness from the caption of the output tab.
+                    getTab().close();
+                }
+            }
+        }
+
+        private static final class CountedTab<IOTab extends IOTabDef> {
+            public final int index;
+            public final IOTab tab;
+
+            public CountedTab(int index, IOTab tab) {
+                this.index = index;
+                this.tab = tab;
+            }
+
+            public boolean isClosed() {
+                return tab.isDestroyed();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.DiscardingOutputWriter;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the processing of the output of a Gradle task through the same
+ * chain of writers and consumers as {@code AsyncGradleTask} configures for
+ * the output window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OutputProcessingBenchmark {
+    private static final int WRITE_CHUNK_SIZE = 8 * 1024;
+
+    @Param({"10000"})
+    public int lineCount;
+
+    private SyntheticBuild build;
+    private NbGradleProject project;
+    private char[] output;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, 1, 20);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        project = build.loadProject(projectDir);
+
+        List<String> lines = new SyntheticOutput(42, projectDir).generateLines(lineCount);
+        output = SyntheticOutput.joinLines(lines, "\n").toCharArray();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    private void writeAll(Writer writer) throws IOException {
+        for (int offset = 0; offset < output.length; offset += WRITE_CHUNK_SIZE) {
+            writer.write(output, offset, Math.min(WRITE_CHUNK_SIZE, output.length - offset));
+        }
+        writer.close();
+    }
+
+    private SmartOutputHandler createStdErrHandler(DiscardingOutputWriter outputWriter) {
+        List<SmartOutputHandler.Consumer> consumers = Arrays.<SmartOutputHandler.Consumer>asList(
+                new BuildErrorConsumer(),
+                new OutputLinkPrinter(
+                        new StackTraceConsumer(project),
+                        new OutputUrlConsumer(),
+                        new ProjectFileConsumer(project),
+                        new FileLineConsumer()));
+
+        return new SmartOutputHandler(
+                InputOutput.NULL,
+                outputWriter,
+                Collections.<TaskOutputProcessor>emptyList(),
+                consumers);
+    }
+
+    @Benchmark
+    public int lineOutputWriter() throws IOException {
+        final int[] lineCounter = new int[1];
+        writeAll(new LineOutputWriter(new LineOutputWriter.Handler() {
+            @Override
+            public void writeLine(String line) {
+                lineCounter[0]++;
+            }
+
+            @Override
+            public void flush() {
+            }
+        }));
+        return lineCounter[0];
+    }
+
+    @Benchmark
+    public long smartOutputHandler() throws IOException {
+        DiscardingOutputWriter outputWriter = new DiscardingOutputWriter();
+        writeAll(new LineOutputWriter(createStdErrHandler(outputWriter)));
+        return outputWriter.getWrittenCharCount();
+    }
+}
@@ -0,0 +1,154 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures printing the output of a task with 5 million lines to a simulated
+ * output tab which keeps every printed character in memory (like the output
+ * window does), with and without limiting the number of lines in the tab.
+ * <P>
+ * The heap used after each iteration (while the tab is still referenced) is
+ * printed to the standard output of the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class OutputRetentionBenchmark {
+    private static final int DISTINCT_LINE_COUNT = 10000;
+
+    @Param({"5000000"})
+    public int lineCount;
+
+    /**
+     * The maximum number of lines in the tab, 0 means unlimited.
+     */
+    @Param({"0", "200000"})
+    public int maxLineCount;
+
+    private List<String> lines;
+    private TabOutputWriter tab;
+
+    @Setup
+    public void setup() {
+        lines = new SyntheticOutput(42, Paths.get("benchmark-project")).generateLines(DISTINCT_LINE_COUNT);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        tab = new TabOutputWriter();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportHeapUsage() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        long usedMegaBytes = memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+        System.out.println();
+        System.out.println("Used heap: " + usedMegaBytes + " MB, characters in the tab: " + tab.getCharCount());
+        tab = null;
+    }
+
+    @Benchmark
+    public long printOutput() throws IOException {
+        OutputRetention retention = maxLineCount > 0
+                ? OutputRetention.createTempRetention(tab, maxLineCount)
+                : null;
+        try {
+            List<SmartOutputHandler.Consumer> consumers = Arrays.<SmartOutputHandler.Consumer>asList(
+                    new OutputLinkPrinter(new OutputUrlConsumer()));
+
+            SmartOutputHandler.Builder builder = new SmartOutputHandler.Builder(
+                    InputOutput.NULL,
+                    tab,
+                    Collections.<TaskOutputProcessor>emptyList(),
+                    consumers);
+            builder.setRetention(retention);
+            SmartOutputHandler handler = builder.create();
+
+            for (int i = 0; i < lineCount; i++) {
+                handler.writeLine(lines.get(i % DISTINCT_LINE_COUNT));
+            }
+            handler.flush();
+        } finally {
+            if (retention != null) {
+                retention.close();
+            }
+        }
+        return tab.getCharCount();
+    }
+
+    /**
+     * Keeps everything printed to it in memory until reset, similar to the
+     * output window.
+     */
+    private static final class TabOutputWriter extends OutputWriter {
+        private final StringWriter content;
+        private final List<OutputListener> listeners;
+
+        public TabOutputWriter() {
+            this(new StringWriter());
+        }
+
+        private TabOutputWriter(StringWriter content) {
+            super(content);
+            this.content = content;
+            this.listeners = new ArrayList<>();
+        }
+
+        public long getCharCount() {
+            flush();
+            return content.getBuffer().length();
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+            listeners.add(l);
+            println(s);
+        }
+
+        @Override
+        public void reset() throws IOException {
+            flush();
+            content.getBuffer().setLength(0);
+            content.getBuffer().trimToSize();
+
+            for (OutputListener listener: listeners) {
+                listener.outputLineCleared(null);
+            }
+            listeners.clear();
+        }
+    }
+}
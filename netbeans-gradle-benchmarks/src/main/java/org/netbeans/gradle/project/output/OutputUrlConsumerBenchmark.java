@@ -0,0 +1,131 @@
+package org.netbeans.gradle.project.output;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures finding URLs in task output, where only a part of the lines contain
+ * a URL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OutputUrlConsumerBenchmark {
+    private static final String[] URL_LINES = {
+        "Download https://repo1.maven.org/maven2/org/slf4j/slf4j-api/1.7.12/slf4j-api-1.7.12.jar",
+        "See the report at: file:///home/user/project/build/reports/tests/index.html",
+        "Documentation (see https://docs.gradle.org/current/userguide/java_plugin.html).",
+        "Search https://example.org/search?q=gradle&page=2, then http://example.org/next"
+    };
+
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"1000"})
+    public int lineCount;
+
+    private OutputLinkFinder finder;
+    private List<String> lines;
+
+    @Setup
+    public void setup() {
+        switch (implementation) {
+            case CURRENT:
+                finder = new OutputUrlConsumer();
+                break;
+            case LEGACY:
+                finder = new LegacyOutputUrlConsumer();
+                break;
+            default:
+                throw new AssertionError(implementation.name());
+        }
+
+        List<String> outputLines = new SyntheticOutput(42, Paths.get("benchmark-project")).generateLines(lineCount);
+        lines = new ArrayList<>(outputLines.size());
+        for (int i = 0; i < outputLines.size(); i++) {
+            lines.add(i % 10 == 0
+                    ? URL_LINES[(i / 10) % URL_LINES.length]
+                    : outputLines.get(i));
+        }
+    }
+
+    @Benchmark
+    public void tryFindLink(Blackhole blackhole) {
+        for (String line: lines) {
+            blackhole.consume(finder.tryFindLink(line));
+        }
+    }
+
+    /**
+     * The previous implementation of {@code OutputUrlConsumer}, kept for comparison.
+     */
+    private static final class LegacyOutputUrlConsumer implements OutputLinkFinder {
+        private static final String[] URL_PREFIXES = new String[]{
+            "http://",
+            "https://",
+            "file://"
+        };
+
+        private static OutputLinkDef tryGetUrlWithPrefix(String prefix, String line) {
+            int startIndex = line.indexOf(prefix);
+            if (startIndex < 0) {
+                return null;
+            }
+
+            int lineLength = line.length();
+            int endIndex = lineLength;
+            for (int i = startIndex + prefix.length(); i < lineLength; i++) {
+                if (line.charAt(i) <= ' ') {
+                    endIndex = i;
+                    break;
+                }
+            }
+
+            URL url;
+            try {
+                url = new URL(StringUtils.stripSeperatorsFromEnd(line.substring(startIndex, endIndex)));
+            } catch (MalformedURLException ex) {
+                return null;
+            }
+
+            return new OutputLinkDef(startIndex, endIndex, OutputUrlConsumer.getUrlOpenTask(url));
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            for (String prefix: URL_PREFIXES) {
+                OutputLinkDef result = tryGetUrlWithPrefix(prefix, line);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+}
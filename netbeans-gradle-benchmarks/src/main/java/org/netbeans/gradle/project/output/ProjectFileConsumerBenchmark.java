@@ -0,0 +1,224 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Utilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@code ProjectFileConsumer} on the output of a
+ * build, compared to the previous implementation copying every line and
+ * checking the file system for every file path found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProjectFileConsumerBenchmark {
+    public enum Implementation {
+        CURRENT {
+            @Override
+            public OutputLinkFinder createFinder(NbGradleProject project) {
+                return new ProjectFileConsumer(project);
+            }
+        },
+        LEGACY {
+            @Override
+            public OutputLinkFinder createFinder(NbGradleProject project) {
+                return new LegacyProjectFileConsumer(project);
+            }
+        };
+
+        public abstract OutputLinkFinder createFinder(NbGradleProject project);
+    }
+
+    @Param({"10000"})
+    public int lineCount;
+
+    @Param
+    public Implementation implementation;
+
+    private SyntheticBuild build;
+    private NbGradleProject project;
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, 1, 20);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        project = build.loadProject(projectDir);
+        lines = new SyntheticOutput(42, projectDir).generateLines(lineCount);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public int findLinks() {
+        // A new finder is created for each task, so the cache of the
+        // current implementation starts empty in each run.
+        OutputLinkFinder finder = implementation.createFinder(project);
+
+        int linkCount = 0;
+        for (String line: lines) {
+            if (finder.tryFindLink(line) != null) {
+                linkCount++;
+            }
+        }
+        return linkCount;
+    }
+
+    /**
+     * The previous implementation of {@code ProjectFileConsumer}, kept for
+     * comparison.
+     */
+    private static final class LegacyProjectFileConsumer implements OutputLinkFinder {
+        private final String normalizedPath;
+
+        public LegacyProjectFileConsumer(NbGradleProject project) {
+            FileObject projectDirectory = project.getProjectDirectory();
+            normalizedPath = projectDirectory.getPath().toLowerCase(Locale.ROOT);
+        }
+
+        private static boolean isLineSeparator(char ch) {
+            return ch <= ' ' || ch == ':' || ch == ';';
+        }
+
+        private static int tryFindEndLineIndex(String line, int startIndex) {
+            int lineLength = line.length();
+            int actualStartIndex = startIndex;
+            for (; actualStartIndex < lineLength; actualStartIndex++) {
+                if (line.charAt(actualStartIndex) > ' ') {
+                    break;
+                }
+            }
+
+            if (actualStartIndex >= lineLength) {
+                return -1;
+            }
+
+            for (int i = actualStartIndex; i < lineLength; i++) {
+                char ch = line.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return i;
+                }
+            }
+            return lineLength;
+        }
+
+        private static ParsedIntDef tryReadNumber(String line, int startIndex) {
+            int endOfNumberIndex = tryFindEndLineIndex(line, startIndex);
+            if (endOfNumberIndex <= startIndex) {
+                return null;
+            }
+
+            String intStr = line.substring(startIndex, endOfNumberIndex);
+
+            try {
+                return new ParsedIntDef(Integer.parseInt(intStr.trim()), intStr.length());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            String normalizedLine = line.replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
+            int startIndex = normalizedLine.indexOf(normalizedPath);
+            if (startIndex < 0) {
+                return null;
+            }
+
+            int endPathIndex = normalizedLine.lastIndexOf('/');
+            if (endPathIndex < 0) {
+                // I don't think that this is possible but just in case it happens.
+                return null;
+            }
+
+            int lineLength = line.length();
+            int endIndex = lineLength;
+            for (int i = endPathIndex + 1; i < lineLength; i++) {
+                if (isLineSeparator(line.charAt(i))) {
+                    endIndex = i;
+                    break;
+                }
+            }
+
+            ParsedIntDef lineNumberDef = tryReadNumber(line, endIndex + 1);
+
+            int completeLinkEndIndex = endIndex;
+            int lineNumber = -1;
+            if (lineNumberDef != null) {
+                completeLinkEndIndex = endIndex + 1 + lineNumberDef.strLength;
+                lineNumber = lineNumberDef.value;
+            }
+            if (lineNumber < 0) {
+                lineNumber = -1;
+            }
+
+            String unstrippedFileStr = line.substring(startIndex, endIndex);
+            String fileStr = StringUtils.stripSeperatorsFromEnd(unstrippedFileStr);
+            completeLinkEndIndex = completeLinkEndIndex - (unstrippedFileStr.length() - fileStr.length());
+
+            File file = new File(fileStr);
+            if (!file.isFile()) {
+                return null;
+            }
+
+            Runnable outputListener = null;
+            if (ProjectFileConsumer.isBrowserFile(fileStr)) {
+                try {
+                    URL url = Utilities.toURI(file).toURL();
+                    outputListener = OutputUrlConsumer.getUrlOpenTask(url);
+                } catch (MalformedURLException ex) {
+                }
+            }
+
+            if (outputListener == null) {
+                outputListener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
+                if (outputListener == null) {
+                    return null;
+                }
+            }
+
+            return new OutputLinkDef(startIndex, completeLinkEndIndex, outputListener);
+        }
+
+        private static final class ParsedIntDef {
+            public final int value;
+            public final int strLength;
+
+            public ParsedIntDef(int value, int strLength) {
+                this.value = value;
+                this.strLength = strLength;
+            }
+        }
+    }
+}
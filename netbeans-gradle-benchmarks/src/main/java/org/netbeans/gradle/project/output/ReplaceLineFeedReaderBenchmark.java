@@ -0,0 +1,217 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a multi-megabyte input while replacing its line feeds with
+ * CRLF, using different read buffer sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReplaceLineFeedReaderBenchmark {
+    public enum Implementation {
+        CURRENT {
+            @Override
+            public Reader createReader(Reader src, String newLineSeparator) {
+                return new ReplaceLineFeedReader(src, newLineSeparator);
+            }
+        },
+        LEGACY {
+            @Override
+            public Reader createReader(Reader src, String newLineSeparator) {
+                return new LegacyReplaceLineFeedReader(src, newLineSeparator);
+            }
+        };
+
+        public abstract Reader createReader(Reader src, String newLineSeparator);
+    }
+
+    @Param({"4194304"})
+    public int inputSize;
+
+    @Param({"64", "8192", "1048576"})
+    public int readBufferSize;
+
+    @Param
+    public Implementation implementation;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        StringBuilder result = new StringBuilder(inputSize + 1024);
+        SyntheticOutput output = new SyntheticOutput(42, Paths.get("benchmark-project"));
+        while (result.length() < inputSize) {
+            List<String> lines = output.generateLines(1000);
+            result.append(SyntheticOutput.joinLines(lines, "\n"));
+        }
+        result.setLength(inputSize);
+        input = result.toString();
+    }
+
+    @Benchmark
+    public long readAll() throws IOException {
+        char[] buffer = new char[readBufferSize];
+        long result = 0;
+        try (Reader reader = implementation.createReader(new StringReader(input), "\r\n")) {
+            int readCount = reader.read(buffer);
+            while (readCount >= 0) {
+                result += readCount;
+                readCount = reader.read(buffer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The previous implementation of {@code ReplaceLineFeedReader}, kept for comparison.
+     */
+    private static final class LegacyReplaceLineFeedReader extends Reader {
+        private final Reader src;
+        private final LfReplacingBuffer buffer;
+        private final Lock bufferLock;
+
+        public LegacyReplaceLineFeedReader(Reader src, String newLineSeparator) {
+            this.src = src;
+            this.buffer = new LfReplacingBuffer(newLineSeparator);
+            this.bufferLock = new ReentrantLock();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            // It is possible to optimize this method much more but there is
+            // no practical reason to do so.
+
+            int readCount = src.read(cbuf, off, len);
+
+            bufferLock.lock();
+            try {
+                if (readCount > 0) {
+                    buffer.appendChars(cbuf, off, readCount);
+                }
+
+                if (buffer.getCharCount() <= 0) {
+                    assert readCount <= 0;
+                    return readCount;
+                }
+
+                return buffer.moveFirstTo(cbuf, off, len);
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            src.close();
+        }
+
+        private static final class LfReplacingBuffer {
+            private static final char[] NO_CHARS = new char[0];
+
+            private final char[] newLineSeparatorChars;
+
+            private int charCount;
+            private char[] chars;
+            private char lastChar;
+
+            public LfReplacingBuffer(String newLineSeparator) {
+                this.newLineSeparatorChars = newLineSeparator.toCharArray();
+                this.charCount = 0;
+                this.chars = NO_CHARS;
+                this.lastChar = '\0';
+            }
+
+            public int getCharCount() {
+                return charCount;
+            }
+
+            private char[] getBuffer(int requiredExtraLength) {
+                int requiredLength = charCount + requiredExtraLength;
+
+                char[] result = chars;
+                if (result.length >= requiredLength) {
+                    return result;
+                }
+
+                char[] newChars = new char[Math.max(requiredLength, 2 * result.length)];
+                System.arraycopy(chars, 0, newChars, 0, charCount);
+                chars = newChars;
+
+                return newChars;
+            }
+
+            private int getLfCount(char[] cbuf, int off, int len) {
+                int result = 0;
+                for (int i = off + len - 1; i >= off; i--) {
+                    if (cbuf[i] == '\n') {
+                        result++;
+                    }
+                }
+                return result;
+            }
+
+            public void appendChars(char[] cbuf, int off, int len) {
+                int lfCount = getLfCount(cbuf, off, len);
+                int extraChars = len + lfCount * (newLineSeparatorChars.length - 1);
+
+                char[] buffer = getBuffer(extraChars);
+
+                int destOffset = charCount;
+
+                char prevChar = lastChar;
+                int endSrcIndex = off + len;
+                for (int i = off; i < endSrcIndex; i++) {
+                    char ch = cbuf[i];
+
+                    if (prevChar != '\r' && ch == '\n') {
+                        System.arraycopy(newLineSeparatorChars, 0, buffer, destOffset, newLineSeparatorChars.length);
+                        destOffset += newLineSeparatorChars.length;
+                    }
+                    else {
+                        buffer[destOffset] = ch;
+                        destOffset++;
+                    }
+
+                    prevChar = ch;
+                }
+
+                lastChar = prevChar;
+                charCount = destOffset;
+            }
+
+            public int moveFirstTo(char[] cbuf, int off, int len) {
+                int resultLength = Math.min(len, charCount);
+
+                System.arraycopy(chars, 0, cbuf, off, resultLength);
+                System.arraycopy(chars, resultLength, chars, 0, charCount - resultLength);
+                charCount -= resultLength;
+
+                return resultLength;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.DiscardingOutputWriter;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the number of output lines per second {@code SmartOutputHandler}
+ * can process with the consumers of the standard error, with and without
+ * skipping the consumers whose anchors do not occur in a line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SmartOutputHandlerBenchmark {
+    private static final int LINE_COUNT = 10000;
+
+    @Param({"true", "false"})
+    public boolean useAnchors;
+
+    private SyntheticBuild build;
+    private NbGradleProject project;
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, 1, 20);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        project = build.loadProject(projectDir);
+        lines = new SyntheticOutput(42, projectDir).generateLines(LINE_COUNT).subList(0, LINE_COUNT);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    private OutputLinkFinder anchored(OutputLinkFinder finder) {
+        return useAnchors ? finder : new UnanchoredFinder(finder);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public long processLines() throws IOException {
+        DiscardingOutputWriter outputWriter = new DiscardingOutputWriter();
+
+        List<SmartOutputHandler.Consumer> consumers = Arrays.<SmartOutputHandler.Consumer>asList(
+                new BuildErrorConsumer(),
+                new OutputLinkPrinter(
+                        anchored(new StackTraceConsumer(project)),
+                        anchored(new OutputUrlConsumer()),
+                        anchored(new ProjectFileConsumer(project)),
+                        anchored(new FileLineConsumer())));
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                InputOutput.NULL,
+                outputWriter,
+                Collections.<TaskOutputProcessor>emptyList(),
+                consumers);
+
+        for (String line: lines) {
+            handler.writeLine(line);
+        }
+        return outputWriter.getWrittenCharCount();
+    }
+
+    /**
+     * Hides the anchors of a link finder, so that it is called for every line.
+     */
+    private static final class UnanchoredFinder implements OutputLinkFinder {
+        private final OutputLinkFinder wrapped;
+
+        public UnanchoredFinder(OutputLinkFinder wrapped) {
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            return wrapped.tryFindLink(line);
+        }
+    }
+}
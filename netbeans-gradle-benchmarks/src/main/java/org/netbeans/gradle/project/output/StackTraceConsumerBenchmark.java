@@ -0,0 +1,57 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StackTraceConsumerBenchmark {
+    @Param({"1000"})
+    public int lineCount;
+
+    private SyntheticBuild build;
+    private StackTraceConsumer consumer;
+    private List<String> lines;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(1, 1, 20);
+
+        Path projectDir = build.getSubprojectDirs().get(0);
+        consumer = new StackTraceConsumer(build.loadProject(projectDir));
+        lines = new SyntheticOutput(42, projectDir).generateLines(lineCount);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void tryFindLink(Blackhole blackhole) {
+        for (String line: lines) {
+            blackhole.consume(consumer.tryFindLink(line));
+        }
+    }
+}
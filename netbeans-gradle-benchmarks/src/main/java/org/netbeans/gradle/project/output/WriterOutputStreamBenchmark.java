@@ -0,0 +1,122 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.benchmarks.DiscardingOutputWriter;
+import org.netbeans.gradle.benchmarks.SyntheticOutput;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding the raw output of a Gradle build written in chunks of
+ * different sizes. The allocation rates can be compared by running this
+ * benchmark with the GC profiler: {@code -PjmhArgs="-prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WriterOutputStreamBenchmark {
+    public enum Implementation {
+        DECODER {
+            @Override
+            public OutputStream createStream(Writer writer, Charset encoding) {
+                return new WriterOutputStream(writer, encoding);
+            }
+        },
+        STRING_PER_WRITE {
+            @Override
+            public OutputStream createStream(Writer writer, Charset encoding) {
+                return new StringPerWriteOutputStream(writer, encoding);
+            }
+        };
+
+        public abstract OutputStream createStream(Writer writer, Charset encoding);
+    }
+
+    @Param({"10000"})
+    public int lineCount;
+
+    @Param({"1", "64", "8192"})
+    public int writeChunkSize;
+
+    @Param
+    public Implementation implementation;
+
+    private byte[] output;
+
+    @Setup
+    public void setup() {
+        List<String> lines = new SyntheticOutput(42, Paths.get("benchmark-project")).generateLines(lineCount);
+        output = SyntheticOutput.joinLines(lines, "\n").getBytes(StringUtils.UTF8);
+    }
+
+    @Benchmark
+    public long writeAll() throws IOException {
+        DiscardingOutputWriter writer = new DiscardingOutputWriter();
+        try (OutputStream stream = implementation.createStream(writer, StringUtils.UTF8)) {
+            if (writeChunkSize == 1) {
+                for (byte b: output) {
+                    stream.write(b);
+                }
+            }
+            else {
+                for (int offset = 0; offset < output.length; offset += writeChunkSize) {
+                    stream.write(output, offset, Math.min(writeChunkSize, output.length - offset));
+                }
+            }
+        }
+        return writer.getWrittenCharCount();
+    }
+
+    /**
+     * The previous implementation of {@code WriterOutputStream}, kept for
+     * comparison.
+     */
+    private static final class StringPerWriteOutputStream extends OutputStream {
+        private final Writer writer;
+        private final Charset encoding;
+
+        public StringPerWriteOutputStream(Writer writer, Charset encoding) {
+            this.writer = writer;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writer.write(new String(b, off, len, encoding));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte)b}, 0, 1);
+        }
+    }
+}
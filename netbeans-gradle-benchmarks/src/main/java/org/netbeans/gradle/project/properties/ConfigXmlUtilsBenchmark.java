@@ -0,0 +1,116 @@
+package org.netbeans.gradle.project.properties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.netbeans.gradle.project.api.config.ConfigTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConfigXmlUtilsBenchmark {
+    @Param({"100"})
+    public int taskCount;
+
+    private DocumentBuilder documentBuilder;
+    private Document document;
+    private byte[] documentBytes;
+
+    private static Element addElement(Document document, Element parent, String name, String value) {
+        Element result = document.createElement(name);
+        if (value != null) {
+            result.setTextContent(value);
+        }
+        parent.appendChild(result);
+        return result;
+    }
+
+    private static void addTask(Document document, Element parent, int index) {
+        Element task = addElement(document, parent, "task", null);
+        addElement(document, task, "display-name", "Task " + index);
+        addElement(document, task, "non-blocking", index % 2 == 0 ? "yes" : "no");
+
+        Element taskNames = addElement(document, task, "task-names", null);
+        for (int i = 0; i < 3; i++) {
+            Element name = addElement(document, taskNames, "name", "task" + index + "_" + i);
+            name.setAttribute("must-exist", i == 0 ? "yes" : "no");
+        }
+
+        Element args = addElement(document, task, "task-args", null);
+        addElement(document, args, "arg", "-Pindex=" + index);
+        addElement(document, args, "arg", "--info");
+
+        Element jvmArgs = addElement(document, task, "task-jvm-args", null);
+        addElement(document, jvmArgs, "arg", "-Xmx" + (256 + index) + "m");
+    }
+
+    private Document createDocument() {
+        Document result = documentBuilder.newDocument();
+        Element root = result.createElement("gradle-project-properties");
+        result.appendChild(root);
+
+        addElement(result, root, "source-encoding", "UTF-8");
+        addElement(result, root, "target-platform-name", "j2se");
+        addElement(result, root, "target-platform", "1.7");
+        addElement(result, root, "source-level", "1.7");
+
+        Element commonTasks = addElement(result, root, "common-tasks", null);
+        for (int i = 0; i < taskCount; i++) {
+            addTask(result, commonTasks, i);
+        }
+
+        Element licenseHeader = addElement(result, root, "license-header", null);
+        addElement(result, licenseHeader, "name", "my-license");
+        addElement(result, licenseHeader, "template", "license.txt");
+        addElement(result, licenseHeader, "property", "MyCompany").setAttribute("name", "organization");
+
+        Element auxiliary = addElement(result, root, ConfigXmlUtils.AUXILIARY_NODE_NAME, null);
+        addElement(result, auxiliary, "my-aux-config", "value");
+
+        return result;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        document = createDocument();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new DOMSource(document), new StreamResult(output));
+        documentBytes = output.toByteArray();
+    }
+
+    @Benchmark
+    public ConfigTree parseDocument() {
+        return ConfigXmlUtils.parseDocument(document, ConfigXmlUtils.AUXILIARY_NODE_NAME).create();
+    }
+
+    @Benchmark
+    public ConfigTree readAndParseDocument() throws Exception {
+        Document parsed = documentBuilder.parse(new ByteArrayInputStream(documentBytes));
+        return ConfigXmlUtils.parseDocument(parsed, ConfigXmlUtils.AUXILIARY_NODE_NAME).create();
+    }
+}
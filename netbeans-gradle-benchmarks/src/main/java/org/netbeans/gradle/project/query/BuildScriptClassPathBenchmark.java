@@ -0,0 +1,201 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.gradle.benchmarks.BenchmarkFiles;
+import org.netbeans.gradle.project.util.NbConsumer;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what code completion does in the build scripts of a multi-project
+ * build: looking up the compile classpath of every build script and resolving
+ * classes of the Gradle API and of the buildscript dependencies through it.
+ * The classes are looked up in a synthetic index of jars, and the lookups
+ * failing to find the class are counted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BuildScriptClassPathBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"500"})
+    public int moduleCount;
+
+    @Param({"20"})
+    public int gradleLibCount;
+
+    @Param({"30"})
+    public int buildScriptLibCount;
+
+    @Param({"50"})
+    public int classesPerJar;
+
+    private Path rootDir;
+    private Path rootBuildDir;
+    private List<URL> gradleLibs;
+    private List<File> buildScriptLibs;
+    private List<String> completedClasses;
+
+    private BuildScriptClassPaths buildScriptClassPaths;
+    private LegacyGradleFilesClassPath legacyClassPath;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class LookupCounts {
+        public long resolvedLookups;
+        public long failedLookups;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            resolvedLookups = 0;
+            failedLookups = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        rootDir = BenchmarkFiles.createTempDir("build-script-classpath");
+        rootBuildDir = rootDir.resolve("build");
+
+        gradleLibs = new ArrayList<>(gradleLibCount);
+        for (int i = 0; i < gradleLibCount; i++) {
+            File jar = writeSyntheticJar(rootDir.resolve("gradle-lib").resolve("gradle-" + i + ".jar"), "gradle" + i);
+            gradleLibs.add(FileUtil.urlForArchiveOrDir(jar));
+        }
+
+        buildScriptLibs = new ArrayList<>(buildScriptLibCount);
+        for (int i = 0; i < buildScriptLibCount; i++) {
+            File jar = writeSyntheticJar(rootDir.resolve("plugins").resolve("plugin-" + i + ".jar"), "plugin" + i);
+            buildScriptLibs.add(jar);
+        }
+
+        // A few classes of the Gradle API and of the buildscript dependencies,
+        // like the ones the editor resolves when completing a build script.
+        completedClasses = new ArrayList<>();
+        completedClasses.add(className("gradle0", 0));
+        completedClasses.add(className("gradle" + (gradleLibCount - 1), classesPerJar - 1));
+        completedClasses.add(className("plugin0", 0));
+        completedClasses.add(className("plugin" + (buildScriptLibCount - 1), classesPerJar - 1));
+
+        if (implementation == Implementation.CURRENT) {
+            NbConsumer<ClassPath> noRegistration = new NbConsumer<ClassPath>() {
+                @Override
+                public void accept(ClassPath classPath) {
+                }
+            };
+            buildScriptClassPaths = new BuildScriptClassPaths(noRegistration, noRegistration);
+            buildScriptClassPaths.setGradleLibs(gradleLibs);
+            for (int i = 0; i < moduleCount; i++) {
+                buildScriptClassPaths.addProject(rootBuildDir, buildScriptLibs);
+            }
+        }
+        else {
+            legacyClassPath = new LegacyGradleFilesClassPath(gradleLibs);
+        }
+    }
+
+    private static String className(String packageName, int index) {
+        return "synthetic/" + packageName + "/Class" + index + ".class";
+    }
+
+    private File writeSyntheticJar(Path file, String packageName) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+
+        try (OutputStream fileOutput = Files.newOutputStream(file);
+                JarOutputStream jarOutput = new JarOutputStream(fileOutput, manifest)) {
+            for (int i = 0; i < classesPerJar; i++) {
+                jarOutput.putNextEntry(new JarEntry(className(packageName, i)));
+                jarOutput.closeEntry();
+            }
+        }
+        return FileUtil.normalizeFile(file.toFile());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(rootDir);
+    }
+
+    private ClassPath getCompileClassPath() {
+        if (implementation == Implementation.CURRENT) {
+            return buildScriptClassPaths.tryGetClassPath(rootBuildDir);
+        }
+        else {
+            return legacyClassPath.getCompileClassPath();
+        }
+    }
+
+    @Benchmark
+    public void completeInEveryBuildScript(LookupCounts counts) {
+        for (int i = 0; i < moduleCount; i++) {
+            ClassPath classPath = getCompileClassPath();
+            for (String completedClass: completedClasses) {
+                FileObject classFile = classPath.findResource(completedClass);
+                if (classFile != null) {
+                    counts.resolvedLookups++;
+                }
+                else {
+                    counts.failedLookups++;
+                }
+            }
+        }
+    }
+
+    /**
+     * The previous way {@code GradleFilesClassPathProvider} provided the
+     * classpath of build scripts, kept for comparison: A single classpath of
+     * the Gradle libraries, without the buildscript dependencies. That is,
+     * looking up the classes of the buildscript dependencies fails.
+     */
+    private static final class LegacyGradleFilesClassPath {
+        private final ClassPath compileClassPath;
+
+        public LegacyGradleFilesClassPath(List<URL> gradleLibs) {
+            this.compileClassPath = ClassPathSupport.createClassPath(gradleLibs.toArray(new URL[gradleLibs.size()]));
+        }
+
+        public ClassPath getCompileClassPath() {
+            return compileClassPath;
+        }
+    }
+}
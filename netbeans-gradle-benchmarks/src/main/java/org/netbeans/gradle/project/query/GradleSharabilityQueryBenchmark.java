@@ -0,0 +1,161 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.api.queries.SharabilityQuery.Sharability;
+import org.netbeans.gradle.benchmarks.SyntheticBuild;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.netbeans.gradle.project.util.NbSupplier;
+import org.netbeans.spi.queries.SharabilityQueryImplementation2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures querying the sharability of lots of files of a multi-project
+ * build, like a version control integration does when scanning the working
+ * copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GradleSharabilityQueryBenchmark {
+    public enum Implementation {
+        CURRENT,
+        LEGACY
+    }
+
+    @Param({"CURRENT", "LEGACY"})
+    public Implementation implementation;
+
+    @Param({"20"})
+    public int subprojectCount;
+
+    @Param({"100000"})
+    public int uriCount;
+
+    private SyntheticBuild build;
+    private SharabilityQueryImplementation2 query;
+    private List<URI> queriedUris;
+
+    @Setup
+    public void setup() throws IOException {
+        build = SyntheticBuild.create(subprojectCount, 1, 0);
+
+        final NbGradleModel model = build.createGradleModels().get(0);
+        NbSupplier<NbGradleModel> modelRef = new NbSupplier<NbGradleModel>() {
+            @Override
+            public NbGradleModel get() {
+                return model;
+            }
+        };
+
+        query = implementation == Implementation.CURRENT
+                ? new GradleSharabilityQuery(modelRef)
+                : new LegacySharabilityQuery(modelRef);
+
+        Path rootDir = build.getRootDir();
+        List<Path> scannedDirs = new ArrayList<>();
+        for (Path subprojectDir: build.getSubprojectDirs()) {
+            scannedDirs.add(subprojectDir.resolve("src").resolve("main").resolve("java").resolve("org").resolve("example"));
+            scannedDirs.add(subprojectDir.resolve("build").resolve("classes").resolve("main").resolve("org").resolve("example"));
+        }
+        scannedDirs.add(SettingsFiles.getPrivateSettingsDir(rootDir).resolve("cache"));
+        scannedDirs.add(rootDir.resolve("gradle").resolve("wrapper"));
+
+        queriedUris = new ArrayList<>(uriCount);
+        for (int i = 0; i < uriCount; i++) {
+            Path dir = scannedDirs.get(i % scannedDirs.size());
+            queriedUris.add(dir.resolve("File" + i + ".java").toUri());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        build.close();
+    }
+
+    @Benchmark
+    public void scanWorkingCopy(Blackhole blackhole) {
+        for (URI uri: queriedUris) {
+            blackhole.consume(query.getSharability(uri));
+        }
+    }
+
+    /**
+     * The previous implementation of {@code GradleSharabilityQuery}, kept for
+     * comparison.
+     */
+    private static final class LegacySharabilityQuery implements SharabilityQueryImplementation2 {
+        private final NbSupplier<? extends NbGradleModel> modelRef;
+
+        public LegacySharabilityQuery(NbSupplier<? extends NbGradleModel> modelRef) {
+            this.modelRef = modelRef;
+        }
+
+        private static boolean isInDirectory(Path dir, Path queriedFile) {
+            return queriedFile.startsWith(dir);
+        }
+
+        private static boolean isInBuildDir(NbGradleModel model, Path queriedFile) {
+            Path buildDir = model.getGenericInfo().getBuildDir().toPath();
+            return isInDirectory(buildDir, queriedFile);
+        }
+
+        private static Path tryConvertToPath(URI uri) {
+            try {
+                return Paths.get(uri);
+            } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Sharability getSharability(URI uri) {
+            Path queriedPath = tryConvertToPath(uri);
+            if (queriedPath == null) {
+                return Sharability.UNKNOWN;
+            }
+
+            NbGradleModel model = modelRef.get();
+            Path rootProjectDir = model.getSettingsDir();
+
+            if (isInBuildDir(model, queriedPath)) {
+                return Sharability.NOT_SHARABLE;
+            }
+            if (isInDirectory(SettingsFiles.getSettingsDir(rootProjectDir), queriedPath)) {
+                return Sharability.NOT_SHARABLE;
+            }
+            if (isInDirectory(SettingsFiles.getPrivateSettingsDir(rootProjectDir), queriedPath)) {
+                return Sharability.NOT_SHARABLE;
+            }
+
+            Path projectDir = model.getProjectDir().toPath();
+            if (isInDirectory(projectDir, queriedPath)) {
+                return Sharability.SHARABLE;
+            }
+
+            return Sharability.UNKNOWN;
+        }
+    }
+}
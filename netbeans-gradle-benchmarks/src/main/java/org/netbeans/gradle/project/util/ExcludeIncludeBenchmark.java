@@ -0,0 +1,85 @@
+package org.netbeans.gradle.project.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExcludeIncludeBenchmark {
+    @Param({"1000"})
+    public int fileCount;
+
+    private Path rootPath;
+    private List<Path> files;
+
+    private Collection<String> excludePatterns;
+    private Collection<String> includePatterns;
+
+    @Setup
+    public void setup() {
+        rootPath = Paths.get("bench-root", "src", "main", "java").toAbsolutePath();
+        files = new ArrayList<>(fileCount);
+
+        for (int i = 0; i < fileCount; i++) {
+            Path dir = rootPath.resolve("org").resolve("example").resolve("p" + (i % 25));
+            switch (i % 5) {
+                case 0:
+                    dir = dir.resolve("generated");
+                    break;
+                case 1:
+                    dir = dir.resolve("internal");
+                    break;
+                default:
+                    break;
+            }
+
+            String ext = i % 7 == 0 ? ".groovy" : ".java";
+            String suffix = i % 3 == 0 ? "Test" : "";
+            files.add(dir.resolve("Class" + i + suffix + ext));
+        }
+
+        excludePatterns = Arrays.asList("**/generated/**", "**/*Test.java", "**/internal/*");
+        includePatterns = Arrays.asList("**/*.java", "org/example/**/*.groovy");
+    }
+
+    private int countIncluded(Collection<String> excludes, Collection<String> includes) {
+        int result = 0;
+        for (Path file: files) {
+            if (ExcludeInclude.includeFile(file, rootPath, excludes, includes)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int includeFileNoRules() {
+        return countIncluded(Collections.<String>emptySet(), Collections.<String>emptySet());
+    }
+
+    @Benchmark
+    public int includeFileWithRules() {
+        return countIncluded(excludePatterns, includePatterns);
+    }
+}
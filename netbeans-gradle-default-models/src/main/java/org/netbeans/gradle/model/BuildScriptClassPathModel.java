@@ -0,0 +1,51 @@
+package org.netbeans.gradle.model;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import org.netbeans.gradle.model.util.CollectionUtils;
+
+/**
+ * Defines the resolved classpath declared by the "buildscript" block of a
+ * Gradle project. Note that the build script can also reference the jars
+ * declared by the "buildscript" block of its parent projects, which are not
+ * part of this model.
+ * <P>
+ * Instances of this class are immutable and therefore are safe to be shared
+ * across multiple threads.
+ * <P>
+ * The serialized format of this class is not subject to any kind of backward
+ * or forward compatibility.
+ */
+public final class BuildScriptClassPathModel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<File> classPath;
+
+    /**
+     * Creates a new {@code BuildScriptClassPathModel} with the given classpath.
+     *
+     * @param classPath the classpath entries declared by the project. This
+     *   argument cannot be {@code null} and cannot contain {@code null}
+     *   elements.
+     *
+     * @throws NullPointerException thrown if the argument is {@code null} or
+     *   contains {@code null} elements
+     */
+    public BuildScriptClassPathModel(Collection<? extends File> classPath) {
+        this.classPath = CollectionUtils.copyNullSafeList(classPath);
+    }
+
+    /**
+     * Returns the classpath entries declared by the project in the order the
+     * class loader of the build script searches them.
+     *
+     * @return the classpath entries declared by the project. This method never
+     *   returns {@code null} and the returned list does not contain
+     *   {@code null} elements.
+     */
+    public List<File> getClassPath() {
+        return classPath;
+    }
+}
@@ -0,0 +1,61 @@
+package org.netbeans.gradle.model;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.netbeans.gradle.model.api.ProjectInfoBuilder;
+import org.netbeans.gradle.model.util.BasicFileUtils;
+import org.netbeans.gradle.model.util.BuilderUtils;
+
+/**
+ * Defines a {@code ProjectInfoBuilder} which is able to extract
+ * {@link BuildScriptClassPathModel} from a Gradle project.
+ * <P>
+ * Since this builder does not have any input argument, it is singleton and its
+ * instance can be accessed through {@code BuildScriptClassPathModelBuilder.INSTANCE}.
+ */
+public enum BuildScriptClassPathModelBuilder
+implements
+        ProjectInfoBuilder<BuildScriptClassPathModel> {
+
+    /**
+     * The one and only instance of {@code BuildScriptClassPathModelBuilder}.
+     */
+    INSTANCE;
+
+    private static final String CLASSPATH_CONFIGURATION_NAME = "classpath";
+
+    /**
+     * Extracts and returns the {@code BuildScriptClassPathModel} from the
+     * given project. The returned classpath only contains the entries declared
+     * by the given project. The entries of the parent projects (which are
+     * visible to the build script of the given project as well) are returned
+     * for the parent projects, so they are not sent once for every child.
+     *
+     * @param project the project from which the information is to be extracted.
+     *   This argument cannot be {@code null}.
+     *
+     * @return the {@code BuildScriptClassPathModel} extracted from the given
+     *   project. This method never returns {@code null}.
+     */
+    public BuildScriptClassPathModel getProjectInfo(Project project) {
+        Set<File> classPath = new LinkedHashSet<File>();
+
+        Configuration configuration = project.getBuildscript().getConfigurations()
+                .findByName(CLASSPATH_CONFIGURATION_NAME);
+        if (configuration != null) {
+            for (File file: configuration.getFiles()) {
+                classPath.add(BasicFileUtils.toCanonicalFile(file));
+            }
+        }
+
+        return new BuildScriptClassPathModel(classPath);
+    }
+
+    /** {@inheritDoc } */
+    public String getName() {
+        return BuilderUtils.getNameForEnumBuilder(this);
+    }
+}
@@ -0,0 +1,13 @@
+package org.netbeans.gradle.project;
+
+/**
+ * Marks a {@link org.netbeans.gradle.project.api.entry.GradleProjectExtensionDef}
+ * whose {@code parseModel} method might be called by multiple threads
+ * concurrently. The {@code parseModel} method of the extensions not
+ * implementing this interface is never called concurrently.
+ * <P>
+ * This interface is not part of the API, so it is only implemented by the
+ * extensions of this module known to be safe to be called concurrently.
+ */
+public interface ConcurrentModelParser {
+}
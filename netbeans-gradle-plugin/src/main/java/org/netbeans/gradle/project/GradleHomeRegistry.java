@@ -97,14 +97,20 @@ public final class GradleHomeRegistry {
                     return;
                 }
 
-                GRADLE_HOME_BINARIES.set(new GradleHomePaths(gradleHome, urls));
-
-                SwingUtilities.invokeLater(new Runnable() {
-                    @Override
-                    public void run() {
-                        CHANGES.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
-                    }
-                });
+                GradleHomePaths newPaths = new GradleHomePaths(gradleHome, urls);
+                GradleHomePaths prevPaths = GRADLE_HOME_BINARIES.getAndSet(newPaths);
+
+                // The registered ClassPath is updated in place and only if
+                // the libraries have actually changed (e.g., not when the
+                // Gradle home is just referenced through a different path).
+                if (!newPaths.getPaths().equals(prevPaths.getPaths())) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            CHANGES.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+                        }
+                    });
+                }
 
                 if (REGISTERED_GLOBAL_PATH.compareAndSet(false, true)) {
                     doRegisterGlobalClassPath();
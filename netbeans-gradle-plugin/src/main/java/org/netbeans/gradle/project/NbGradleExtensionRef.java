@@ -100,6 +100,14 @@ public final class NbGradleExtensionRef {
         }
     }
 
+    /**
+     * Returns {@code true} if the {@link #parseModel(ModelLoadResult) parseModel}
+     * method of this extension might be called concurrently.
+     */
+    public boolean isConcurrentModelParser() {
+        return getExtensionDef() instanceof ConcurrentModelParser;
+    }
+
     public ParsedModel<?> parseModel(ModelLoadResult retrievedModels) {
         ExceptionHelper.checkNotNullArgument(retrievedModels, "retrievedModels");
 
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import org.netbeans.gradle.project.model.GradleModelLoader;
 
 public final class NbGradleModuleInstall extends Yenta {
     private static final long serialVersionUID = 1L;
@@ -16,5 +17,14 @@ public final class NbGradleModuleInstall extends Yenta {
     protected Set<String> friends() {
         return FRIENDS;
     }
-    
+
+    @Override
+    public void close() {
+        GradleModelLoader.flushPersistentCache();
+    }
+
+    @Override
+    public void uninstalled() {
+        GradleModelLoader.flushPersistentCache();
+    }
 }
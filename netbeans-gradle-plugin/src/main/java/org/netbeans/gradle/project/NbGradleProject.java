@@ -61,6 +61,7 @@ import org.netbeans.gradle.project.properties.SingleProfileSettingsEx;
 import org.netbeans.gradle.project.properties.global.GlobalGradleSettings;
 import org.netbeans.gradle.project.query.GradleCacheBinaryForSourceQuery;
 import org.netbeans.gradle.project.query.GradleCacheByBinaryLookup;
+import org.netbeans.gradle.project.query.GradleFilesClassPathProvider;
 import org.netbeans.gradle.project.query.GradleSharabilityQuery;
 import org.netbeans.gradle.project.query.GradleSourceEncodingQuery;
 import org.netbeans.gradle.project.query.GradleTemplateAttrProvider;
@@ -635,6 +636,7 @@ public final class NbGradleProject implements Project {
                     getCommonProperties().licenseHeaderInfo().getActiveSource()));
 
             this.closeableActions.defineAction(RootProjectRegistry.getDefault().forProject(NbGradleProject.this));
+            this.closeableActions.defineAction(GradleFilesClassPathProvider.getBuildScriptClassPathAction(NbGradleProject.this));
         }
 
         @Override
@@ -804,7 +806,7 @@ public final class NbGradleProject implements Project {
             this.logicalViewProvider = add(new GradleProjectLogicalViewProvider(project), serviceObjects);
             this.actionProvider = add(new GradleActionProvider(project), serviceObjects);
             this.sharabilityQuery = add(new GradleSharabilityQuery(project), serviceObjects);
-            this.sourceEncoding = add(new GradleSourceEncodingQuery(project), serviceObjects);
+            this.sourceEncoding = add(GradleSourceEncodingQuery.create(project), serviceObjects);
             this.customizer = add(new GradleCustomizer(project), serviceObjects);
             this.auxProperties = add(new GradleAuxiliaryProperties(auxConfig), serviceObjects);
             this.templateAttrProvider = add(new GradleTemplateAttrProvider(project), serviceObjects);
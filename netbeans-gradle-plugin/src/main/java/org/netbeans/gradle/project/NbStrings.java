@@ -335,6 +335,10 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.BuildFailure", tasks);
     }
 
+    public static String getTaskOutputTruncated(long removedLineCount) {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.TaskOutputTruncated", removedLineCount);
+    }
+
     public static String getGradleTaskFailure() {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.GradleTaskFailure");
     }
@@ -53,7 +53,7 @@ public final class NbTaskExecutors {
         return new GenericUpdateTaskExecutor(TaskExecutors.inOrderSimpleExecutor(NbTaskExecutors.DEFAULT_EXECUTOR));
     }
 
-    private static int getDefaultThreadCount() {
+    public static int getDefaultThreadCount() {
         // We don't want too much thread, because there is little benefit
         // and many threads might need much more memory.
         return Math.min(Runtime.getRuntime().availableProcessors(), 8);
@@ -13,11 +13,12 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.concurrent.TaskExecutors;
 import org.jtrim.event.ListenerRef;
-import org.jtrim.property.PropertySource;
-import org.jtrim.property.swing.SwingForwarderFactory;
-import org.jtrim.property.swing.SwingProperties;
-import org.jtrim.property.swing.SwingPropertySource;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.classpath.GlobalPathRegistry;
@@ -54,12 +55,17 @@ import org.netbeans.gradle.project.java.query.GradleSourceLevelQueryImplementati
 import org.netbeans.gradle.project.java.query.GradleUnitTestFinder;
 import org.netbeans.gradle.project.java.query.J2SEPlatformFromScriptQueryImpl;
 import org.netbeans.gradle.project.java.query.JavaInitScriptQuery;
+import org.netbeans.gradle.project.java.query.SharedClassPaths;
+import org.netbeans.gradle.project.java.query.SourceRootIndex;
 import org.netbeans.gradle.project.java.tasks.GradleJavaBuiltInCommands;
 import org.netbeans.gradle.project.java.tasks.JavaGradleTaskVariableQuery;
 import org.netbeans.gradle.project.model.issue.DependencyResolutionIssue;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssueReporter;
+import org.netbeans.gradle.project.util.CachedModelValue;
 import org.netbeans.gradle.project.util.CloseableAction;
 import org.netbeans.gradle.project.util.CloseableActionContainer;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.spi.project.support.LookupProviderSupport;
 import org.netbeans.spi.project.ui.ProjectOpenedHook;
 import org.openide.filesystems.FileObject;
@@ -79,6 +85,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
 
     private final GradleClassPathProvider cpProvider;
     private final AtomicReference<JavaSourceDirHandler> sourceDirsHandlerRef;
+    private final NbSupplier<SourceRootIndex> sourceRootIndexRef;
     private final ProjectInfoRef dependencyResolutionFailureRef;
 
     private final AtomicReference<Lookup> projectLookupRef;
@@ -107,6 +114,17 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         this.combinedLookupRef = new AtomicReference<>(null);
         this.hasEverBeenLoaded = false;
         this.sourceDirsHandlerRef = new AtomicReference<>(null);
+        this.sourceRootIndexRef = new CachedModelValue<>(new NbSupplier<NbJavaModel>() {
+            @Override
+            public NbJavaModel get() {
+                return getCurrentModel();
+            }
+        }, new NbFunction<NbJavaModel, SourceRootIndex>() {
+            @Override
+            public SourceRootIndex apply(NbJavaModel model) {
+                return new SourceRootIndex(model);
+            }
+        });
         this.dependencyResolutionFailureRef = getProjectInfoManager(project).createInfoRef();
         this.modelChangeListeners = new GenericChangeListenerManager();
         this.projectPropertiesRef = new AtomicReference<>(null);
@@ -206,6 +224,13 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         return currentModel;
     }
 
+    /**
+     * Returns the index of the source roots of the current model.
+     */
+    public SourceRootIndex getSourceRootIndex() {
+        return sourceRootIndexRef.get();
+    }
+
     private void initLookup(Lookup lookup) {
         for (ProjectInitListener listener: lookup.lookupAll(ProjectInitListener.class)) {
             listener.onInitProject();
@@ -236,7 +261,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
                     new GradleProjectSources(this),
                     cpProvider,
                     new GradleCoverageProvider(this),
-                    new GradleSourceLevelQueryImplementation(this),
+                    GradleSourceLevelQueryImplementation.create(this),
                     new GradleUnitTestFinder(this),
                     new GradleAnnotationProcessingQuery(),
                     new GradleSourceForBinaryQuery(this),
@@ -408,59 +433,6 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     public void deactivateExtension() {
     }
 
-    private static PropertySource<CloseableAction> classPathProviderProperty(
-            JavaExtension javaExt,
-            String... classPathTypes) {
-        ClassPathProviderProperty src = new ClassPathProviderProperty(javaExt, classPathTypes);
-
-        return SwingProperties.fromSwingSource(src, new SwingForwarderFactory<PropertyChangeListener>() {
-            @Override
-            public PropertyChangeListener createForwarder(final Runnable listener) {
-                return new PropertyChangeListener() {
-                    @Override
-                    public void propertyChange(PropertyChangeEvent evt) {
-                        listener.run();
-                    }
-                };
-            }
-        });
-    }
-
-    private static final class ClassPathProviderProperty
-    implements
-            SwingPropertySource<CloseableAction, PropertyChangeListener> {
-
-        private final GradleClassPathProvider cpProvider;
-        private final CloseableAction pathRegAction;
-
-        public ClassPathProviderProperty(
-                JavaExtension javaExt,
-                String... classPathTypes) {
-
-            this.cpProvider = javaExt.cpProvider;
-            GlobalPathReg[] pathRegs = new GlobalPathReg[classPathTypes.length];
-            for (int i = 0; i < classPathTypes.length; i++) {
-                pathRegs[i] = new GlobalPathReg(javaExt, classPathTypes[i]);
-            }
-            this.pathRegAction = CloseableActionContainer.mergeActions(pathRegs);
-        }
-
-        @Override
-        public CloseableAction getValue() {
-            return pathRegAction;
-        }
-
-        @Override
-        public void addChangeListener(PropertyChangeListener listener) {
-            cpProvider.addPropertyChangeListener(listener);
-        }
-
-        @Override
-        public void removeChangeListener(PropertyChangeListener listener) {
-            cpProvider.removePropertyChangeListener(listener);
-        }
-    }
-
     // OpenHook is important for debugging because the debugger relies on the
     // globally registered source class paths for source stepping.
     private static class OpenHook extends ProjectOpenedHook {
@@ -469,11 +441,11 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         public OpenHook(JavaExtension javaExt) {
             this.closeableActions = new CloseableActionContainer();
 
-            closeableActions.defineAction(classPathProviderProperty(javaExt,
-                    ClassPath.SOURCE,
-                    ClassPath.BOOT,
-                    ClassPath.COMPILE,
-                    ClassPath.EXECUTE));
+            closeableActions.defineAction(CloseableActionContainer.mergeActions(
+                    new GlobalPathReg(javaExt, ClassPath.SOURCE),
+                    new GlobalPathReg(javaExt, ClassPath.BOOT),
+                    new GlobalPathReg(javaExt, ClassPath.COMPILE),
+                    new GlobalPathReg(javaExt, ClassPath.EXECUTE)));
         }
 
         @Override
@@ -498,23 +470,119 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
 
         @Override
         public Ref open() {
-            final GlobalPathRegistry registry = GlobalPathRegistry.getDefault();
-            final ClassPath[] paths = new ClassPath[]{javaExt.cpProvider.getClassPaths(type)};
+            final GlobalPathRegistration registration = new GlobalPathRegistration(javaExt, type);
+            // Only the changes of the classpath of this type are relevant,
+            // the classpath provider notifies its listeners only if the
+            // classpath has actually changed.
+            final ClassPath classPath = javaExt.cpProvider.getClassPaths(type);
+            final PropertyChangeListener changeListener = new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if (ClassPath.PROP_ENTRIES.equals(evt.getPropertyName())) {
+                        registration.update();
+                    }
+                }
+            };
 
-            LOGGER.log(Level.FINE,
-                    "Registering ClassPath ({0}) for project: {1}",
-                    new Object[]{type, javaExt.getProjectDirectoryAsFile()});
-            registry.register(type, paths);
+            classPath.addPropertyChangeListener(changeListener);
+            registration.update();
 
             return new Ref() {
                 @Override
                 public void close() {
-                    registry.unregister(type, paths);
-                    LOGGER.log(Level.FINE,
-                            "Unregistered ClassPath ({0}) for project: {1}",
-                            new Object[]{type, javaExt.getProjectDirectoryAsFile()});
+                    classPath.removePropertyChangeListener(changeListener);
+                    registration.close();
                 }
             };
         }
     }
+
+    /**
+     * Keeps the shared {@code ClassPath} with the current content of a
+     * classpath type of the project registered in the
+     * {@code GlobalPathRegistry}.
+     * <P>
+     * When the content changes, the new {@code ClassPath} is registered before
+     * the previous one is unregistered. So, the roots in both of them are
+     * never removed from the {@code GlobalPathRegistry}, and do not need to be
+     * scanned again.
+     */
+    private static final class GlobalPathRegistration {
+        private final JavaExtension javaExt;
+        private final String type;
+        private final GlobalPathRegistry registry;
+        private final TaskExecutor registrationExecutor;
+
+        // These fields are only accessed from registrationExecutor.
+        private SharedClassPaths.ClassPathRef registeredRef;
+        private boolean closed;
+
+        public GlobalPathRegistration(JavaExtension javaExt, String type) {
+            this.javaExt = javaExt;
+            this.type = type;
+            this.registry = GlobalPathRegistry.getDefault();
+            this.registrationExecutor = TaskExecutors.inOrderSyncExecutor();
+            this.registeredRef = null;
+            this.closed = false;
+        }
+
+        public void update() {
+            registrationExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    updateNow();
+                }
+            }, null);
+        }
+
+        public void close() {
+            registrationExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    closeNow();
+                }
+            }, null);
+        }
+
+        private void updateNow() {
+            if (closed) {
+                return;
+            }
+
+            SharedClassPaths.ClassPathRef newRef = javaExt.cpProvider.acquireSharedClassPaths(type);
+            SharedClassPaths.ClassPathRef prevRef = registeredRef;
+            if (prevRef != null && prevRef.getClassPath() == newRef.getClassPath()) {
+                newRef.release();
+                return;
+            }
+
+            LOGGER.log(Level.FINE,
+                    "Registering ClassPath ({0}) for project: {1}",
+                    new Object[]{type, javaExt.getProjectDirectoryAsFile()});
+            registry.register(type, new ClassPath[]{newRef.getClassPath()});
+            registeredRef = newRef;
+
+            if (prevRef != null) {
+                unregister(prevRef);
+            }
+        }
+
+        private void closeNow() {
+            closed = true;
+
+            SharedClassPaths.ClassPathRef prevRef = registeredRef;
+            registeredRef = null;
+            if (prevRef != null) {
+                unregister(prevRef);
+            }
+        }
+
+        private void unregister(SharedClassPaths.ClassPathRef classPathRef) {
+            registry.unregister(type, new ClassPath[]{classPathRef.getClassPath()});
+            classPathRef.release();
+            LOGGER.log(Level.FINE,
+                    "Unregistered ClassPath ({0}) for project: {1}",
+                    new Object[]{type, javaExt.getProjectDirectoryAsFile()});
+        }
+    }
 }
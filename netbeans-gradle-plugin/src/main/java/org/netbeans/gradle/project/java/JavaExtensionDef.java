@@ -15,6 +15,7 @@ import org.netbeans.gradle.model.java.JavaSourcesModelBuilder;
 import org.netbeans.gradle.model.java.JavaTestModelBuilder;
 import org.netbeans.gradle.model.java.WarFoldersModelBuilder;
 import org.netbeans.gradle.model.util.CollectionUtils;
+import org.netbeans.gradle.project.ConcurrentModelParser;
 import org.netbeans.gradle.project.api.entry.GradleProjectExtension2;
 import org.netbeans.gradle.project.api.entry.GradleProjectExtensionDef;
 import org.netbeans.gradle.project.api.entry.ModelLoadResult;
@@ -35,7 +36,10 @@ import org.openide.util.lookup.Lookups;
 import org.openide.util.lookup.ServiceProvider;
 
 @ServiceProvider(service = GradleProjectExtensionDef.class, position = 1000)
-public final class JavaExtensionDef implements GradleProjectExtensionDef<NbJavaModel> {
+public final class JavaExtensionDef
+implements
+        GradleProjectExtensionDef<NbJavaModel>,
+        ConcurrentModelParser {
     // Do not return JavaExtension.class.getName() because this string must
     // remain the same even if this class is renamed.
     public static final String EXTENSION_NAME = "org.netbeans.gradle.project.java.JavaExtension";
@@ -25,7 +25,7 @@ public final class AutoJavaJavadocForBinaryQuery extends AbstractJavadocForBinar
             return null;
         }
 
-        FileObject result = dir.getFileObject(srcFileName);
+        FileObject result = DirectoryListingCache.DEFAULT.tryGetChild(dir, srcFileName);
         return result != null
                 ? FileUtil.getArchiveRoot(result)
                 : null;
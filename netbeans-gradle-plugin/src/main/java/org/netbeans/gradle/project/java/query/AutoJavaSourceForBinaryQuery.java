@@ -26,7 +26,7 @@ public final class AutoJavaSourceForBinaryQuery extends AbstractSourceForBinaryQ
             return null;
         }
 
-        FileObject result = dir.getFileObject(srcFileName);
+        FileObject result = DirectoryListingCache.DEFAULT.tryGetChild(dir, srcFileName);
         return result != null
                 ? FileUtil.getArchiveRoot(result)
                 : null;
@@ -0,0 +1,128 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+
+/**
+ * Stores the path resources of the classpaths of a project by their keys and
+ * allows to notify the listeners of only those classpaths whose resources have
+ * actually changed after an update.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ *
+ * @param <Key> the type of the keys identifying the classpaths
+ */
+final class ClassPathResources<Key> {
+    private final AtomicReference<Map<Key, List<PathResourceImplementation>>> resourcesRef;
+    private final ConcurrentMap<Key, PropertyChangeSupport> changes;
+
+    public ClassPathResources() {
+        this.resourcesRef = new AtomicReference<>(Collections.<Key, List<PathResourceImplementation>>emptyMap());
+        this.changes = new ConcurrentHashMap<>();
+    }
+
+    public List<PathResourceImplementation> getResources(Key key) {
+        List<PathResourceImplementation> result = resourcesRef.get().get(key);
+        return result != null
+                ? result
+                : Collections.<PathResourceImplementation>emptyList();
+    }
+
+    /**
+     * Replaces the resources of every classpath with the given resources.
+     * Classpaths not in the given map will become empty.
+     * <P>
+     * This method does not notify the listeners, call
+     * {@link #fireChanges(Collection) fireChanges} with the returned keys
+     * to do so.
+     *
+     * @return the keys of the classpaths whose resources have changed. This
+     *   method never returns {@code null}.
+     */
+    public Set<Key> update(Map<Key, ? extends List<PathResourceImplementation>> newResources) {
+        Map<Key, List<PathResourceImplementation>> newResourcesCopy = new HashMap<>();
+        for (Map.Entry<Key, ? extends List<PathResourceImplementation>> entry: newResources.entrySet()) {
+            List<PathResourceImplementation> paths = entry.getValue();
+            if (!paths.isEmpty()) {
+                newResourcesCopy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(paths)));
+            }
+        }
+
+        Map<Key, List<PathResourceImplementation>> prevResources = resourcesRef.getAndSet(newResourcesCopy);
+
+        Set<Key> changedKeys = new HashSet<>();
+        for (Map.Entry<Key, List<PathResourceImplementation>> entry: newResourcesCopy.entrySet()) {
+            if (!entry.getValue().equals(prevResources.get(entry.getKey()))) {
+                changedKeys.add(entry.getKey());
+            }
+        }
+        for (Key key: prevResources.keySet()) {
+            if (!newResourcesCopy.containsKey(key)) {
+                changedKeys.add(key);
+            }
+        }
+        return changedKeys;
+    }
+
+    /**
+     * Notifies the listeners of the classpaths with the given keys that their
+     * resources have changed.
+     */
+    public void fireChanges(Collection<? extends Key> changedKeys) {
+        for (Key key: changedKeys) {
+            PropertyChangeSupport keyChanges = changes.get(key);
+            if (keyChanges != null) {
+                keyChanges.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+            }
+        }
+    }
+
+    private PropertyChangeSupport getChanges(Key key) {
+        PropertyChangeSupport result = changes.get(key);
+        if (result == null) {
+            changes.putIfAbsent(key, new PropertyChangeSupport(this));
+            result = changes.get(key);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a {@code ClassPathImplementation} returning the current
+     * resources of the classpath with the given key.
+     */
+    public ClassPathImplementation createImplementation(final Key key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        return new ClassPathImplementation() {
+            @Override
+            public List<PathResourceImplementation> getResources() {
+                return ClassPathResources.this.getResources(key);
+            }
+
+            @Override
+            public void addPropertyChangeListener(PropertyChangeListener listener) {
+                getChanges(key).addPropertyChangeListener(listener);
+            }
+
+            @Override
+            public void removePropertyChangeListener(PropertyChangeListener listener) {
+                getChanges(key).removePropertyChangeListener(listener);
+            }
+        };
+    }
+}
@@ -0,0 +1,264 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Tracks which of a set of directories exist, so that the existence of the
+ * directories only has to be checked when they are first added and when the
+ * file system reports that they were created or deleted.
+ * <P>
+ * The directories are listened for using
+ * {@link FileUtil#addFileChangeListener(FileChangeListener, File) path listeners},
+ * which listen on the closest existing parent of a missing directory.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+final class DirectoryExistenceTracker {
+    private static final Logger LOGGER = Logger.getLogger(DirectoryExistenceTracker.class.getName());
+
+    private final TaskExecutor checkExecutor;
+    private final int maxParallelChecks;
+    private final Runnable changeListener;
+
+    private final Lock mainLock;
+    private final Map<File, TrackedDirectory> directories;
+
+    /**
+     * Creates a new tracker not yet tracking any directory.
+     *
+     * @param checkExecutor the executor used to check the existence of
+     *   newly added directories concurrently
+     * @param maxParallelChecks the maximum number of tasks checking the
+     *   existence of directories concurrently
+     * @param changeListener the listener to be notified when a tracked
+     *   directory is created or deleted. This listener is not notified about
+     *   the directories found when they are added.
+     */
+    public DirectoryExistenceTracker(
+            TaskExecutor checkExecutor,
+            int maxParallelChecks,
+            Runnable changeListener) {
+        ExceptionHelper.checkNotNullArgument(checkExecutor, "checkExecutor");
+        ExceptionHelper.checkArgumentInRange(maxParallelChecks, 1, Integer.MAX_VALUE, "maxParallelChecks");
+        ExceptionHelper.checkNotNullArgument(changeListener, "changeListener");
+
+        this.checkExecutor = checkExecutor;
+        this.maxParallelChecks = maxParallelChecks;
+        this.changeListener = changeListener;
+        this.mainLock = new ReentrantLock();
+        this.directories = new HashMap<>();
+    }
+
+    private static FileObject tryFindDirectory(File dir) {
+        return dir.isDirectory() ? FileUtil.toFileObject(dir) : null;
+    }
+
+    /**
+     * Sets the directories to be tracked. Directories which were not tracked
+     * before are checked before this method returns, the directories no
+     * longer in the given collection are no longer tracked.
+     *
+     * @param dirs the directories to be tracked. This argument cannot be
+     *   {@code null}.
+     * @param recheckAll if {@code true}, the existence of every directory is
+     *   checked again, not only the existence of the new directories
+     */
+    public void setDirectories(Collection<File> dirs, boolean recheckAll) {
+        ExceptionHelper.checkNotNullArgument(dirs, "dirs");
+
+        List<TrackedDirectory> addedDirs = new ArrayList<>();
+        List<TrackedDirectory> checkedDirs = new ArrayList<>();
+        List<TrackedDirectory> removedDirs;
+
+        mainLock.lock();
+        try {
+            Map<File, TrackedDirectory> newDirectories = new HashMap<>();
+            for (File dir: dirs) {
+                if (newDirectories.containsKey(dir)) {
+                    continue;
+                }
+
+                TrackedDirectory trackedDir = directories.remove(dir);
+                if (trackedDir == null) {
+                    trackedDir = new TrackedDirectory(dir);
+                    addedDirs.add(trackedDir);
+                    checkedDirs.add(trackedDir);
+                }
+                else if (recheckAll) {
+                    checkedDirs.add(trackedDir);
+                }
+                newDirectories.put(dir, trackedDir);
+            }
+
+            removedDirs = new ArrayList<>(directories.values());
+
+            directories.clear();
+            directories.putAll(newDirectories);
+        } finally {
+            mainLock.unlock();
+        }
+
+        for (TrackedDirectory dir: removedDirs) {
+            dir.stopListening();
+        }
+        // Listen before checking, so that we cannot miss a directory being
+        // created after it was checked.
+        for (TrackedDirectory dir: addedDirs) {
+            dir.startListening();
+        }
+
+        checkAll(checkedDirs);
+    }
+
+    private void checkAll(final List<TrackedDirectory> dirs) {
+        int taskCount = Math.min(maxParallelChecks, dirs.size());
+        if (taskCount <= 1) {
+            for (TrackedDirectory dir: dirs) {
+                dir.update();
+            }
+            return;
+        }
+
+        final CountDownLatch doneSignal = new CountDownLatch(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            final int firstIndex = i;
+            final int step = taskCount;
+            checkExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    for (int index = firstIndex; index < dirs.size(); index += step) {
+                        dirs.get(index).update();
+                    }
+                }
+            }, new CleanupTask() {
+                @Override
+                public void cleanup(boolean canceled, Throwable error) {
+                    if (error != null) {
+                        LOGGER.log(Level.WARNING, "Failed to check the existence of directories.", error);
+                    }
+                    doneSignal.countDown();
+                }
+            });
+        }
+
+        awaitUninterruptibly(doneSignal);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the given directory if it exists, {@code null} otherwise. If the
+     * given directory is tracked, its existence is not checked again.
+     */
+    public FileObject tryGetDirectory(File dir) {
+        ExceptionHelper.checkNotNullArgument(dir, "dir");
+
+        TrackedDirectory trackedDir;
+        mainLock.lock();
+        try {
+            trackedDir = directories.get(dir);
+        } finally {
+            mainLock.unlock();
+        }
+
+        return trackedDir != null
+                ? trackedDir.getDirectory()
+                : tryFindDirectory(dir);
+    }
+
+    private final class TrackedDirectory {
+        private final File dir;
+        private final AtomicReference<FileObject> dirObjRef;
+        private final FileChangeListener fileListener;
+
+        public TrackedDirectory(File dir) {
+            this.dir = dir;
+            this.dirObjRef = new AtomicReference<>(null);
+            this.fileListener = new FileChangeAdapter() {
+                @Override
+                public void fileFolderCreated(FileEvent fe) {
+                    onChange();
+                }
+
+                @Override
+                public void fileDeleted(FileEvent fe) {
+                    onChange();
+                }
+
+                @Override
+                public void fileRenamed(FileRenameEvent fe) {
+                    onChange();
+                }
+            };
+        }
+
+        public FileObject getDirectory() {
+            return dirObjRef.get();
+        }
+
+        /**
+         * Checks if the directory exists and returns {@code true} if this
+         * differs from what was known before.
+         */
+        public boolean update() {
+            FileObject dirObj = tryFindDirectory(dir);
+            FileObject prevDirObj = dirObjRef.getAndSet(dirObj);
+            return !Objects.equals(dirObj, prevDirObj);
+        }
+
+        private void onChange() {
+            // We are also notified about the changes of the children of the
+            // directory, which cannot affect its existence.
+            if (update()) {
+                changeListener.run();
+            }
+        }
+
+        public void startListening() {
+            FileUtil.addFileChangeListener(fileListener, dir);
+        }
+
+        public void stopListening() {
+            FileUtil.removeFileChangeListener(fileListener, dir);
+        }
+    }
+}
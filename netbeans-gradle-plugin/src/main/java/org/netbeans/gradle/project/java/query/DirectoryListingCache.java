@@ -0,0 +1,246 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+
+/**
+ * Caches the children of directories by their names, so that looking up the
+ * siblings of lots of files in the same directory (e.g., the
+ * {@code -sources.zip} of the jars in a {@code libs} directory) lists the
+ * directory only once, instead of looking up each sibling separately.
+ * <P>
+ * The listing of a directory is dropped when a file is created, deleted or
+ * renamed in the directory, and a child missing from the listing is reported
+ * to be missing without looking it up again. The directory is refreshed
+ * before being listed, so that files created outside the IDE are found when
+ * the directory is listed the first time. Later changes made outside the IDE
+ * are found once the IDE refreshes the directory (which notifies the
+ * listener of the listing). At most the given number of directories are
+ * remembered, the least recently used directories are forgotten first.
+ * <P>
+ * The file change listeners are never added or removed while holding the
+ * lock of this cache, because the listeners take that lock when notified.
+ */
+final class DirectoryListingCache {
+    private static final int DEFAULT_MAX_DIRECTORY_COUNT = 64;
+
+    public static final DirectoryListingCache DEFAULT = new DirectoryListingCache(DEFAULT_MAX_DIRECTORY_COUNT);
+
+    private final Lock mainLock;
+    private final Map<FileObject, DirectoryListing> listings;
+    private final List<DirectoryListing> evictedListings;
+    private long listingCount;
+
+    public DirectoryListingCache(final int maxDirectoryCount) {
+        ExceptionHelper.checkArgumentInRange(maxDirectoryCount, 1, Integer.MAX_VALUE, "maxDirectoryCount");
+
+        this.mainLock = new ReentrantLock();
+        this.listings = new LinkedHashMap<FileObject, DirectoryListing>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FileObject, DirectoryListing> eldest) {
+                if (size() > maxDirectoryCount) {
+                    // Stopped after releasing the lock.
+                    evictedListings.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.evictedListings = new ArrayList<>();
+        this.listingCount = 0;
+    }
+
+    /**
+     * Returns the child of the given directory with the given name (including
+     * the extension), or {@code null} if there is no such child.
+     */
+    public FileObject tryGetChild(FileObject dir, String name) {
+        ExceptionHelper.checkNotNullArgument(dir, "dir");
+        ExceptionHelper.checkNotNullArgument(name, "name");
+
+        DirectoryListing listing;
+        boolean newListing = false;
+        List<DirectoryListing> evicted;
+        Map<String, FileObject> children;
+        int version;
+
+        mainLock.lock();
+        try {
+            listing = listings.get(dir);
+            if (listing == null) {
+                listing = new DirectoryListing(dir);
+                listings.put(dir, listing);
+                newListing = true;
+            }
+
+            children = listing.children;
+            version = listing.version;
+            evicted = drainEvictedListings();
+        } finally {
+            mainLock.unlock();
+        }
+
+        for (DirectoryListing evictedListing: evicted) {
+            evictedListing.stopListening();
+        }
+        if (newListing) {
+            listing.startListening();
+        }
+
+        if (children == null) {
+            // Listing the directory might be slow, so don't do it while
+            // holding the lock.
+            children = listChildren(dir);
+
+            mainLock.lock();
+            try {
+                listingCount++;
+                // Don't keep the listing if the directory has changed since we
+                // started listing it.
+                if (listing.version == version) {
+                    listing.children = children;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        FileObject result = children.get(name);
+        if (result != null && !result.isValid()) {
+            // We might not have been notified about the deletion yet.
+            listing.invalidate();
+            return dir.getFileObject(name);
+        }
+        return result;
+    }
+
+    // Must be called while holding mainLock.
+    private List<DirectoryListing> drainEvictedListings() {
+        if (evictedListings.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<DirectoryListing> result = new ArrayList<>(evictedListings);
+        evictedListings.clear();
+        return result;
+    }
+
+    private static Map<String, FileObject> listChildren(FileObject dir) {
+        // The file system might not know about the files created outside
+        // the IDE since the directory was last refreshed.
+        dir.refresh();
+
+        FileObject[] children = dir.getChildren();
+        Map<String, FileObject> result = new HashMap<>(2 * children.length);
+        for (FileObject child: children) {
+            result.put(child.getNameExt(), child);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of times a directory was listed by this cache.
+     */
+    public long getListingCount() {
+        mainLock.lock();
+        try {
+            return listingCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private final class DirectoryListing {
+        private final FileObject dir;
+        private final FileChangeListener changeListener;
+
+        // Guarded by listenerLock, which is never held while notified. The
+        // listing might be evicted before we started listening to it.
+        private final Lock listenerLock;
+        private boolean listening;
+        private boolean stopped;
+
+        // These fields are guarded by mainLock.
+        public Map<String, FileObject> children;
+        public int version;
+
+        public DirectoryListing(FileObject dir) {
+            this.dir = dir;
+            this.changeListener = new FileChangeAdapter() {
+                @Override
+                public void fileFolderCreated(FileEvent fe) {
+                    invalidate();
+                }
+
+                @Override
+                public void fileDataCreated(FileEvent fe) {
+                    invalidate();
+                }
+
+                @Override
+                public void fileDeleted(FileEvent fe) {
+                    invalidate();
+                }
+
+                @Override
+                public void fileRenamed(FileRenameEvent fe) {
+                    invalidate();
+                }
+            };
+            this.listenerLock = new ReentrantLock();
+            this.listening = false;
+            this.stopped = false;
+            this.children = null;
+            this.version = 0;
+        }
+
+        public void startListening() {
+            listenerLock.lock();
+            try {
+                if (!stopped && !listening) {
+                    dir.addFileChangeListener(changeListener);
+                    listening = true;
+                }
+            } finally {
+                listenerLock.unlock();
+            }
+        }
+
+        public void stopListening() {
+            listenerLock.lock();
+            try {
+                stopped = true;
+                if (listening) {
+                    dir.removeFileChangeListener(changeListener);
+                    listening = false;
+                }
+            } finally {
+                listenerLock.unlock();
+            }
+        }
+
+        public void invalidate() {
+            mainLock.lock();
+            try {
+                children = null;
+                version++;
+            } finally {
+                mainLock.unlock();
+            }
+        }
+    }
+}
@@ -66,8 +66,7 @@ implements
     private static final Logger LOGGER = Logger.getLogger(GradleClassPathProvider.class.getName());
 
     private final JavaExtension javaExt;
-    private volatile Object classpathResourcesChangeId;
-    private final ConcurrentMap<ClassPathKey, List<PathResourceImplementation>> classpathResources;
+    private final ClassPathResources<ClassPathKey> classpathResources;
     private final ConcurrentMap<ClassPathKey, ClassPath> classpaths;
 
     private final PropertyChangeSupport changes;
@@ -76,7 +75,6 @@ implements
     private final AtomicReference<ProjectInfoRef> infoRefRef;
 
     private final AtomicReference<ClassPath> allSourcesClassPathRef;
-    private volatile List<PathResourceImplementation> allSources;
 
     private volatile boolean loadedOnce;
 
@@ -92,10 +90,8 @@ implements
         this.infoRefRef = new AtomicReference<>(null);
         this.loadedOnce = false;
 
-        this.classpathResourcesChangeId = new Object();
-        this.classpathResources = new ConcurrentHashMap<>();
+        this.classpathResources = new ClassPathResources<>();
         this.classpaths = new ConcurrentHashMap<>();
-        this.allSources = Collections.emptyList();
         this.allSourcesClassPathRef = new AtomicReference<>(null);
         this.classpathUpdateExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
         this.propertyListenerRefs = new ListenerRegistrations();
@@ -118,7 +114,7 @@ implements
     private ClassPath getPaths(ClassPathKey classPathType) {
         ClassPath result = classpaths.get(classPathType);
         if (result == null) {
-            result = ClassPathFactory.createClassPath(new GradleClassPaths(classPathType));
+            result = ClassPathFactory.createClassPath(classpathResources.createImplementation(classPathType));
         }
         return result;
     }
@@ -140,7 +136,8 @@ implements
             case ClassPath.SOURCE:
                 ClassPath result = allSourcesClassPathRef.get();
                 if (result == null) {
-                    result = ClassPathFactory.createClassPath(new AllSourcesClassPaths());
+                    result = ClassPathFactory.createClassPath(
+                            classpathResources.createImplementation(SpecialClassPath.ALL_SOURCES));
                     allSourcesClassPathRef.compareAndSet(null, result);
                     result = allSourcesClassPathRef.get();
                 }
@@ -156,6 +153,44 @@ implements
         }
     }
 
+    /**
+     * Returns a reference to the shared {@code ClassPath} with the current
+     * content of the classpath of the given type (as returned by
+     * {@link #getClassPaths(String) getClassPaths}). Projects with the same
+     * classpath share the same {@code ClassPath} instance.
+     * <P>
+     * The returned {@code ClassPath} does not follow the changes of this
+     * provider: A new one needs to be acquired when this provider notifies its
+     * listeners. The returned reference must be released once the
+     * {@code ClassPath} is no longer needed.
+     */
+    public SharedClassPaths.ClassPathRef acquireSharedClassPaths(String type) {
+        return SharedClassPaths.DEFAULT.acquire(getResources(type));
+    }
+
+    private List<PathResourceImplementation> getResources(String type) {
+        if (type == null) {
+            return Collections.emptyList();
+        }
+
+        switch (type) {
+            case ClassPath.SOURCE:
+                return getResources(SpecialClassPath.ALL_SOURCES);
+            case ClassPath.BOOT:
+                return getResources(SpecialClassPath.BOOT);
+            case ClassPath.COMPILE:
+                return getResources(SpecialClassPath.COMPILE_FOR_GLOBAL);
+            case ClassPath.EXECUTE:
+                return getResources(SpecialClassPath.RUNTIME_FOR_GLOBAL);
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    private List<PathResourceImplementation> getResources(ClassPathKey classPathKey) {
+        return classpathResources.getResources(classPathKey);
+    }
+
     private void scheduleReloadPathResources() {
         classpathUpdateExecutor.execute(new Runnable() {
             @Override
@@ -233,10 +268,17 @@ implements
             return null;
         }
 
-        for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
-            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-            outputDirs.getClassesDir();
+        // Almost every query is for a source file, so look it up in the
+        // index first instead of checking every root of every source set.
+        SourceRootIndex sourceRootIndex = javaExt.getSourceRootIndex();
+        if (sourceRootIndex.getModel() == projectModel) {
+            JavaSourceSet result = sourceRootIndex.tryGetSourceSet(file);
+            if (result != null) {
+                return result;
+            }
+        }
 
+        for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
             if (isInOneOf(file, sourceSet.getClasspaths().getCompileClasspaths())) {
                 return sourceSet;
             }
@@ -299,21 +341,22 @@ implements
         }
     }
 
-    private void updateAllSources() {
-        NbJavaModel currentModel = javaExt.getCurrentModel();
-        NbJavaModule mainModule = currentModel.getMainModule();
+    private static void loadAllSources(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
+        NbJavaModule mainModule = projectModel.getMainModule();
 
-        List<PathResourceImplementation> sources = new LinkedList<>();
+        List<PathResourceImplementation> sources = new ArrayList<>();
         addSourcesOfModule(mainModule, sources);
 
-        for (JavaProjectReference projectRef: currentModel.getAllDependencies()) {
+        for (JavaProjectReference projectRef: projectModel.getAllDependencies()) {
             NbJavaModule module = projectRef.tryGetModule();
             if (module != null) {
                 addSourcesOfModule(module, sources);
             }
         }
 
-        allSources = Collections.unmodifiableList(new ArrayList<>(sources));
+        result.put(SpecialClassPath.ALL_SOURCES, sources);
     }
 
     private static PathResourceImplementation toPathResource(File file) {
@@ -353,20 +396,13 @@ implements
         return result;
     }
 
-    private void setClassPathResources(
-            ClassPathKey classPathKey,
-            List<PathResourceImplementation> paths) {
-        classpathResources.put(classPathKey, Collections.unmodifiableList(paths));
-    }
-
-    private void setClassPathResources(
-            ClassPathKey classPathKey,
+    private static List<PathResourceImplementation> concat(
             List<PathResourceImplementation> paths1,
             List<PathResourceImplementation> paths2) {
         List<PathResourceImplementation> paths = new ArrayList<>(paths1.size() + paths2.size());
         paths.addAll(paths1);
         paths.addAll(paths2);
-        setClassPathResources(classPathKey, paths);
+        return paths;
     }
 
     private static List<PathResourceImplementation> getBuildOutputDirsAsPathResources(JavaSourceSet sourceSet) {
@@ -380,17 +416,19 @@ implements
         return result;
     }
 
-    private void loadPathResources(JavaSourceSet sourceSet, Set<File> invalid) {
+    private static void loadPathResources(
+            JavaSourceSet sourceSet,
+            Set<File> invalid,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
         Set<File> compileCP = sourceSet.getClasspaths().getCompileClasspaths();
-        setClassPathResources(
+        result.put(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.COMPILE),
                 getPathResources(compileCP, invalid));
 
         Set<File> runtimeCP = sourceSet.getClasspaths().getCompileClasspaths();
-        setClassPathResources(
+        result.put(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.RUNTIME),
-                getPathResources(runtimeCP, invalid),
-                getBuildOutputDirsAsPathResources(sourceSet));
+                concat(getPathResources(runtimeCP, invalid), getBuildOutputDirsAsPathResources(sourceSet)));
 
         List<PathResourceImplementation> sourcePaths = new LinkedList<>();
         for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
@@ -400,22 +438,24 @@ implements
             sourcePaths.addAll(getPathResources(sourceRoots, invalid, includeRules));
         }
 
-        setClassPathResources(
+        result.put(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.SOURCES),
                 sourcePaths);
     }
 
-    private void loadBootClassPath() {
+    private void loadBootClassPath(Map<ClassPathKey, List<PathResourceImplementation>> result) {
         List<PathResourceImplementation> platformResources = new LinkedList<>();
         ProjectPlatform platform = getCurrentPlatform();
         for (URL url: platform.getBootLibraries()) {
             platformResources.add(ClassPathSupport.createResource(url));
         }
 
-        setClassPathResources(SpecialClassPath.BOOT, platformResources);
+        result.put(SpecialClassPath.BOOT, platformResources);
     }
 
-    private void loadAllRuntimeClassPath(NbJavaModule mainModule) {
+    private static void loadAllRuntimeClassPath(
+            NbJavaModule mainModule,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
         Set<File> classPaths = new HashSet<>();
 
         for (JavaSourceSet sourceSet: mainModule.getSources()) {
@@ -423,7 +463,7 @@ implements
             classPaths.addAll(sourceSet.getClasspaths().getRuntimeClasspaths());
         }
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.ALL_RUNTIME,
                 getPathResources(classPaths, new HashSet<File>()));
     }
@@ -439,7 +479,9 @@ implements
         }
     }
 
-    private void loadRuntimeForGlobalClassPath(NbJavaModel projectModel) {
+    private static void loadRuntimeForGlobalClassPath(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
         Set<File> classPaths = new HashSet<>();
 
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
@@ -448,12 +490,14 @@ implements
 
         removeOtherBuildOutputDirs(projectModel, classPaths);
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.RUNTIME_FOR_GLOBAL,
                 getPathResources(classPaths, new HashSet<File>()));
     }
 
-    private void loadCompileForGlobalClassPath(NbJavaModel projectModel) {
+    private static void loadCompileForGlobalClassPath(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
         Set<File> classPaths = new HashSet<>();
 
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
@@ -462,12 +506,14 @@ implements
 
         removeOtherBuildOutputDirs(projectModel, classPaths);
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.COMPILE_FOR_GLOBAL,
                 getPathResources(classPaths, new HashSet<File>()));
     }
 
-    private void loadAllBuildOutputClassPath(NbJavaModel projectModel) {
+    private static void loadAllBuildOutputClassPath(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
         Set<File> classPaths = new HashSet<>();
 
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
@@ -485,7 +531,7 @@ implements
             }
         }
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.ALL_BUILD_OUTPUT,
                 getPathResources(classPaths, new HashSet<File>()));
     }
@@ -494,24 +540,21 @@ implements
         // TODO: This method must be called whenever any of the dependent projects
         //   is reloaded.
 
-        Object newChangeId = new Object();
-        classpathResourcesChangeId = newChangeId;
-
-        Map<?, ?> classpathResourcesSnapshot = new HashMap<>(classpathResources);
-
+        Map<ClassPathKey, List<PathResourceImplementation>> newResources = new HashMap<>();
         Set<File> missing = new HashSet<>();
 
         NbJavaModule mainModule = projectModel.getMainModule();
         for (JavaSourceSet sourceSet: mainModule.getSources()) {
-            loadPathResources(sourceSet, missing);
+            loadPathResources(sourceSet, missing, newResources);
         }
 
-        loadBootClassPath();
-        loadAllRuntimeClassPath(mainModule);
-        loadAllBuildOutputClassPath(projectModel);
+        loadBootClassPath(newResources);
+        loadAllRuntimeClassPath(mainModule, newResources);
+        loadAllBuildOutputClassPath(projectModel, newResources);
 
-        loadCompileForGlobalClassPath(projectModel);
-        loadRuntimeForGlobalClassPath(projectModel);
+        loadCompileForGlobalClassPath(projectModel, newResources);
+        loadRuntimeForGlobalClassPath(projectModel, newResources);
+        loadAllSources(projectModel, newResources);
 
         // TODO: Should we report all invalid?
 
@@ -527,14 +570,15 @@ implements
             getInfoRef().setInfo(new ProjectInfo(infos));
         }
 
-        updateAllSources();
-
-        boolean changed = newChangeId != classpathResourcesChangeId
-                || !classpathResourcesSnapshot.equals(new HashMap<>(classpathResources));
-        if (changed) {
+        // Only notify the listeners of the classpaths which have actually
+        // changed, so that reloading the same model does not cause the
+        // classpaths to be scanned again.
+        final Set<ClassPathKey> changedClassPaths = classpathResources.update(newResources);
+        if (!changedClassPaths.isEmpty()) {
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
+                    classpathResources.fireChanges(changedClassPaths);
                     changes.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
                 }
             });
@@ -546,7 +590,7 @@ implements
     private void loadClassPath(ClassPathKey classPathKey) {
         classpaths.putIfAbsent(
                 classPathKey,
-                ClassPathFactory.createClassPath(new GradleClassPaths(classPathKey)));
+                ClassPathFactory.createClassPath(classpathResources.createImplementation(classPathKey)));
     }
 
     @Override
@@ -585,42 +629,6 @@ implements
         return classpaths.get(classPathKey);
     }
 
-    private abstract class AbstractGradleClassPaths implements ClassPathImplementation {
-        @Override
-        public final void addPropertyChangeListener(PropertyChangeListener listener) {
-            changes.addPropertyChangeListener(listener);
-        }
-
-        @Override
-        public final void removePropertyChangeListener(PropertyChangeListener listener) {
-            changes.removePropertyChangeListener(listener);
-        }
-    }
-
-    private class AllSourcesClassPaths extends AbstractGradleClassPaths {
-        @Override
-        public List<PathResourceImplementation> getResources() {
-            return allSources;
-        }
-    }
-
-    private class GradleClassPaths extends AbstractGradleClassPaths {
-        private final ClassPathKey classPathKey;
-
-        public GradleClassPaths(ClassPathKey classPathKey) {
-            assert classPathKey != null;
-            this.classPathKey = classPathKey;
-        }
-
-        @Override
-        public List<PathResourceImplementation> getResources() {
-            List<PathResourceImplementation> result = classpathResources.get(classPathKey);
-            return result != null
-                    ? result
-                    : Collections.<PathResourceImplementation>emptyList();
-        }
-    }
-
     // Just a marker for type safety
     private static interface ClassPathKey {
     }
@@ -669,6 +677,7 @@ implements
         ALL_BUILD_OUTPUT,
         COMPILE_FOR_GLOBAL,
         RUNTIME_FOR_GLOBAL,
+        ALL_SOURCES,
     }
 
     private static final class EventSource implements ClassPathImplementation {
@@ -4,6 +4,8 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -16,6 +18,7 @@ import java.util.logging.Logger;
 import javax.swing.Icon;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
+import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.concurrent.UpdateTaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.java.project.JavaProjectConstants;
@@ -31,7 +34,6 @@ import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.java.model.JavaSourceGroupID;
 import org.netbeans.gradle.project.java.model.NamedSourceRoot;
-import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.java.model.NbListedDir;
 import org.netbeans.gradle.project.util.ExcludeIncludeRules;
@@ -47,13 +49,24 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
 
     private static final SourceGroup[] NO_SOURCE_GROUPS = new SourceGroup[0];
 
+    private static final TaskExecutor SOURCE_ROOT_CHECK_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Source-Root-Scanner", NbTaskExecutors.getDefaultThreadCount());
+
     private final JavaExtension javaExt;
     private final ChangeSupport changeSupport;
 
     private volatile Map<String, SourceGroup[]> currentGroups;
+    private final SourceGroup[] genericGroup;
 
     private final AtomicBoolean hasScanned;
+    private final AtomicBoolean fullScanRequested;
     private final UpdateTaskExecutor scanSourcesExecutor;
+    private final DirectoryExistenceTracker sourceRoots;
+
+    // Only accessed from scanSourcesExecutor. The source groups are reused
+    // while their root exists, so that only the groups of the roots
+    // created or deleted are replaced.
+    private Map<Object, SourceGroup> sourceGroupCache;
 
     public GradleProjectSources(JavaExtension javaExt) {
         ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
@@ -61,8 +74,22 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         this.javaExt = javaExt;
         this.changeSupport = new ChangeSupport(this);
         this.currentGroups = Collections.emptyMap();
+        this.genericGroup = new SourceGroup[]{
+            new GradleSourceGroup(javaExt.getProjectDirectory())
+        };
         this.hasScanned = new AtomicBoolean(false);
+        this.fullScanRequested = new AtomicBoolean(false);
         this.scanSourcesExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
+        this.sourceRoots = new DirectoryExistenceTracker(
+                SOURCE_ROOT_CHECK_EXECUTOR,
+                NbTaskExecutors.getDefaultThreadCount(),
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        updateSourceGroups(false);
+                    }
+                });
+        this.sourceGroupCache = Collections.emptyMap();
 
         javaExt.getSourceDirsHandler().addDirsCreatedListener(new Runnable() {
             @Override
@@ -105,12 +132,61 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         return null;
     }
 
-    private static Map<String, List<SourceGroup>> findSourceGroupsOfModule(
-            NbJavaModule module) {
+    private static List<File> getCandidateRoots(NbJavaModule module) {
+        List<NamedSourceRoot> namedRoots = module.getNamedSourceRoots();
+        List<NbListedDir> listedDirs = module.getListedDirs();
+
+        List<File> result = new ArrayList<>(namedRoots.size() + listedDirs.size());
+        for (NamedSourceRoot root: namedRoots) {
+            result.add(root.getRoot());
+        }
+        for (NbListedDir listedDir: listedDirs) {
+            result.add(listedDir.getDirectory());
+        }
+        return result;
+    }
+
+    private SourceGroup tryGetSourceGroup(
+            NamedSourceRoot root,
+            Map<Object, SourceGroup> newSourceGroupCache) {
+
+        FileObject groupRoot = sourceRoots.tryGetDirectory(root.getRoot());
+        if (groupRoot == null) {
+            return null;
+        }
+
+        SourceGroup result = sourceGroupCache.get(root);
+        if (result == null || !groupRoot.equals(result.getRootFolder())) {
+            result = new GradleSourceGroup(groupRoot, root.getDisplayName(), root.getIncludeRules());
+        }
+        newSourceGroupCache.put(root, result);
+        return result;
+    }
+
+    private SourceGroup tryGetSourceGroup(
+            NbListedDir listedDir,
+            Map<Object, SourceGroup> newSourceGroupCache) {
+
+        FileObject groupRoot = sourceRoots.tryGetDirectory(listedDir.getDirectory());
+        if (groupRoot == null) {
+            return null;
+        }
+
+        SourceGroup result = sourceGroupCache.get(listedDir);
+        if (result == null || !groupRoot.equals(result.getRootFolder())) {
+            result = new GradleSourceGroup(groupRoot, listedDir.getName());
+        }
+        newSourceGroupCache.put(listedDir, result);
+        return result;
+    }
+
+    private Map<String, List<SourceGroup>> findSourceGroupsOfModule(
+            NbJavaModule module,
+            Map<Object, SourceGroup> newSourceGroupCache) {
         Map<String, List<SourceGroup>> result = new HashMap<>(8);
 
         for (NamedSourceRoot root: module.getNamedSourceRoots()) {
-            SourceGroup newGroup = tryCreateSourceGroup(root);
+            SourceGroup newGroup = tryGetSourceGroup(root, newSourceGroupCache);
             if (newGroup == null) {
                 continue;
             }
@@ -131,7 +207,7 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         }
 
         for (NbListedDir listedDir: module.getListedDirs()) {
-            SourceGroup newGroup = tryCreateSourceGroup(listedDir);
+            SourceGroup newGroup = tryGetSourceGroup(listedDir, newSourceGroupCache);
             if (newGroup != null) {
                 MultiMapUtils.addToMultiMap(JavaProjectConstants.SOURCES_TYPE_RESOURCES, newGroup, result);
             }
@@ -140,11 +216,10 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         return result;
     }
 
-    private Map<String, SourceGroup[]> findSourceGroups(JavaExtension javaExt) {
-        NbJavaModel projectModel = javaExt.getCurrentModel();
-        NbJavaModule mainModule = projectModel.getMainModule();
-
-        Map<String, List<SourceGroup>> moduleSources = findSourceGroupsOfModule(mainModule);
+    private Map<String, SourceGroup[]> findSourceGroups(NbJavaModule mainModule) {
+        Map<Object, SourceGroup> newSourceGroupCache = new HashMap<>();
+        Map<String, List<SourceGroup>> moduleSources = findSourceGroupsOfModule(mainModule, newSourceGroupCache);
+        sourceGroupCache = newSourceGroupCache;
 
         Map<String, SourceGroup[]> result = CollectionUtils.newHashMap(moduleSources.size());
         for (Map.Entry<String, List<SourceGroup>> entry: moduleSources.entrySet()) {
@@ -157,19 +232,29 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
             result.put(JavaProjectConstants.SOURCES_HINT_MAIN, new SourceGroup[]{sources[0]});
         }
 
-        result.put(Sources.TYPE_GENERIC, getGenericGroup());
+        result.put(Sources.TYPE_GENERIC, genericGroup);
 
         return result;
     }
 
+    private static boolean sameGroups(Map<String, SourceGroup[]> groups1, Map<String, SourceGroup[]> groups2) {
+        if (!groups1.keySet().equals(groups2.keySet())) {
+            return false;
+        }
+
+        for (Map.Entry<String, SourceGroup[]> entry: groups1.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), groups2.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onModelChange() {
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                scanForSources();
-            }
-        });
+        // Only the roots not in the previous model need to be checked, the
+        // existence of the others is tracked by file listeners.
+        updateSourceGroups(false);
     }
 
     public void scanForSources() {
@@ -187,12 +272,28 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
             }
         }
 
+        updateSourceGroups(true);
+    }
+
+    private void updateSourceGroups(boolean checkAllRoots) {
+        if (checkAllRoots) {
+            fullScanRequested.set(true);
+        }
+
         scanSourcesExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                Map<String, SourceGroup[]> groups = findSourceGroups(javaExt);
+                NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+                sourceRoots.setDirectories(getCandidateRoots(mainModule), fullScanRequested.getAndSet(false));
 
+                Map<String, SourceGroup[]> groups = findSourceGroups(mainModule);
+                Map<String, SourceGroup[]> prevGroups = currentGroups;
                 currentGroups = groups;
+
+                if (sameGroups(prevGroups, groups)) {
+                    return;
+                }
+
                 LOGGER.log(Level.FINE, "Location of the sources of {0} has been updated.", javaExt.getName());
 
                 SwingUtilities.invokeLater(new Runnable() {
@@ -205,19 +306,13 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         });
     }
 
-    private SourceGroup[] getGenericGroup() {
-        return new SourceGroup[]{
-            new GradleSourceGroup(javaExt.getProjectDirectory())
-        };
-    }
-
     @Override
     public SourceGroup[] getSourceGroups(String type) {
         ensureScanForSources();
 
         SourceGroup[] foundGroup = currentGroups.get(type);
         if (foundGroup == null && Sources.TYPE_GENERIC.equals(type)) {
-            return getGenericGroup();
+            return genericGroup.clone();
         }
         else {
             return foundGroup != null ? foundGroup.clone() : NO_SOURCE_GROUPS;
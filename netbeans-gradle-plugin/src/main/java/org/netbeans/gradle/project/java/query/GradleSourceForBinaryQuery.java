@@ -1,25 +1,25 @@
 package org.netbeans.gradle.project.java.query;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.gradle.model.java.JavaOutputDirs;
-import org.netbeans.gradle.model.java.JavaSourceGroup;
-import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
-import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.query.AbstractSourceForBinaryQuery;
-import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.CachedModelValue;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
 import org.openide.filesystems.FileObject;
-import org.openide.filesystems.FileUtil;
 import org.openide.util.ChangeSupport;
 
 public final class GradleSourceForBinaryQuery
@@ -43,53 +43,38 @@ implements
 
     private static final FileObject[] NO_ROOTS = new FileObject[0];
 
-    private final JavaExtension javaExt;
-    private final ChangeSupport changes;
+    private final NbSupplier<SourceForBinaryMap> sourceForBinaryMapRef;
+    private final ChangeSupport modelChanges;
 
     public GradleSourceForBinaryQuery(JavaExtension javaExt) {
-        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
-
-        this.javaExt = javaExt;
-
-        EventSource eventSource = new EventSource();
-        this.changes = new ChangeSupport(eventSource);
-        eventSource.init(this.changes);
+        this(currentModelRef(javaExt));
     }
 
-    private static List<File> tryGetSourceRoots(NbJavaModule module, File binaryRoot) {
-        for (JavaSourceSet sourceSet: module.getSources()) {
-            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-            if (NbFileUtils.isParentOrSame(outputDirs.getClassesDir(), binaryRoot)) {
-                List<File> result = new LinkedList<>();
+    GradleSourceForBinaryQuery(NbSupplier<? extends NbJavaModel> modelRef) {
+        ExceptionHelper.checkNotNullArgument(modelRef, "modelRef");
 
-                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                    result.addAll(sourceGroup.getSourceRoots());
-                }
-
-                return result;
+        this.sourceForBinaryMapRef = new CachedModelValue<>(modelRef, new NbFunction<NbJavaModel, SourceForBinaryMap>() {
+            @Override
+            public SourceForBinaryMap apply(NbJavaModel model) {
+                return SourceForBinaryMap.create(model.getMainModule());
             }
-        }
-        return null;
+        });
+        this.modelChanges = new ChangeSupport(this);
     }
 
-    private static FileObject[] getSourceRoots(
-            NbJavaModule module, File binaryRoot) {
-
-        List<File> srcRoots = tryGetSourceRoots(module, binaryRoot);
-        if (srcRoots == null) {
-            return NO_ROOTS;
-        }
-
-        List<FileObject> result = new ArrayList<>(srcRoots.size());
+    private static NbSupplier<NbJavaModel> currentModelRef(final JavaExtension javaExt) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
 
-        for (File srcRoot: srcRoots) {
-            FileObject rootObj = FileUtil.toFileObject(srcRoot);
-            if (rootObj != null) {
-                result.add(rootObj);
+        return new NbSupplier<NbJavaModel>() {
+            @Override
+            public NbJavaModel get() {
+                return javaExt.getCurrentModel();
             }
-        }
+        };
+    }
 
-        return result.toArray(new FileObject[result.size()]);
+    private SourceForBinaryMap.SourceRoots tryGetSourceRoots(File binaryRoot) {
+        return sourceForBinaryMapRef.get().tryGetSourceRoots(binaryRoot);
     }
 
     @Override
@@ -97,75 +82,146 @@ implements
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                changes.fireChange();
+                modelChanges.fireChange();
             }
         });
     }
 
     @Override
-    protected Result tryFindSourceRoot(final File binaryRoot) {
-        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-        if (tryGetSourceRoots(mainModule, binaryRoot) == null) {
+    protected Result tryFindSourceRoot(File binaryRoot) {
+        if (tryGetSourceRoots(binaryRoot) == null) {
             return null;
         }
 
-        return new SourceForBinaryQueryImplementation2.Result() {
-            @Override
-            public boolean preferSources() {
-                return getRoots().length > 0;
-            }
+        return new SourceRootsResult(binaryRoot);
+    }
 
-            @Override
-            public FileObject[] getRoots() {
-                NbJavaModel projectModel = javaExt.getCurrentModel();
-                NbJavaModule mainModule = projectModel.getMainModule();
+    private final class SourceRootsResult implements SourceForBinaryQueryImplementation2.Result {
+        private final File binaryRoot;
+        private final ChangeSupport changes;
+        private final ChangeListener modelChangeListener;
+
+        private final Lock mainLock;
+        private SourceRootsState lastState;
+
+        public SourceRootsResult(File binaryRoot) {
+            this.binaryRoot = binaryRoot;
+            this.changes = new ChangeSupport(this);
+            this.modelChangeListener = new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                    checkSourceRootsChanged();
+                }
+            };
 
-                return getSourceRoots(mainModule, binaryRoot);
-            }
+            this.mainLock = new ReentrantLock();
+            this.lastState = null;
+        }
 
-            @Override
-            public void addChangeListener(ChangeListener listener) {
-                changes.addChangeListener(listener);
-            }
+        private SourceRootsState getCurrentState() {
+            return new SourceRootsState(tryGetSourceRoots(binaryRoot));
+        }
 
-            @Override
-            public void removeChangeListener(ChangeListener listener) {
-                changes.removeChangeListener(listener);
-            }
+        private void checkSourceRootsChanged() {
+            SourceRootsState newState = getCurrentState();
 
-            @Override
-            public String toString() {
-                return Arrays.toString(getRoots());
+            boolean changed;
+            mainLock.lock();
+            try {
+                changed = !newState.equals(lastState);
+                lastState = newState;
+            } finally {
+                mainLock.unlock();
             }
-        };
-    }
-
-    private static final class EventSource implements SourceForBinaryQueryImplementation2.Result {
-        private volatile ChangeSupport changes;
 
-        public void init(ChangeSupport changes) {
-            assert changes != null;
-            this.changes = changes;
+            // Reloading the model usually leaves the source roots of an
+            // output directory as they were, so there is no need to make
+            // NetBeans rescan them.
+            if (changed) {
+                changes.fireChange();
+            }
         }
 
         @Override
         public boolean preferSources() {
-            return true;
+            return getRoots().length > 0;
         }
 
         @Override
         public FileObject[] getRoots() {
-            return NO_ROOTS;
+            SourceForBinaryMap.SourceRoots sourceRoots = tryGetSourceRoots(binaryRoot);
+            return sourceRoots != null ? sourceRoots.getRoots() : NO_ROOTS;
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener listener) {
+            mainLock.lock();
+            try {
+                // The model changes are only listened to while someone is
+                // interested in this result, so that the query does not
+                // keep unused results alive.
+                if (!changes.hasListeners()) {
+                    lastState = getCurrentState();
+                    modelChanges.addChangeListener(modelChangeListener);
+                }
+                changes.addChangeListener(listener);
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener listener) {
+            mainLock.lock();
+            try {
+                changes.removeChangeListener(listener);
+                if (!changes.hasListeners()) {
+                    modelChanges.removeChangeListener(modelChangeListener);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(getRoots());
+        }
+    }
+
+    /**
+     * The source roots of a binary root along with which of them exist, so
+     * that a source root created (or deleted) before the model is reloaded
+     * is reported as a change.
+     */
+    private static final class SourceRootsState {
+        private final SourceForBinaryMap.SourceRoots sourceRoots;
+        private final List<FileObject> existingRoots;
+
+        public SourceRootsState(SourceForBinaryMap.SourceRoots sourceRoots) {
+            this.sourceRoots = sourceRoots;
+            this.existingRoots = sourceRoots != null
+                    ? Arrays.asList(sourceRoots.getRoots())
+                    : Collections.<FileObject>emptyList();
         }
 
         @Override
-        public void addChangeListener(ChangeListener l) {
-            changes.addChangeListener(l);
+        public int hashCode() {
+            int hash = 5;
+            hash = 41 * hash + Objects.hashCode(this.sourceRoots);
+            hash = 41 * hash + this.existingRoots.hashCode();
+            return hash;
         }
 
         @Override
-        public void removeChangeListener(ChangeListener l) {
-            changes.removeChangeListener(l);
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final SourceRootsState other = (SourceRootsState)obj;
+            return Objects.equals(this.sourceRoots, other.sourceRoots)
+                    && this.existingRoots.equals(other.existingRoots);
         }
     }
 
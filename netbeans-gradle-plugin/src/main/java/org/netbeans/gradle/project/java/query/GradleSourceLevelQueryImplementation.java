@@ -10,6 +10,7 @@ import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.api.property.GradleProperty;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.properties.NbProperties;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.spi.java.queries.SourceLevelQueryImplementation2;
 import org.openide.filesystems.FileObject;
 
@@ -18,19 +19,41 @@ implements
         SourceLevelQueryImplementation2 {
 
     private final FileObject projectDir;
+    private final NbSupplier<? extends SourceRootIndex> sourceRootIndexRef;
     private final Result result;
 
-    public GradleSourceLevelQueryImplementation(JavaExtension javaExt) {
-        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
-
-        this.projectDir = javaExt.getProjectDirectory();
+    GradleSourceLevelQueryImplementation(
+            FileObject projectDir,
+            NbSupplier<? extends SourceRootIndex> sourceRootIndexRef,
+            PropertySource<String> sourceLevel) {
+        ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+        ExceptionHelper.checkNotNullArgument(sourceRootIndexRef, "sourceRootIndexRef");
+        ExceptionHelper.checkNotNullArgument(sourceLevel, "sourceLevel");
 
-        GradleProperty.SourceLevel sourceLevel = javaExt.getOwnerProjectLookup().lookup(GradleProperty.SourceLevel.class);
+        this.projectDir = projectDir;
+        this.sourceRootIndexRef = sourceRootIndexRef;
         this.result = new ResultImpl(sourceLevel);
     }
 
+    public static GradleSourceLevelQueryImplementation create(final JavaExtension javaExt) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
+
+        return new GradleSourceLevelQueryImplementation(javaExt.getProjectDirectory(), new NbSupplier<SourceRootIndex>() {
+            @Override
+            public SourceRootIndex get() {
+                return javaExt.getSourceRootIndex();
+            }
+        }, javaExt.getOwnerProjectLookup().lookup(GradleProperty.SourceLevel.class));
+    }
+
     @Override
     public Result getSourceLevel(FileObject javaFile) {
+        // The source level only depends on the project, so files in our
+        // source roots do not need the more expensive owner query.
+        if (sourceRootIndexRef.get().tryGetSourceSet(javaFile) != null) {
+            return result;
+        }
+
         Project owner = FileOwnerQuery.getOwner(javaFile);
         if (owner == null) {
             return null;
@@ -46,7 +69,7 @@ implements
 
         @SuppressWarnings("LeakingThisInConstructor")
         public ResultImpl(PropertySource<String> sourceLevel) {
-            this.property = NbProperties.toOldProperty(sourceLevel, this);
+            this.property = NbProperties.toOldProperty(NbProperties.cachedValue(sourceLevel), this);
         }
 
         @Override
@@ -2,73 +2,58 @@ package org.netbeans.gradle.project.java.query;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.model.java.JavaSourceGroup;
 import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.util.CachedModelValue;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.spi.java.queries.MultipleRootsUnitTestForSourceQueryImplementation;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
 public final class GradleUnitTestFinder implements MultipleRootsUnitTestForSourceQueryImplementation {
-    private final JavaExtension javaExt;
+    private final NbSupplier<ModelRoots> rootsRef;
 
     public GradleUnitTestFinder(JavaExtension javaExt) {
-        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
-        this.javaExt = javaExt;
+        this(currentModelRef(javaExt));
     }
 
-    private static boolean hasSource(NbJavaModule module, FileObject source) {
-        for (JavaSourceSet sourceSet: module.getNonTestSourceSets()) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot);
-                    if (sourceRootObj != null && FileUtil.getRelativePath(sourceRootObj, source) != null) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
+    GradleUnitTestFinder(NbSupplier<? extends NbJavaModel> modelRef) {
+        ExceptionHelper.checkNotNullArgument(modelRef, "modelRef");
 
-    private static URL[] urlsFromSourceSets(Collection<JavaSourceSet> sourceSets) {
-        List<URL> result = new LinkedList<>();
-        for (JavaSourceSet sourceSet: sourceSets) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    URL url = FileUtil.urlForArchiveOrDir(sourceRoot);
-                    if (url != null) {
-                        result.add(url);
-                    }
-                }
+        this.rootsRef = new CachedModelValue<>(modelRef, new NbFunction<NbJavaModel, ModelRoots>() {
+            @Override
+            public ModelRoots apply(NbJavaModel model) {
+                return new ModelRoots(model);
             }
-        }
-
-        return result.toArray(new URL[result.size()]);
+        });
     }
 
-    private static URL[] getSourceRoots(NbJavaModule module) {
-        return urlsFromSourceSets(module.getNonTestSourceSets());
-    }
+    private static NbSupplier<NbJavaModel> currentModelRef(final JavaExtension javaExt) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
 
-    private static URL[] getTestRoots(NbJavaModule module) {
-        return urlsFromSourceSets(module.getTestSourceSets());
+        return new NbSupplier<NbJavaModel>() {
+            @Override
+            public NbJavaModel get() {
+                return javaExt.getCurrentModel();
+            }
+        };
     }
 
     @Override
     public URL[] findUnitTests(FileObject source) {
-        NbJavaModel projectModel = javaExt.getCurrentModel();
-
-        NbJavaModule mainModule = projectModel.getMainModule();
-        if (hasSource(mainModule, source)) {
-            return getTestRoots(mainModule);
+        ModelRoots roots = rootsRef.get();
+        if (roots.hasSource(source)) {
+            return roots.getTestRoots();
         }
 
         return null;
@@ -76,13 +61,77 @@ public final class GradleUnitTestFinder implements MultipleRootsUnitTestForSourc
 
     @Override
     public URL[] findSources(FileObject unitTest) {
-        NbJavaModel projectModel = javaExt.getCurrentModel();
-
-        NbJavaModule mainModule = projectModel.getMainModule();
-        if (!hasSource(mainModule, unitTest)) {
-            return getSourceRoots(mainModule);
+        ModelRoots roots = rootsRef.get();
+        if (!roots.hasSource(unitTest)) {
+            return roots.getSourceRoots();
         }
 
         return null;
     }
+
+    private static final class ModelRoots {
+        private final Set<File> sourceRootFiles;
+        private final URL[] sourceRoots;
+        private final URL[] testRoots;
+
+        public ModelRoots(NbJavaModel model) {
+            NbJavaModule mainModule = model.getMainModule();
+            Collection<JavaSourceSet> nonTestSourceSets = mainModule.getNonTestSourceSets();
+
+            this.sourceRootFiles = getSourceRootFiles(nonTestSourceSets);
+            this.sourceRoots = urlsFromSourceSets(nonTestSourceSets);
+            this.testRoots = urlsFromSourceSets(mainModule.getTestSourceSets());
+        }
+
+        private static Set<File> getSourceRootFiles(Collection<JavaSourceSet> sourceSets) {
+            Set<File> result = new HashSet<>();
+            for (JavaSourceSet sourceSet: sourceSets) {
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                        result.add(FileUtil.normalizeFile(sourceRoot));
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static URL[] urlsFromSourceSets(Collection<JavaSourceSet> sourceSets) {
+            List<URL> result = new ArrayList<>();
+            for (JavaSourceSet sourceSet: sourceSets) {
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                        URL url = FileUtil.urlForArchiveOrDir(sourceRoot);
+                        if (url != null) {
+                            result.add(url);
+                        }
+                    }
+                }
+            }
+
+            return result.toArray(new URL[result.size()]);
+        }
+
+        /**
+         * Returns {@code true} if the given file is a non-test source root
+         * or is within one.
+         */
+        public boolean hasSource(FileObject source) {
+            // Source roots are always on the local file system.
+            File sourceFile = FileUtil.toFile(source);
+            for (File current = sourceFile; current != null; current = current.getParentFile()) {
+                if (sourceRootFiles.contains(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public URL[] getSourceRoots() {
+            return sourceRoots.clone();
+        }
+
+        public URL[] getTestRoots() {
+            return testRoots.clone();
+        }
+    }
 }
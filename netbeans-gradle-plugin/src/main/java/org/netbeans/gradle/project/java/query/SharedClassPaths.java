@@ -0,0 +1,128 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+
+/**
+ * Defines a registry of {@code ClassPath} instances shared between projects.
+ * Projects acquiring a {@code ClassPath} with the same (ordered) list of path
+ * resources will get the same {@code ClassPath} instance, so that the
+ * {@link org.netbeans.api.java.classpath.GlobalPathRegistry GlobalPathRegistry}
+ * (and the indexer listening to it) only has to track each distinct
+ * {@code ClassPath} once.
+ * <P>
+ * The shared {@code ClassPath} instances never change. A {@code ClassPath}
+ * is forgotten once every reference acquired for it has been released.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class SharedClassPaths {
+    public static final SharedClassPaths DEFAULT = new SharedClassPaths();
+
+    private final Lock mainLock;
+    private final Map<List<PathResourceImplementation>, SharedClassPath> classPaths;
+
+    public SharedClassPaths() {
+        this.mainLock = new ReentrantLock();
+        this.classPaths = new HashMap<>();
+    }
+
+    /**
+     * Returns a reference to the shared {@code ClassPath} containing the given
+     * path resources in the given order. The returned reference must be
+     * released once the {@code ClassPath} is no longer needed.
+     */
+    public ClassPathRef acquire(List<? extends PathResourceImplementation> resources) {
+        List<PathResourceImplementation> key = Collections.unmodifiableList(
+                new ArrayList<PathResourceImplementation>(resources));
+        ExceptionHelper.checkNotNullElements(key, "resources");
+
+        SharedClassPath result;
+        mainLock.lock();
+        try {
+            result = classPaths.get(key);
+            if (result == null) {
+                result = new SharedClassPath(key);
+                classPaths.put(key, result);
+            }
+            result.refCount++;
+        } finally {
+            mainLock.unlock();
+        }
+        return new ClassPathRef(result);
+    }
+
+    private void release(SharedClassPath classPath) {
+        mainLock.lock();
+        try {
+            classPath.refCount--;
+            if (classPath.refCount <= 0) {
+                classPaths.remove(classPath.resources);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct {@code ClassPath} instances currently
+     * referenced.
+     */
+    public int getClassPathCount() {
+        mainLock.lock();
+        try {
+            return classPaths.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public final class ClassPathRef {
+        private final SharedClassPath classPath;
+        private final AtomicBoolean released;
+
+        private ClassPathRef(SharedClassPath classPath) {
+            this.classPath = classPath;
+            this.released = new AtomicBoolean(false);
+        }
+
+        public ClassPath getClassPath() {
+            return classPath.classPath;
+        }
+
+        /**
+         * Releases this reference. Releasing the same reference multiple times
+         * has no further effect.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                SharedClassPaths.this.release(classPath);
+            }
+        }
+    }
+
+    private static final class SharedClassPath {
+        public final List<PathResourceImplementation> resources;
+        public final ClassPath classPath;
+
+        // Guarded by the mainLock of the owning SharedClassPaths.
+        public int refCount;
+
+        public SharedClassPath(List<PathResourceImplementation> resources) {
+            this.resources = resources;
+            this.classPath = ClassPathSupport.createClassPath(resources);
+            this.refCount = 0;
+        }
+    }
+}
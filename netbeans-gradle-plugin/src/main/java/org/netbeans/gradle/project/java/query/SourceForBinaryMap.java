@@ -0,0 +1,141 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Defines an immutable map from the output directories of a module to the
+ * source roots compiled into them. The map is built once for each model of
+ * the module, so that looking up the source roots of a binary root does not
+ * need to go through all the source sets of the module.
+ */
+final class SourceForBinaryMap {
+    private static final FileObject[] NO_ROOTS = new FileObject[0];
+
+    private final Map<File, SourceRoots> rootsOfBinaries;
+
+    private SourceForBinaryMap(Map<File, SourceRoots> rootsOfBinaries) {
+        this.rootsOfBinaries = rootsOfBinaries;
+    }
+
+    public static SourceForBinaryMap create(NbJavaModule module) {
+        ExceptionHelper.checkNotNullArgument(module, "module");
+
+        List<JavaSourceSet> sourceSets = module.getSources();
+        Map<File, SourceRoots> result = new HashMap<>(2 * sourceSets.size());
+        for (JavaSourceSet sourceSet: sourceSets) {
+            File classesDir = sourceSet.getOutputDirs().getClassesDir();
+            // If multiple source sets share an output directory, the first
+            // one wins.
+            if (!result.containsKey(classesDir)) {
+                result.put(classesDir, new SourceRoots(getSourceRoots(sourceSet)));
+            }
+        }
+        return new SourceForBinaryMap(result);
+    }
+
+    private static List<File> getSourceRoots(JavaSourceSet sourceSet) {
+        List<File> result = new ArrayList<>();
+        for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+            result.addAll(sourceGroup.getSourceRoots());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the source roots of the given binary root, or {@code null} if
+     * the given binary root is not an output directory of the module (or
+     * a subdirectory of one).
+     */
+    public SourceRoots tryGetSourceRoots(File binaryRoot) {
+        ExceptionHelper.checkNotNullArgument(binaryRoot, "binaryRoot");
+
+        for (File current = binaryRoot; current != null; current = current.getParentFile()) {
+            SourceRoots result = rootsOfBinaries.get(current);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    public static final class SourceRoots {
+        private final List<File> rootFiles;
+        private volatile FileObject[] cachedRoots;
+
+        private SourceRoots(List<File> rootFiles) {
+            this.rootFiles = rootFiles;
+            this.cachedRoots = null;
+        }
+
+        public List<File> getRootFiles() {
+            return rootFiles;
+        }
+
+        private static boolean isAllValid(FileObject[] roots) {
+            for (FileObject root: roots) {
+                if (!root.isValid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the existing source roots. The {@code FileObject}s are only
+         * looked up again if a source root was missing or was deleted since
+         * the previous call.
+         */
+        public FileObject[] getRoots() {
+            FileObject[] result = cachedRoots;
+            if (result != null && isAllValid(result)) {
+                return result.length > 0 ? result.clone() : NO_ROOTS;
+            }
+
+            List<FileObject> rootObjs = new ArrayList<>(rootFiles.size());
+            for (File rootFile: rootFiles) {
+                FileObject rootObj = FileUtil.toFileObject(rootFile);
+                if (rootObj != null) {
+                    rootObjs.add(rootObj);
+                }
+            }
+
+            result = rootObjs.toArray(new FileObject[rootObjs.size()]);
+            if (result.length == rootFiles.size()) {
+                cachedRoots = result;
+                return result.clone();
+            }
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return 67 * rootFiles.hashCode() + 7;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final SourceRoots other = (SourceRoots)obj;
+            return rootFiles.equals(other.rootFiles);
+        }
+
+        @Override
+        public String toString() {
+            return rootFiles.toString();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Maps the source roots of a {@link NbJavaModel} to the source sets they
+ * belong to, so that the source set of a file can be found by only looking
+ * at the parent directories of the file.
+ * <P>
+ * Instances of this class are immutable and are created for a particular
+ * model. The index of the current model of a project is shared by the
+ * queries of the project and is available through
+ * {@link org.netbeans.gradle.project.java.JavaExtension#getSourceRootIndex()}.
+ */
+public final class SourceRootIndex {
+    private final NbJavaModel model;
+    private final Map<File, List<IndexedRoot>> roots;
+
+    public SourceRootIndex(NbJavaModel model) {
+        ExceptionHelper.checkNotNullArgument(model, "model");
+
+        this.model = model;
+        this.roots = new HashMap<>();
+
+        for (JavaSourceSet sourceSet: model.getMainModule().getSources()) {
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                ExcludeIncludeRules includeRules = ExcludeIncludeRules.create(sourceGroup);
+                for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                    addRoot(new IndexedRoot(sourceRoot, sourceSet, includeRules));
+                }
+            }
+        }
+    }
+
+    private void addRoot(IndexedRoot root) {
+        File key = FileUtil.normalizeFile(root.root);
+        List<IndexedRoot> rootsOfKey = roots.get(key);
+        if (rootsOfKey == null) {
+            rootsOfKey = new ArrayList<>(1);
+            roots.put(key, rootsOfKey);
+        }
+        rootsOfKey.add(root);
+    }
+
+    /**
+     * Returns the model this index was created for.
+     */
+    public NbJavaModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the source set having a source root containing the given file
+     * (not excluded by the include rules of the source root) or {@code null}
+     * if there is no such source set.
+     */
+    public JavaSourceSet tryGetSourceSet(FileObject file) {
+        // Source roots are always on the local file system.
+        File fileAsFile = FileUtil.toFile(file);
+        return fileAsFile != null ? tryGetSourceSet(fileAsFile) : null;
+    }
+
+    /**
+     * Returns the source set having a source root containing the given file
+     * (not excluded by the include rules of the source root) or {@code null}
+     * if there is no such source set. The given file must be normalized.
+     */
+    public JavaSourceSet tryGetSourceSet(File file) {
+        for (File current = file; current != null; current = current.getParentFile()) {
+            List<IndexedRoot> rootsOfDir = roots.get(current);
+            if (rootsOfDir == null) {
+                continue;
+            }
+
+            for (IndexedRoot root: rootsOfDir) {
+                if (root.includes(file)) {
+                    return root.sourceSet;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class IndexedRoot {
+        public final File root;
+        public final JavaSourceSet sourceSet;
+        private final ExcludeIncludeRules includeRules;
+
+        public IndexedRoot(File root, JavaSourceSet sourceSet, ExcludeIncludeRules includeRules) {
+            this.root = root;
+            this.sourceSet = sourceSet;
+            this.includeRules = includeRules;
+        }
+
+        public boolean includes(File file) {
+            return includeRules.isAllowAll() || includeRules.isIncluded(root.toPath(), file);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbGradleProject;
+
+/**
+ * Defines a {@code PersistentModelCache} which saves models to the wrapped
+ * cache asynchronously. Models saved for the same project are coalesced, so
+ * that only the latest model of a project is written if the previous one has
+ * not been written yet. Models not yet written are returned by
+ * {@link #tryGetModel(NbGradleProject, Path) tryGetModel} without touching the
+ * wrapped cache.
+ */
+public final class AsyncPersistentModelCache implements PersistentModelCache {
+    private static final Logger LOGGER = Logger.getLogger(AsyncPersistentModelCache.class.getName());
+
+    private final PersistentModelCache wrapped;
+    private final TaskExecutor writerExecutor;
+
+    private final Lock mainLock;
+    private final Map<CacheKey, NbGradleModel> pendingModels;
+    private boolean writeScheduled;
+
+    // Serializes writes, so that an older model can never overwrite a newer one.
+    private final Lock writeLock;
+
+    public AsyncPersistentModelCache(PersistentModelCache wrapped, TaskExecutor writerExecutor) {
+        ExceptionHelper.checkNotNullArgument(wrapped, "wrapped");
+        ExceptionHelper.checkNotNullArgument(writerExecutor, "writerExecutor");
+
+        this.wrapped = wrapped;
+        this.writerExecutor = writerExecutor;
+        this.mainLock = new ReentrantLock();
+        this.pendingModels = new LinkedHashMap<>();
+        this.writeScheduled = false;
+        this.writeLock = new ReentrantLock();
+    }
+
+    @Override
+    public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
+        CacheKey key = new CacheKey(rootProjectDir, project.getProjectDirectoryAsFile());
+
+        NbGradleModel pending;
+        mainLock.lock();
+        try {
+            pending = pendingModels.get(key);
+        } finally {
+            mainLock.unlock();
+        }
+
+        return pending != null
+                ? pending
+                : wrapped.tryGetModel(project, rootProjectDir);
+    }
+
+    @Override
+    public void saveGradleModels(Collection<NbGradleModel> models) {
+        ExceptionHelper.checkNotNullElements(models, "models");
+
+        if (models.isEmpty()) {
+            return;
+        }
+
+        boolean scheduleWrite;
+        mainLock.lock();
+        try {
+            for (NbGradleModel model: models) {
+                CacheKey key = new CacheKey(model.getSettingsDir(), model.getProjectDir());
+                // Remove first to keep the map ordered by the time of the last save.
+                pendingModels.remove(key);
+                pendingModels.put(key, model);
+            }
+
+            scheduleWrite = !writeScheduled;
+            writeScheduled = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (scheduleWrite) {
+            writerExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    writePendingModels();
+                }
+            }, null);
+        }
+    }
+
+    public int getPendingModelCount() {
+        mainLock.lock();
+        try {
+            return pendingModels.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every model saved but not yet written to the wrapped cache in the
+     * calling thread. This method is intended to be called when the module is
+     * closed.
+     */
+    public void flush() {
+        writePendingModels();
+    }
+
+    private void writePendingModels() {
+        writeLock.lock();
+        try {
+            Map<CacheKey, NbGradleModel> toWrite;
+            mainLock.lock();
+            try {
+                writeScheduled = false;
+                toWrite = new LinkedHashMap<>(pendingModels);
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (toWrite.isEmpty()) {
+                return;
+            }
+
+            try {
+                wrapped.saveGradleModels(new ArrayList<>(toWrite.values()));
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Failed to save into the persistent cache.", ex);
+            } catch (Throwable ex) {
+                LOGGER.log(Level.SEVERE, "Unexpected error while saving to the persistent cache.", ex);
+            }
+
+            removeWritten(toWrite);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void removeWritten(Map<CacheKey, NbGradleModel> written) {
+        List<CacheKey> toRemove = new ArrayList<>(written.size());
+
+        mainLock.lock();
+        try {
+            for (Map.Entry<CacheKey, NbGradleModel> entry: written.entrySet()) {
+                CacheKey key = entry.getKey();
+                // If it is not the same, the model was saved again while we
+                // were writing it, so we will have to write it again.
+                if (pendingModels.get(key) == entry.getValue()) {
+                    toRemove.add(key);
+                }
+            }
+            pendingModels.keySet().removeAll(toRemove);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Identifies a model the same way as {@link MultiFileModelCache} does, so
+     * that a pending model is found regardless of how its path is spelled
+     * (e.g., through a symbolic link).
+     */
+    private static final class CacheKey {
+        private final Path rootProjectDir;
+        private final File projectDir;
+
+        public CacheKey(Path rootProjectDir, File projectDir) {
+            this.rootProjectDir = rootProjectDir.normalize();
+            this.projectDir = toCanonicalFile(projectDir);
+        }
+
+        private static File toCanonicalFile(File file) {
+            try {
+                return file.getCanonicalFile();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Failed to canonicalize " + file, ex);
+                return file.getAbsoluteFile();
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 3;
+            hash = 41 * hash + rootProjectDir.hashCode();
+            hash = 41 * hash + projectDir.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final CacheKey other = (CacheKey)obj;
+            return Objects.equals(this.rootProjectDir, other.rootProjectDir)
+                    && Objects.equals(this.projectDir, other.projectDir);
+        }
+    }
+}
@@ -79,7 +79,17 @@ public final class GradleModelLoader {
 
     private static final AtomicBoolean CACHE_INIT = new AtomicBoolean(false);
 
-    private static final PersistentModelCache PERSISTENT_CACHE = new MultiFileModelCache();
+    private static final AsyncPersistentModelCache PERSISTENT_CACHE = new AsyncPersistentModelCache(
+            new PrefetchingModelCache(new SelectedPersistentModelCache()),
+            NbTaskExecutors.newExecutor("Gradle-Persistent-Cache-Writer", 1));
+
+    /**
+     * Writes the models saved to the persistent cache but not yet written in
+     * the calling thread. This method is called when the module is closed.
+     */
+    public static void flushPersistentCache() {
+        PERSISTENT_CACHE.flush();
+    }
 
     private static void updateProjectFromCacheIfNeeded(NbGradleModel newModel) {
         File projectDir = newModel.getProjectDir();
@@ -285,8 +295,6 @@ public final class GradleModelLoader {
             final boolean mayFetchFromCache,
             final ModelRetrievedListener listener) {
 
-        // TODO: If we already loaded model from the persistent cache for this
-        //       project, skip loading from persistent cache.
         if (!mayFetchFromCache || project.hasLoadedProject()) {
             fetchModelWithoutPersistentCache(project, mayFetchFromCache, listener);
             return;
@@ -626,6 +634,42 @@ public final class GradleModelLoader {
                 daemonTaskContext(projectLoadKey.project));
     }
 
+    private static final class SelectedPersistentModelCache implements PersistentModelStore {
+        private final PersistentModelStore multiFileCache;
+        private final PersistentModelStore singleFileCache;
+
+        public SelectedPersistentModelCache() {
+            this.multiFileCache = new MultiFileModelCache();
+            this.singleFileCache = new SingleFileModelCache();
+        }
+
+        private PersistentModelStore getSelectedCache() {
+            return GlobalGradleSettings.getDefault().singleFileModelCache().getValue()
+                    ? singleFileCache
+                    : multiFileCache;
+        }
+
+        @Override
+        public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
+            return getSelectedCache().tryGetModel(project, rootProjectDir);
+        }
+
+        @Override
+        public void saveGradleModels(Collection<NbGradleModel> models) throws IOException {
+            getSelectedCache().saveGradleModels(models);
+        }
+
+        @Override
+        public Object getFingerprint(Path rootProjectDir) throws IOException {
+            return getSelectedCache().getFingerprint(rootProjectDir);
+        }
+
+        @Override
+        public Collection<SerializedNbGradleModels> readAllModels(Path rootProjectDir) throws IOException {
+            return getSelectedCache().readAllModels(rootProjectDir);
+        }
+    }
+
     private static final class ProjectLoadRequest {
         public final NbGradleProject project;
         public final SettingsGradleDef settingsGradleDef;
@@ -2,17 +2,29 @@ package org.netbeans.gradle.project.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.properties.SettingsFiles;
 import org.netbeans.gradle.project.util.SerializationUtils2;
 import org.netbeans.gradle.project.util.StringUtils;
 
-public final class MultiFileModelCache implements PersistentModelCache {
+public final class MultiFileModelCache implements PersistentModelStore {
+    private static final Logger LOGGER = Logger.getLogger(MultiFileModelCache.class.getName());
+
+    private static final Pattern CACHE_FILE_NAME_PATTERN = Pattern.compile(".*-[0-9a-fA-F]{32}");
+
     private static MessageDigest getMD5() {
         try {
             return MessageDigest.getInstance("MD5");
@@ -39,6 +51,46 @@ public final class MultiFileModelCache implements PersistentModelCache {
                 : null;
     }
 
+    @Override
+    public Object getFingerprint(Path rootProjectDir) throws IOException {
+        // Cache files are always replaced by renaming a new file, which
+        // updates the modification time of the directory.
+        Path cacheDir = SettingsFiles.getCacheDir(rootProjectDir);
+        try {
+            return Files.getLastModifiedTime(cacheDir);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public Collection<SerializedNbGradleModels> readAllModels(Path rootProjectDir) throws IOException {
+        Path cacheDir = SettingsFiles.getCacheDir(rootProjectDir);
+        if (!Files.isDirectory(cacheDir)) {
+            return Collections.emptyList();
+        }
+
+        List<SerializedNbGradleModels> result = new ArrayList<>();
+        try (DirectoryStream<Path> cacheDirContent = Files.newDirectoryStream(cacheDir)) {
+            for (Path cacheFile: cacheDirContent) {
+                String fileName = cacheFile.getFileName().toString();
+                if (!CACHE_FILE_NAME_PATTERN.matcher(fileName).matches()) {
+                    continue;
+                }
+
+                try {
+                    Object serializedModel = SerializationUtils2.deserializeFile(cacheFile);
+                    if (serializedModel instanceof SerializedNbGradleModels) {
+                        result.add((SerializedNbGradleModels)serializedModel);
+                    }
+                } catch (IOException ex) {
+                    LOGGER.log(Level.INFO, "Skipping unreadable cache file: " + cacheFile, ex);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public void saveGradleModels(Collection<NbGradleModel> models) throws IOException {
         MessageDigest hashCalculator = getMD5();
@@ -57,7 +109,7 @@ public final class MultiFileModelCache implements PersistentModelCache {
         return str.length() > maxLength ? str.substring(0, maxLength) : str;
     }
 
-    private static String getCacheKey(Path rootProjectDir, File projectDir) throws IOException {
+    static String getCacheKey(Path rootProjectDir, File projectDir) throws IOException {
         Path rootDir = rootProjectDir.normalize();
 
         String rootDirStr = rootDir.toString();
@@ -107,6 +159,6 @@ public final class MultiFileModelCache implements PersistentModelCache {
             Files.createDirectories(cacheDir);
         }
 
-        SerializationUtils2.serializeToFile(cacheFilePath, model);
+        SerializationUtils2.serializeToFileAtomically(cacheFilePath, model);
     }
 }
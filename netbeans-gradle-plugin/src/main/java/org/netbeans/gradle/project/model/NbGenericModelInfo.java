@@ -7,7 +7,10 @@ import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
 import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.properties.SettingsFiles;
 import org.netbeans.gradle.project.util.NbFileUtils;
 import org.openide.filesystems.FileObject;
@@ -18,16 +21,25 @@ public final class NbGenericModelInfo implements Serializable {
 
     private final NbGradleMultiProjectDef projectDef;
     private final Path settingsFile;
+    private final List<File> buildScriptClassPath;
 
     public NbGenericModelInfo(NbGradleMultiProjectDef projectDef) {
         this(projectDef, findSettingsGradle(projectDef.getProjectDir()));
     }
 
     public NbGenericModelInfo(NbGradleMultiProjectDef projectDef, Path settingsFile) {
+        this(projectDef, settingsFile, Collections.<File>emptyList());
+    }
+
+    public NbGenericModelInfo(
+            NbGradleMultiProjectDef projectDef,
+            Path settingsFile,
+            List<File> buildScriptClassPath) {
         ExceptionHelper.checkNotNullArgument(projectDef, "projectDef");
 
         this.settingsFile = settingsFile;
         this.projectDef = projectDef;
+        this.buildScriptClassPath = CollectionUtils.copyNullSafeList(buildScriptClassPath);
     }
 
     public File getProjectDir() {
@@ -54,6 +66,20 @@ public final class NbGenericModelInfo implements Serializable {
         return settingsFile;
     }
 
+    /**
+     * Returns the resolved classpath of the build script of this project,
+     * including the classpath inherited from the build scripts of its
+     * parent projects.
+     *
+     * @return the resolved classpath of the build script of this project.
+     *   This method never returns {@code null}, but might return an empty list
+     *   if the classpath is not known (e.g., the model was loaded from an old
+     *   cache).
+     */
+    public List<File> getBuildScriptClassPath() {
+        return buildScriptClassPath;
+    }
+
     public NbGradleMultiProjectDef getProjectDef() {
         return projectDef;
     }
@@ -160,6 +186,7 @@ public final class NbGenericModelInfo implements Serializable {
         private final NbGradleMultiProjectDef projectDef;
         private final File settingsFile; // for backward compatibility
         private final String settingsPath;
+        private final List<File> buildScriptClassPath; // null in old formats
 
         public SerializedFormat(NbGenericModelInfo source) {
             this.projectDef = source.projectDef;
@@ -167,6 +194,7 @@ public final class NbGenericModelInfo implements Serializable {
             this.settingsPath = source.settingsFile != null
                     ? source.settingsFile.toString()
                     : null;
+            this.buildScriptClassPath = source.buildScriptClassPath;
         }
 
         public Path getSettingsPath() {
@@ -178,7 +206,10 @@ public final class NbGenericModelInfo implements Serializable {
         }
 
         private Object readResolve() throws ObjectStreamException {
-            return new NbGenericModelInfo(projectDef, getSettingsPath());
+            List<File> safeBuildScriptClassPath = buildScriptClassPath != null
+                    ? buildScriptClassPath
+                    : Collections.<File>emptyList();
+            return new NbGenericModelInfo(projectDef, getSettingsPath(), safeBuildScriptClassPath);
         }
     }
 }
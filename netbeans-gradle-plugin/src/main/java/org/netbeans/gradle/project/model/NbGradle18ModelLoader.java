@@ -4,15 +4,32 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.gradle.tooling.ProjectConnection;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.MonitorableTaskExecutorService;
+import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.gradle.model.BuildScriptClassPathModel;
+import org.netbeans.gradle.model.BuildScriptClassPathModelBuilder;
 import org.netbeans.gradle.model.BuilderIssue;
 import org.netbeans.gradle.model.BuilderResult;
 import org.netbeans.gradle.model.FetchedModels;
@@ -21,6 +38,7 @@ import org.netbeans.gradle.model.FetchedProjectModels;
 import org.netbeans.gradle.model.GenericModelFetcher;
 import org.netbeans.gradle.model.GenericProjectProperties;
 import org.netbeans.gradle.model.GradleBuildInfoQuery;
+import org.netbeans.gradle.model.GradleProjectTree;
 import org.netbeans.gradle.model.OperationInitializer;
 import org.netbeans.gradle.model.api.GradleProjectInfoQuery;
 import org.netbeans.gradle.model.util.CollectionUtils;
@@ -28,6 +46,7 @@ import org.netbeans.gradle.model.util.MultiMapUtils;
 import org.netbeans.gradle.project.NbGradleExtensionRef;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.NbTaskExecutors;
 import org.netbeans.gradle.project.api.entry.ModelLoadResult;
 import org.netbeans.gradle.project.api.entry.ParsedModel;
 import org.netbeans.gradle.project.api.modelquery.GradleModelDef;
@@ -39,6 +58,17 @@ import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
 
 public final class NbGradle18ModelLoader implements NbModelLoader {
+    private static final MonitorableTaskExecutorService MODEL_PARSER_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Model-Parser", NbTaskExecutors.getDefaultThreadCount());
+
+    // The key of the project info requests not belonging to any extension.
+    // It must not be a possible extension name.
+    private static final String BUILD_SCRIPT_CLASSPATH_KEY
+            = NbGradle18ModelLoader.class.getName() + ".buildScriptClassPath";
+
+    private static final GradleModelDef BUILD_SCRIPT_CLASSPATH_QUERY
+            = GradleModelDef.fromProjectInfoBuilders(BuildScriptClassPathModelBuilder.INSTANCE);
+
     private final SettingsGradleDef settingsGradleDef;
     private final GradleTarget gradleTarget;
     private final OperationInitializer setup;
@@ -53,12 +83,6 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
         this.setup = setup;
     }
 
-    private static <E> void addAllNullSafe(Collection<? super E> collection, Collection<? extends E> toAdd) {
-        if (toAdd != null) {
-            collection.addAll(toAdd);
-        }
-    }
-
     @Override
     public Result loadModels(
             NbGradleProject project,
@@ -77,7 +101,13 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
 
         progress.progress(NbStrings.getParsingModel());
 
-        ProjectModelParser parser = new ProjectModelParser(project, settingsGradleDef, modelFetcher);
+        ProjectModelParser parser = new ProjectModelParser(
+                project,
+                project.getExtensionRefs(),
+                settingsGradleDef,
+                modelFetcher.getSettingsFile(),
+                modelFetcher.getToolingModelNeeds(),
+                MODEL_PARSER_EXECUTOR);
         return parser.parseModel(fetchedModels);
     }
 
@@ -89,27 +119,161 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                 .getProjectDir();
     }
 
-    private static final class ProjectModelParser {
+    private static List<File> getOwnBuildScriptClassPath(FetchedProjectModels projectModels) {
+        List<BuilderResult> builderResults
+                = projectModels.getProjectInfoResults().get(BUILD_SCRIPT_CLASSPATH_KEY);
+        if (builderResults == null) {
+            return Collections.emptyList();
+        }
+
+        // Failing to retrieve the classpath is not reported because it only
+        // affects the editing of the build scripts.
+        for (BuilderResult builderResult: builderResults) {
+            Object resultObject = builderResult.getResultObject();
+            if (resultObject instanceof BuildScriptClassPathModel) {
+                return ((BuildScriptClassPathModel)resultObject).getClassPath();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the classpath of the build script of each project of the build
+     * (by project directory). The builder only returns the entries declared by
+     * the project itself, so the entries of the parent projects are added
+     * here. The class loaders of the parent projects are searched first.
+     */
+    private static Map<File, List<File>> getBuildScriptClassPaths(
+            GradleProjectTree rootProject,
+            Collection<FetchedProjectModels> allProjectModels) {
+
+        Map<File, List<File>> ownClassPaths = CollectionUtils.newHashMap(allProjectModels.size());
+        for (FetchedProjectModels projectModels: allProjectModels) {
+            ownClassPaths.put(getProjectDirFromModels(projectModels), getOwnBuildScriptClassPath(projectModels));
+        }
+
+        Map<File, List<File>> result = CollectionUtils.newHashMap(ownClassPaths.size());
+        addBuildScriptClassPaths(rootProject, Collections.<File>emptyList(), ownClassPaths, result);
+        return result;
+    }
+
+    private static void addBuildScriptClassPaths(
+            GradleProjectTree project,
+            List<File> parentClassPath,
+            Map<File, List<File>> ownClassPaths,
+            Map<File, List<File>> result) {
+
+        File projectDir = project.getGenericProperties().getProjectDir();
+        List<File> ownClassPath = ownClassPaths.get(projectDir);
+
+        List<File> classPath;
+        if (ownClassPath == null || ownClassPath.isEmpty()) {
+            classPath = parentClassPath;
+        }
+        else {
+            Set<File> classPathSet = new LinkedHashSet<>(parentClassPath);
+            classPathSet.addAll(ownClassPath);
+            classPath = new ArrayList<>(classPathSet);
+        }
+        result.put(projectDir, classPath);
+
+        for (GradleProjectTree child: project.getChildren()) {
+            addBuildScriptClassPaths(child, classPath, ownClassPaths, result);
+        }
+    }
+
+    private static List<Object> getToolingModelsForExtension(
+            NbGradleExtensionRef extension,
+            Map<String, List<Class<?>>> toolingModelNeeds,
+            FetchedProjectModels projectModels) {
+
+        List<Class<?>> needs = toolingModelNeeds.get(extension.getName());
+        if (needs == null || needs.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Class<?>, Object> allModels = projectModels.getToolingModels();
+        List<Object> result = new ArrayList<>(needs.size());
+        for (Class<?> need: needs) {
+            Object model = allModels.get(need);
+            if (model != null) {
+                result.add(model);
+            }
+        }
+        return result;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parses the models fetched from Gradle into {@code NbGradleModel}
+     * instances. The extension models of the evaluated projects (other than
+     * the requested one) are parsed concurrently by the executor passed to the
+     * constructor. Only the extensions implementing
+     * {@link org.netbeans.gradle.project.ConcurrentModelParser} are parsed
+     * concurrently, the {@code parseModel} method of other extensions is
+     * never called concurrently.
+     */
+    static final class ProjectModelParser {
         private final NbGradleProject mainProject;
         private final List<NbGradleExtensionRef> extensions;
-        private final ProjectModelFetcher modelFetcher;
+        private final SettingsGradleDef settingsGradleDef;
+        private final Path settingsFile;
+        private final Map<String, List<Class<?>>> toolingModelNeeds;
+        private final TaskExecutor parseExecutor;
         private final ExtensionModelCache cache;
         private final List<ModelLoadIssue> issues;
-        private final Map<String, ModelLoadResult> modelLoadResultCache;
-        private final SettingsGradleDef settingsGradleDef;
-
+        private final ConcurrentMap<String, ModelLoadResult> modelLoadResultCache;
+        // The locks of the extensions whose parseModel method must not be
+        // called concurrently.
+        private final Map<String, Lock> serialParseLocks;
+
+        /**
+         * @param mainProject the project requesting the models. This project
+         *   is only used to report issues, so tests not expecting any issue
+         *   might pass {@code null}.
+         */
         public ProjectModelParser(
                 NbGradleProject mainProject,
+                List<NbGradleExtensionRef> extensions,
                 SettingsGradleDef settingsGradleDef,
-                ProjectModelFetcher modelFetcher) {
+                Path settingsFile,
+                Map<String, List<Class<?>>> toolingModelNeeds,
+                TaskExecutor parseExecutor) {
+            ExceptionHelper.checkNotNullElements(extensions, "extensions");
+            ExceptionHelper.checkNotNullArgument(settingsGradleDef, "settingsGradleDef");
+            ExceptionHelper.checkNotNullArgument(toolingModelNeeds, "toolingModelNeeds");
+            ExceptionHelper.checkNotNullArgument(parseExecutor, "parseExecutor");
 
             this.mainProject = mainProject;
+            this.extensions = extensions;
             this.settingsGradleDef = settingsGradleDef;
-            this.extensions = mainProject.getExtensionRefs();
-            this.modelFetcher = modelFetcher;
+            this.settingsFile = settingsFile;
+            this.toolingModelNeeds = toolingModelNeeds;
+            this.parseExecutor = parseExecutor;
             this.cache = new ExtensionModelCache();
-            this.issues = new LinkedList<>();
-            this.modelLoadResultCache = CollectionUtils.newHashMap(extensions.size());
+            this.issues = Collections.synchronizedList(new LinkedList<ModelLoadIssue>());
+            this.modelLoadResultCache = new ConcurrentHashMap<>(2 * extensions.size());
+            this.serialParseLocks = CollectionUtils.newHashMap(extensions.size());
+            for (NbGradleExtensionRef extension: extensions) {
+                if (!extension.isConcurrentModelParser()) {
+                    serialParseLocks.put(extension.getName(), new ReentrantLock());
+                }
+            }
         }
 
         private void addProjectInfoResults(
@@ -144,16 +308,31 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             GenericProjectProperties genericProperties
                     = projectModels.getProjectDef().getMainProject().getGenericProperties();
 
+            // Most extensions need nothing but the generic properties of a
+            // project, so these extensions can share the same lookup.
+            Lookup genericPropertiesLookup = null;
+
             Map<String, Lookup> result = CollectionUtils.newHashMap(extensions.size());
             for (NbGradleExtensionRef extension: extensions) {
                 String extensionName = extension.getName();
 
                 List<Object> models = new ArrayList<>();
                 addProjectInfoResults(projectModels, extension, models);
-                addAllNullSafe(models, modelFetcher.getToolingModelsForExtension(extension, projectModels));
-                models.add(genericProperties);
+                models.addAll(getToolingModelsForExtension(extension, toolingModelNeeds, projectModels));
 
-                result.put(extensionName, Lookups.fixed(models.toArray()));
+                Lookup lookup;
+                if (models.isEmpty()) {
+                    if (genericPropertiesLookup == null) {
+                        genericPropertiesLookup = Lookups.singleton(genericProperties);
+                    }
+                    lookup = genericPropertiesLookup;
+                }
+                else {
+                    models.add(genericProperties);
+                    lookup = Lookups.fixed(models.toArray());
+                }
+
+                result.put(extensionName, lookup);
             }
 
             return result;
@@ -179,46 +358,88 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
         }
 
         public Result parseModel(FetchedModels fetchedModels) {
-            ProjectModelsOfExtensions extensionsForDefault = new ProjectModelsOfExtensions(
-                    this,
-                    fetchedModels.getDefaultProjectModels());
-
-            File defaultProjectDir = extensionsForDefault.getProjectDir();
+            final FetchedProjectModels defaultProjectModels = fetchedModels.getDefaultProjectModels();
+            File defaultProjectDir = getProjectDirFromModels(defaultProjectModels);
 
-            Collection<FetchedProjectModels> otherProjectModels = fetchedModels.getOtherProjectModels();
-
-            Map<File, ProjectModelsOfExtensions> extensionModels
-                    = CollectionUtils.newHashMap(otherProjectModels.size());
-            for (FetchedProjectModels models: otherProjectModels) {
+            final List<FetchedProjectModels> otherProjectModels = new ArrayList<>();
+            for (FetchedProjectModels models: fetchedModels.getOtherProjectModels()) {
                 File projectDir = getProjectDirFromModels(models);
-                if (defaultProjectDir.equals(projectDir)) {
-                    continue;
+                if (!defaultProjectDir.equals(projectDir)) {
+                    otherProjectModels.add(models);
                 }
-
-                extensionModels.put(projectDir, new ProjectModelsOfExtensions(this, models));
             }
 
-            extensionModels.put(defaultProjectDir, extensionsForDefault);
+            final ProjectModelsOfExtensions[] allExtensionModels
+                    = new ProjectModelsOfExtensions[otherProjectModels.size() + 1];
+            executeForAll(allExtensionModels.length, new IndexedTask() {
+                @Override
+                public void execute(int index) {
+                    FetchedProjectModels models = index < otherProjectModels.size()
+                            ? otherProjectModels.get(index)
+                            : defaultProjectModels;
+                    allExtensionModels[index] = new ProjectModelsOfExtensions(ProjectModelParser.this, models);
+                }
+            });
 
-            NbGradleModel mainModel = parseModel(
-                    fetchedModels.getDefaultProjectModels(),
-                    extensionModels);
+            final Map<File, ProjectModelsOfExtensions> extensionModels
+                    = CollectionUtils.newHashMap(allExtensionModels.length);
+            for (ProjectModelsOfExtensions models: allExtensionModels) {
+                extensionModels.put(models.getProjectDir(), models);
+            }
 
-            List<NbGradleModel> otherModels = new ArrayList<>();
-            for (FetchedProjectModels models: otherProjectModels) {
-                File projectDir = getProjectDirFromModels(models);
-                if (defaultProjectDir.equals(projectDir)) {
-                    continue;
+            List<FetchedProjectModels> allProjectModels = new ArrayList<>(otherProjectModels.size() + 1);
+            allProjectModels.add(defaultProjectModels);
+            allProjectModels.addAll(otherProjectModels);
+            final Map<File, List<File>> buildScriptClassPaths = getBuildScriptClassPaths(
+                    defaultProjectModels.getProjectDef().getRootProject(),
+                    allProjectModels);
+
+            // The main project is parsed first because extensions usually
+            // parse the models of the other projects as well, which we can
+            // then reuse instead of parsing them again concurrently.
+            NbGradleModel mainModel = parseModel(defaultProjectModels, extensionModels, buildScriptClassPaths);
+
+            final NbGradleModel[] otherModels = new NbGradleModel[otherProjectModels.size()];
+            executeForAll(otherModels.length, new IndexedTask() {
+                @Override
+                public void execute(int index) {
+                    otherModels[index] = parseModel(otherProjectModels.get(index), extensionModels, buildScriptClassPaths);
                 }
-                otherModels.add(parseModel(models, extensionModels));
+            });
+
+            return new Result(mainModel, Arrays.asList(otherModels), issues);
+        }
+
+        private void executeForAll(int taskCount, final IndexedTask task) {
+            final CountDownLatch doneSignal = new CountDownLatch(taskCount);
+            final AtomicReference<Throwable> failureRef = new AtomicReference<>(null);
+
+            for (int i = 0; i < taskCount; i++) {
+                final int index = i;
+                parseExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                    @Override
+                    public void execute(CancellationToken cancelToken) {
+                        task.execute(index);
+                    }
+                }, new CleanupTask() {
+                    @Override
+                    public void cleanup(boolean canceled, Throwable error) {
+                        if (error != null) {
+                            failureRef.compareAndSet(null, error);
+                        }
+                        doneSignal.countDown();
+                    }
+                });
             }
 
-            return new Result(mainModel, otherModels, issues);
+            awaitUninterruptibly(doneSignal);
+            ExceptionHelper.rethrowIfNotNull(failureRef.get());
         }
 
         private NbGradleModel parseModel(
                 FetchedProjectModels projectModels,
-                Map<File, ProjectModelsOfExtensions> extensionModels) {
+                Map<File, ProjectModelsOfExtensions> extensionModels,
+                Map<File, List<File>> buildScriptClassPaths) {
             Throwable issue = projectModels.getIssue();
             if (issue != null) {
                 issues.add(ModelLoadIssues.projectModelLoadError(
@@ -228,8 +449,16 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                         issue));
             }
 
+            List<File> buildScriptClassPath = buildScriptClassPaths.get(getProjectDirFromModels(projectModels));
+            if (buildScriptClassPath == null) {
+                buildScriptClassPath = getOwnBuildScriptClassPath(projectModels);
+            }
+
             NbGradleMultiProjectDef projectDef = new NbGradleMultiProjectDef(projectModels.getProjectDef());
-            NbGenericModelInfo genericInfo = new NbGenericModelInfo(projectDef, modelFetcher.getSettingsFile());
+            NbGenericModelInfo genericInfo = new NbGenericModelInfo(
+                    projectDef,
+                    settingsFile,
+                    buildScriptClassPath);
             NbGradleModel.Builder result = new NbGradleModel.Builder(genericInfo);
             result.setRootWithoutSettingsGradle(!settingsGradleDef.isMaySearchUpwards());
 
@@ -252,13 +481,16 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                     ModelLoadResult modelLoadResult = modelLoadResultCache.get(extensionName);
                     if (modelLoadResult == null) {
                         modelLoadResult = getModelLoadResult(extension, projectDir, extensionModels);
-                        modelLoadResultCache.put(extensionName, modelLoadResult);
+                        ModelLoadResult prevResult = modelLoadResultCache.putIfAbsent(extensionName, modelLoadResult);
+                        if (prevResult != null) {
+                            modelLoadResult = prevResult.withMainProject(projectDir);
+                        }
                     }
                     else {
                         modelLoadResult = modelLoadResult.withMainProject(projectDir);
                     }
 
-                    ParsedModel<?> parsedModels = extension.parseModel(modelLoadResult);
+                    ParsedModel<?> parsedModels = parseExtensionModel(extension, modelLoadResult);
                     extensionModel = parsedModels.getMainModel();
 
                     for (Map.Entry<File, ?> entry: parsedModels.getOtherProjectsModel().entrySet()) {
@@ -271,6 +503,24 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
 
             return result.create();
         }
+
+        private ParsedModel<?> parseExtensionModel(NbGradleExtensionRef extension, ModelLoadResult modelLoadResult) {
+            Lock serialParseLock = serialParseLocks.get(extension.getName());
+            if (serialParseLock == null) {
+                return extension.parseModel(modelLoadResult);
+            }
+
+            serialParseLock.lock();
+            try {
+                return extension.parseModel(modelLoadResult);
+            } finally {
+                serialParseLock.unlock();
+            }
+        }
+    }
+
+    private interface IndexedTask {
+        public void execute(int index);
     }
 
     private static final class ProjectModelsOfExtensions {
@@ -300,10 +550,10 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
     }
 
     private static final class ProjectExtensionModelCache {
-        private final Map<String, CachedModel> models;
+        private final ConcurrentMap<String, CachedModel> models;
 
         public ProjectExtensionModelCache() {
-            this.models = new HashMap<>();
+            this.models = new ConcurrentHashMap<>();
         }
 
         public CachedModel tryGetModel(String extensionName) {
@@ -316,10 +566,10 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
     }
 
     private static final class ExtensionModelCache {
-        private final Map<File, ProjectExtensionModelCache> projectCaches;
+        private final ConcurrentMap<File, ProjectExtensionModelCache> projectCaches;
 
         public ExtensionModelCache() {
-            this.projectCaches = new HashMap<>();
+            this.projectCaches = new ConcurrentHashMap<>();
         }
 
         public ProjectExtensionModelCache tryGetProjectCache(File projectDir) {
@@ -330,7 +580,10 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             ProjectExtensionModelCache cache = projectCaches.get(projectDir);
             if (cache == null) {
                 cache = new ProjectExtensionModelCache();
-                projectCaches.put(projectDir, cache);
+                ProjectExtensionModelCache prevCache = projectCaches.putIfAbsent(projectDir, cache);
+                if (prevCache != null) {
+                    cache = prevCache;
+                }
             }
             return cache;
         }
@@ -364,6 +617,11 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                 MultiMapUtils.addAllToMultiMap(extensionName, modelDef.getToolingModels(), toolingModelNeeds);
             }
 
+            MultiMapUtils.addAllToMultiMap(
+                    BUILD_SCRIPT_CLASSPATH_KEY,
+                    BUILD_SCRIPT_CLASSPATH_QUERY.getProjectInfoQueries(),
+                    projectInfoRequests);
+
             modelFetcher = new GenericModelFetcher(buildInfoRequests, projectInfoRequests, models);
         }
 
@@ -375,24 +633,8 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             return settingsFile;
         }
 
-        public List<Object> getToolingModelsForExtension(
-                NbGradleExtensionRef extension,
-                FetchedProjectModels projectModels) {
-
-            List<Class<?>> needs = toolingModelNeeds.get(extension.getName());
-            if (needs == null || needs.isEmpty()) {
-                return Collections.emptyList();
-            }
-
-            Map<Class<?>, Object> allModels = projectModels.getToolingModels();
-            List<Object> result = new ArrayList<>(needs.size());
-            for (Class<?> need: needs) {
-                Object model = allModels.get(need);
-                if (model != null) {
-                    result.add(model);
-                }
-            }
-            return result;
+        public Map<String, List<Class<?>>> getToolingModelNeeds() {
+            return toolingModelNeeds;
         }
     }
 }
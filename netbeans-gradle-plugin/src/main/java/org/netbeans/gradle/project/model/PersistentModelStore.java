@@ -0,0 +1,34 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Defines a {@code PersistentModelCache} which is able to read all the models
+ * stored for a root build in a single pass.
+ */
+public interface PersistentModelStore extends PersistentModelCache {
+    /**
+     * Returns an object which is not equal to the previously returned
+     * fingerprint, if the models stored for the given root build have changed
+     * since the previous call. Calling this method must be considerably
+     * cheaper than reading the models.
+     *
+     * @param rootProjectDir the directory of the root project of the build.
+     *   This argument cannot be {@code null}.
+     * @return the fingerprint of the stored models of the given root build.
+     *   This method may return {@code null} if there are no models stored.
+     */
+    public Object getFingerprint(Path rootProjectDir) throws IOException;
+
+    /**
+     * Returns all the models stored for the projects of the given root build.
+     *
+     * @param rootProjectDir the directory of the root project of the build.
+     *   This argument cannot be {@code null}.
+     * @return all the models stored for the projects of the given root build.
+     *   This method never returns {@code null}.
+     */
+    public Collection<SerializedNbGradleModels> readAllModels(Path rootProjectDir) throws IOException;
+}
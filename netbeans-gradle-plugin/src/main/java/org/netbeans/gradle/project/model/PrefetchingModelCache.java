@@ -0,0 +1,193 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbGradleProject;
+
+/**
+ * Defines a {@code PersistentModelCache} which reads the models of every
+ * project of a root build from the wrapped store when the first project of
+ * the build is requested and serves later requests from memory. The models
+ * are read again only if the
+ * {@link PersistentModelStore#getFingerprint(Path) fingerprint} of the stored
+ * models has changed since they were read.
+ * <P>
+ * Only the serialized form of the models is kept in memory and each request
+ * deserializes the model for the requesting project, so requesting the same
+ * project again does not read the wrapped store. The serialized models are
+ * only softly reachable, so they are read again if they were reclaimed by the
+ * garbage collector.
+ */
+public final class PrefetchingModelCache implements PersistentModelCache {
+    private final PersistentModelStore wrapped;
+    private final ConcurrentMap<Path, RootBuildModels> rootBuilds;
+
+    public PrefetchingModelCache(PersistentModelStore wrapped) {
+        ExceptionHelper.checkNotNullArgument(wrapped, "wrapped");
+
+        this.wrapped = wrapped;
+        this.rootBuilds = new ConcurrentHashMap<>();
+    }
+
+    private RootBuildModels getRootBuild(Path rootProjectDir) {
+        Path normRootDir = rootProjectDir.normalize();
+
+        RootBuildModels result = rootBuilds.get(normRootDir);
+        if (result == null) {
+            result = new RootBuildModels(normRootDir);
+            RootBuildModels prevResult = rootBuilds.putIfAbsent(normRootDir, result);
+            if (prevResult != null) {
+                result = prevResult;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
+        SerializedNbGradleModels serializedModel
+                = tryGetSerializedModel(project.getProjectDirectoryAsFile(), rootProjectDir);
+        return serializedModel != null
+                ? serializedModel.deserializeModel(project)
+                : null;
+    }
+
+    /**
+     * Returns the serialized model of the given project the same way
+     * {@link #tryGetModel(NbGradleProject, Path) tryGetModel} does, before
+     * deserializing it.
+     */
+    SerializedNbGradleModels tryGetSerializedModel(File projectDir, Path rootProjectDir) throws IOException {
+        return getRootBuild(rootProjectDir).tryGetModel(projectDir);
+    }
+
+    /**
+     * Returns {@code true} if the model of the given project is available
+     * in memory. This method is only intended to be used by tests.
+     */
+    boolean hasModel(File projectDir, Path rootProjectDir) throws IOException {
+        return getRootBuild(rootProjectDir).hasModel(projectDir);
+    }
+
+    @Override
+    public void saveGradleModels(Collection<NbGradleModel> models) throws IOException {
+        wrapped.saveGradleModels(models);
+
+        Map<Path, RootBuildModels> updatedRoots = new HashMap<>();
+        for (NbGradleModel model: models) {
+            Path rootProjectDir = model.getSettingsDir().normalize();
+            RootBuildModels rootBuild = rootBuilds.get(rootProjectDir);
+            // If we have not read this root build yet, we will read the saved
+            // models along with the others, when it is first requested.
+            if (rootBuild != null) {
+                rootBuild.updateModel(model);
+                updatedRoots.put(rootProjectDir, rootBuild);
+            }
+        }
+
+        for (RootBuildModels rootBuild: updatedRoots.values()) {
+            rootBuild.updateFingerprint();
+        }
+    }
+
+    private final class RootBuildModels {
+        private final Path rootProjectDir;
+
+        private final Lock mainLock;
+        private SoftReference<Map<String, SerializedNbGradleModels>> modelsRef;
+        private Object fingerprint;
+
+        public RootBuildModels(Path rootProjectDir) {
+            this.rootProjectDir = rootProjectDir;
+            this.mainLock = new ReentrantLock();
+            this.modelsRef = null;
+            this.fingerprint = null;
+        }
+
+        private String getKey(File projectDir) throws IOException {
+            return MultiFileModelCache.getCacheKey(rootProjectDir, projectDir);
+        }
+
+        public SerializedNbGradleModels tryGetModel(File projectDir) throws IOException {
+            String key = getKey(projectDir);
+
+            mainLock.lock();
+            try {
+                return getModelsUnlocked().get(key);
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        public boolean hasModel(File projectDir) throws IOException {
+            String key = getKey(projectDir);
+
+            mainLock.lock();
+            try {
+                return getModelsUnlocked().containsKey(key);
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        private Map<String, SerializedNbGradleModels> getModelsUnlocked() throws IOException {
+            Object currentFingerprint = wrapped.getFingerprint(rootProjectDir);
+            boolean changed = !Objects.equals(fingerprint, currentFingerprint);
+
+            Map<String, SerializedNbGradleModels> models = modelsRef != null ? modelsRef.get() : null;
+            if (models == null || changed) {
+                models = readAllModels();
+                modelsRef = new SoftReference<>(models);
+                fingerprint = currentFingerprint;
+            }
+            return models;
+        }
+
+        private Map<String, SerializedNbGradleModels> readAllModels() throws IOException {
+            Collection<SerializedNbGradleModels> serializedModels = wrapped.readAllModels(rootProjectDir);
+
+            Map<String, SerializedNbGradleModels> result = new HashMap<>(2 * serializedModels.size());
+            for (SerializedNbGradleModels serializedModel: serializedModels) {
+                result.put(getKey(serializedModel.getProjectDir()), serializedModel);
+            }
+            return result;
+        }
+
+        public void updateModel(NbGradleModel model) throws IOException {
+            String key = getKey(model.getProjectDir());
+            SerializedNbGradleModels serializedModel = SerializedNbGradleModels.createSerialized(model);
+
+            mainLock.lock();
+            try {
+                Map<String, SerializedNbGradleModels> models = modelsRef != null ? modelsRef.get() : null;
+                if (models != null) {
+                    models.put(key, serializedModel);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        public void updateFingerprint() throws IOException {
+            Object currentFingerprint = wrapped.getFingerprint(rootProjectDir);
+
+            mainLock.lock();
+            try {
+                fingerprint = currentFingerprint;
+            } finally {
+                mainLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,735 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.openide.util.Utilities;
+
+/**
+ * Defines a single file mapping string keys to binary values. The file is only
+ * appended to and every write ends with an index of all the live values, so
+ * opening the file requires reading only its index and reading a value
+ * requires reading only the value itself. If a write was interrupted, the
+ * values are recovered by scanning the file and keeping every intact value.
+ * <P>
+ * Once the space taken by overwritten values exceeds a given ratio of the
+ * file, the file is compacted by copying the live values into a new file.
+ * <P>
+ * Values might be read by mapping them into memory, the index and the
+ * blocks scanned during recovery are always read into heap buffers.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently. The file is not kept open between calls. Writers lock a
+ * separate lock file next to the file, so other processes do not write the
+ * file concurrently. Within a single process, there should be only a single
+ * instance for a particular file.
+ */
+final class SegmentFileStore {
+    private static final Logger LOGGER = Logger.getLogger(SegmentFileStore.class.getName());
+
+    private static final int FILE_MAGIC = 0x4E42474D;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte BLOCK_DATA = 1;
+    private static final byte BLOCK_INDEX = 2;
+    // type (1 byte) + payload length (4 bytes) ... CRC32 of the payload (4 bytes)
+    private static final int BLOCK_PREFIX_SIZE = 5;
+    private static final int BLOCK_OVERHEAD = BLOCK_PREFIX_SIZE + 4;
+
+    // offset of the index block (8 bytes) + magic (4 bytes)
+    private static final int TRAILER_MAGIC = 0x4E424749;
+    private static final int TRAILER_SIZE = 12;
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
+    private static final long DEFAULT_MIN_COMPACT_SIZE = 256 * 1024;
+    private static final double DEFAULT_MAX_GARBAGE_RATIO = 0.5;
+
+    private final Path file;
+    private final Path lockFile;
+    private final boolean memoryMappedReads;
+    private final long minCompactSize;
+    private final double maxGarbageRatio;
+
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    // The fields below are guarded by the read and write locks.
+    private Map<String, BlockRef> index;
+    private FileState knownFileState;
+    private long contentEnd;
+    private long liveSize;
+    private long lastIndexSize;
+
+    public SegmentFileStore(Path file) {
+        // Mapped regions of a file prevent truncating and replacing it on Windows.
+        this(file, !Utilities.isWindows(), DEFAULT_MIN_COMPACT_SIZE, DEFAULT_MAX_GARBAGE_RATIO);
+    }
+
+    public SegmentFileStore(
+            Path file,
+            boolean memoryMappedReads,
+            long minCompactSize,
+            double maxGarbageRatio) {
+
+        ExceptionHelper.checkNotNullArgument(file, "file");
+        if (minCompactSize < 0) {
+            throw new IllegalArgumentException("minCompactSize must be non-negative: " + minCompactSize);
+        }
+        if (!(maxGarbageRatio >= 0.0 && maxGarbageRatio <= 1.0)) {
+            throw new IllegalArgumentException("maxGarbageRatio must be within [0, 1]: " + maxGarbageRatio);
+        }
+
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName().toString() + LOCK_FILE_SUFFIX);
+        this.memoryMappedReads = memoryMappedReads;
+        this.minCompactSize = minCompactSize;
+        this.maxGarbageRatio = maxGarbageRatio;
+
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+
+        this.index = null;
+        this.knownFileState = FileState.MISSING;
+        this.contentEnd = 0;
+        this.liveSize = 0;
+        this.lastIndexSize = 0;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public byte[] tryRead(String key) throws IOException {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        readLock.lock();
+        try {
+            updateIndexIfNeeded();
+            return tryReadUnlocked(key);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns every value in the file ordered by their position in the file,
+     * so that they are read sequentially.
+     */
+    public Map<String, byte[]> readAll() throws IOException {
+        readLock.lock();
+        try {
+            updateIndexIfNeeded();
+            return readAllUnlocked();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called while holding the read lock (and not the write lock).
+     * Upon return, the read lock is still held.
+     */
+    private void updateIndexIfNeeded() throws IOException {
+        if (isIndexUpToDate()) {
+            return;
+        }
+
+        readLock.unlock();
+        writeLock.lock();
+        try {
+            if (!isIndexUpToDate()) {
+                loadIndex();
+            }
+        } finally {
+            readLock.lock();
+            writeLock.unlock();
+        }
+    }
+
+    private Map<String, byte[]> readAllUnlocked() throws IOException {
+        if (index.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Map.Entry<String, BlockRef>> entries = new ArrayList<>(index.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, BlockRef>>() {
+            @Override
+            public int compare(Map.Entry<String, BlockRef> o1, Map.Entry<String, BlockRef> o2) {
+                return Long.compare(o1.getValue().offset, o2.getValue().offset);
+            }
+        });
+
+        Map<String, byte[]> result = new LinkedHashMap<>(2 * entries.size());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (Map.Entry<String, BlockRef> entry: entries) {
+                byte[] value = tryReadValue(channel, entry.getKey(), entry.getValue());
+                if (value != null) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            return Collections.emptyMap();
+        }
+        return result;
+    }
+
+    public void write(Map<String, byte[]> values) throws IOException {
+        ExceptionHelper.checkNotNullArgument(values, "values");
+
+        if (values.isEmpty()) {
+            return;
+        }
+
+        writeLock.lock();
+        // Closing the channel releases the lock.
+        try (FileChannel lockChannel = openLockFile()) {
+            lockChannel.lock();
+
+            // Other processes might have written the file before we got the lock.
+            if (!isIndexUpToDate()) {
+                loadIndex();
+            }
+
+            writeUnlocked(values);
+            compactIfNeeded();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private FileChannel openLockFile() throws IOException {
+        createParentDirs(lockFile);
+        return FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private static void createParentDirs(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+    }
+
+    private byte[] tryReadUnlocked(String key) throws IOException {
+        BlockRef ref = index.get(key);
+        if (ref == null) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return tryReadValue(channel, key, ref);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private byte[] tryReadValue(FileChannel channel, String key, BlockRef ref) throws IOException {
+        Block block = tryReadBlock(channel, ref.offset, contentEnd, memoryMappedReads);
+        if (block == null || block.type != BLOCK_DATA || block.totalSize != ref.size) {
+            LOGGER.log(Level.INFO, "Damaged entry in the cache file {0} for key {1}", new Object[]{file, key});
+            return null;
+        }
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(block.payload));
+        String storedKey = input.readUTF();
+        if (!key.equals(storedKey)) {
+            LOGGER.log(Level.INFO, "Unexpected key in the cache file {0}: {1}, expected {2}",
+                    new Object[]{file, storedKey, key});
+            return null;
+        }
+
+        byte[] result = new byte[input.available()];
+        input.readFully(result);
+        return result;
+    }
+
+    private boolean isIndexUpToDate() throws IOException {
+        return index != null && knownFileState.equals(readFileState());
+    }
+
+    private FileState readFileState() throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileState(attrs.size(), attrs.lastModifiedTime());
+        } catch (NoSuchFileException ex) {
+            return FileState.MISSING;
+        }
+    }
+
+    private void setIndex(ParsedIndex newIndex, FileState newFileState) {
+        long newLiveSize = 0;
+        for (BlockRef ref: newIndex.index.values()) {
+            newLiveSize += ref.size;
+        }
+
+        index = newIndex.index;
+        contentEnd = newIndex.contentEnd;
+        liveSize = newLiveSize;
+        lastIndexSize = newIndex.lastIndexSize;
+        knownFileState = newFileState;
+    }
+
+    /**
+     * Reloads the index from the file. The state of this store is only updated
+     * if the index was read successfully, so after a failure the index is
+     * still considered outdated and will not be used to overwrite the file.
+     */
+    private void loadIndex() throws IOException {
+        // The state must be read before the content, so that a concurrent
+        // change is detected on the next call.
+        FileState fileState = readFileState();
+        ParsedIndex newIndex = ParsedIndex.EMPTY;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = Math.min(fileState.size, channel.size());
+
+            if (hasValidHeader(channel, fileSize)) {
+                newIndex = tryLoadIndexFromTrailer(channel, fileSize);
+                if (newIndex == null) {
+                    newIndex = recoverIndex(channel, fileSize);
+                }
+            }
+            else if (fileSize > 0) {
+                LOGGER.log(Level.INFO, "Ignoring cache file with invalid header: {0}", file);
+            }
+        } catch (NoSuchFileException ex) {
+            // The file will be created on the first write.
+        }
+
+        setIndex(newIndex, fileState);
+    }
+
+    private static boolean hasValidHeader(FileChannel channel, long fileSize) throws IOException {
+        if (fileSize < HEADER_SIZE) {
+            return false;
+        }
+
+        ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+        return header.getInt() == FILE_MAGIC && header.getInt() == FILE_VERSION;
+    }
+
+    private ParsedIndex tryLoadIndexFromTrailer(FileChannel channel, long fileSize) throws IOException {
+        if (fileSize < HEADER_SIZE + BLOCK_OVERHEAD + TRAILER_SIZE) {
+            return null;
+        }
+
+        long indexEnd = fileSize - TRAILER_SIZE;
+        ByteBuffer trailer = readFully(channel, indexEnd, TRAILER_SIZE);
+        long indexOffset = trailer.getLong();
+        if (trailer.getInt() != TRAILER_MAGIC || indexOffset < HEADER_SIZE || indexOffset >= indexEnd) {
+            return null;
+        }
+
+        Block indexBlock = tryReadBlock(channel, indexOffset, indexEnd, false);
+        if (indexBlock == null || indexBlock.type != BLOCK_INDEX || indexOffset + indexBlock.totalSize != indexEnd) {
+            return null;
+        }
+
+        Map<String, BlockRef> newIndex = tryParseIndex(indexBlock.payload, indexOffset);
+        if (newIndex == null) {
+            return null;
+        }
+
+        return new ParsedIndex(newIndex, fileSize, indexBlock.totalSize + TRAILER_SIZE);
+    }
+
+    private ParsedIndex recoverIndex(FileChannel channel, long fileSize) throws IOException {
+        Map<String, BlockRef> recovered = new HashMap<>();
+        long validEnd = HEADER_SIZE;
+        long validIndexSize = 0;
+
+        long offset = HEADER_SIZE;
+        while (true) {
+            Block block = tryReadBlock(channel, offset, fileSize, false);
+            if (block == null) {
+                break;
+            }
+
+            long nextOffset = offset + block.totalSize;
+            if (block.type == BLOCK_DATA) {
+                String key = new DataInputStream(new ByteArrayInputStream(block.payload)).readUTF();
+                recovered.put(key, new BlockRef(offset, block.totalSize));
+                validIndexSize = 0;
+            }
+            else if (block.type == BLOCK_INDEX) {
+                if (!hasTrailerFor(channel, offset, nextOffset, fileSize)) {
+                    break;
+                }
+
+                Map<String, BlockRef> parsedIndex = tryParseIndex(block.payload, offset);
+                if (parsedIndex == null) {
+                    break;
+                }
+
+                recovered = parsedIndex;
+                nextOffset += TRAILER_SIZE;
+                validIndexSize = block.totalSize + TRAILER_SIZE;
+            }
+            else {
+                break;
+            }
+
+            offset = nextOffset;
+            validEnd = nextOffset;
+        }
+
+        LOGGER.log(Level.INFO, "Recovered {0} entries from the damaged cache file {1}, dropping {2} bytes.",
+                new Object[]{recovered.size(), file, fileSize - validEnd});
+
+        return new ParsedIndex(recovered, validEnd, validIndexSize);
+    }
+
+    private static boolean hasTrailerFor(
+            FileChannel channel,
+            long indexOffset,
+            long trailerOffset,
+            long fileSize) throws IOException {
+
+        if (trailerOffset + TRAILER_SIZE > fileSize) {
+            return false;
+        }
+
+        ByteBuffer trailer = readFully(channel, trailerOffset, TRAILER_SIZE);
+        return trailer.getLong() == indexOffset && trailer.getInt() == TRAILER_MAGIC;
+    }
+
+    private static Map<String, BlockRef> tryParseIndex(byte[] payload, long indexOffset) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+
+        try {
+            int count = input.readInt();
+            if (count < 0) {
+                return null;
+            }
+
+            Map<String, BlockRef> result = new HashMap<>(2 * count);
+            for (int i = 0; i < count; i++) {
+                String key = input.readUTF();
+                long offset = input.readLong();
+                int size = input.readInt();
+
+                if (offset < HEADER_SIZE || size < BLOCK_OVERHEAD || offset + size > indexOffset) {
+                    return null;
+                }
+                result.put(key, new BlockRef(offset, size));
+            }
+            return result;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    private static Block tryReadBlock(
+            FileChannel channel,
+            long offset,
+            long limit,
+            boolean memoryMapped) throws IOException {
+
+        if (offset + BLOCK_OVERHEAD > limit) {
+            return null;
+        }
+
+        ByteBuffer prefix = readFully(channel, offset, BLOCK_PREFIX_SIZE);
+        byte type = prefix.get();
+        int payloadSize = prefix.getInt();
+        if (payloadSize < 0 || offset + BLOCK_OVERHEAD + payloadSize > limit) {
+            return null;
+        }
+
+        long contentOffset = offset + BLOCK_PREFIX_SIZE;
+        int contentSize = payloadSize + 4;
+
+        // Accessing a mapped region beyond the end of the file fails badly,
+        // so the file must not have been truncated by another process.
+        ByteBuffer content = memoryMapped && contentOffset + contentSize <= channel.size()
+                ? channel.map(FileChannel.MapMode.READ_ONLY, contentOffset, contentSize)
+                : readFully(channel, contentOffset, contentSize);
+        byte[] payload = new byte[payloadSize];
+        content.get(payload);
+        int storedChecksum = content.getInt();
+
+        if (storedChecksum != checksum(payload)) {
+            return null;
+        }
+
+        return new Block(type, payload, BLOCK_OVERHEAD + payloadSize);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long offset, int size) throws IOException {
+        ByteBuffer result = ByteBuffer.allocate(size);
+        while (result.hasRemaining()) {
+            int readCount = channel.read(result, offset + result.position());
+            if (readCount < 0) {
+                throw new EOFException("Unexpected end of file at offset " + (offset + result.position()));
+            }
+        }
+        result.flip();
+        return result;
+    }
+
+    private static void writeFully(FileChannel channel, long offset, ByteBuffer content) throws IOException {
+        long position = offset;
+        while (content.hasRemaining()) {
+            position += channel.write(content, position);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int)crc.getValue();
+    }
+
+    private static void writeBlock(DataOutputStream output, byte type, byte[] payload) throws IOException {
+        output.writeByte(type);
+        output.writeInt(payload.length);
+        output.write(payload);
+        output.writeInt(checksum(payload));
+    }
+
+    private static byte[] createDataPayload(String key, byte[] value) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(value.length + key.length() + 16);
+        DataOutputStream output = new DataOutputStream(result);
+        output.writeUTF(key);
+        output.write(value);
+        output.flush();
+        return result.toByteArray();
+    }
+
+    private static byte[] createIndexPayload(Map<String, BlockRef> index) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(64 * index.size() + 4);
+        DataOutputStream output = new DataOutputStream(result);
+        output.writeInt(index.size());
+        for (Map.Entry<String, BlockRef> entry: index.entrySet()) {
+            BlockRef ref = entry.getValue();
+            output.writeUTF(entry.getKey());
+            output.writeLong(ref.offset);
+            output.writeInt(ref.size);
+        }
+        output.flush();
+        return result.toByteArray();
+    }
+
+    private static void writeIndexAndTrailer(
+            DataOutputStream output,
+            Map<String, BlockRef> index,
+            long indexOffset) throws IOException {
+
+        writeBlock(output, BLOCK_INDEX, createIndexPayload(index));
+        output.writeLong(indexOffset);
+        output.writeInt(TRAILER_MAGIC);
+    }
+
+    private static void writeHeader(DataOutputStream output) throws IOException {
+        output.writeInt(FILE_MAGIC);
+        output.writeInt(FILE_VERSION);
+    }
+
+    private void writeUnlocked(Map<String, byte[]> values) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+
+            ByteArrayOutputStream batch = new ByteArrayOutputStream(64 * 1024);
+            DataOutputStream output = new DataOutputStream(batch);
+
+            long startOffset = contentEnd;
+            if (startOffset < HEADER_SIZE) {
+                startOffset = 0;
+                writeHeader(output);
+            }
+
+            Map<String, BlockRef> newIndex = new HashMap<>(index);
+            for (Map.Entry<String, byte[]> entry: values.entrySet()) {
+                String key = entry.getKey();
+                byte[] value = entry.getValue();
+                ExceptionHelper.checkNotNullArgument(key, "values.key");
+                ExceptionHelper.checkNotNullArgument(value, "values.value");
+
+                long blockOffset = startOffset + output.size();
+                writeBlock(output, BLOCK_DATA, createDataPayload(key, value));
+                newIndex.put(key, new BlockRef(blockOffset, (int)(startOffset + output.size() - blockOffset)));
+            }
+
+            long indexOffset = startOffset + output.size();
+            writeIndexAndTrailer(output, newIndex, indexOffset);
+            output.flush();
+
+            // Drop the partially written content of a previous failed write.
+            if (channel.size() > startOffset) {
+                channel.truncate(startOffset);
+            }
+
+            writeFully(channel, startOffset, ByteBuffer.wrap(batch.toByteArray()));
+            channel.force(false);
+
+            long newContentEnd = startOffset + output.size();
+            setIndex(new ParsedIndex(newIndex, newContentEnd, newContentEnd - indexOffset), readFileState());
+        }
+    }
+
+    private long getGarbageSize() {
+        return contentEnd - HEADER_SIZE - liveSize - lastIndexSize;
+    }
+
+    private void compactIfNeeded() {
+        if (contentEnd < minCompactSize) {
+            return;
+        }
+        if (getGarbageSize() <= maxGarbageRatio * contentEnd) {
+            return;
+        }
+
+        try {
+            compact();
+        } catch (IOException ex) {
+            // The original file is still intact, so we can simply continue using it.
+            LOGGER.log(Level.INFO, "Failed to compact the cache file: " + file, ex);
+        }
+    }
+
+    private void compact() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tempFile = Files.createTempFile(dir, file.getFileName().toString() + ".", ".tmp");
+        try {
+            Map<String, BlockRef> newIndex = new HashMap<>(2 * index.size());
+            long indexOffset;
+            long newContentEnd;
+
+            try (FileChannel src = FileChannel.open(file, StandardOpenOption.READ);
+                    FileChannel dest = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+
+                ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(HEADER_SIZE);
+                writeHeader(new DataOutputStream(headerBytes));
+                writeFully(dest, 0, ByteBuffer.wrap(headerBytes.toByteArray()));
+
+                long destOffset = HEADER_SIZE;
+                for (Map.Entry<String, BlockRef> entry: index.entrySet()) {
+                    BlockRef ref = entry.getValue();
+                    long copied = 0;
+                    while (copied < ref.size) {
+                        copied += src.transferTo(ref.offset + copied, ref.size - copied, dest.position(destOffset + copied));
+                    }
+
+                    newIndex.put(entry.getKey(), new BlockRef(destOffset, ref.size));
+                    destOffset += ref.size;
+                }
+
+                indexOffset = destOffset;
+                ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+                writeIndexAndTrailer(new DataOutputStream(indexBytes), newIndex, indexOffset);
+                writeFully(dest, indexOffset, ByteBuffer.wrap(indexBytes.toByteArray()));
+                dest.force(false);
+
+                newContentEnd = indexOffset + indexBytes.size();
+            }
+
+            NbFileUtils.moveReplace(tempFile, file);
+
+            setIndex(new ParsedIndex(newIndex, newContentEnd, newContentEnd - indexOffset), readFileState());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static final class ParsedIndex {
+        public static final ParsedIndex EMPTY
+                = new ParsedIndex(Collections.<String, BlockRef>emptyMap(), 0, 0);
+
+        public final Map<String, BlockRef> index;
+        public final long contentEnd;
+        public final long lastIndexSize;
+
+        public ParsedIndex(Map<String, BlockRef> index, long contentEnd, long lastIndexSize) {
+            this.index = index;
+            this.contentEnd = contentEnd;
+            this.lastIndexSize = lastIndexSize;
+        }
+    }
+
+    /**
+     * The size and the last modification time of the file. The size alone is
+     * not enough, because another process might rewrite the file with the
+     * same size (e.g., after compaction).
+     */
+    private static final class FileState {
+        public static final FileState MISSING = new FileState(-1, FileTime.fromMillis(0));
+
+        public final long size;
+        public final FileTime lastModifiedTime;
+
+        public FileState(long size, FileTime lastModifiedTime) {
+            this.size = size;
+            this.lastModifiedTime = lastModifiedTime;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 83 * hash + (int)(this.size ^ (this.size >>> 32));
+            hash = 83 * hash + this.lastModifiedTime.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final FileState other = (FileState)obj;
+            return this.size == other.size
+                    && this.lastModifiedTime.equals(other.lastModifiedTime);
+        }
+    }
+
+    private static final class Block {
+        public final byte type;
+        public final byte[] payload;
+        public final int totalSize;
+
+        public Block(byte type, byte[] payload, int totalSize) {
+            this.type = type;
+            this.payload = payload;
+            this.totalSize = totalSize;
+        }
+    }
+
+    private static final class BlockRef {
+        public final long offset;
+        public final int size;
+
+        public BlockRef(long offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.netbeans.gradle.project.model;
 
+import java.io.File;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.logging.Level;
@@ -58,6 +59,10 @@ public final class SerializedNbGradleModels implements Serializable {
         return new SerializedNbGradleModels(model.getGenericInfo(), serializedModels, model.isRootWithoutSettingsGradle());
     }
 
+    public File getProjectDir() {
+        return genericInfo.getProjectDir();
+    }
+
     public NbGradleModel deserializeModel(NbGradleProject ownerProject) {
         Map<String, Object> deserializedModels = CollectionUtils.newHashMap(extensionModels.size());
 
@@ -0,0 +1,108 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.netbeans.gradle.project.util.SerializationUtils2;
+
+/**
+ * Defines a {@code PersistentModelCache} storing the models of all the
+ * projects of a root build in a single {@link SegmentFileStore segment file}
+ * instead of a separate file for each project.
+ */
+public final class SingleFileModelCache implements PersistentModelStore {
+    private static final String CACHE_FILE_NAME = "models.segment";
+
+    private final ConcurrentMap<Path, SegmentFileStore> stores;
+
+    public SingleFileModelCache() {
+        this.stores = new ConcurrentHashMap<>();
+    }
+
+    private static Path getCacheFile(Path rootProjectDir) {
+        return SettingsFiles.getCacheDir(rootProjectDir.normalize()).resolve(CACHE_FILE_NAME);
+    }
+
+    private SegmentFileStore getStore(Path rootProjectDir) {
+        Path cacheFile = getCacheFile(rootProjectDir);
+
+        SegmentFileStore result = stores.get(cacheFile);
+        if (result == null) {
+            result = new SegmentFileStore(cacheFile);
+            SegmentFileStore prevStore = stores.putIfAbsent(cacheFile, result);
+            if (prevStore != null) {
+                result = prevStore;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
+        String cacheKey = MultiFileModelCache.getCacheKey(rootProjectDir, project.getProjectDirectoryAsFile());
+
+        byte[] serialized = getStore(rootProjectDir).tryRead(cacheKey);
+        if (serialized == null) {
+            return null;
+        }
+
+        SerializedNbGradleModels serializedModel
+                = (SerializedNbGradleModels)SerializationUtils2.deserializeObject(serialized);
+        return serializedModel != null
+                ? serializedModel.deserializeModel(project)
+                : null;
+    }
+
+    @Override
+    public Object getFingerprint(Path rootProjectDir) throws IOException {
+        try {
+            return Files.getLastModifiedTime(getCacheFile(rootProjectDir));
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public Collection<SerializedNbGradleModels> readAllModels(Path rootProjectDir) throws IOException {
+        Collection<byte[]> allSerialized = getStore(rootProjectDir).readAll().values();
+
+        List<SerializedNbGradleModels> result = new ArrayList<>(allSerialized.size());
+        for (byte[] serialized: allSerialized) {
+            result.add((SerializedNbGradleModels)SerializationUtils2.deserializeObject(serialized));
+        }
+        return result;
+    }
+
+    @Override
+    public void saveGradleModels(Collection<NbGradleModel> models) throws IOException {
+        Map<Path, Map<String, byte[]>> byRootDir = new HashMap<>();
+
+        for (NbGradleModel model: models) {
+            Path rootProjectDir = model.getSettingsDir();
+
+            Map<String, byte[]> values = byRootDir.get(rootProjectDir);
+            if (values == null) {
+                values = new HashMap<>();
+                byRootDir.put(rootProjectDir, values);
+            }
+
+            String cacheKey = MultiFileModelCache.getCacheKey(rootProjectDir, model.getProjectDir());
+            SerializedNbGradleModels toSave = SerializedNbGradleModels.createSerialized(model);
+            values.put(cacheKey, SerializationUtils2.serializeObject(toSave));
+        }
+
+        for (Map.Entry<Path, Map<String, byte[]>> entry: byRootDir.entrySet()) {
+            getStore(entry.getKey()).write(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Finds out which groups of anchors occur in a line by scanning the line only
+ * once, regardless the number of anchors (using the Aho-Corasick algorithm).
+ * <P>
+ * Anchors are matched ignoring the case of characters and without
+ * distinguishing '/' from '\' as defined by {@link LineAnchorProvider}.
+ * <P>
+ * Instances of this class are not safe to be used by multiple threads
+ * concurrently, because the mask returned by
+ * {@link #findMatchingGroups(String) findMatchingGroups} is reused between
+ * calls. Each line processor is expected to own a separate instance.
+ */
+final class AnchorMatcher {
+    private static final int ASCII_SIZE = 128;
+
+    private final int groupCount;
+    private final long[] alwaysMatched;
+    private final long[] matchedGroups;
+
+    private final int[] asciiTransitions;
+    private final char[][] otherChars;
+    private final int[][] otherTargets;
+    private final int[] failLinks;
+    private final long[][] outputs;
+
+    /**
+     * Creates a matcher for the given groups of anchors. A group matches a
+     * line if any of its anchors occur in the line.
+     *
+     * @param anchorGroups the groups of anchors. This argument cannot be
+     *   {@code null} but its elements can be {@code null}, which means that
+     *   the group matches every line.
+     */
+    public AnchorMatcher(List<? extends Collection<String>> anchorGroups) {
+        ExceptionHelper.checkNotNullArgument(anchorGroups, "anchorGroups");
+
+        this.groupCount = anchorGroups.size();
+        this.alwaysMatched = new long[getMaskLength(groupCount)];
+
+        TrieNode root = new TrieNode();
+        int groupIndex = 0;
+        for (Collection<String> anchors: anchorGroups) {
+            if (anchors == null) {
+                setBit(alwaysMatched, groupIndex);
+            }
+            else {
+                for (String anchor: anchors) {
+                    if (anchor.isEmpty()) {
+                        setBit(alwaysMatched, groupIndex);
+                    }
+                    else {
+                        root.addAnchor(anchor, groupIndex, alwaysMatched.length);
+                    }
+                }
+            }
+            groupIndex++;
+        }
+
+        this.matchedGroups = new long[alwaysMatched.length];
+
+        List<TrieNode> nodes = breadthFirstOrder(root);
+        int nodeCount = nodes.size();
+
+        this.asciiTransitions = new int[nodeCount * ASCII_SIZE];
+        this.otherChars = new char[nodeCount][];
+        this.otherTargets = new int[nodeCount][];
+        this.failLinks = new int[nodeCount];
+        this.outputs = new long[nodeCount][];
+
+        for (TrieNode node: nodes) {
+            int index = node.index;
+            failLinks[index] = node.fail != null ? node.fail.index : 0;
+            outputs[index] = node.output;
+
+            int baseIndex = index * ASCII_SIZE;
+            int failBaseIndex = failLinks[index] * ASCII_SIZE;
+            for (char ch = 0; ch < ASCII_SIZE; ch++) {
+                TrieNode child = node.children.get(ch);
+                if (child != null) {
+                    asciiTransitions[baseIndex + ch] = child.index;
+                }
+                else {
+                    // Since nodes are processed in breadth first order, the
+                    // transitions of the shallower fail node are already set.
+                    asciiTransitions[baseIndex + ch] = node == root ? 0 : asciiTransitions[failBaseIndex + ch];
+                }
+            }
+
+            Map<Character, TrieNode> others = node.children.tailMap((char)ASCII_SIZE);
+            otherChars[index] = new char[others.size()];
+            otherTargets[index] = new int[others.size()];
+            int otherIndex = 0;
+            for (Map.Entry<Character, TrieNode> entry: others.entrySet()) {
+                otherChars[index][otherIndex] = entry.getKey();
+                otherTargets[index][otherIndex] = entry.getValue().index;
+                otherIndex++;
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link LineAnchorProvider#getLineAnchors() anchors} of the
+     * given objects, or {@code null} for objects not implementing
+     * {@code LineAnchorProvider}.
+     */
+    public static List<Collection<String>> getLineAnchors(Object[] lineProcessors) {
+        List<Collection<String>> result = new ArrayList<>(lineProcessors.length);
+        for (Object lineProcessor: lineProcessors) {
+            Collection<String> anchors = null;
+            if (lineProcessor instanceof LineAnchorProvider) {
+                anchors = ((LineAnchorProvider)lineProcessor).getLineAnchors();
+            }
+            result.add(anchors);
+        }
+        return result;
+    }
+
+    private static int getMaskLength(int groupCount) {
+        return (groupCount + 63) / 64;
+    }
+
+    private static void setBit(long[] mask, int index) {
+        mask[index / 64] |= 1L << (index % 64);
+    }
+
+    private static char foldChar(char ch) {
+        if (ch < ASCII_SIZE) {
+            if (ch >= 'A' && ch <= 'Z') {
+                return (char)(ch + ('a' - 'A'));
+            }
+            return ch == '\\' ? '/' : ch;
+        }
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    private static List<TrieNode> breadthFirstOrder(TrieNode root) {
+        List<TrieNode> result = new ArrayList<>();
+        Deque<TrieNode> queue = new ArrayDeque<>();
+
+        root.index = 0;
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            TrieNode node = queue.poll();
+            result.add(node);
+
+            for (Map.Entry<Character, TrieNode> entry: node.children.entrySet()) {
+                char ch = entry.getKey();
+                TrieNode child = entry.getValue();
+                child.index = result.size() + queue.size();
+
+                TrieNode fail = node.fail;
+                while (fail != null && !fail.children.containsKey(ch)) {
+                    fail = fail.fail;
+                }
+                child.fail = fail != null ? fail.children.get(ch) : root;
+                child.mergeOutput(child.fail.output);
+
+                queue.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of groups this matcher was created with.
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Returns {@code true} if the given group is in the mask returned by
+     * {@link #findMatchingGroups(String) findMatchingGroups}.
+     */
+    public static boolean isMatched(long[] matchedGroups, int groupIndex) {
+        return (matchedGroups[groupIndex / 64] & (1L << (groupIndex % 64))) != 0;
+    }
+
+    private int nextOtherState(int state, char ch) {
+        int currentState = state;
+        while (true) {
+            int edgeIndex = Arrays.binarySearch(otherChars[currentState], ch);
+            if (edgeIndex >= 0) {
+                return otherTargets[currentState][edgeIndex];
+            }
+            if (currentState == 0) {
+                return 0;
+            }
+            currentState = failLinks[currentState];
+        }
+    }
+
+    /**
+     * Returns the groups having at least one anchor occurring in the given
+     * line. The returned mask should be queried by the
+     * {@link #isMatched(long[], int) isMatched} method and is only valid until
+     * the next call of this method, which overwrites it.
+     */
+    public long[] findMatchingGroups(String line) {
+        long[] result = matchedGroups;
+        System.arraycopy(alwaysMatched, 0, result, 0, result.length);
+        if (failLinks.length <= 1) {
+            // There are no anchors to look for.
+            return result;
+        }
+
+        int state = 0;
+        int lineLength = line.length();
+        for (int i = 0; i < lineLength; i++) {
+            char ch = foldChar(line.charAt(i));
+            if (ch < ASCII_SIZE) {
+                state = asciiTransitions[state * ASCII_SIZE + ch];
+            }
+            else {
+                state = nextOtherState(state, ch);
+            }
+
+            long[] output = outputs[state];
+            if (output != null) {
+                for (int maskIndex = 0; maskIndex < result.length; maskIndex++) {
+                    result[maskIndex] |= output[maskIndex];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static final class TrieNode {
+        public final TreeMap<Character, TrieNode> children;
+        public TrieNode fail;
+        public long[] output;
+        public int index;
+
+        public TrieNode() {
+            this.children = new TreeMap<>();
+            this.fail = null;
+            this.output = null;
+            this.index = -1;
+        }
+
+        public void addAnchor(String anchor, int groupIndex, int maskLength) {
+            TrieNode node = this;
+            int anchorLength = anchor.length();
+            for (int i = 0; i < anchorLength; i++) {
+                char ch = foldChar(anchor.charAt(i));
+                TrieNode child = node.children.get(ch);
+                if (child == null) {
+                    child = new TrieNode();
+                    node.children.put(ch, child);
+                }
+                node = child;
+            }
+
+            if (node.output == null) {
+                node.output = new long[maskLength];
+            }
+            setBit(node.output, groupIndex);
+        }
+
+        public void mergeOutput(long[] otherOutput) {
+            if (otherOutput == null) {
+                return;
+            }
+
+            if (output == null) {
+                output = otherOutput.clone();
+            }
+            else {
+                for (int i = 0; i < output.length; i++) {
+                    output[i] |= otherOutput[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+
+/**
+ * Defines a {@code LineOutputWriter.Handler} forwarding the lines written to
+ * it to another handler in batches, in a background thread. A batch is
+ * forwarded (and the wrapped handler is flushed) when enough characters were
+ * written or some time elapsed since the previous batch. So, lines written to
+ * this handler appear in the wrapped handler with a short delay.
+ * <P>
+ * If the wrapped handler cannot keep up with the lines written, then
+ * {@code writeLine} blocks until the pending lines are forwarded.
+ * <P>
+ * The {@code flush} method of this handler does nothing (because the
+ * process writing the output might flush after each line), the pending lines
+ * are forwarded when this handler is closed.
+ * <P>
+ * Lines might be forwarded to other handlers through the same queue by the
+ * handlers returned by {@link #createHandler(LineOutputWriter.Handler) createHandler}
+ * (e.g., for the standard error of the same process). Lines written to these
+ * handlers are forwarded in the order they were written regardless which
+ * handler they were written to.
+ */
+public final class BatchedLineHandler implements LineOutputWriter.Handler, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(BatchedLineHandler.class.getName());
+
+    private static final int DEFAULT_FLUSH_PERIOD_MS = 50;
+    private static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+    private static final int DEFAULT_MAX_PENDING_SIZE = 4 * DEFAULT_BATCH_SIZE;
+
+    // A thread is only used while there are lines to be forwarded but
+    // the output of multiple tasks might be forwarded concurrently.
+    private static final TaskExecutor FORWARDER_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Output-Forwarder", 32);
+
+    private final LineOutputWriter.Handler handler;
+    private final TaskExecutor forwarderExecutor;
+    private final long flushPeriodNanos;
+    private final int batchSize;
+    private final int maxPendingSize;
+
+    private final Lock mainLock;
+    private final Condition linesAddedSignal;
+    private final Condition linesRemovedSignal;
+    // Guarded by mainLock
+    private final List<LineOutputWriter.Handler> targets;
+    private List<PendingLine> pendingLines;
+    private int pendingSize;
+    private boolean forwarding;
+    private boolean failed;
+    private boolean closed;
+
+    private long delayedLineCount;
+    private long delayNanos;
+    private long droppedLineCount;
+
+    public BatchedLineHandler(LineOutputWriter.Handler handler) {
+        this(handler, FORWARDER_EXECUTOR, DEFAULT_FLUSH_PERIOD_MS, DEFAULT_BATCH_SIZE, DEFAULT_MAX_PENDING_SIZE);
+    }
+
+    /**
+     * Creates a new {@code BatchedLineHandler} with the given limits.
+     *
+     * @param handler the handler to which the lines are forwarded. This
+     *   argument cannot be {@code null}.
+     * @param forwarderExecutor the executor executing the task forwarding the
+     *   lines. The task might block for {@code flushPeriodMs} milliseconds
+     *   waiting for more lines. This argument cannot be {@code null}.
+     * @param flushPeriodMs the maximum time in milliseconds a line might wait
+     *   in this handler before being forwarded (unless the wrapped handler is
+     *   slow)
+     * @param batchSize the number of characters after which the pending lines
+     *   are forwarded without waiting for {@code flushPeriodMs} to elapse. Each
+     *   line counts as its length plus one.
+     * @param maxPendingSize the number of characters not yet forwarded after
+     *   which {@code writeLine} blocks. This must be at least
+     *   {@code batchSize}.
+     */
+    public BatchedLineHandler(
+            LineOutputWriter.Handler handler,
+            TaskExecutor forwarderExecutor,
+            int flushPeriodMs,
+            int batchSize,
+            int maxPendingSize) {
+        ExceptionHelper.checkNotNullArgument(handler, "handler");
+        ExceptionHelper.checkNotNullArgument(forwarderExecutor, "forwarderExecutor");
+        ExceptionHelper.checkArgumentInRange(flushPeriodMs, 0, Integer.MAX_VALUE, "flushPeriodMs");
+        ExceptionHelper.checkArgumentInRange(batchSize, 1, Integer.MAX_VALUE, "batchSize");
+        ExceptionHelper.checkArgumentInRange(maxPendingSize, batchSize, Integer.MAX_VALUE, "maxPendingSize");
+
+        this.handler = handler;
+        this.forwarderExecutor = forwarderExecutor;
+        this.flushPeriodNanos = TimeUnit.MILLISECONDS.toNanos(flushPeriodMs);
+        this.batchSize = batchSize;
+        this.maxPendingSize = maxPendingSize;
+
+        this.mainLock = new ReentrantLock();
+        this.linesAddedSignal = mainLock.newCondition();
+        this.linesRemovedSignal = mainLock.newCondition();
+        this.targets = new ArrayList<>();
+        this.targets.add(handler);
+        this.pendingLines = new ArrayList<>();
+        this.pendingSize = 0;
+        this.forwarding = false;
+        this.failed = false;
+        this.closed = false;
+
+        this.delayedLineCount = 0;
+        this.delayNanos = 0;
+        this.droppedLineCount = 0;
+    }
+
+    // Must be called while holding mainLock.
+    private void waitForPendingLines() {
+        long startTime = System.nanoTime();
+        try {
+            while (pendingSize >= maxPendingSize && !failed) {
+                linesRemovedSignal.await();
+            }
+        } catch (InterruptedException ex) {
+            // Rather exceed the limit than lose the line.
+            Thread.currentThread().interrupt();
+        }
+
+        delayedLineCount++;
+        delayNanos += System.nanoTime() - startTime;
+    }
+
+    /**
+     * Returns a handler forwarding the lines written to it to the given
+     * handler through the queue of this {@code BatchedLineHandler}. That is,
+     * the lines written to the returned handler and to this handler are
+     * forwarded in the order they were written. The returned handler is
+     * closed along with this {@code BatchedLineHandler} and its
+     * {@code flush} method does nothing.
+     *
+     * @param target the handler to which the lines written to the returned
+     *   handler are forwarded. This argument cannot be {@code null}.
+     * @return the handler forwarding the lines written to it to the given
+     *   handler. This method never returns {@code null}.
+     */
+    public LineOutputWriter.Handler createHandler(final LineOutputWriter.Handler target) {
+        ExceptionHelper.checkNotNullArgument(target, "target");
+
+        mainLock.lock();
+        try {
+            targets.add(target);
+        } finally {
+            mainLock.unlock();
+        }
+
+        return new LineOutputWriter.Handler() {
+            @Override
+            public void writeLine(String line) throws IOException {
+                addLine(target, line);
+            }
+
+            @Override
+            public void flush() throws IOException {
+            }
+        };
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        addLine(handler, line);
+    }
+
+    private void addLine(LineOutputWriter.Handler target, String line) {
+        ExceptionHelper.checkNotNullArgument(line, "line");
+
+        boolean startForwarder;
+        mainLock.lock();
+        try {
+            if (pendingSize >= maxPendingSize) {
+                waitForPendingLines();
+            }
+
+            if (failed || closed) {
+                droppedLineCount++;
+                return;
+            }
+
+            pendingLines.add(new PendingLine(target, line));
+            pendingSize += line.length() + 1;
+            if (pendingSize >= batchSize) {
+                linesAddedSignal.signal();
+            }
+
+            startForwarder = !forwarding;
+            forwarding = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (startForwarder) {
+            forwarderExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    forwardLines();
+                }
+            }, null);
+        }
+    }
+
+    // Must be called while holding mainLock.
+    private List<PendingLine> pollBatch() {
+        long waitNanos = flushPeriodNanos;
+        try {
+            while (!closed && pendingSize < batchSize && waitNanos > 0) {
+                waitNanos = linesAddedSignal.awaitNanos(waitNanos);
+            }
+        } catch (InterruptedException ex) {
+            // Forward the lines we have right now.
+            Thread.currentThread().interrupt();
+        }
+
+        if (pendingLines.isEmpty()) {
+            return null;
+        }
+
+        List<PendingLine> result = pendingLines;
+        pendingLines = new ArrayList<>(result.size());
+        pendingSize = 0;
+        linesRemovedSignal.signalAll();
+        return result;
+    }
+
+    private void forwardLines() {
+        while (true) {
+            List<PendingLine> batch;
+            mainLock.lock();
+            try {
+                batch = pollBatch();
+                if (batch == null) {
+                    forwarding = false;
+                    linesRemovedSignal.signalAll();
+                    return;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            forwardBatch(batch);
+        }
+    }
+
+    private void forwardBatch(List<PendingLine> batch) {
+        int forwardedCount = 0;
+        try {
+            Set<LineOutputWriter.Handler> writtenTargets = new LinkedHashSet<>();
+            for (PendingLine line: batch) {
+                line.target.writeLine(line.line);
+                writtenTargets.add(line.target);
+                forwardedCount++;
+            }
+            for (LineOutputWriter.Handler target: writtenTargets) {
+                target.flush();
+            }
+        } catch (Throwable ex) {
+            LOGGER.log(Level.WARNING, "Failed to forward the output, further lines are dropped.", ex);
+
+            mainLock.lock();
+            try {
+                failed = true;
+                droppedLineCount += batch.size() - forwardedCount + pendingLines.size();
+                pendingLines.clear();
+                pendingSize = 0;
+                linesRemovedSignal.signalAll();
+            } finally {
+                mainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Does nothing, the lines are forwarded within the flush period anyway.
+     * Call {@link #close() close} to forward every line written.
+     */
+    @Override
+    public void flush() throws IOException {
+    }
+
+    /**
+     * Waits until every line written to this handler (and to the handlers
+     * created by it) is forwarded and flushes the wrapped handlers. Lines
+     * written after this method was called are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        List<LineOutputWriter.Handler> toFlush;
+        mainLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            linesAddedSignal.signalAll();
+            while (forwarding) {
+                linesRemovedSignal.awaitUninterruptibly();
+            }
+            toFlush = new ArrayList<>(targets);
+        } finally {
+            mainLock.unlock();
+        }
+
+        logStatistics();
+        for (LineOutputWriter.Handler target: toFlush) {
+            target.flush();
+        }
+    }
+
+    private void logStatistics() {
+        long currentDelayedLineCount = getDelayedLineCount();
+        long currentDroppedLineCount = getDroppedLineCount();
+        if (currentDelayedLineCount > 0 || currentDroppedLineCount > 0) {
+            LOGGER.log(Level.INFO,
+                    "Output lines delayed because the output window was slow: {0} (for {1} ms in total), dropped lines: {2}",
+                    new Object[]{currentDelayedLineCount, TimeUnit.NANOSECONDS.toMillis(getDelayNanos()), currentDroppedLineCount});
+        }
+    }
+
+    /**
+     * Returns the number of times {@code writeLine} had to wait for the
+     * pending lines to be forwarded.
+     */
+    public long getDelayedLineCount() {
+        mainLock.lock();
+        try {
+            return delayedLineCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total time in nanoseconds {@code writeLine} had to wait for
+     * the pending lines to be forwarded.
+     */
+    public long getDelayNanos() {
+        mainLock.lock();
+        try {
+            return delayNanos;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lines not forwarded because they were written
+     * after this handler was closed or after the wrapped handler failed.
+     */
+    public long getDroppedLineCount() {
+        mainLock.lock();
+        try {
+            return droppedLineCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static final class PendingLine {
+        public final LineOutputWriter.Handler target;
+        public final String line;
+
+        public PendingLine(LineOutputWriter.Handler target, String line) {
+            this.target = target;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.netbeans.gradle.project.output;
+
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines the location of a compiler message printed to the output. The
+ * following forms are recognized (where the line and column numbers are
+ * optional):
+ * <ul>
+ *  <li>{@code path:line: message} (javac)</li>
+ *  <li>{@code path:line:column: message} (javac, gcc and kotlinc)</li>
+ *  <li>{@code path: line: message} (groovyc)</li>
+ *  <li>{@code e: path: (line, column): message} (kotlinc)</li>
+ *  <li>{@code e: file://path:line:column message} (kotlinc)</li>
+ * </ul>
+ */
+final class CompilerDiagnostic {
+    private static final String FILE_URL_PREFIX = "file://";
+
+    /**
+     * The number of colons tried as the end of the path. The second one is
+     * needed because paths on Windows might contain a colon. E.g.: "C:\\file"
+     */
+    private static final int MAX_PATH_SEPARATOR_COUNT = 2;
+
+    /**
+     * Line and column numbers with more digits are surely not line and column
+     * numbers (and they could overflow).
+     */
+    private static final int MAX_NUMBER_LENGTH = 9;
+
+    private final String path;
+    private final int startIndex;
+    private final int endIndex;
+    private final int lineNumber;
+    private final int columnNumber;
+
+    private CompilerDiagnostic(String path, int startIndex, int endIndex, int lineNumber, int columnNumber) {
+        this.path = path;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+        this.lineNumber = lineNumber;
+        this.columnNumber = columnNumber;
+    }
+
+    /**
+     * Parses the location from the given line of output or returns
+     * {@code null} if the line does not start with the path of an existing
+     * file.
+     *
+     * @param line the line of output to be parsed. This argument cannot be
+     *   {@code null}.
+     * @param fileCache the cache used to check if a path is an existing file.
+     *   This argument cannot be {@code null}.
+     * @return the location at the beginning of the given line or {@code null}
+     *   if there is none
+     */
+    public static CompilerDiagnostic tryParse(String line, FileExistenceCache fileCache) {
+        ExceptionHelper.checkNotNullArgument(line, "line");
+        ExceptionHelper.checkNotNullArgument(fileCache, "fileCache");
+
+        int pathStartIndex = findPathStart(line);
+
+        int separatorIndex = pathStartIndex;
+        for (int i = 0; i < MAX_PATH_SEPARATOR_COUNT; i++) {
+            separatorIndex = line.indexOf(':', separatorIndex + 1);
+            if (separatorIndex < 0) {
+                return null;
+            }
+
+            String path = line.substring(pathStartIndex, trimEndIndex(line, pathStartIndex, separatorIndex));
+            if (!path.isEmpty() && fileCache.isFile(path)) {
+                return parseLocation(line, path, pathStartIndex, separatorIndex);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSpace(char ch) {
+        return ch <= ' ';
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static int skipSpaces(String line, int index) {
+        int lineLength = line.length();
+        int result = index;
+        while (result < lineLength && isSpace(line.charAt(result))) {
+            result++;
+        }
+        return result;
+    }
+
+    private static int trimEndIndex(String line, int startIndex, int endIndex) {
+        int result = endIndex;
+        while (result > startIndex && isSpace(line.charAt(result - 1))) {
+            result--;
+        }
+        return result;
+    }
+
+    private static boolean isSeverityPrefix(String line, int index) {
+        if (index + 2 >= line.length()) {
+            return false;
+        }
+
+        char severity = line.charAt(index);
+        return (severity == 'e' || severity == 'w' || severity == 'i' || severity == 'v')
+                && line.charAt(index + 1) == ':'
+                && line.charAt(index + 2) == ' ';
+    }
+
+    private static int findPathStart(String line) {
+        int result = skipSpaces(line, 0);
+
+        // Kotlin prefixes its messages with the severity: "e: ", "w: " etc.
+        if (isSeverityPrefix(line, result)) {
+            result = skipSpaces(line, result + 2);
+        }
+
+        if (line.startsWith(FILE_URL_PREFIX, result)) {
+            result += FILE_URL_PREFIX.length();
+            // file:///C:/file
+            if (result + 2 < line.length()
+                    && line.charAt(result) == '/'
+                    && line.charAt(result + 2) == ':') {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static int numberEndIndex(String line, int startIndex) {
+        int lineLength = line.length();
+        int result = startIndex;
+        while (result < lineLength && isDigit(line.charAt(result))) {
+            result++;
+        }
+
+        int length = result - startIndex;
+        return length > 0 && length <= MAX_NUMBER_LENGTH ? result : -1;
+    }
+
+    private static CompilerDiagnostic parseLocation(String line, String path, int pathStartIndex, int separatorIndex) {
+        int pathEndIndex = trimEndIndex(line, pathStartIndex, separatorIndex);
+        int lineLength = line.length();
+
+        int lineStartIndex = skipSpaces(line, separatorIndex + 1);
+        if (lineStartIndex >= lineLength) {
+            return new CompilerDiagnostic(path, pathStartIndex, pathEndIndex, -1, -1);
+        }
+
+        if (line.charAt(lineStartIndex) == '(') {
+            return parseParenthesizedLocation(line, path, pathStartIndex, pathEndIndex, lineStartIndex + 1);
+        }
+
+        int lineEndIndex = numberEndIndex(line, lineStartIndex);
+        if (lineEndIndex < 0) {
+            return new CompilerDiagnostic(path, pathStartIndex, pathEndIndex, -1, -1);
+        }
+
+        int lineNumber = Integer.parseInt(line.substring(lineStartIndex, lineEndIndex));
+
+        if (lineEndIndex < lineLength && line.charAt(lineEndIndex) == ':') {
+            int columnEndIndex = numberEndIndex(line, lineEndIndex + 1);
+            if (columnEndIndex >= 0) {
+                int columnNumber = Integer.parseInt(line.substring(lineEndIndex + 1, columnEndIndex));
+                return new CompilerDiagnostic(path, pathStartIndex, columnEndIndex, lineNumber, columnNumber);
+            }
+        }
+
+        return new CompilerDiagnostic(path, pathStartIndex, lineEndIndex, lineNumber, -1);
+    }
+
+    private static CompilerDiagnostic parseParenthesizedLocation(
+            String line,
+            String path,
+            int pathStartIndex,
+            int pathEndIndex,
+            int lineStartIndex) {
+
+        CompilerDiagnostic noLocation = new CompilerDiagnostic(path, pathStartIndex, pathEndIndex, -1, -1);
+
+        int lineEndIndex = numberEndIndex(line, lineStartIndex);
+        if (lineEndIndex < 0 || lineEndIndex >= line.length() || line.charAt(lineEndIndex) != ',') {
+            return noLocation;
+        }
+
+        int columnStartIndex = skipSpaces(line, lineEndIndex + 1);
+        int columnEndIndex = numberEndIndex(line, columnStartIndex);
+        if (columnEndIndex < 0 || columnEndIndex >= line.length() || line.charAt(columnEndIndex) != ')') {
+            return noLocation;
+        }
+
+        int lineNumber = Integer.parseInt(line.substring(lineStartIndex, lineEndIndex));
+        int columnNumber = Integer.parseInt(line.substring(columnStartIndex, columnEndIndex));
+        return new CompilerDiagnostic(path, pathStartIndex, columnEndIndex + 1, lineNumber, columnNumber);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the index of the first character of the path in the line.
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * Returns the index after the last character of the location (path, line
+     * and column number) in the line.
+     */
+    public int getEndIndex() {
+        return endIndex;
+    }
+
+    /**
+     * Returns the line number (starting from 1) or -1 if it was not specified.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the column number (starting from 1) or -1 if it was not specified.
+     */
+    public int getColumnNumber() {
+        return columnNumber;
+    }
+}
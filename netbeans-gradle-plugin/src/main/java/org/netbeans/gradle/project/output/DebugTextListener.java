@@ -1,5 +1,7 @@
 package org.netbeans.gradle.project.output;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
@@ -7,7 +9,7 @@ import java.util.logging.Logger;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
 
-public final class DebugTextListener implements TaskOutputProcessor {
+public final class DebugTextListener implements TaskOutputProcessor, LineAnchorProvider {
     public static interface DebugeeListener {
         public void onDebugeeListening(int port);
     }
@@ -15,6 +17,7 @@ public final class DebugTextListener implements TaskOutputProcessor {
     private static final Logger LOGGER = Logger.getLogger(DebugTextListener.class.getName());
 
     private static final String LISTEN_TEXT = "Listening for transport dt_socket at address".toLowerCase(Locale.US);
+    private static final Collection<String> LINE_ANCHORS = Collections.singleton(LISTEN_TEXT);
 
     private final DebugeeListener listener;
     private final AtomicBoolean found;
@@ -25,6 +28,11 @@ public final class DebugTextListener implements TaskOutputProcessor {
         this.found = new AtomicBoolean(false);
     }
 
+    @Override
+    public Collection<String> getLineAnchors() {
+        return LINE_ANCHORS;
+    }
+
     @Override
     public void processLine(String line) {
         if (found.get()) {
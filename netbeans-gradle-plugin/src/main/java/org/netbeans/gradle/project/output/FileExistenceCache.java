@@ -0,0 +1,62 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Caches whether the given paths are existing files, so that file paths
+ * printed repeatedly to the output do not need to be checked again. At most
+ * the given number of paths are remembered, the least recently used paths
+ * are forgotten first.
+ * <P>
+ * Note that the cache never notices if a file is created or deleted after it
+ * was checked, so the cache should only be used for a limited time (such as
+ * the execution of a single task).
+ */
+final class FileExistenceCache {
+    private final Lock mainLock;
+    private final Map<String, Boolean> cache;
+
+    public FileExistenceCache(final int maxSize) {
+        ExceptionHelper.checkArgumentInRange(maxSize, 1, Integer.MAX_VALUE, "maxSize");
+
+        this.mainLock = new ReentrantLock();
+        this.cache = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean isFile(String path) {
+        ExceptionHelper.checkNotNullArgument(path, "path");
+
+        mainLock.lock();
+        try {
+            Boolean result = cache.get(path);
+            if (result != null) {
+                return result;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        // Checking the file might be slow, so don't do it while holding the lock.
+        boolean result = new File(path).isFile();
+
+        mainLock.lock();
+        try {
+            cache.put(path, result);
+        } finally {
+            mainLock.unlock();
+        }
+        return result;
+    }
+}
@@ -1,73 +1,61 @@
 package org.netbeans.gradle.project.output;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public final class FileLineConsumer implements OutputLinkFinder {
+public final class FileLineConsumer implements OutputLinkFinder, LineAnchorProvider {
     private static final Logger LOGGER = Logger.getLogger(FileLineConsumer.class.getName());
 
-    private static int trimEndIndex(String str, int endIndex) {
-        for (int i = endIndex - 1; i >= 0; i--) {
-            if (str.charAt(i) > ' ') {
-                return i + 1;
-            }
-        }
-        return 0;
-    }
+    private static final Collection<String> LINE_ANCHORS = Collections.singleton(":");
 
-    private static OutputLinkDef tryFindLink(String line, File file, int otherInfoStartIndex) {
-        String otherInfo = line.substring(otherInfoStartIndex, line.length());
-        int endIndex = otherInfoStartIndex - 1;
+    private static final int FILE_CACHE_SIZE = 1024;
 
-        int lineIndexSep = otherInfo.indexOf(':');
-        int lineNumber = -1;
-        if (lineIndexSep > 0) {
-            try {
-                lineNumber = Integer.parseInt(otherInfo.substring(0, lineIndexSep).trim());
-                endIndex = otherInfoStartIndex + lineIndexSep;
-            } catch (NumberFormatException ex) {
-            }
-        }
+    private final FileExistenceCache fileExistenceCache;
 
-        Runnable listener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
-        if (listener == null) {
-            LOGGER.log(Level.WARNING, "File displayed in the output disappeared: {0}", file);
-            return null;
-        }
-
-        return new OutputLinkDef(0, trimEndIndex(line, endIndex), listener);
+    public FileLineConsumer() {
+        this.fileExistenceCache = new FileExistenceCache(FILE_CACHE_SIZE);
     }
 
-    private OutputLinkDef tryFindLink(String line, int sepIndex) {
-        String fileStr = line.substring(0, sepIndex).trim();
-        File file = new File(fileStr);
-        if (file.isFile()) {
-            return tryFindLink(line, file, sepIndex + 1);
-        }
-        else {
-            return null;
-        }
+    @Override
+    public Collection<String> getLineAnchors() {
+        return LINE_ANCHORS;
     }
 
     @Override
     public OutputLinkDef tryFindLink(String line) {
-        int sepIndex = line.indexOf(':');
-        if (sepIndex < 0) {
+        CompilerDiagnostic diagnostic = CompilerDiagnostic.tryParse(line, fileExistenceCache);
+        if (diagnostic == null) {
             return null;
         }
 
-        OutputLinkDef result = tryFindLink(line, sepIndex);
-        if (result == null) {
-            // Look for another ":" because paths on Windows might contain one
-            // in the path. E.g.: "C:\\file"
-            sepIndex = line.indexOf(':', sepIndex + 1);
-            if (sepIndex < 0) {
-                return null;
+        // The editor is only looked up when the link is clicked because
+        // compilation failures might print lots of messages which are never
+        // looked at.
+        Runnable action = new OpenFileTask(new File(diagnostic.getPath()), diagnostic.getLineNumber());
+        return new OutputLinkDef(diagnostic.getStartIndex(), diagnostic.getEndIndex(), action);
+    }
+
+    private static final class OpenFileTask implements Runnable {
+        private final File file;
+        private final int lineNumber;
+
+        public OpenFileTask(File file, int lineNumber) {
+            this.file = file;
+            this.lineNumber = lineNumber;
+        }
+
+        @Override
+        public void run() {
+            Runnable listener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
+            if (listener == null) {
+                LOGGER.log(Level.WARNING, "File displayed in the output disappeared: {0}", file);
+                return;
             }
 
-            return tryFindLink(line, sepIndex);
+            listener.run();
         }
-        return null;
     }
 }
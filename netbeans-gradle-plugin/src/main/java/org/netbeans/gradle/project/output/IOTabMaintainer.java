@@ -1,13 +1,14 @@
 package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -15,49 +16,56 @@ import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.model.util.Exceptions;
 
 public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
+    /**
+     * The maximum number of available tabs checked for being destroyed
+     * when requesting a tab. Checking only a few tabs at a time ensures that
+     * requesting a tab does not get slower with the number of tabs, while
+     * destroyed tabs are still removed eventually.
+     */
+    private static final int CLEANUP_BATCH_SIZE = 4;
+
+    private static final Comparator<CountedTab<?, ?>> INDEX_ORDER = new Comparator<CountedTab<?, ?>>() {
+        @Override
+        public int compare(CountedTab<?, ?> tab1, CountedTab<?, ?> tab2) {
+            return Integer.compare(tab1.index, tab2.index);
+        }
+    };
+
     private final Lock mainLock;
     private final IOTabFactory<? extends IOTab> factory;
-    private final Map<TabKey, List<CountedTab<IOTab>>> currentTabs;
+    private final Map<TabKey, PriorityQueue<CountedTab<TabKey, IOTab>>> availableTabs;
+    private final Deque<CountedTab<TabKey, IOTab>> cleanupQueue;
     private final KeyCounter<TabKey> tabIndexes;
 
     public IOTabMaintainer(IOTabFactory<? extends IOTab> factory) {
         ExceptionHelper.checkNotNullArgument(factory, "factory");
 
         this.mainLock = new ReentrantLock();
-        this.currentTabs = new HashMap<>();
+        this.availableTabs = new HashMap<>();
+        this.cleanupQueue = new ArrayDeque<>();
         this.factory = factory;
         this.tabIndexes = new KeyCounter<>();
     }
 
-    private CountedTab<IOTab> tryGetAvailable(TabKey key) {
-        CountedTab<IOTab> result;
+    private CountedTab<TabKey, IOTab> tryGetAvailable(TabKey key) {
+        CountedTab<TabKey, IOTab> result;
 
         do {
             mainLock.lock();
             try {
-                List<CountedTab<IOTab>> list = currentTabs.get(key);
-                if (list == null) {
+                PriorityQueue<CountedTab<TabKey, IOTab>> tabs = availableTabs.get(key);
+                if (tabs == null) {
                     return null;
                 }
 
-                result = null;
-                for (CountedTab<IOTab> tab: list) {
-                    if (result == null || tab.index < result.index) {
-                        result = tab;
-                    }
-                }
-
-                // Should never happen in the current implementation because
-                // empty lists are removed and the list does not contain
-                // null elements.
-                if (result == null) {
-                    return null;
+                // Empty queues are removed, so this is never null.
+                result = tabs.poll();
+                if (tabs.isEmpty()) {
+                    availableTabs.remove(key);
                 }
 
-                list.remove(result);
-                if (list.isEmpty()) {
-                    currentTabs.remove(key);
-                }
+                // The tab is removed lazily from the cleanup queue.
+                result.available = false;
             } finally {
                 mainLock.unlock();
             }
@@ -66,52 +74,81 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
         return result;
     }
 
-    private Set<CountedTab<IOTab>> getTabsToClose() {
-        List<CountedTab<IOTab>> allTabs = new LinkedList<>();
+    // Must be called while holding mainLock.
+    private void makeAvailable(CountedTab<TabKey, IOTab> tab) {
+        PriorityQueue<CountedTab<TabKey, IOTab>> tabs = availableTabs.get(tab.key);
+        if (tabs == null) {
+            tabs = new PriorityQueue<>(4, INDEX_ORDER);
+            availableTabs.put(tab.key, tabs);
+        }
+        tabs.add(tab);
+
+        tab.available = true;
+        if (!tab.queuedForCleanup) {
+            tab.queuedForCleanup = true;
+            cleanupQueue.addLast(tab);
+        }
+    }
+
+    // Must be called while holding mainLock.
+    private void removeAvailable(CountedTab<TabKey, IOTab> tab) {
+        PriorityQueue<CountedTab<TabKey, IOTab>> tabs = availableTabs.get(tab.key);
+        if (tabs != null) {
+            tabs.remove(tab);
+            if (tabs.isEmpty()) {
+                availableTabs.remove(tab.key);
+            }
+        }
+        tab.available = false;
+    }
+
+    private List<CountedTab<TabKey, IOTab>> pollCleanupBatch() {
+        List<CountedTab<TabKey, IOTab>> result = new ArrayList<>(CLEANUP_BATCH_SIZE);
 
         mainLock.lock();
         try {
-            for (List<CountedTab<IOTab>> tabs: currentTabs.values()) {
-                allTabs.addAll(tabs);
+            while (result.size() < CLEANUP_BATCH_SIZE && !cleanupQueue.isEmpty()) {
+                CountedTab<TabKey, IOTab> tab = cleanupQueue.pollFirst();
+                tab.queuedForCleanup = false;
+
+                // Tabs in use are queued again when they become available.
+                if (tab.available) {
+                    result.add(tab);
+                }
             }
         } finally {
             mainLock.unlock();
         }
 
-        Set<CountedTab<IOTab>> result = new HashSet<>();
-        for (CountedTab<IOTab> tab: allTabs) {
-            if (tab.isClosed()) {
-                result.add(tab);
-            }
-        }
         return result;
     }
 
     private void cleanupTabs() {
-        Set<CountedTab<IOTab>> toClose = getTabsToClose();
-        if (toClose.isEmpty()) {
+        List<CountedTab<TabKey, IOTab>> batch = pollCleanupBatch();
+        if (batch.isEmpty()) {
             return;
         }
 
+        // Checking the tabs might be slow, so do it without holding the lock.
+        boolean[] closed = new boolean[batch.size()];
+        for (int i = 0; i < closed.length; i++) {
+            closed[i] = batch.get(i).isClosed();
+        }
+
         mainLock.lock();
         try {
-            for (List<CountedTab<IOTab>> tabs: currentTabs.values()) {
-                Iterator<CountedTab<IOTab>> tabsItr = tabs.iterator();
-                while (tabsItr.hasNext()) {
-                    CountedTab<IOTab> tab = tabsItr.next();
-                    if (toClose.contains(tab)) {
-                        tabsItr.remove();
-                    }
+            for (int i = 0; i < closed.length; i++) {
+                CountedTab<TabKey, IOTab> tab = batch.get(i);
+                if (!tab.available) {
+                    continue;
                 }
-            }
-
-            Iterator<Map.Entry<TabKey, List<CountedTab<IOTab>>>> entryItr
-                    = currentTabs.entrySet().iterator();
 
-            while (entryItr.hasNext()) {
-                Map.Entry<TabKey, List<CountedTab<IOTab>>> entry = entryItr.next();
-                if (entry.getValue().isEmpty()) {
-                    entryItr.remove();
+                if (closed[i]) {
+                    removeAvailable(tab);
+                }
+                else if (!tab.queuedForCleanup) {
+                    tab.queuedForCleanup = true;
+                    cleanupQueue.addLast(tab);
                 }
             }
         } finally {
@@ -119,14 +156,31 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
         }
     }
 
-    private CountedTab<IOTab> newTabWithContext(TabKey key, String caption) {
+    /**
+     * Returns the number of tabs not in use and not yet known to be
+     * destroyed. This method is for testing purposes only.
+     */
+    int getAvailableTabCount() {
+        mainLock.lock();
+        try {
+            int result = 0;
+            for (PriorityQueue<CountedTab<TabKey, IOTab>> tabs: availableTabs.values()) {
+                result += tabs.size();
+            }
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private CountedTab<TabKey, IOTab> newTabWithContext(TabKey key, String caption) {
         int index = tabIndexes.incAndGet(key);
         try {
             String captionWithIndex = index == 1
                     ? caption
                     : caption + " #" + index;
             IOTab tab = factory.create(captionWithIndex);
-            return new CountedTab<>(index, tab);
+            return new CountedTab<>(key, index, tab);
         } catch (Throwable ex) {
             tabIndexes.decAndGet(key);
             throw Exceptions.throwUnchecked(ex);
@@ -137,8 +191,8 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
         ExceptionHelper.checkNotNullArgument(key, "key");
         ExceptionHelper.checkNotNullArgument(caption, "caption");
 
-        CountedTab<IOTab> result = newTabWithContext(key, caption);
-        return new IOTabRefImpl(key, result);
+        CountedTab<TabKey, IOTab> result = newTabWithContext(key, caption);
+        return new IOTabRefImpl(result);
     }
 
     public IOTabRef<IOTab> getTab(TabKey key, String caption) {
@@ -147,7 +201,7 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
 
         cleanupTabs();
 
-        CountedTab<IOTab> result = tryGetAvailable(key);
+        CountedTab<TabKey, IOTab> result = tryGetAvailable(key);
         if (result == null) {
             result = newTabWithContext(key, caption);
         }
@@ -155,16 +209,14 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
             tabIndexes.incAndGet(key);
         }
 
-        return new IOTabRefImpl(key, result);
+        return new IOTabRefImpl(result);
     }
 
     private class IOTabRefImpl implements IOTabRef<IOTab> {
-        private final TabKey key;
-        private final CountedTab<IOTab> tab;
+        private final CountedTab<TabKey, IOTab> tab;
         private final AtomicBoolean closed;
 
-        public IOTabRefImpl(TabKey key, CountedTab<IOTab> tab) {
-            this.key = key;
+        public IOTabRefImpl(CountedTab<TabKey, IOTab> tab) {
             this.tab = tab;
             this.closed = new AtomicBoolean(false);
         }
@@ -180,16 +232,11 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
                 return;
             }
 
-            tabIndexes.decAndGet(key);
+            tabIndexes.decAndGet(tab.key);
 
             mainLock.lock();
             try {
-                List<CountedTab<IOTab>> tabList = currentTabs.get(key);
-                if (tabList == null) {
-                    tabList = new LinkedList<>();
-                    currentTabs.put(key, tabList);
-                }
-                tabList.add(tab);
+                makeAvailable(tab);
             } finally {
                 mainLock.unlock();
 
@@ -200,13 +247,21 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
         }
     }
 
-    private static final class CountedTab<IOTab extends IOTabDef> {
+    private static final class CountedTab<TabKey, IOTab extends IOTabDef> {
+        public final TabKey key;
         public final int index;
         public final IOTab tab;
 
-        public CountedTab(int index, IOTab tab) {
+        // The following fields are guarded by the mainLock of the maintainer.
+        public boolean available;
+        public boolean queuedForCleanup;
+
+        public CountedTab(TabKey key, int index, IOTab tab) {
+            this.key = key;
             this.index = index;
             this.tab = tab;
+            this.available = false;
+            this.queuedForCleanup = false;
         }
 
         public boolean isClosed() {
@@ -0,0 +1,34 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.Collection;
+import javax.annotation.Nullable;
+
+/**
+ * Defines an interface which might be implemented by
+ * {@link org.netbeans.gradle.project.api.task.TaskOutputProcessor visitors},
+ * {@link SmartOutputHandler.Consumer consumers} and
+ * {@link OutputLinkFinder link finders} which can only do something with lines
+ * containing particular strings. Such visitors, consumers and link finders are
+ * not called for lines containing none of their anchors.
+ * <P>
+ * Instances of this interface must return the same anchors every time
+ * {@link #getLineAnchors() getLineAnchors} is called.
+ */
+public interface LineAnchorProvider {
+    /**
+     * Returns the strings of which at least one must occur in a line for this
+     * object to possibly do something with the line. Anchors are matched
+     * ignoring the case of characters and without distinguishing '/' from
+     * '\'. So, an anchor might occur in lines where this object does nothing
+     * but there must not be lines without any of the anchors this object
+     * would do something with.
+     *
+     * @return the strings of which at least one must occur in a line for this
+     *   object to possibly do something with the line or {@code null} if
+     *   every line must be passed to this object. The returned collection
+     *   might be empty if no line needs to be passed to this object. An empty
+     *   anchor matches every line.
+     */
+    @Nullable
+    public Collection<String> getLineAnchors();
+}
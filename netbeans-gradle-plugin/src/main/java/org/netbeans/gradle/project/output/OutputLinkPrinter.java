@@ -2,48 +2,170 @@ package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.jtrim.utils.ExceptionHelper;
 import org.openide.windows.IOColorPrint;
 import org.openide.windows.InputOutput;
 import org.openide.windows.OutputWriter;
 
-public final class OutputLinkPrinter implements SmartOutputHandler.Consumer {
+public final class OutputLinkPrinter implements SmartOutputHandler.Consumer, LineAnchorProvider {
     private final OutputLinkFinder[] linkFinders;
+    private final AnchorMatcher linkFinderAnchors;
+    private final Collection<String> lineAnchors;
+    private final OutputStatistics.Counter[] finderCounters;
+
+    // Statistics of the line being processed, recorded once the whole line
+    // has been processed. Guarded by the thread processing the output.
+    private final boolean[] finderInvoked;
+    private final boolean[] finderMatched;
+    private final long[] finderNanos;
 
     public OutputLinkPrinter(OutputLinkFinder... linkFinders) {
+        this(null, linkFinders);
+    }
+
+    /**
+     * Creates a link printer which records the invocations of the given link
+     * finders in the given statistics. A finder is recorded at most once for
+     * each line, even if it is invoked for multiple parts of the line. The
+     * time of the finders is a breakdown of the time of this printer and is
+     * also included in the time recorded for this printer.
+     *
+     * @param statistics the statistics where the invocations of the link
+     *   finders are recorded. This argument can be {@code null}, in which case
+     *   nothing is recorded.
+     * @param linkFinders the link finders looking for links in the lines in
+     *   the given order. This argument cannot be {@code null} and cannot
+     *   contain {@code null} elements.
+     */
+    public OutputLinkPrinter(OutputStatistics statistics, OutputLinkFinder... linkFinders) {
         this.linkFinders = linkFinders.clone();
 
         ExceptionHelper.checkNotNullElements(this.linkFinders, "linkFinders");
+
+        List<Collection<String>> finderAnchors = AnchorMatcher.getLineAnchors(this.linkFinders);
+        this.linkFinderAnchors = new AnchorMatcher(finderAnchors);
+        this.lineAnchors = unionOfAnchors(finderAnchors);
+        this.finderCounters = statistics != null
+                ? createCounters(statistics, this.linkFinders)
+                : null;
+        this.finderInvoked = new boolean[this.linkFinders.length];
+        this.finderMatched = new boolean[this.linkFinders.length];
+        this.finderNanos = new long[this.linkFinders.length];
     }
 
-    private void findLinkDefs(String line, int startIndex, int endIndex, List<OutputLinkDef> linkDefs) {
+    private static OutputStatistics.Counter[] createCounters(
+            OutputStatistics statistics,
+            OutputLinkFinder[] linkFinders) {
+        // The name marks these counters as a breakdown of the printer.
+        String namePrefix = "consumer: OutputLinkPrinter / link finder: ";
+
+        OutputStatistics.Counter[] result = new OutputStatistics.Counter[linkFinders.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = statistics.addCounter(namePrefix + OutputStatistics.getProcessorName(linkFinders[i]));
+        }
+        return result;
+    }
+
+    private static Collection<String> unionOfAnchors(List<Collection<String>> anchorGroups) {
+        Set<String> result = new HashSet<>();
+        for (Collection<String> anchors: anchorGroups) {
+            if (anchors == null) {
+                return null;
+            }
+            result.addAll(anchors);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<String> getLineAnchors() {
+        return lineAnchors;
+    }
+
+    private void findLinkDefs(
+            String line,
+            int startIndex,
+            int endIndex,
+            long[] matchedFinders,
+            List<OutputLinkDef> linkDefs) {
+
         if (startIndex >= endIndex || startIndex >= line.length()) {
             return;
         }
 
         String subStr = line.substring(startIndex, endIndex);
-        for (OutputLinkFinder linkFinder: linkFinders) {
-            OutputLinkDef linkDef = linkFinder.tryFindLink(subStr);
+        for (int i = 0; i < linkFinders.length; i++) {
+            // The anchors of a finder cannot occur in a part of the line
+            // if they do not occur in the whole line.
+            if (!AnchorMatcher.isMatched(matchedFinders, i)) {
+                continue;
+            }
+
+            OutputLinkDef linkDef = tryFindLink(i, subStr);
             // Empty links are unreasonable and may cause an infinite recursion.
             if (linkDef != null && !linkDef.isEmptyLink()) {
                 OutputLinkDef baseLinkDef = linkDef.offsetLinkDef(startIndex);
 
-                findLinkDefs(line, startIndex, baseLinkDef.getStartIndex(), linkDefs);
+                findLinkDefs(line, startIndex, baseLinkDef.getStartIndex(), matchedFinders, linkDefs);
                 linkDefs.add(baseLinkDef);
-                findLinkDefs(line, baseLinkDef.getEndIndex(), endIndex, linkDefs);
+                findLinkDefs(line, baseLinkDef.getEndIndex(), endIndex, matchedFinders, linkDefs);
                 return;
             }
         }
     }
 
+    private OutputLinkDef tryFindLink(int finderIndex, String line) {
+        if (finderCounters == null) {
+            return linkFinders[finderIndex].tryFindLink(line);
+        }
+
+        long startTime = System.nanoTime();
+        OutputLinkDef result = linkFinders[finderIndex].tryFindLink(line);
+        finderNanos[finderIndex] += System.nanoTime() - startTime;
+        finderInvoked[finderIndex] = true;
+        if (result != null) {
+            finderMatched[finderIndex] = true;
+        }
+        return result;
+    }
+
+    private void recordLineStatistics() {
+        for (int i = 0; i < finderCounters.length; i++) {
+            if (finderInvoked[i]) {
+                finderCounters[i].record(finderMatched[i], finderNanos[i]);
+
+                finderInvoked[i] = false;
+                finderMatched[i] = false;
+                finderNanos[i] = 0;
+            }
+        }
+    }
+
     private List<OutputLinkDef> findLinkDefs(String line) {
+        if (finderCounters == null) {
+            return findLinkDefsUnrecorded(line);
+        }
+
+        try {
+            return findLinkDefsUnrecorded(line);
+        } finally {
+            recordLineStatistics();
+        }
+    }
+
+    private List<OutputLinkDef> findLinkDefsUnrecorded(String line) {
+        long[] matchedFinders = linkFinderAnchors.findMatchingGroups(line);
+
         // Note that in the majority of cases, the line is not a link, so we
         // spare creating a list when not needed.
-        for (OutputLinkFinder linkFinder: linkFinders) {
-            if (linkFinder.tryFindLink(line) != null) {
+        for (int i = 0; i < linkFinders.length; i++) {
+            if (AnchorMatcher.isMatched(matchedFinders, i) && tryFindLink(i, line) != null) {
                 List<OutputLinkDef> result = new ArrayList<>(linkFinders.length);
-                findLinkDefs(line, 0, line.length(), result);
+                findLinkDefs(line, 0, line.length(), matchedFinders, result);
                 return result;
             }
         }
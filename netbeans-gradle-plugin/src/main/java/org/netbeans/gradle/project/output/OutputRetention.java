@@ -0,0 +1,323 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openide.windows.OutputEvent;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+/**
+ * Limits the number of lines printed to an output tab by
+ * {@link SmartOutputHandler} instances.
+ * <P>
+ * Once the tab contains the maximum number of lines, the tab is cleared, a
+ * message is printed with a link opening the full output in the editor and the
+ * most recent half of the lines are printed again (by the same consumer of the
+ * same handler which printed them the first time, so that the links in these
+ * lines are kept).
+ * <P>
+ * The full output is stored in an {@link OutputSpool}, which is only created
+ * when the tab is first truncated: Until then, the printed lines are kept in
+ * memory (there are no more of them than the maximum number of lines), so
+ * tasks whose output does not reach the limit never write a spool.
+ * <P>
+ * The same instance should be shared by the handlers of the standard output
+ * and the standard error of a task, because clearing the tab removes the lines
+ * of both of them. The lines of these handlers are printed under the same lock,
+ * so they are never printed concurrently.
+ * <P>
+ * The spooled lines are kept until this retention is closed and the links
+ * to the full output have been cleared from the tab.
+ */
+public final class OutputRetention implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(OutputRetention.class.getName());
+
+    private static final SpoolFactory TEMP_SPOOL_FACTORY = new SpoolFactory() {
+        @Override
+        public OutputSpool createSpool() throws IOException {
+            return OutputSpool.createTempSpool();
+        }
+    };
+
+    public static interface SpoolFactory {
+        public OutputSpool createSpool() throws IOException;
+    }
+
+    private final Lock mainLock;
+    private final OutputWriter output;
+    private final SpoolFactory spoolFactory;
+    private final int maxLineCount;
+    private final int keptLineCount;
+    private final Deque<PrintedLine> keptLines;
+    private OutputSpool spool;
+    private List<String> unspooledLines;
+    private int printedLineCount;
+    private boolean spoolFailed;
+
+    /**
+     * Creates a new retention printing lines to the tab of the given output
+     * writer.
+     *
+     * @param output the standard output of the tab. This writer is used to
+     *   clear the tab and print the truncation messages. This argument cannot
+     *   be {@code null}.
+     * @param spoolFactory the factory creating the spool to store every line
+     *   in, when the tab is first truncated. The retention takes ownership of
+     *   the created spool and releases it when closed. This argument cannot be
+     *   {@code null}.
+     * @param maxLineCount the maximum number of lines printed to the tab,
+     *   including the truncation message. This argument must be at least 2.
+     */
+    public OutputRetention(OutputWriter output, SpoolFactory spoolFactory, int maxLineCount) {
+        ExceptionHelper.checkNotNullArgument(output, "output");
+        ExceptionHelper.checkNotNullArgument(spoolFactory, "spoolFactory");
+        ExceptionHelper.checkArgumentInRange(maxLineCount, 2, Integer.MAX_VALUE, "maxLineCount");
+
+        this.mainLock = new ReentrantLock();
+        this.output = output;
+        this.spoolFactory = spoolFactory;
+        this.maxLineCount = maxLineCount;
+        this.keptLineCount = maxLineCount / 2;
+        this.keptLines = new ArrayDeque<>();
+        this.spool = null;
+        this.unspooledLines = new ArrayList<>();
+        this.printedLineCount = 0;
+        this.spoolFailed = false;
+    }
+
+    /**
+     * Creates a new retention spooling to a temporary file.
+     *
+     * @see #OutputRetention(OutputWriter, SpoolFactory, int)
+     */
+    public static OutputRetention createTempRetention(OutputWriter output, int maxLineCount) {
+        return new OutputRetention(output, TEMP_SPOOL_FACTORY, maxLineCount);
+    }
+
+    void printLine(SmartOutputHandler handler, String line) throws IOException {
+        mainLock.lock();
+        try {
+            if (!spoolFailed) {
+                try {
+                    if (printedLineCount >= maxLineCount) {
+                        truncate();
+                    }
+
+                    if (spool != null) {
+                        spool.appendLine(line);
+                    }
+                    else {
+                        unspooledLines.add(line);
+                    }
+                } catch (IOException ex) {
+                    // The spool is incomplete, so we can no longer remove lines.
+                    LOGGER.log(Level.WARNING, "Failed to spool the output, keeping every line in the tab.", ex);
+                    spoolFailed = true;
+                    keptLines.clear();
+                    unspooledLines = null;
+                }
+            }
+
+            int consumerIndex = handler.printLine(line);
+            printedLineCount++;
+
+            if (!spoolFailed) {
+                if (keptLines.size() >= keptLineCount) {
+                    keptLines.pollFirst();
+                }
+                keptLines.addLast(new PrintedLine(handler, line, consumerIndex));
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void startSpool() throws IOException {
+        OutputSpool newSpool = spoolFactory.createSpool();
+        try {
+            for (String line: unspooledLines) {
+                newSpool.appendLine(line);
+            }
+        } catch (Throwable ex) {
+            newSpool.release();
+            throw ex;
+        }
+
+        spool = newSpool;
+        unspooledLines = null;
+    }
+
+    private void truncate() throws IOException {
+        if (spool == null) {
+            startSpool();
+        }
+
+        long removedLineCount = spool.getLineCount() - keptLines.size();
+
+        spool.retain();
+        output.reset();
+        output.println(NbStrings.getTaskOutputTruncated(removedLineCount),
+                new FullOutputListener(spool, removedLineCount));
+        printedLineCount = 1;
+
+        for (PrintedLine printedLine: keptLines) {
+            printedLine.reprint();
+            printedLineCount++;
+        }
+    }
+
+    @Override
+    public void close() {
+        mainLock.lock();
+        try {
+            if (spool != null) {
+                spool.release();
+            }
+            unspooledLines = null;
+            // Lines printed after closing are simply kept in the tab.
+            spoolFailed = true;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static final class PrintedLine {
+        private final SmartOutputHandler handler;
+        private final String line;
+        private final int consumerIndex;
+
+        public PrintedLine(SmartOutputHandler handler, String line, int consumerIndex) {
+            this.handler = handler;
+            this.line = line;
+            this.consumerIndex = consumerIndex;
+        }
+
+        public void reprint() throws IOException {
+            handler.reprintLine(line, consumerIndex);
+        }
+    }
+
+    private static final class FullOutputListener implements OutputListener {
+        private final OutputSpool spool;
+        private final long removedLineCount;
+        private final AtomicBoolean released;
+
+        private final Lock exportLock;
+        private Path textFile;
+
+        public FullOutputListener(OutputSpool spool, long removedLineCount) {
+            this.spool = spool;
+            this.removedLineCount = removedLineCount;
+            this.released = new AtomicBoolean(false);
+            this.exportLock = new ReentrantLock();
+            this.textFile = null;
+        }
+
+        /**
+         * Exports the spooled lines to the text file of this listener. The
+         * same file is overwritten every time the link is clicked, and it is
+         * deleted when the link is cleared from the tab.
+         */
+        private Path exportToTextFile() throws IOException {
+            exportLock.lock();
+            try {
+                if (textFile == null) {
+                    textFile = Files.createTempFile("nb-gradle-output-", ".txt");
+                    textFile.toFile().deleteOnExit();
+                }
+
+                writeSpoolTo(textFile);
+                return textFile;
+            } finally {
+                exportLock.unlock();
+            }
+        }
+
+        private void writeSpoolTo(Path textFile) throws IOException {
+            try (Reader input = spool.openReader();
+                    Writer textOutput = Files.newBufferedWriter(textFile, StringUtils.UTF8)) {
+                char[] buffer = new char[8 * 1024];
+                int readCount = input.read(buffer);
+                while (readCount > 0) {
+                    textOutput.write(buffer, 0, readCount);
+                    readCount = input.read(buffer);
+                }
+            }
+        }
+
+        private void deleteTextFile() {
+            exportLock.lock();
+            try {
+                if (textFile != null) {
+                    Files.deleteIfExists(textFile);
+                    textFile = null;
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Failed to delete the exported output: " + textFile, ex);
+            } finally {
+                exportLock.unlock();
+            }
+        }
+
+        private void openFullOutput() throws IOException {
+            Path textFile = exportToTextFile();
+
+            int lineNumber = (int)Math.min(removedLineCount, Integer.MAX_VALUE);
+            OpenEditorOutputListener editorOpener
+                    = OpenEditorOutputListener.tryCreateListener(textFile.toFile(), lineNumber);
+            if (editorOpener == null) {
+                LOGGER.log(Level.WARNING, "Cannot open the full output in the editor: {0}", textFile);
+                return;
+            }
+
+            SwingUtilities.invokeLater(editorOpener);
+        }
+
+        @Override
+        public void outputLineAction(OutputEvent ev) {
+            if (released.get()) {
+                return;
+            }
+
+            NbTaskExecutors.DEFAULT_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) throws IOException {
+                    openFullOutput();
+                }
+            }, null);
+        }
+
+        @Override
+        public void outputLineSelected(OutputEvent ev) {
+        }
+
+        @Override
+        public void outputLineCleared(OutputEvent ev) {
+            if (released.compareAndSet(false, true)) {
+                spool.release();
+                deleteTextFile();
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Stores lines of output in a compressed file, so that they can be read again
+ * without keeping them in memory.
+ * <P>
+ * The file is made of consecutive gzip members: Every time the lines are
+ * {@link #openReader() read}, the current member is finished, so that every
+ * line appended so far can be read while new lines are still being appended.
+ * <P>
+ * The file is deleted once every reference to the spool has been
+ * {@link #release() released}. The spool is created with a single reference.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class OutputSpool {
+    private static final Logger LOGGER = Logger.getLogger(OutputSpool.class.getName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Lock mainLock;
+    private final Path file;
+    private OutputStream fileOutput;
+    private Writer memberOutput;
+    private long finishedLength;
+    private long lineCount;
+    private int refCount;
+
+    OutputSpool(Path file) throws IOException {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        this.mainLock = new ReentrantLock();
+        this.file = file;
+        this.fileOutput = Files.newOutputStream(file);
+        this.memberOutput = null;
+        this.finishedLength = 0;
+        this.lineCount = 0;
+        this.refCount = 1;
+    }
+
+    /**
+     * Creates a new spool in a new temporary file.
+     */
+    public static OutputSpool createTempSpool() throws IOException {
+        Path file = Files.createTempFile("nb-gradle-output-", ".log.gz");
+        try {
+            file.toFile().deleteOnExit();
+            return new OutputSpool(file);
+        } catch (Throwable ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+    }
+
+    private void checkNotReleased() throws IOException {
+        if (fileOutput == null) {
+            throw new IOException("The output spool has been released.");
+        }
+    }
+
+    /**
+     * Appends a single line to the end of the spooled lines.
+     *
+     * @param line the line to be appended without the line separator. This
+     *   argument cannot be {@code null}.
+     */
+    public void appendLine(String line) throws IOException {
+        ExceptionHelper.checkNotNullArgument(line, "line");
+
+        mainLock.lock();
+        try {
+            checkNotReleased();
+
+            if (memberOutput == null) {
+                memberOutput = new OutputStreamWriter(new MemberOutputStream(fileOutput), StringUtils.UTF8);
+            }
+
+            memberOutput.write(line);
+            memberOutput.write('\n');
+            lineCount++;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lines appended to this spool.
+     */
+    public long getLineCount() {
+        mainLock.lock();
+        try {
+            return lineCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private long finishMember() throws IOException {
+        if (memberOutput != null) {
+            // Does not close fileOutput, so a new member can be started later.
+            try {
+                memberOutput.close();
+            } finally {
+                memberOutput = null;
+            }
+
+            fileOutput.flush();
+            finishedLength = Files.size(file);
+        }
+        return finishedLength;
+    }
+
+    /**
+     * Returns a reader reading the lines appended to this spool so far,
+     * separated by '\n' characters. Lines appended after this method returns
+     * are not read by the returned reader.
+     * <P>
+     * The spool must not be released until the returned reader is closed.
+     */
+    public Reader openReader() throws IOException {
+        long length;
+
+        mainLock.lock();
+        try {
+            checkNotReleased();
+            length = finishMember();
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (length <= 0) {
+            return new StringReader("");
+        }
+
+        InputStream input = new BoundedInputStream(Files.newInputStream(file), length);
+        try {
+            return new InputStreamReader(new GZIPInputStream(input, BUFFER_SIZE), StringUtils.UTF8);
+        } catch (Throwable ex) {
+            input.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds a new reference to this spool which must be
+     * {@link #release() released} separately.
+     */
+    public void retain() throws IOException {
+        mainLock.lock();
+        try {
+            checkNotReleased();
+            refCount++;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a reference to this spool and deletes the spooled lines if this
+     * was the last reference. Calling this method more times than references
+     * were added has no effect.
+     */
+    public void release() {
+        mainLock.lock();
+        try {
+            if (fileOutput == null) {
+                return;
+            }
+
+            refCount--;
+            if (refCount > 0) {
+                return;
+            }
+
+            closeLogged(memberOutput);
+            closeLogged(fileOutput);
+            fileOutput = null;
+            memberOutput = null;
+        } finally {
+            mainLock.unlock();
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to delete the output spool: " + file, ex);
+        }
+    }
+
+    private void closeLogged(Closeable resource) {
+        if (resource == null) {
+            return;
+        }
+
+        try {
+            resource.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to close the output spool: " + file, ex);
+        }
+    }
+
+    private static final class MemberOutputStream extends GZIPOutputStream {
+        public MemberOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The underlying stream is shared by the members of the spool,
+            // so only this member is finished.
+            try {
+                finish();
+            } finally {
+                def.end();
+            }
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        public BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int result = super.read();
+            if (result >= 0) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int result = super.read(b, off, (int)Math.min(len, remaining));
+            if (result > 0) {
+                remaining -= result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(Math.min(n, remaining));
+            remaining -= result;
+            return result;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Collects how many times the processors of the output of a task were invoked,
+ * how many times they matched a line and how much time they took.
+ * <P>
+ * Statistics are only collected if the logger of this class is enabled for
+ * {@code FINE} (e.g., by starting the IDE with
+ * {@code -J-Dorg.netbeans.gradle.project.output.OutputStatistics.level=FINE}).
+ * Otherwise, no {@code OutputStatistics} is created and the output is processed
+ * without measuring anything.
+ */
+public final class OutputStatistics {
+    private static final Logger LOGGER = Logger.getLogger(OutputStatistics.class.getName());
+
+    private static final Comparator<Counter> SLOWEST_FIRST = new Comparator<Counter>() {
+        @Override
+        public int compare(Counter counter1, Counter counter2) {
+            return Long.compare(counter2.getNanos(), counter1.getNanos());
+        }
+    };
+
+    private final String caption;
+    private final Lock mainLock;
+    private final List<Counter> counters;
+
+    public OutputStatistics(String caption) {
+        ExceptionHelper.checkNotNullArgument(caption, "caption");
+
+        this.caption = caption;
+        this.mainLock = new ReentrantLock();
+        this.counters = new ArrayList<>();
+    }
+
+    public static boolean isEnabled() {
+        return LOGGER.isLoggable(Level.FINE);
+    }
+
+    /**
+     * Returns a new {@code OutputStatistics} if statistics are to be
+     * collected, or {@code null} otherwise.
+     */
+    public static OutputStatistics tryCreate(String caption) {
+        return isEnabled() ? new OutputStatistics(caption) : null;
+    }
+
+    public static String getProcessorName(Object processor) {
+        ExceptionHelper.checkNotNullArgument(processor, "processor");
+
+        Class<?> type = processor.getClass();
+        String simpleName = type.getSimpleName();
+        // Anonymous classes don't have a simple name.
+        return simpleName.isEmpty() ? type.getName() : simpleName;
+    }
+
+    public Counter addCounter(String name) {
+        Counter result = new Counter(name);
+
+        mainLock.lock();
+        try {
+            counters.add(result);
+        } finally {
+            mainLock.unlock();
+        }
+        return result;
+    }
+
+    public List<Counter> getCounters() {
+        mainLock.lock();
+        try {
+            return new ArrayList<>(counters);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics in a human readable form, the slowest processors
+     * first.
+     */
+    public String getSummary() {
+        List<Counter> sortedCounters = getCounters();
+        Collections.sort(sortedCounters, SLOWEST_FIRST);
+
+        StringBuilder result = new StringBuilder();
+        result.append("Output processing statistics of ");
+        result.append(caption);
+        for (Counter counter: sortedCounters) {
+            result.append('\n');
+            result.append("    ");
+            result.append(counter.getName());
+            result.append(": invocations: ");
+            result.append(counter.getInvocationCount());
+            result.append(", matches: ");
+            result.append(counter.getMatchCount());
+            result.append(", time: ");
+            result.append(TimeUnit.NANOSECONDS.toMillis(counter.getNanos()));
+            result.append(" ms");
+        }
+        return result.toString();
+    }
+
+    public void logSummary() {
+        LOGGER.log(Level.FINE, getSummary());
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final AtomicLong invocationCount;
+        private final AtomicLong matchCount;
+        private final AtomicLong nanos;
+
+        private Counter(String name) {
+            ExceptionHelper.checkNotNullArgument(name, "name");
+
+            this.name = name;
+            this.invocationCount = new AtomicLong(0);
+            this.matchCount = new AtomicLong(0);
+            this.nanos = new AtomicLong(0);
+        }
+
+        public void record(boolean matched, long elapsedNanos) {
+            invocationCount.incrementAndGet();
+            if (matched) {
+                matchCount.incrementAndGet();
+            }
+            nanos.addAndGet(elapsedNanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInvocationCount() {
+            return invocationCount.get();
+        }
+
+        public long getMatchCount() {
+            return matchCount.get();
+        }
+
+        public long getNanos() {
+            return nanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Counter{" + "name=" + name
+                    + ", invocations=" + getInvocationCount()
+                    + ", matches=" + getMatchCount()
+                    + ", nanos=" + getNanos() + '}';
+        }
+    }
+}
@@ -2,36 +2,134 @@ package org.netbeans.gradle.project.output;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.awt.HtmlBrowser;
 import org.openide.windows.OutputEvent;
 import org.openide.windows.OutputListener;
 
-public final class OutputUrlConsumer implements OutputLinkFinder {
+public final class OutputUrlConsumer implements OutputLinkFinder, LineAnchorProvider {
     private static final String[] URL_PREFIXES = new String[]{
         "http://",
         "https://",
         "file://"
     };
-    private static OutputLinkDef tryGetUrlWithPrefix(String prefix, String line) {
-        int startIndex = line.indexOf(prefix);
+    private static final Collection<String> LINE_ANCHORS
+            = Collections.unmodifiableList(Arrays.asList(URL_PREFIXES));
+
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final String[] URL_SCHEMES = getSchemes(URL_PREFIXES);
+
+    private static final boolean[] URL_DELIMITERS = getUrlDelimiters();
+    private static final String TRAILING_PUNCTUATION = ".,;:!?'";
+
+    private static String[] getSchemes(String[] prefixes) {
+        String[] result = new String[prefixes.length];
+        for (int i = 0; i < result.length; i++) {
+            String prefix = prefixes[i];
+            result[i] = prefix.substring(0, prefix.length() - SCHEME_SEPARATOR.length());
+        }
+        return result;
+    }
+
+    private static boolean[] getUrlDelimiters() {
+        boolean[] result = new boolean[128];
+        for (char ch = 0; ch <= ' '; ch++) {
+            result[ch] = true;
+        }
+        result[127] = true;
+        for (char ch: "<>\"`".toCharArray()) {
+            result[ch] = true;
+        }
+        return result;
+    }
+
+    private static boolean isUrlDelimiter(char ch) {
+        return ch < URL_DELIMITERS.length && URL_DELIMITERS[ch];
+    }
+
+    private static int findSchemeStart(String line, int separatorIndex) {
+        for (String scheme: URL_SCHEMES) {
+            int startIndex = separatorIndex - scheme.length();
+            if (startIndex >= 0 && line.regionMatches(true, startIndex, scheme, 0, scheme.length())) {
+                return startIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static int countChar(String line, int startIndex, int endIndex, char ch) {
+        int result = 0;
+        for (int i = startIndex; i < endIndex; i++) {
+            if (line.charAt(i) == ch) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isUnbalancedClosingBracket(String line, int startIndex, int endIndex) {
+        char closing = line.charAt(endIndex - 1);
+        char opening;
+        switch (closing) {
+            case ')':
+                opening = '(';
+                break;
+            case ']':
+                opening = '[';
+                break;
+            case '}':
+                opening = '{';
+                break;
+            default:
+                return false;
+        }
+
+        return countChar(line, startIndex, endIndex, closing) > countChar(line, startIndex, endIndex, opening);
+    }
+
+    /**
+     * Removes the punctuation from the end of the URL which is more likely to
+     * be part of the surrounding text (such as the period at the end of a
+     * sentence or the closing parenthesis of a URL in parentheses).
+     */
+    private static int trimUrlEnd(String line, int startIndex, int endIndex) {
+        int result = endIndex;
+        while (result > startIndex) {
+            char lastChar = line.charAt(result - 1);
+            if (TRAILING_PUNCTUATION.indexOf(lastChar) >= 0 || isUnbalancedClosingBracket(line, startIndex, result)) {
+                result--;
+            }
+            else {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static OutputLinkDef tryGetUrlAt(String line, int separatorIndex) {
+        int startIndex = findSchemeStart(line, separatorIndex);
         if (startIndex < 0) {
             return null;
         }
 
+        int bodyStartIndex = separatorIndex + SCHEME_SEPARATOR.length();
         int lineLength = line.length();
-        int endIndex = lineLength;
-        for (int i = startIndex + prefix.length(); i < lineLength; i++) {
-            if (line.charAt(i) <= ' ') {
-                endIndex = i;
-                break;
-            }
+        int endIndex = bodyStartIndex;
+        while (endIndex < lineLength && !isUrlDelimiter(line.charAt(endIndex))) {
+            endIndex++;
+        }
+
+        endIndex = trimUrlEnd(line, bodyStartIndex, endIndex);
+        if (endIndex <= bodyStartIndex) {
+            return null;
         }
 
         URL url;
         try {
-            url = new URL(StringUtils.stripSeperatorsFromEnd(line.substring(startIndex, endIndex)));
+            url = new URL(line.substring(startIndex, endIndex));
         } catch (MalformedURLException ex) {
             return null;
         }
@@ -39,13 +137,22 @@ public final class OutputUrlConsumer implements OutputLinkFinder {
         return new OutputLinkDef(startIndex, endIndex, getUrlOpenTask(url));
     }
 
+    @Override
+    public Collection<String> getLineAnchors() {
+        return LINE_ANCHORS;
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
-        for (String prefix: URL_PREFIXES) {
-            OutputLinkDef result = tryGetUrlWithPrefix(prefix, line);
+        // Scans the line only once for the scheme separators and then checks
+        // the characters around them, instead of searching for each prefix.
+        int separatorIndex = line.indexOf(SCHEME_SEPARATOR);
+        while (separatorIndex >= 0) {
+            OutputLinkDef result = tryGetUrlAt(line, separatorIndex);
             if (result != null) {
                 return result;
             }
+            separatorIndex = line.indexOf(SCHEME_SEPARATOR, separatorIndex + SCHEME_SEPARATOR.length());
         }
         return null;
     }
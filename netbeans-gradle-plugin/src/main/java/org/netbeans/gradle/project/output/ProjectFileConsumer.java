@@ -3,20 +3,24 @@ package org.netbeans.gradle.project.output;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Locale;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Utilities;
 
-public final class ProjectFileConsumer implements OutputLinkFinder {
-    private final String normalizedPath;
+public final class ProjectFileConsumer implements OutputLinkFinder, LineAnchorProvider {
+    private static final int FILE_CACHE_SIZE = 1024;
+
+    private final String projectPath;
+    private final FileExistenceCache fileExistenceCache;
 
     public ProjectFileConsumer(NbGradleProject project) {
         FileObject projectDirectory = project.getProjectDirectory();
-        // In case the filesystem is not case-sesitive, otherwise it shouldn't
-        // hurt much, since we will check if the file exists anyway.
-        normalizedPath = projectDirectory.getPath().toLowerCase(Locale.ROOT);
+        this.projectPath = projectDirectory.getPath();
+        this.fileExistenceCache = new FileExistenceCache(FILE_CACHE_SIZE);
     }
 
     public static boolean isBrowserFile(String path) {
@@ -26,6 +30,53 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
                 || lowerPath.endsWith(".htm");
     }
 
+    private static boolean pathCharsMatch(char lineChar, char pathChar, char separatorChar) {
+        if (pathChar == '/') {
+            return lineChar == '/' || lineChar == separatorChar;
+        }
+        if (lineChar == pathChar) {
+            return true;
+        }
+
+        // In case the filesystem is not case-sesitive, otherwise it shouldn't
+        // hurt much, since we will check if the file exists anyway.
+        return Character.toLowerCase(lineChar) == Character.toLowerCase(pathChar)
+                || Character.toUpperCase(lineChar) == Character.toUpperCase(pathChar);
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given path in the line
+     * ignoring the case of the characters. The path must use '/' as the
+     * separator, which matches both '/' and the given separator in the line.
+     */
+    static int indexOfPath(String line, String path, char separatorChar) {
+        int pathLength = path.length();
+        int lastStartIndex = line.length() - pathLength;
+
+        for (int startIndex = 0; startIndex <= lastStartIndex; startIndex++) {
+            int matchLength = 0;
+            while (matchLength < pathLength
+                    && pathCharsMatch(line.charAt(startIndex + matchLength), path.charAt(matchLength), separatorChar)) {
+                matchLength++;
+            }
+
+            if (matchLength == pathLength) {
+                return startIndex;
+            }
+        }
+        return -1;
+    }
+
+    static int lastIndexOfSeparator(String line, char separatorChar) {
+        for (int i = line.length() - 1; i >= 0; i--) {
+            char ch = line.charAt(i);
+            if (ch == '/' || ch == separatorChar) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private static boolean isLineSeparator(char ch) {
         return ch <= ' ' || ch == ':' || ch == ';';
     }
@@ -67,15 +118,19 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public Collection<String> getLineAnchors() {
+        return Collections.singleton(projectPath);
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
-        String normalizedLine = line.replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
-        int startIndex = normalizedLine.indexOf(normalizedPath);
+        int startIndex = indexOfPath(line, projectPath, File.separatorChar);
         if (startIndex < 0) {
             return null;
         }
 
-        int endPathIndex = normalizedLine.lastIndexOf('/');
+        int endPathIndex = lastIndexOfSeparator(line, File.separatorChar);
         if (endPathIndex < 0) {
             // I don't think that this is possible but just in case it happens.
             return null;
@@ -106,10 +161,10 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         String fileStr = StringUtils.stripSeperatorsFromEnd(unstrippedFileStr);
         completeLinkEndIndex = completeLinkEndIndex - (unstrippedFileStr.length() - fileStr.length());
 
-        File file = new File(fileStr);
-        if (!file.isFile()) {
+        if (!fileExistenceCache.isFile(fileStr)) {
             return null;
         }
+        File file = new File(fileStr);
 
         Runnable outputListener = null;
         if (isBrowserFile(fileStr)) {
@@ -7,18 +7,46 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.util.StringUtils;
 
+/**
+ * Defines a {@code Reader} replacing the line feed characters of another
+ * {@code Reader} with the given line separator. Line feeds preceded by a
+ * carriage return are not replaced.
+ * <P>
+ * Characters are converted in a single pass from a fixed size buffer directly
+ * into the array passed to the {@code read} method, so reading large inputs
+ * does not need additional memory.
+ */
 public final class ReplaceLineFeedReader extends Reader {
+    private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
     private final Reader src;
-    private final LfReplacingBuffer buffer;
+    private final char[] newLineSeparatorChars;
+
     private final Lock bufferLock;
+    private final char[] srcBuffer;
+    private int srcBufferOffset;
+    private int srcBufferLength;
+    private int separatorOffset;
+    private char lastChar;
 
     public ReplaceLineFeedReader(Reader src, String newLineSeparator) {
+        this(src, newLineSeparator, DEFAULT_BUFFER_SIZE);
+    }
+
+    ReplaceLineFeedReader(Reader src, String newLineSeparator, int bufferSize) {
         ExceptionHelper.checkNotNullArgument(src, "src");
         ExceptionHelper.checkNotNullArgument(newLineSeparator, "newLineSeparator");
+        ExceptionHelper.checkArgumentInRange(bufferSize, 1, Integer.MAX_VALUE, "bufferSize");
 
         this.src = src;
-        this.buffer = new LfReplacingBuffer(newLineSeparator);
+        this.newLineSeparatorChars = newLineSeparator.toCharArray();
         this.bufferLock = new ReentrantLock();
+        this.srcBuffer = new char[bufferSize];
+        this.srcBufferOffset = 0;
+        this.srcBufferLength = 0;
+        // Nothing remains to be written of the previous line separator.
+        this.separatorOffset = newLineSeparatorChars.length;
+        this.lastChar = '\0';
     }
 
     public static Reader replaceLfWithOsLineSeparator(Reader src) {
@@ -37,117 +65,97 @@ public final class ReplaceLineFeedReader extends Reader {
         }
     }
 
-    @Override
-    public int read(char[] cbuf, int off, int len) throws IOException {
-        // It is possible to optimize this method much more but there is
-        // no practical reason to do so.
-
-        int readCount = src.read(cbuf, off, len);
+    // Must be called while holding bufferLock.
+    private int writeSeparator(char[] cbuf, int off, int endOffset) {
+        int length = Math.min(newLineSeparatorChars.length - separatorOffset, endOffset - off);
+        System.arraycopy(newLineSeparatorChars, separatorOffset, cbuf, off, length);
+        separatorOffset += length;
+        return off + length;
+    }
 
-        bufferLock.lock();
-        try {
-            if (readCount > 0) {
-                buffer.appendChars(cbuf, off, readCount);
+    // Must be called while holding bufferLock.
+    private int convertChars(char[] cbuf, int off, int endOffset) {
+        char[] buffer = srcBuffer;
+        int srcOffset = srcBufferOffset;
+        int srcEndOffset = srcOffset + srcBufferLength;
+        char prevChar = lastChar;
+
+        int destOffset = off;
+        while (destOffset < endOffset && srcOffset < srcEndOffset) {
+            // Copy the characters up to the next line feed in bulk.
+            int runEndOffset = srcOffset;
+            int maxRunEndOffset = Math.min(srcEndOffset, srcOffset + (endOffset - destOffset));
+            while (runEndOffset < maxRunEndOffset && buffer[runEndOffset] != '\n') {
+                runEndOffset++;
             }
 
-            if (buffer.getCharCount() <= 0) {
-                assert readCount <= 0;
-                return readCount;
+            int runLength = runEndOffset - srcOffset;
+            if (runLength > 0) {
+                System.arraycopy(buffer, srcOffset, cbuf, destOffset, runLength);
+                destOffset += runLength;
+                srcOffset = runEndOffset;
+                prevChar = buffer[runEndOffset - 1];
             }
 
-            return buffer.moveFirstTo(cbuf, off, len);
-        } finally {
-            bufferLock.unlock();
+            if (runEndOffset < maxRunEndOffset) {
+                // We have found a line feed.
+                srcOffset++;
+                if (prevChar == '\r') {
+                    cbuf[destOffset] = '\n';
+                    destOffset++;
+                }
+                else {
+                    separatorOffset = 0;
+                    destOffset = writeSeparator(cbuf, destOffset, endOffset);
+                }
+                prevChar = '\n';
+            }
         }
-    }
 
-    @Override
-    public void close() throws IOException {
-        src.close();
+        lastChar = prevChar;
+        srcBufferLength = srcEndOffset - srcOffset;
+        srcBufferOffset = srcBufferLength > 0 ? srcOffset : 0;
+        return destOffset;
     }
 
-    private static final class LfReplacingBuffer {
-        private static final char[] NO_CHARS = new char[0];
-
-        private final char[] newLineSeparatorChars;
-
-        private int charCount;
-        private char[] chars;
-        private char lastChar;
-
-        public LfReplacingBuffer(String newLineSeparator) {
-            this.newLineSeparatorChars = newLineSeparator.toCharArray();
-            this.charCount = 0;
-            this.chars = NO_CHARS;
-            this.lastChar = '\0';
-        }
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        ExceptionHelper.checkNotNullArgument(cbuf, "cbuf");
+        ExceptionHelper.checkArgumentInRange(off, 0, cbuf.length, "off");
+        ExceptionHelper.checkArgumentInRange(len, 0, cbuf.length - off, "len");
 
-        public int getCharCount() {
-            return charCount;
+        if (len == 0) {
+            return 0;
         }
 
-        private char[] getBuffer(int requiredExtraLength) {
-            int requiredLength = charCount + requiredExtraLength;
-
-            char[] result = chars;
-            if (result.length >= requiredLength) {
-                return result;
-            }
-
-            char[] newChars = new char[Math.max(requiredLength, 2 * result.length)];
-            System.arraycopy(chars, 0, newChars, 0, charCount);
-            chars = newChars;
+        int endOffset = off + len;
 
-            return newChars;
-        }
+        bufferLock.lock();
+        try {
+            int destOffset = writeSeparator(cbuf, off, endOffset);
 
-        private int getLfCount(char[] cbuf, int off, int len) {
-            int result = 0;
-            for (int i = off + len - 1; i >= off; i--) {
-                if (cbuf[i] == '\n') {
-                    result++;
+            if (srcBufferLength == 0) {
+                if (destOffset > off) {
+                    // Don't block if we already have something to return.
+                    return destOffset - off;
                 }
-            }
-            return result;
-        }
-
-        public void appendChars(char[] cbuf, int off, int len) {
-            int lfCount = getLfCount(cbuf, off, len);
-            int extraChars = len + lfCount * (newLineSeparatorChars.length - 1);
-
-            char[] buffer = getBuffer(extraChars);
-
-            int destOffset = charCount;
-
-            char prevChar = lastChar;
-            int endSrcIndex = off + len;
-            for (int i = off; i < endSrcIndex; i++) {
-                char ch = cbuf[i];
 
-                if (prevChar != '\r' && ch == '\n') {
-                    System.arraycopy(newLineSeparatorChars, 0, buffer, destOffset, newLineSeparatorChars.length);
-                    destOffset += newLineSeparatorChars.length;
+                int readCount = src.read(srcBuffer, 0, srcBuffer.length);
+                if (readCount <= 0) {
+                    return readCount;
                 }
-                else {
-                    buffer[destOffset] = ch;
-                    destOffset++;
-                }
-
-                prevChar = ch;
+                srcBufferLength = readCount;
             }
 
-            lastChar = prevChar;
-            charCount = destOffset;
+            destOffset = convertChars(cbuf, destOffset, endOffset);
+            return destOffset - off;
+        } finally {
+            bufferLock.unlock();
         }
+    }
 
-        public int moveFirstTo(char[] cbuf, int off, int len) {
-            int resultLength = Math.min(len, charCount);
-
-            System.arraycopy(chars, 0, cbuf, off, resultLength);
-            System.arraycopy(chars, resultLength, chars, 0, charCount - resultLength);
-            charCount -= resultLength;
-
-            return resultLength;
-        }
+    @Override
+    public void close() throws IOException {
+        src.close();
     }
 }
@@ -20,43 +20,134 @@ public final class SmartOutputHandler implements LineOutputWriter.Handler {
     private final OutputWriter output;
     private final TaskOutputProcessor[] visitors;
     private final Consumer[] processors;
+    private final AnchorMatcher visitorAnchors;
+    private final AnchorMatcher processorAnchors;
+    private final OutputRetention retention;
+    private final OutputStatistics.Counter[] visitorCounters;
+    private final OutputStatistics.Counter[] processorCounters;
 
     public SmartOutputHandler(
             InputOutput ioParent,
             OutputWriter output,
             List<TaskOutputProcessor> visitors,
             List<Consumer> processors) {
-        ExceptionHelper.checkNotNullArgument(ioParent, "ioParent");
-        ExceptionHelper.checkNotNullArgument(output, "output");
-        ExceptionHelper.checkNotNullArgument(visitors, "visitors");
-        ExceptionHelper.checkNotNullArgument(processors, "processors");
+        this(new Builder(ioParent, output, visitors, processors));
+    }
 
-        this.ioParent = ioParent;
-        this.output = output;
-        this.visitors = visitors.toArray(new TaskOutputProcessor[0]);
-        this.processors = processors.toArray(new Consumer[0]);
+    private SmartOutputHandler(Builder builder) {
+        this.ioParent = builder.ioParent;
+        this.output = builder.output;
+        this.visitors = builder.visitors.toArray(new TaskOutputProcessor[0]);
+        this.processors = builder.processors.toArray(new Consumer[0]);
 
         ExceptionHelper.checkNotNullElements(this.visitors, "visitors");
         ExceptionHelper.checkNotNullElements(this.processors, "processors");
+
+        this.visitorAnchors = new AnchorMatcher(AnchorMatcher.getLineAnchors(this.visitors));
+        this.processorAnchors = new AnchorMatcher(AnchorMatcher.getLineAnchors(this.processors));
+        this.retention = builder.retention;
+
+        OutputStatistics statistics = builder.statistics;
+        if (statistics != null) {
+            this.visitorCounters = createCounters(statistics, "processor: ", this.visitors);
+            this.processorCounters = createCounters(statistics, "consumer: ", this.processors);
+        }
+        else {
+            this.visitorCounters = null;
+            this.processorCounters = null;
+        }
+    }
+
+    private static OutputStatistics.Counter[] createCounters(
+            OutputStatistics statistics,
+            String namePrefix,
+            Object[] processors) {
+        OutputStatistics.Counter[] result = new OutputStatistics.Counter[processors.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = statistics.addCounter(namePrefix + OutputStatistics.getProcessorName(processors[i]));
+        }
+        return result;
+    }
+
+    private void processLine(int visitorIndex, String line) {
+        if (visitorCounters == null) {
+            visitors[visitorIndex].processLine(line);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            visitors[visitorIndex].processLine(line);
+        } finally {
+            visitorCounters[visitorIndex].record(false, System.nanoTime() - startTime);
+        }
+    }
+
+    private boolean tryConsumeLine(int processorIndex, String line) throws IOException {
+        if (processorCounters == null) {
+            return processors[processorIndex].tryConsumeLine(line, ioParent, output);
+        }
+
+        long startTime = System.nanoTime();
+        boolean consumed = false;
+        try {
+            consumed = processors[processorIndex].tryConsumeLine(line, ioParent, output);
+            return consumed;
+        } finally {
+            processorCounters[processorIndex].record(consumed, System.nanoTime() - startTime);
+        }
     }
 
     @Override
     public void writeLine(String line) throws IOException {
         Throwable error = null;
 
-        for (TaskOutputProcessor visitor: visitors) {
+        long[] matchedVisitors = visitorAnchors.findMatchingGroups(line);
+        for (int i = 0; i < visitors.length; i++) {
+            if (!AnchorMatcher.isMatched(matchedVisitors, i)) {
+                continue;
+            }
+
             try {
-                visitor.processLine(line);
+                processLine(i, line);
             } catch (Throwable ex) {
                 LOGGER.log(Level.SEVERE, "Unexpected failure while checking a line of the output.", error);
                 error = ex;
             }
         }
 
-        for (Consumer processor: processors) {
+        try {
+            if (retention != null) {
+                retention.printLine(this, line);
+            }
+            else {
+                printLine(line);
+            }
+        } catch (Throwable ex) {
+            error = ex;
+        }
+
+        ExceptionHelper.rethrowCheckedIfNotNull(error, IOException.class);
+    }
+
+    /**
+     * Prints the given line and returns the index of the consumer which
+     * consumed the line or -1 if the line was printed as it is.
+     */
+    int printLine(String line) throws IOException {
+        Throwable error = null;
+        int consumerIndex = -1;
+
+        long[] matchedProcessors = processorAnchors.findMatchingGroups(line);
+        for (int i = 0; i < processors.length; i++) {
+            if (!AnchorMatcher.isMatched(matchedProcessors, i)) {
+                continue;
+            }
+
             try {
-                if (processor.tryConsumeLine(line, ioParent, output)) {
-                    return;
+                if (tryConsumeLine(i, line)) {
+                    consumerIndex = i;
+                    break;
                 }
             } catch (Throwable ex) {
                 LOGGER.log(Level.SEVERE, "Unexpected failure while analysing a line of the output.", error);
@@ -64,18 +155,81 @@ public final class SmartOutputHandler implements LineOutputWriter.Handler {
             }
         }
 
-        try {
-            output.println(line);
-        } catch (Throwable ex) {
-            LOGGER.log(Level.SEVERE, "Unexpected failure while printing a line of the output.", error);
-            error = ex;
+        if (consumerIndex < 0) {
+            try {
+                output.println(line);
+            } catch (Throwable ex) {
+                LOGGER.log(Level.SEVERE, "Unexpected failure while printing a line of the output.", error);
+                error = ex;
+            }
         }
 
         ExceptionHelper.rethrowCheckedIfNotNull(error, IOException.class);
+        return consumerIndex;
+    }
+
+    /**
+     * Prints a line again which was previously printed by
+     * {@link #printLine(String) printLine}.
+     */
+    void reprintLine(String line, int consumerIndex) throws IOException {
+        if (consumerIndex < 0 || !processors[consumerIndex].tryConsumeLine(line, ioParent, output)) {
+            output.println(line);
+        }
     }
 
     @Override
     public void flush() throws IOException {
         output.flush();
     }
+
+    public static final class Builder {
+        private final InputOutput ioParent;
+        private final OutputWriter output;
+        private final List<TaskOutputProcessor> visitors;
+        private final List<Consumer> processors;
+
+        private OutputRetention retention;
+        private OutputStatistics statistics;
+
+        public Builder(
+                InputOutput ioParent,
+                OutputWriter output,
+                List<TaskOutputProcessor> visitors,
+                List<Consumer> processors) {
+            ExceptionHelper.checkNotNullArgument(ioParent, "ioParent");
+            ExceptionHelper.checkNotNullArgument(output, "output");
+            ExceptionHelper.checkNotNullArgument(visitors, "visitors");
+            ExceptionHelper.checkNotNullArgument(processors, "processors");
+
+            this.ioParent = ioParent;
+            this.output = output;
+            this.visitors = visitors;
+            this.processors = processors;
+            this.retention = null;
+            this.statistics = null;
+        }
+
+        /**
+         * Sets the retention limiting the number of lines printed to the
+         * output tab. The default value is {@code null}, meaning that every
+         * line is kept in the output tab.
+         */
+        public void setRetention(OutputRetention retention) {
+            this.retention = retention;
+        }
+
+        /**
+         * Sets the statistics where the invocations of the visitors and
+         * consumers are recorded. The default value is {@code null}, meaning
+         * that nothing is recorded (and nothing is measured).
+         */
+        public void setStatistics(OutputStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        public SmartOutputHandler create() {
+            return new SmartOutputHandler(this);
+        }
+    }
 }
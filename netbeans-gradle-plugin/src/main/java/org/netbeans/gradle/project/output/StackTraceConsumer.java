@@ -3,6 +3,8 @@ package org.netbeans.gradle.project.output;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -16,10 +18,11 @@ import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.URLMapper;
 
-public final class StackTraceConsumer implements OutputLinkFinder {
+public final class StackTraceConsumer implements OutputLinkFinder, LineAnchorProvider {
     private static final Logger LOGGER = Logger.getLogger(StackTraceConsumer.class.getName());
 
     private static final Pattern LINE_PATTERN = Pattern.compile("(?:\\[catch\\])?\\sat (.*)\\((.*)\\.java\\:(\\d+)\\)");
+    private static final Collection<String> LINE_ANCHORS = Collections.singleton(".java:");
 
     private final Project project;
     private final ClassPath classPath;
@@ -81,6 +84,11 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public Collection<String> getLineAnchors() {
+        return LINE_ANCHORS;
+    }
+
     // This method is based on
     // org.netbeans.modules.maven.api.output.OutputUtils.matchStackTraceLine
     @Override
@@ -3,46 +3,164 @@ package org.netbeans.gradle.project.output;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 
+/**
+ * Defines an {@code OutputStream} decoding the bytes written to it and
+ * forwarding the decoded characters to a {@code Writer}.
+ * <P>
+ * Bytes of a character split between consecutive writes are kept until the
+ * rest of the character is written, so such characters are decoded properly.
+ * Bytes not forming a complete character are only decoded (as replacement
+ * characters) when this stream is closed.
+ */
 public final class WriterOutputStream extends OutputStream {
+    private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
     private final Writer writer;
-    private final Charset encoding;
+
+    private final Lock decoderLock;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer inputBuffer;
+    private final CharBuffer outputBuffer;
+    private boolean closed;
 
     public WriterOutputStream(Writer writer, Charset encoding) {
+        this(writer, encoding, DEFAULT_BUFFER_SIZE);
+    }
+
+    public WriterOutputStream(Writer writer) {
+        this(writer, Charset.defaultCharset());
+    }
+
+    WriterOutputStream(Writer writer, Charset encoding, int bufferSize) {
         ExceptionHelper.checkNotNullArgument(writer, "writer");
         ExceptionHelper.checkNotNullArgument(encoding, "encoding");
+        // A character might need to be encoded in multiple bytes.
+        ExceptionHelper.checkArgumentInRange(bufferSize, 16, Integer.MAX_VALUE, "bufferSize");
+
         this.writer = writer;
-        this.encoding = encoding;
+        this.decoderLock = new ReentrantLock();
+        this.decoder = encoding.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.inputBuffer = ByteBuffer.allocate(bufferSize);
+        this.outputBuffer = CharBuffer.allocate(bufferSize);
+        this.closed = false;
     }
 
-    public WriterOutputStream(Writer writer) {
-        this(writer, Charset.defaultCharset());
+    private void decodeInput(boolean endOfInput) throws IOException {
+        inputBuffer.flip();
+        try {
+            while (true) {
+                CoderResult result = decoder.decode(inputBuffer, outputBuffer, endOfInput);
+                if (!result.isOverflow()) {
+                    // Errors are replaced, so this is an underflow, meaning
+                    // that only the bytes of an incomplete character remain.
+                    break;
+                }
+                forwardDecodedChars();
+            }
+        } finally {
+            inputBuffer.compact();
+        }
+    }
+
+    private void forwardDecodedChars() throws IOException {
+        int charCount = outputBuffer.position();
+        if (charCount > 0) {
+            writer.write(outputBuffer.array(), outputBuffer.arrayOffset(), charCount);
+            outputBuffer.clear();
+        }
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("The stream has been closed.");
+        }
     }
 
     @Override
     public void close() throws IOException {
-        writer.close();
+        decoderLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                decodeInput(true);
+                while (decoder.flush(outputBuffer).isOverflow()) {
+                    forwardDecodedChars();
+                }
+                forwardDecodedChars();
+            } finally {
+                writer.close();
+            }
+        } finally {
+            decoderLock.unlock();
+        }
     }
 
     @Override
     public void flush() throws IOException {
+        // Decoded characters are always forwarded immediately, so we only
+        // have to flush the writer.
         writer.flush();
     }
 
     @Override
     public void write(byte[] b) throws IOException {
-        writer.write(new String(b, encoding));
+        write(b, 0, b.length);
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        writer.write(new String(b, off, len, encoding));
+        ExceptionHelper.checkNotNullArgument(b, "b");
+        ExceptionHelper.checkArgumentInRange(off, 0, b.length, "off");
+        ExceptionHelper.checkArgumentInRange(len, 0, b.length - off, "len");
+
+        decoderLock.lock();
+        try {
+            checkNotClosed();
+
+            int currentOffset = off;
+            int remainingLength = len;
+            while (remainingLength > 0) {
+                int toCopy = Math.min(remainingLength, inputBuffer.remaining());
+                inputBuffer.put(b, currentOffset, toCopy);
+                currentOffset += toCopy;
+                remainingLength -= toCopy;
+
+                decodeInput(false);
+            }
+
+            forwardDecodedChars();
+        } finally {
+            decoderLock.unlock();
+        }
     }
 
     @Override
     public void write(int b) throws IOException {
-        write(new byte[]{(byte)b});
+        decoderLock.lock();
+        try {
+            checkNotClosed();
+
+            inputBuffer.put((byte)b);
+            decodeInput(false);
+            forwardDecodedChars();
+        } finally {
+            decoderLock.unlock();
+        }
     }
 }
@@ -0,0 +1,91 @@
+package org.netbeans.gradle.project.properties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.property.PropertySource;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.api.event.NbListenerRefs;
+
+/**
+ * A property remembering the value of the wrapped property while there is at
+ * least one listener registered with it. The listeners are notified of the
+ * changes of the wrapped property, so there is no need to keep the cached
+ * value (and a listener registered with the wrapped property) without them.
+ */
+final class CachedValueProperty<Value> implements PropertySource<Value> {
+    private final PropertySource<? extends Value> wrapped;
+    private final AtomicInteger listenerCount;
+    private final AtomicLong version;
+    private final AtomicReference<CachedValue<Value>> cachedValueRef;
+
+    public CachedValueProperty(PropertySource<? extends Value> wrapped) {
+        ExceptionHelper.checkNotNullArgument(wrapped, "wrapped");
+
+        this.wrapped = wrapped;
+        this.listenerCount = new AtomicInteger(0);
+        this.version = new AtomicLong(0);
+        this.cachedValueRef = new AtomicReference<>(null);
+    }
+
+    private void invalidate() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public Value getValue() {
+        // The version must be read first: If it changes while we are
+        // retrieving the value, the stored value will not be used.
+        long currentVersion = version.get();
+        if (listenerCount.get() <= 0) {
+            return wrapped.getValue();
+        }
+
+        CachedValue<Value> cached = cachedValueRef.get();
+        if (cached != null && cached.version == currentVersion) {
+            return cached.value;
+        }
+
+        Value result = wrapped.getValue();
+        cachedValueRef.set(new CachedValue<>(currentVersion, result));
+        return result;
+    }
+
+    @Override
+    public ListenerRef addChangeListener(final Runnable listener) {
+        ExceptionHelper.checkNotNullArgument(listener, "listener");
+
+        final ListenerRef wrappedRef = wrapped.addChangeListener(new Runnable() {
+            @Override
+            public void run() {
+                // Invalidate before notifying, so that the listener will
+                // see the new value.
+                invalidate();
+                listener.run();
+            }
+        });
+
+        listenerCount.incrementAndGet();
+        invalidate();
+
+        return NbListenerRefs.fromRunnable(new Runnable() {
+            @Override
+            public void run() {
+                listenerCount.decrementAndGet();
+                invalidate();
+                wrappedRef.unregister();
+            }
+        });
+    }
+
+    private static final class CachedValue<Value> {
+        public final long version;
+        public final Value value;
+
+        public CachedValue(long version, Value value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
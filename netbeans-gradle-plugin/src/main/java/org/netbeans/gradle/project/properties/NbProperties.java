@@ -24,6 +24,16 @@ public final class NbProperties {
         return new WeakListenerProperty<>(src);
     }
 
+    /**
+     * Returns a property remembering the value of the given property while
+     * there is a change listener registered with the returned property.
+     * Without listeners, the value is retrieved from the given property on
+     * every request.
+     */
+    public static <Value> PropertySource<Value> cachedValue(PropertySource<? extends Value> src) {
+        return new CachedValueProperty<>(src);
+    }
+
     public static SimpleListenerRegistry<Runnable> asChangeListenerRegistry(
             final PropertySource<?> property) {
         ExceptionHelper.checkNotNullArgument(property, "property");
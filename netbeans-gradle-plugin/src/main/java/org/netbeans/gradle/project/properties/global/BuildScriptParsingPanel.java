@@ -22,6 +22,7 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
         modelLoadingStrategy.setSelectedValue(globalSettings.modelLoadingStrategy().getValue());
         jLoadRootProjectFirst.setSelected(globalSettings.loadRootProjectFirst().getValue());
         jReliableJavaVersionCheck.setSelected(globalSettings.mayRelyOnJavaOfScript().getValue());
+        jSingleFileModelCache.setSelected(globalSettings.singleFileModelCache().getValue());
     }
 
     @Override
@@ -29,6 +30,7 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
         globalSettings.modelLoadingStrategy().setValue(modelLoadingStrategy.getSelectedValue());
         globalSettings.loadRootProjectFirst().setValue(jLoadRootProjectFirst.isSelected());
         globalSettings.mayRelyOnJavaOfScript().setValue(jReliableJavaVersionCheck.isSelected());
+        globalSettings.singleFileModelCache().setValue(jSingleFileModelCache.isSelected());
     }
 
     @Override
@@ -51,6 +53,7 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
         jModelLoadStrategyLabel = new javax.swing.JLabel();
         jReliableJavaVersionCheck = new javax.swing.JCheckBox();
         jLoadRootProjectFirst = new javax.swing.JCheckBox();
+        jSingleFileModelCache = new javax.swing.JCheckBox();
 
         org.openide.awt.Mnemonics.setLocalizedText(jModelLoadStrategyLabel, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jModelLoadStrategyLabel.text")); // NOI18N
 
@@ -58,6 +61,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
 
         org.openide.awt.Mnemonics.setLocalizedText(jLoadRootProjectFirst, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jLoadRootProjectFirst.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(jSingleFileModelCache, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jSingleFileModelCache.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -70,7 +75,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(jModelLoadStrategy, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                     .addComponent(jReliableJavaVersionCheck)
-                    .addComponent(jLoadRootProjectFirst))
+                    .addComponent(jLoadRootProjectFirst)
+                    .addComponent(jSingleFileModelCache))
                 .addContainerGap())
         );
         layout.setVerticalGroup(
@@ -84,6 +90,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
                 .addComponent(jLoadRootProjectFirst)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jReliableJavaVersionCheck)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jSingleFileModelCache)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -94,5 +102,6 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Globa
     private javax.swing.JComboBox<EnumCombo.Item<ModelLoadingStrategy>> jModelLoadStrategy;
     private javax.swing.JLabel jModelLoadStrategyLabel;
     private javax.swing.JCheckBox jReliableJavaVersionCheck;
+    private javax.swing.JCheckBox jSingleFileModelCache;
     // End of variables declaration//GEN-END:variables
 }
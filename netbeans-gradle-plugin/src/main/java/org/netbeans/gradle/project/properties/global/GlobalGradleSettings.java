@@ -69,6 +69,8 @@ public final class GlobalGradleSettings {
     private final StringBasedProperty<Boolean> replaceLfOnStdIn;
     private final StringBasedProperty<DebugMode> debugMode;
     private final StringBasedProperty<Boolean> loadRootProjectFirst;
+    private final StringBasedProperty<Boolean> singleFileModelCache;
+    private final StringBasedProperty<Integer> maxTaskOutputLines;
 
     public GlobalGradleSettings(String namespace) {
         // "gradle-home" is probably not the best name but it must remain so
@@ -135,6 +137,12 @@ public final class GlobalGradleSettings {
         loadRootProjectFirst = new GlobalProperty<>(
                 withNS(namespace, "load-root-first"),
                 new BooleanConverter(true));
+        singleFileModelCache = new GlobalProperty<>(
+                withNS(namespace, "single-file-model-cache"),
+                new BooleanConverter(false));
+        maxTaskOutputLines = new GlobalProperty<>(
+                withNS(namespace, "max-task-output-lines"),
+                new IntegerConverter(0, Integer.MAX_VALUE, 200000));
     }
 
     public static void setDefaultPreference() {
@@ -245,6 +253,14 @@ public final class GlobalGradleSettings {
         return loadRootProjectFirst;
     }
 
+    public StringBasedProperty<Boolean> singleFileModelCache() {
+        return singleFileModelCache;
+    }
+
+    public StringBasedProperty<Integer> maxTaskOutputLines() {
+        return maxTaskOutputLines;
+    }
+
     public static GlobalGradleSettings getDefault() {
         return DEFAULT;
     }
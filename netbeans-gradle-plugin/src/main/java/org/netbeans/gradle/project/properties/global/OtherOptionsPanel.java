@@ -12,17 +12,20 @@ public class OtherOptionsPanel extends javax.swing.JPanel implements GlobalSetti
         initComponents();
 
         jProjectCacheSize.setModel(new SpinnerNumberModel(1, 1, Integer.MAX_VALUE, 1));
+        jMaxTaskOutputLines.setModel(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1000));
     }
 
     @Override
     public void updateSettings(GlobalGradleSettings globalSettings) {
         jCompileOnSaveCheckbox.setSelected(globalSettings.compileOnSave().getValue());
         jProjectCacheSize.setValue(globalSettings.projectCacheSize().getValue());
+        jMaxTaskOutputLines.setValue(globalSettings.maxTaskOutputLines().getValue());
     }
 
     @Override
     public void saveSettings(GlobalGradleSettings globalSettings) {
         globalSettings.projectCacheSize().setValue(getProjectCacheSize(globalSettings));
+        globalSettings.maxTaskOutputLines().setValue(getMaxTaskOutputLines(globalSettings));
         globalSettings.compileOnSave().setValue(jCompileOnSaveCheckbox.isSelected());
     }
 
@@ -46,6 +49,18 @@ public class OtherOptionsPanel extends javax.swing.JPanel implements GlobalSetti
         return result > 0 ? result : 1;
     }
 
+    private int getMaxTaskOutputLines(GlobalGradleSettings globalSettings) {
+        Object value = jMaxTaskOutputLines.getValue();
+        int result;
+        if (value instanceof Number) {
+            result = ((Number)value).intValue();
+        }
+        else {
+            result = globalSettings.maxTaskOutputLines().getValue();
+        }
+        return result > 0 ? result : 0;
+    }
+
     /**
      * This method is called from within the constructor to initialize the form. WARNING: Do NOT modify this code. The
      * content of this method is always regenerated by the Form Editor.
@@ -57,11 +72,15 @@ public class OtherOptionsPanel extends javax.swing.JPanel implements GlobalSetti
         jCompileOnSaveCheckbox = new javax.swing.JCheckBox();
         jProjectCacheSizeLabel = new javax.swing.JLabel();
         jProjectCacheSize = new javax.swing.JSpinner();
+        jMaxTaskOutputLinesLabel = new javax.swing.JLabel();
+        jMaxTaskOutputLines = new javax.swing.JSpinner();
 
         org.openide.awt.Mnemonics.setLocalizedText(jCompileOnSaveCheckbox, org.openide.util.NbBundle.getMessage(OtherOptionsPanel.class, "OtherOptionsPanel.jCompileOnSaveCheckbox.text")); // NOI18N
 
         org.openide.awt.Mnemonics.setLocalizedText(jProjectCacheSizeLabel, org.openide.util.NbBundle.getMessage(OtherOptionsPanel.class, "OtherOptionsPanel.jProjectCacheSizeLabel.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(jMaxTaskOutputLinesLabel, org.openide.util.NbBundle.getMessage(OtherOptionsPanel.class, "OtherOptionsPanel.jMaxTaskOutputLinesLabel.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -73,6 +92,10 @@ public class OtherOptionsPanel extends javax.swing.JPanel implements GlobalSetti
                         .addComponent(jProjectCacheSizeLabel)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                         .addComponent(jProjectCacheSize, javax.swing.GroupLayout.PREFERRED_SIZE, 95, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(jMaxTaskOutputLinesLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                        .addComponent(jMaxTaskOutputLines, javax.swing.GroupLayout.PREFERRED_SIZE, 95, javax.swing.GroupLayout.PREFERRED_SIZE))
                     .addComponent(jCompileOnSaveCheckbox))
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
@@ -84,6 +107,10 @@ public class OtherOptionsPanel extends javax.swing.JPanel implements GlobalSetti
                     .addComponent(jProjectCacheSizeLabel)
                     .addComponent(jProjectCacheSize, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jMaxTaskOutputLinesLabel)
+                    .addComponent(jMaxTaskOutputLines, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jCompileOnSaveCheckbox)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
@@ -92,6 +119,8 @@ public class OtherOptionsPanel extends javax.swing.JPanel implements GlobalSetti
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JCheckBox jCompileOnSaveCheckbox;
+    private javax.swing.JSpinner jMaxTaskOutputLines;
+    private javax.swing.JLabel jMaxTaskOutputLinesLabel;
     private javax.swing.JSpinner jProjectCacheSize;
     private javax.swing.JLabel jProjectCacheSizeLabel;
     // End of variables declaration//GEN-END:variables
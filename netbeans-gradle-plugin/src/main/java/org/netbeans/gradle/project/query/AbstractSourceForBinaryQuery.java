@@ -2,21 +2,21 @@ package org.netbeans.gradle.project.query;
 
 import java.io.File;
 import java.net.URL;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import org.netbeans.api.java.queries.SourceForBinaryQuery;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
 import org.openide.filesystems.FileUtil;
 
 public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQueryImplementation2 {
-    // This cache cannot shrink because SourceForBinaryQueryImplementation
-    // requires that we return the exact same object when the same URL is
-    // querried. This is a very limiting constraint but I don't want to risk to
-    // violate the constraint.
-    private final ConcurrentMap<File, Result> cache;
+    private static final int MAX_RECENT_RESULT_COUNT = 256;
+
+    // SourceForBinaryQueryImplementation requires that we return the exact
+    // same object when the same URL is querried. Results are kept while they
+    // are referenced by someone (who might query them again), so this cache
+    // does not violate that constraint despite being bounded.
+    private final ResultCache<File, Result> cache;
 
     public AbstractSourceForBinaryQuery() {
-        this.cache = new ConcurrentHashMap<>();
+        this.cache = new ResultCache<>(MAX_RECENT_RESULT_COUNT);
     }
 
     protected abstract Result tryFindSourceRoot(File binaryRoot);
@@ -28,7 +28,7 @@ public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQue
             return null;
         }
 
-        Result result = cache.get(binaryRootFile);
+        Result result = cache.tryGet(binaryRootFile);
         if (result != null) {
             return result;
         }
@@ -38,12 +38,27 @@ public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQue
             return null;
         }
 
-        Result oldResult = cache.putIfAbsent(binaryRootFile, result);
-        return oldResult != null ? oldResult : result;
+        return cache.putIfAbsent(binaryRootFile, result);
     }
 
     @Override
     public final SourceForBinaryQuery.Result findSourceRoots(URL binaryRoot) {
         return findSourceRoots2(binaryRoot);
     }
+
+    /**
+     * Returns the number of times a previously returned result was returned
+     * again.
+     */
+    public final long getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * Returns the number of times the source roots of a binary root had to be
+     * looked up because there was no cached result for it.
+     */
+    public final long getCacheMissCount() {
+        return cache.getMissCount();
+    }
 }
@@ -0,0 +1,356 @@
+package org.netbeans.gradle.project.query;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.NbConsumer;
+import org.netbeans.spi.java.classpath.ClassPathFactory;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Maintains a single {@code ClassPath} for the build scripts of each root
+ * build, containing the Gradle libraries and the resolved classpath of the
+ * build scripts of the projects of that build.
+ * <P>
+ * The {@code ClassPath} of a root build is registered while it has at least
+ * one project added (i.e., opened), and the root build is forgotten once its
+ * last project has been removed.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+final class BuildScriptClassPaths {
+    private final NbConsumer<? super ClassPath> registerTask;
+    private final NbConsumer<? super ClassPath> unregisterTask;
+
+    private final ReentrantLock mainLock;
+    private final Map<Path, BuildClassPath> builds;
+    private List<URL> gradleLibs;
+
+    /**
+     * Creates a new {@code BuildScriptClassPaths} without any Gradle library.
+     * <P>
+     * The given tasks are called while holding the lock of this object, so
+     * that the {@code ClassPath} of a root build is always unregistered after
+     * it was registered. Therefore the tasks must not call the methods of this
+     * object and should only schedule the actual (un)registration.
+     *
+     * @param registerTask the task to be called when the first project of a
+     *   root build is added. This argument cannot be {@code null}.
+     * @param unregisterTask the task to be called when the last project of a
+     *   root build is removed. This argument cannot be {@code null}.
+     */
+    public BuildScriptClassPaths(
+            NbConsumer<? super ClassPath> registerTask,
+            NbConsumer<? super ClassPath> unregisterTask) {
+        ExceptionHelper.checkNotNullArgument(registerTask, "registerTask");
+        ExceptionHelper.checkNotNullArgument(unregisterTask, "unregisterTask");
+
+        this.registerTask = registerTask;
+        this.unregisterTask = unregisterTask;
+        this.mainLock = new ReentrantLock();
+        this.builds = new HashMap<>();
+        this.gradleLibs = Collections.emptyList();
+    }
+
+    /**
+     * Returns the {@code ClassPath} of the build scripts of the given root
+     * build if it has at least one project added. Subsequent calls with the
+     * same root build return the same {@code ClassPath} instance until the
+     * last project of the root build is removed.
+     * <P>
+     * This method never remembers a root build, so a root build without
+     * projects does not have a {@code ClassPath}.
+     *
+     * @param rootBuildDir the directory of the root build (i.e., the
+     *   directory containing the settings.gradle file). This argument cannot
+     *   be {@code null}.
+     * @return the {@code ClassPath} of the build scripts of the given root
+     *   build or {@code null} if the root build has no projects added
+     */
+    public ClassPath tryGetClassPath(Path rootBuildDir) {
+        ExceptionHelper.checkNotNullArgument(rootBuildDir, "rootBuildDir");
+
+        mainLock.lock();
+        try {
+            BuildClassPath build = builds.get(rootBuildDir);
+            return build != null ? build.classPath : null;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private BuildClassPath getBuildClassPathUnlocked(Path rootBuildDir) {
+        assert mainLock.isHeldByCurrentThread();
+
+        BuildClassPath result = builds.get(rootBuildDir);
+        if (result == null) {
+            result = new BuildClassPath();
+            builds.put(rootBuildDir, result);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the Gradle libraries to be added to the {@code ClassPath} of every
+     * root build. The {@code ClassPath} instances are only notified if the
+     * libraries have actually changed.
+     *
+     * @param gradleLibs the Gradle libraries. This argument cannot be
+     *   {@code null} and cannot contain {@code null} elements.
+     */
+    public void setGradleLibs(List<URL> gradleLibs) {
+        ExceptionHelper.checkNotNullElements(gradleLibs, "gradleLibs");
+
+        List<URL> newGradleLibs = Collections.unmodifiableList(new ArrayList<>(gradleLibs));
+        List<BuildClassPath> changedBuilds;
+
+        mainLock.lock();
+        try {
+            if (this.gradleLibs.equals(newGradleLibs)) {
+                return;
+            }
+            this.gradleLibs = newGradleLibs;
+
+            changedBuilds = new ArrayList<>(builds.values());
+            for (BuildClassPath build: changedBuilds) {
+                build.invalidate();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        for (BuildClassPath build: changedBuilds) {
+            build.fireResourcesChange();
+        }
+    }
+
+    /**
+     * Adds the resolved classpath of the build script of the given project to
+     * the {@code ClassPath} of its root build. The {@code ClassPath} of the
+     * root build is only notified if this changes its entries.
+     * <P>
+     * When the model of the project changes, the project should be added
+     * with its new model before removing it with the previous model, so that
+     * the root build is not forgotten in the meantime.
+     *
+     * @param rootBuildDir the directory of the root build the project belongs
+     *   to. This argument cannot be {@code null}.
+     * @param classPath the resolved classpath of the build script of the
+     *   project. This argument cannot be {@code null} and cannot contain
+     *   {@code null} elements.
+     * @return the reference which removes the classpath of the project from
+     *   its root build when closed. This method never returns {@code null}.
+     */
+    public CloseableAction.Ref addProject(final Path rootBuildDir, List<File> classPath) {
+        ExceptionHelper.checkNotNullArgument(rootBuildDir, "rootBuildDir");
+        ExceptionHelper.checkNotNullElements(classPath, "classPath");
+
+        final ProjectEntry project = new ProjectEntry(classPath);
+        final BuildClassPath build;
+        boolean changed;
+
+        mainLock.lock();
+        try {
+            build = getBuildClassPathUnlocked(rootBuildDir);
+            if (build.projects.isEmpty()) {
+                registerTask.accept(build.classPath);
+            }
+            changed = build.addProject(project);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (changed) {
+            build.fireResourcesChange();
+        }
+
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        return new CloseableAction.Ref() {
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    removeProject(rootBuildDir, build, project);
+                }
+            }
+        };
+    }
+
+    private void removeProject(Path rootBuildDir, BuildClassPath build, ProjectEntry project) {
+        boolean changed;
+
+        mainLock.lock();
+        try {
+            changed = build.removeProject(project);
+            if (build.projects.isEmpty()) {
+                if (builds.get(rootBuildDir) == build) {
+                    builds.remove(rootBuildDir);
+                }
+                unregisterTask.accept(build.classPath);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (changed) {
+            build.fireResourcesChange();
+        }
+    }
+
+    /**
+     * Returns the number of root builds currently remembered.
+     */
+    int getBuildCount() {
+        mainLock.lock();
+        try {
+            return builds.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static List<URL> toUrls(Collection<File> files) {
+        List<URL> result = new ArrayList<>(files.size());
+        for (File file: files) {
+            URL url = FileUtil.urlForArchiveOrDir(file);
+            if (url != null) {
+                result.add(url);
+            }
+        }
+        return result;
+    }
+
+    private final class BuildClassPath implements ClassPathImplementation {
+        private final ClassPath classPath;
+        private final PropertyChangeSupport changes;
+        private final AtomicReference<List<PathResourceImplementation>> resourcesRef;
+
+        // Guarded by mainLock. A project might be added multiple times while
+        // its model is being replaced.
+        private final Set<ProjectEntry> projects;
+        private List<URL> buildScriptLibs;
+
+        public BuildClassPath() {
+            this.changes = new PropertyChangeSupport(this);
+            this.resourcesRef = new AtomicReference<>(null);
+            this.projects = new LinkedHashSet<>();
+            this.buildScriptLibs = Collections.emptyList();
+            this.classPath = ClassPathFactory.createClassPath(this);
+        }
+
+        public boolean addProject(ProjectEntry project) {
+            assert mainLock.isHeldByCurrentThread();
+
+            projects.add(project);
+            return updateBuildScriptLibs();
+        }
+
+        public boolean removeProject(ProjectEntry project) {
+            assert mainLock.isHeldByCurrentThread();
+
+            if (!projects.remove(project)) {
+                return false;
+            }
+            return updateBuildScriptLibs();
+        }
+
+        private boolean updateBuildScriptLibs() {
+            Set<File> allFiles = new LinkedHashSet<>();
+            for (ProjectEntry project: projects) {
+                allFiles.addAll(project.classPath);
+            }
+
+            List<URL> newBuildScriptLibs = toUrls(allFiles);
+            if (newBuildScriptLibs.equals(buildScriptLibs)) {
+                return false;
+            }
+
+            buildScriptLibs = newBuildScriptLibs;
+            invalidate();
+            return true;
+        }
+
+        public void invalidate() {
+            assert mainLock.isHeldByCurrentThread();
+            resourcesRef.set(null);
+        }
+
+        public void fireResourcesChange() {
+            changes.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+        }
+
+        @Override
+        public List<PathResourceImplementation> getResources() {
+            List<PathResourceImplementation> result = resourcesRef.get();
+            if (result != null) {
+                return result;
+            }
+
+            // Invalidation is done while holding the lock, so the cached list
+            // cannot be outdated.
+            mainLock.lock();
+            try {
+                result = resourcesRef.get();
+                if (result == null) {
+                    result = createResources();
+                    resourcesRef.set(result);
+                }
+                return result;
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        private List<PathResourceImplementation> createResources() {
+            assert mainLock.isHeldByCurrentThread();
+
+            Set<URL> urls = new LinkedHashSet<>(gradleLibs);
+            urls.addAll(buildScriptLibs);
+
+            List<PathResourceImplementation> result = new ArrayList<>(urls.size());
+            for (URL url: urls) {
+                result.add(ClassPathSupport.createResource(url));
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+            changes.addPropertyChangeListener(listener);
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+            changes.removePropertyChangeListener(listener);
+        }
+    }
+
+    // Compared by identity, so the same project added multiple times has
+    // multiple entries.
+    private static final class ProjectEntry {
+        public final List<File> classPath;
+
+        public ProjectEntry(List<File> classPath) {
+            this.classPath = Collections.unmodifiableList(new ArrayList<>(classPath));
+        }
+    }
+}
@@ -19,13 +19,27 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.concurrent.UpdateTaskExecutor;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.classpath.GlobalPathRegistry;
 import org.netbeans.api.java.classpath.JavaClassPathConstants;
 import org.netbeans.api.java.platform.JavaPlatform;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.model.NbGenericModelInfo;
+import org.netbeans.gradle.project.model.NbGradleModel;
 import org.netbeans.gradle.project.properties.SettingsFiles;
 import org.netbeans.gradle.project.properties.global.GlobalGradleSettings;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.NbConsumer;
 import org.netbeans.spi.java.classpath.ClassPathFactory;
 import org.netbeans.spi.java.classpath.ClassPathImplementation;
 import org.netbeans.spi.java.classpath.ClassPathProvider;
@@ -39,6 +53,24 @@ import org.openide.util.lookup.ServiceProviders;
 public final class GradleFilesClassPathProvider implements ClassPathProvider {
     private static final Logger LOGGER = Logger.getLogger(GradleFilesClassPathProvider.class.getName());
 
+    private static final TaskExecutor REGISTRATION_EXECUTOR = NbTaskExecutors.newDefaultFifoExecutor();
+
+    // The classpaths of the build scripts of the opened projects, shared by
+    // every script of the same root build.
+    private static final BuildScriptClassPaths BUILD_SCRIPT_CLASS_PATHS = new BuildScriptClassPaths(
+            new NbConsumer<ClassPath>() {
+                @Override
+                public void accept(ClassPath classPath) {
+                    registerBuildScriptClassPath(classPath, true);
+                }
+            },
+            new NbConsumer<ClassPath>() {
+                @Override
+                public void accept(ClassPath classPath) {
+                    registerBuildScriptClassPath(classPath, false);
+                }
+            });
+
     private volatile boolean initialized;
     private final ReentrantLock initLock;
     private final ConcurrentMap<ClassPathType, List<PathResourceImplementation>> classpathResources;
@@ -109,6 +141,7 @@ public final class GradleFilesClassPathProvider implements ClassPathProvider {
 
         classpathResources.put(ClassPathType.COMPILE, jarResources);
         classpathResources.put(ClassPathType.RUNTIME, jarResources);
+        BUILD_SCRIPT_CLASS_PATHS.setGradleLibs(Arrays.asList(jars));
 
         JavaPlatform platform = GlobalGradleSettings.getDefault().gradleJdk().getValue();
         if (platform != null) {
@@ -175,6 +208,81 @@ public final class GradleFilesClassPathProvider implements ClassPathProvider {
         setupClassPaths();
     }
 
+    private static void registerBuildScriptClassPath(final ClassPath classPath, final boolean register) {
+        // Registering is done asynchronously because we might have been called
+        // by the infrastructure of the ClassPath API. The executor preserves
+        // the order of the submitted tasks, so a classpath is never left
+        // registered after its last project has been closed.
+        REGISTRATION_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                ClassPath[] classPaths = new ClassPath[]{classPath};
+                if (register) {
+                    GlobalPathRegistry.getDefault().register(ClassPath.COMPILE, classPaths);
+                }
+                else {
+                    GlobalPathRegistry.getDefault().unregister(ClassPath.COMPILE, classPaths);
+                }
+            }
+        }, null);
+    }
+
+    /**
+     * Returns the action adding the buildscript classpath of the given project
+     * to the classpath of the build scripts of its root build while the
+     * project is opened. The classpath of the project is updated whenever its
+     * model changes.
+     *
+     * @param project the project whose buildscript classpath is to be added.
+     *   This argument cannot be {@code null}.
+     * @return the action adding the buildscript classpath of the given
+     *   project. This method never returns {@code null}.
+     */
+    public static CloseableAction getBuildScriptClassPathAction(final NbGradleProject project) {
+        ExceptionHelper.checkNotNullArgument(project, "project");
+
+        return new CloseableAction() {
+            @Override
+            public CloseableAction.Ref open() {
+                return addBuildScriptClassPath(project);
+            }
+        };
+    }
+
+    private static CloseableAction.Ref addBuildScriptClassPath(NbGradleProject project) {
+        final ProjectBuildScriptClassPath projectClassPath = new ProjectBuildScriptClassPath(project);
+        final ListenerRef modelListenerRef = project.currentModel().addChangeListener(new Runnable() {
+            @Override
+            public void run() {
+                projectClassPath.update();
+            }
+        });
+        projectClassPath.update();
+
+        return new CloseableAction.Ref() {
+            @Override
+            public void close() {
+                modelListenerRef.unregister();
+                projectClassPath.close();
+            }
+        };
+    }
+
+    private ClassPath tryGetBuildScriptClassPath(FileObject file) {
+        Project owner = FileOwnerQuery.getOwner(file);
+        if (owner == null) {
+            return null;
+        }
+
+        NbGradleProject project = owner.getLookup().lookup(NbGradleProject.class);
+        if (project == null) {
+            return null;
+        }
+
+        NbGenericModelInfo genericInfo = project.currentModel().getValue().getGenericInfo();
+        return BUILD_SCRIPT_CLASS_PATHS.tryGetClassPath(genericInfo.getSettingsDir());
+    }
+
     @Override
     public ClassPath findClassPath(FileObject file, String type) {
         // case-insensitive check, so that there is no surprise on Windows.
@@ -189,6 +297,13 @@ public final class GradleFilesClassPathProvider implements ClassPathProvider {
             return null;
         }
 
+        if (classPathType != ClassPathType.BOOT) {
+            ClassPath buildScriptClassPath = tryGetBuildScriptClassPath(file);
+            if (buildScriptClassPath != null) {
+                return buildScriptClassPath;
+            }
+        }
+
         ClassPath classpath = classpaths.get(classPathType);
         if (classpath != null) {
             return classpath;
@@ -246,6 +361,65 @@ public final class GradleFilesClassPathProvider implements ClassPathProvider {
         }
     }
 
+    private static final class ProjectBuildScriptClassPath {
+        private final NbGradleProject project;
+        private final ReentrantLock mainLock;
+        // Guarded by mainLock
+        private CloseableAction.Ref addedRef;
+        private boolean closed;
+
+        public ProjectBuildScriptClassPath(NbGradleProject project) {
+            this.project = project;
+            this.mainLock = new ReentrantLock();
+            this.addedRef = null;
+            this.closed = false;
+        }
+
+        public void update() {
+            CloseableAction.Ref prevRef;
+
+            mainLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+
+                NbGradleModel model = project.currentModel().getValue();
+                NbGenericModelInfo genericInfo = model.getGenericInfo();
+
+                // The new classpath is added before removing the previous
+                // one, so that the root build is not forgotten in between.
+                prevRef = addedRef;
+                addedRef = BUILD_SCRIPT_CLASS_PATHS.addProject(
+                        genericInfo.getSettingsDir(),
+                        genericInfo.getBuildScriptClassPath());
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (prevRef != null) {
+                prevRef.close();
+            }
+        }
+
+        public void close() {
+            CloseableAction.Ref prevRef;
+
+            mainLock.lock();
+            try {
+                closed = true;
+                prevRef = addedRef;
+                addedRef = null;
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (prevRef != null) {
+                prevRef.close();
+            }
+        }
+    }
+
     private enum ClassPathType {
         BOOT,
         COMPILE,
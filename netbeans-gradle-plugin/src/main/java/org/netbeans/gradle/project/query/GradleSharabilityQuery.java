@@ -1,31 +1,50 @@
 package org.netbeans.gradle.project.query;
 
+import java.io.File;
 import java.net.URI;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.queries.SharabilityQuery.Sharability;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
 import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.netbeans.gradle.project.util.CachedModelValue;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.spi.queries.SharabilityQueryImplementation2;
 
 public final class GradleSharabilityQuery implements SharabilityQueryImplementation2 {
-    private final NbGradleProject project;
+    private final NbSupplier<ModelSharability> sharabilityRef;
 
     public GradleSharabilityQuery(NbGradleProject project) {
-        ExceptionHelper.checkNotNullArgument(project, "project");
-        this.project = project;
+        this(currentModelRef(project));
     }
 
-    private static boolean isInDirectory(Path dir, Path queriedFile) {
-        return queriedFile.startsWith(dir);
+    GradleSharabilityQuery(NbSupplier<? extends NbGradleModel> modelRef) {
+        ExceptionHelper.checkNotNullArgument(modelRef, "modelRef");
+
+        this.sharabilityRef = new CachedModelValue<>(modelRef, new NbFunction<NbGradleModel, ModelSharability>() {
+            @Override
+            public ModelSharability apply(NbGradleModel model) {
+                return new ModelSharability(model);
+            }
+        });
     }
 
-    private static boolean isInBuildDir(NbGradleModel model, Path queriedFile) {
-        Path buildDir = model.getGenericInfo().getBuildDir().toPath();
-        return isInDirectory(buildDir, queriedFile);
+    private static NbSupplier<NbGradleModel> currentModelRef(final NbGradleProject project) {
+        ExceptionHelper.checkNotNullArgument(project, "project");
+
+        return new NbSupplier<NbGradleModel>() {
+            @Override
+            public NbGradleModel get() {
+                return project.currentModel().getValue();
+            }
+        };
     }
 
     private static Path tryConvertToPath(URI uri) {
@@ -43,24 +62,59 @@ public final class GradleSharabilityQuery implements SharabilityQueryImplementat
             return Sharability.UNKNOWN;
         }
 
-        NbGradleModel model = project.currentModel().getValue();
-        Path rootProjectDir = model.getSettingsDir();
+        return sharabilityRef.get().getSharability(queriedPath);
+    }
 
-        if (isInBuildDir(model, queriedPath)) {
-            return Sharability.NOT_SHARABLE;
-        }
-        if (isInDirectory(SettingsFiles.getSettingsDir(rootProjectDir), queriedPath)) {
-            return Sharability.NOT_SHARABLE;
+    private static final class ModelSharability {
+        private final Map<Path, Sharability> dirs;
+
+        public ModelSharability(NbGradleModel model) {
+            this.dirs = new HashMap<>();
+
+            Path rootProjectDir = model.getSettingsDir();
+
+            addDir(model.getProjectDir().toPath(), Sharability.SHARABLE);
+            addDir(model.getGenericInfo().getBuildDir().toPath(), Sharability.NOT_SHARABLE);
+            addDir(SettingsFiles.getSettingsDir(rootProjectDir), Sharability.NOT_SHARABLE);
+            addDir(SettingsFiles.getPrivateSettingsDir(rootProjectDir), Sharability.NOT_SHARABLE);
+            addBuildDirs(model.getProjectDef().getRootProject());
         }
-        if (isInDirectory(SettingsFiles.getPrivateSettingsDir(rootProjectDir), queriedPath)) {
-            return Sharability.NOT_SHARABLE;
+
+        private void addBuildDirs(NbGradleProjectTree project) {
+            File buildDir = project.getGenericProperties().getBuildDir();
+            if (buildDir != null) {
+                addDir(buildDir.toPath(), Sharability.NOT_SHARABLE);
+            }
+
+            for (NbGradleProjectTree child: project.getChildren()) {
+                addBuildDirs(child);
+            }
         }
 
-        Path projectDir = model.getProjectDir().toPath();
-        if (isInDirectory(projectDir, queriedPath)) {
-            return Sharability.SHARABLE;
+        private void addDir(Path dir, Sharability sharability) {
+            if (sharability != Sharability.NOT_SHARABLE && dirs.containsKey(dir)) {
+                return;
+            }
+            dirs.put(dir, sharability);
         }
 
-        return Sharability.UNKNOWN;
+        /**
+         * Returns the sharability of the given path based on the directories
+         * containing it. A non-sharable directory always wins over a sharable
+         * one, regardless which of them is nearer to the queried path.
+         */
+        public Sharability getSharability(Path queriedPath) {
+            Sharability result = Sharability.UNKNOWN;
+            for (Path current = queriedPath; current != null; current = current.getParent()) {
+                Sharability dirSharability = dirs.get(current);
+                if (dirSharability == Sharability.NOT_SHARABLE) {
+                    return Sharability.NOT_SHARABLE;
+                }
+                if (dirSharability != null) {
+                    result = dirSharability;
+                }
+            }
+            return result;
+        }
     }
 }
@@ -1,29 +1,160 @@
 package org.netbeans.gradle.project.query;
 
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.property.PropertySource;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.properties.NbProperties;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.spi.queries.FileEncodingQueryImplementation;
 import org.openide.filesystems.FileObject;
 
 public final class GradleSourceEncodingQuery extends FileEncodingQueryImplementation {
-    private final NbGradleProject project;
+    private static final int MAX_CACHED_DIR_COUNT = 256;
 
-    public GradleSourceEncodingQuery(NbGradleProject project) {
+    private final NbFunction<? super FileObject, Boolean> ownerQuery;
+    private final NbSupplier<? extends PropertySource<? extends Charset>> encodingRef;
+    private final AtomicReference<PropertySource<? extends Charset>> encodingPropertyRef;
+
+    private final Lock mainLock;
+    private final Map<FileObject, Boolean> ownedDirs;
+    private int ownedDirsVersion;
+
+    GradleSourceEncodingQuery(
+            PropertySource<?> model,
+            NbFunction<? super FileObject, Boolean> ownerQuery,
+            NbSupplier<? extends PropertySource<? extends Charset>> encodingRef) {
+        ExceptionHelper.checkNotNullArgument(model, "model");
+        ExceptionHelper.checkNotNullArgument(ownerQuery, "ownerQuery");
+        ExceptionHelper.checkNotNullArgument(encodingRef, "encodingRef");
+
+        this.ownerQuery = ownerQuery;
+        this.encodingRef = encodingRef;
+        this.encodingPropertyRef = new AtomicReference<>(null);
+        this.mainLock = new ReentrantLock();
+        this.ownedDirs = new LinkedHashMap<FileObject, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FileObject, Boolean> eldest) {
+                return size() > MAX_CACHED_DIR_COUNT;
+            }
+        };
+        this.ownedDirsVersion = 0;
+
+        // Reloading the project might change the owner of directories (e.g.,
+        // a new subproject was added).
+        model.addChangeListener(new Runnable() {
+            @Override
+            public void run() {
+                clearOwnedDirs();
+            }
+        });
+    }
+
+    public static GradleSourceEncodingQuery create(final NbGradleProject project) {
         ExceptionHelper.checkNotNullArgument(project, "project");
-        this.project = project;
+
+        return new GradleSourceEncodingQuery(project.currentModel(), new NbFunction<FileObject, Boolean>() {
+            @Override
+            public Boolean apply(FileObject file) {
+                Project ownerProject = FileOwnerQuery.getOwner(file);
+                return ownerProject != null && project.isSameProject(ownerProject);
+            }
+        }, new NbSupplier<PropertySource<Charset>>() {
+            @Override
+            public PropertySource<Charset> get() {
+                // The properties of the project are not yet available when
+                // this query is created.
+                return project.getCommonProperties().sourceEncoding().getActiveSource();
+            }
+        });
+    }
+
+    private void clearOwnedDirs() {
+        mainLock.lock();
+        try {
+            ownedDirs.clear();
+            ownedDirsVersion++;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given directory is owned by this project.
+     * The owner of files is the owner of the directory containing them, so
+     * the owner is only looked up once for every directory.
+     */
+    private boolean isOwnedDir(FileObject dir) {
+        Boolean cached;
+        int version;
+
+        mainLock.lock();
+        try {
+            cached = ownedDirs.get(dir);
+            version = ownedDirsVersion;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (cached != null) {
+            return cached;
+        }
+
+        Boolean owned = ownerQuery.apply(dir);
+
+        mainLock.lock();
+        try {
+            if (ownedDirsVersion == version) {
+                ownedDirs.put(dir, owned);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+        return owned;
+    }
+
+    private PropertySource<? extends Charset> getEncodingProperty() {
+        // The active source of the encoding is the same for the lifetime of
+        // the project, so it is only looked up once.
+        PropertySource<? extends Charset> result = encodingPropertyRef.get();
+        if (result == null) {
+            PropertySource<Charset> cachedEncoding = NbProperties.cachedValue(encodingRef.get());
+            if (encodingPropertyRef.compareAndSet(null, cachedEncoding)) {
+                // The value is only cached while there is a listener, so
+                // keep one registered for the lifetime of the project.
+                cachedEncoding.addChangeListener(new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                });
+            }
+            result = encodingPropertyRef.get();
+        }
+        return result;
     }
 
     @Override
     public Charset getEncoding(FileObject file) {
-        Project ownerProject = FileOwnerQuery.getOwner(file);
-        if (ownerProject != null && project.isSameProject(ownerProject)) {
+        FileObject dir = file.isFolder() ? file : file.getParent();
+        boolean owned = dir != null
+                ? isOwnedDir(dir)
+                : ownerQuery.apply(file);
+
+        if (owned) {
             // We don't expect that anyone else can tell what the encoding of
             // the file is, so return what we have (probably "UTF-8") is more
             // reliable than the platform's default encoding.
-            return project.getCommonProperties().sourceEncoding().getActiveValue();
+            return getEncodingProperty().getValue();
         }
         else {
             return null;
@@ -0,0 +1,121 @@
+package org.netbeans.gradle.project.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.properties.WeakValueHashMap;
+
+/**
+ * Caches the results of a query by their keys. The most recently used results
+ * are kept even if nobody references them, but at most the given number of
+ * them. Beyond that, results are only remembered as long as they are
+ * referenced by someone else (e.g., by the indexer of NetBeans).
+ * <P>
+ * So, the same result is returned for the same key as long as the previously
+ * returned result is still in use, but results of keys no longer queried are
+ * eventually forgotten.
+ */
+final class ResultCache<K, V> {
+    private final Lock mainLock;
+    private final Map<K, V> recentResults;
+    private final WeakValueHashMap<K, V> liveResults;
+
+    private long hitCount;
+    private long missCount;
+
+    public ResultCache(final int maxRecentCount) {
+        ExceptionHelper.checkArgumentInRange(maxRecentCount, 1, Integer.MAX_VALUE, "maxRecentCount");
+
+        this.mainLock = new ReentrantLock();
+        this.recentResults = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxRecentCount;
+            }
+        };
+        this.liveResults = new WeakValueHashMap<>();
+        this.hitCount = 0;
+        this.missCount = 0;
+    }
+
+    // Must be called while holding mainLock.
+    private V tryGetUnlocked(K key) {
+        V result = recentResults.get(key);
+        if (result == null) {
+            result = liveResults.get(key);
+            if (result != null) {
+                // Still in use, so make it recent again.
+                recentResults.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached result of the given key or {@code null} if there is
+     * no such result.
+     */
+    public V tryGet(K key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        mainLock.lock();
+        try {
+            V result = tryGetUnlocked(key);
+            if (result != null) {
+                hitCount++;
+            }
+            else {
+                missCount++;
+            }
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Caches the given result unless there is already a result cached for
+     * the given key. Returns the result which is cached after this call,
+     * which is the given result or the one cached concurrently.
+     */
+    public V putIfAbsent(K key, V result) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(result, "result");
+
+        mainLock.lock();
+        try {
+            V oldResult = tryGetUnlocked(key);
+            if (oldResult != null) {
+                return oldResult;
+            }
+
+            recentResults.put(key, result);
+            liveResults.put(key, result);
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        mainLock.lock();
+        try {
+            return hitCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public long getMissCount() {
+        mainLock.lock();
+        try {
+            return missCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+}
@@ -58,6 +58,7 @@ import org.netbeans.gradle.project.api.task.GradleTargetVerifier;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
 import org.netbeans.gradle.project.model.GradleModelLoader;
+import org.netbeans.gradle.project.output.BatchedLineHandler;
 import org.netbeans.gradle.project.output.BuildErrorConsumer;
 import org.netbeans.gradle.project.output.FileLineConsumer;
 import org.netbeans.gradle.project.output.IOTabRef;
@@ -65,6 +66,8 @@ import org.netbeans.gradle.project.output.IOTabs;
 import org.netbeans.gradle.project.output.InputOutputWrapper;
 import org.netbeans.gradle.project.output.LineOutputWriter;
 import org.netbeans.gradle.project.output.OutputLinkPrinter;
+import org.netbeans.gradle.project.output.OutputRetention;
+import org.netbeans.gradle.project.output.OutputStatistics;
 import org.netbeans.gradle.project.output.OutputUrlConsumer;
 import org.netbeans.gradle.project.output.ProjectFileConsumer;
 import org.netbeans.gradle.project.output.ReaderInputStream;
@@ -271,8 +274,13 @@ public final class AsyncGradleTask implements Runnable {
             BuildLauncher buildLauncher,
             TaskIOTab tab) {
 
+        String command = getDisplayableCommand(taskDef);
+        OutputStatistics stdOutStatistics = OutputStatistics.tryCreate(command + " (standard output)");
+        OutputStatistics stdErrStatistics = OutputStatistics.tryCreate(command + " (standard error)");
+
         List<SmartOutputHandler.Consumer> outputConsumers = new LinkedList<>();
         outputConsumers.add(new OutputLinkPrinter(
+                stdOutStatistics,
                 new StackTraceConsumer(project),
                 new OutputUrlConsumer(),
                 new ProjectFileConsumer(project)));
@@ -280,22 +288,37 @@ public final class AsyncGradleTask implements Runnable {
         List<SmartOutputHandler.Consumer> errorConsumers = new LinkedList<>();
         errorConsumers.add(new BuildErrorConsumer());
         errorConsumers.add(new OutputLinkPrinter(
+                stdErrStatistics,
                 new StackTraceConsumer(project),
                 new OutputUrlConsumer(),
                 new ProjectFileConsumer(project),
                 new FileLineConsumer()));
 
         InputOutputWrapper io = tab.getIo();
-        Writer forwardedStdOut = new LineOutputWriter(new SmartOutputHandler(
+        OutputRetention retention = tryCreateOutputRetention(io);
+        // The lines are forwarded to the output window in batches, so that
+        // a task printing lots of lines does not flood the output window.
+        // The standard output and error share the same queue, so that their
+        // lines are printed in the order they were written.
+        SmartOutputHandler.Builder stdOutBuilder = new SmartOutputHandler.Builder(
                 io.getIo(),
                 io.getOutRef(),
                 Arrays.asList(taskDef.getStdOutListener(project)),
-                outputConsumers));
-        Writer forwardedStdErr = new LineOutputWriter(new SmartOutputHandler(
+                outputConsumers);
+        stdOutBuilder.setRetention(retention);
+        stdOutBuilder.setStatistics(stdOutStatistics);
+
+        SmartOutputHandler.Builder stdErrBuilder = new SmartOutputHandler.Builder(
                 io.getIo(),
                 io.getErrRef(),
                 Arrays.asList(taskDef.getStdErrListener(project)),
-                errorConsumers));
+                errorConsumers);
+        stdErrBuilder.setRetention(retention);
+        stdErrBuilder.setStatistics(stdErrStatistics);
+
+        BatchedLineHandler outputHandler = new BatchedLineHandler(stdOutBuilder.create());
+        Writer forwardedStdOut = new LineOutputWriter(outputHandler);
+        Writer forwardedStdErr = new LineOutputWriter(outputHandler.createHandler(stdErrBuilder.create()));
 
         buildLauncher.setStandardOutput(new WriterOutputStream(forwardedStdOut));
         buildLauncher.setStandardError(new WriterOutputStream(forwardedStdErr));
@@ -307,7 +330,19 @@ public final class AsyncGradleTask implements Runnable {
 
         buildLauncher.setStandardInput(new ReaderInputStream(input));
 
-        return new OutputRef(forwardedStdOut, forwardedStdErr);
+        OutputRef result = new OutputRef(forwardedStdOut, forwardedStdErr, outputHandler, retention);
+        result.addStatistics(stdOutStatistics);
+        result.addStatistics(stdErrStatistics);
+        return result;
+    }
+
+    private static OutputRetention tryCreateOutputRetention(InputOutputWrapper io) {
+        int maxLineCount = GlobalGradleSettings.getDefault().maxTaskOutputLines().getValue();
+        if (maxLineCount <= 1) {
+            return null;
+        }
+
+        return OutputRetention.createTempRetention(io.getOutRef(), maxLineCount);
     }
 
     private boolean checkTaskExecutable(
@@ -472,8 +507,6 @@ public final class AsyncGradleTask implements Runnable {
 
                         try (OutputRef outputRef = configureOutput(project, taskDef, buildLauncher, tab);
                                 GradleCommandService commandService = commandServiceFactory.startService(cancelToken, commandContext)) {
-                            assert outputRef != null; // Avoid warning
-
                             InputOutputWrapper io = tab.getIo();
                             if (!actionContexts.contains(GradleActionProviderContext.DONT_FOCUS_ON_OUTPUT)) {
                                 io.getIo().select();
@@ -491,6 +524,8 @@ public final class AsyncGradleTask implements Runnable {
                                 configureBuildLauncher(targetSetup, buildLauncher, finalTaskDef, initScripts);
                                 runBuild(cancelToken, buildLauncher);
 
+                                // The output of the task must precede the output of the finalizer.
+                                outputRef.closeForwarders();
                                 taskDef.getSuccessfulCommandFinalizer().finalizeSuccessfulCommand(
                                         buildOutput,
                                         io.getErrRef());
@@ -828,18 +863,64 @@ public final class AsyncGradleTask implements Runnable {
     }
 
     private static class OutputRef implements Closeable {
-        private final Writer[] writers;
-
-        public OutputRef(Writer... writers) {
-            this.writers = writers.clone();
+        private final Writer stdOut;
+        private final Writer stdErr;
+        private final BatchedLineHandler outputHandler;
+        private final OutputRetention retention;
+        private final List<OutputStatistics> statistics;
+
+        public OutputRef(
+                Writer stdOut,
+                Writer stdErr,
+                BatchedLineHandler outputHandler,
+                OutputRetention retention) {
+            ExceptionHelper.checkNotNullArgument(stdOut, "stdOut");
+            ExceptionHelper.checkNotNullArgument(stdErr, "stdErr");
+            ExceptionHelper.checkNotNullArgument(outputHandler, "outputHandler");
+
+            this.stdOut = stdOut;
+            this.stdErr = stdErr;
+            this.outputHandler = outputHandler;
+            this.retention = retention;
+            this.statistics = new LinkedList<>();
+        }
+
+        /**
+         * Adds statistics to be logged when this {@code OutputRef} is closed.
+         * Passing {@code null} (i.e., statistics are not collected) does
+         * nothing.
+         */
+        public void addStatistics(OutputStatistics toAdd) {
+            if (toAdd != null) {
+                statistics.add(toAdd);
+            }
+        }
 
-            ExceptionHelper.checkNotNullElements(this.writers, "writers");
+        /**
+         * Waits until every line of the task output is printed to the output
+         * window. No more output of the task is printed after this call.
+         */
+        public void closeForwarders() throws IOException {
+            try {
+                stdOut.close();
+                stdErr.close();
+            } finally {
+                outputHandler.close();
+            }
         }
 
         @Override
         public void close() throws IOException {
-            for (Writer writer: writers) {
-                writer.close();
+            try {
+                closeForwarders();
+            } finally {
+                if (retention != null) {
+                    retention.close();
+                }
+            }
+
+            for (OutputStatistics currentStatistics: statistics) {
+                currentStatistics.logSummary();
             }
         }
     }
@@ -0,0 +1,72 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a value derived from the current model of a project. The value is
+ * only derived again if the model has changed (i.e., the current model is
+ * not the same object as the one the value was derived from) since the
+ * previous call to {@link #get() get}.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently. Note however that concurrent calls might derive the value
+ * for the same model multiple times.
+ *
+ * @param <ModelType> the type of the model the value is derived from
+ * @param <ValueType> the type of the derived value
+ */
+public final class CachedModelValue<ModelType, ValueType> implements NbSupplier<ValueType> {
+    private final NbSupplier<? extends ModelType> modelRef;
+    private final NbFunction<? super ModelType, ? extends ValueType> valueFactory;
+    private final AtomicReference<ModelValue<ModelType, ValueType>> cachedRef;
+
+    /**
+     * Creates a new {@code CachedModelValue} without deriving any value.
+     *
+     * @param modelRef the supplier of the current model. This argument cannot
+     *   be {@code null}.
+     * @param valueFactory the function deriving the value from a model. This
+     *   argument cannot be {@code null}.
+     */
+    public CachedModelValue(
+            NbSupplier<? extends ModelType> modelRef,
+            NbFunction<? super ModelType, ? extends ValueType> valueFactory) {
+        ExceptionHelper.checkNotNullArgument(modelRef, "modelRef");
+        ExceptionHelper.checkNotNullArgument(valueFactory, "valueFactory");
+
+        this.modelRef = modelRef;
+        this.valueFactory = valueFactory;
+        this.cachedRef = new AtomicReference<>(null);
+    }
+
+    /**
+     * Returns the value derived from the current model.
+     *
+     * @return the value derived from the current model. This method returns
+     *   {@code null} only if the value factory returned {@code null}.
+     */
+    @Override
+    public ValueType get() {
+        ModelType currentModel = modelRef.get();
+
+        ModelValue<ModelType, ValueType> cached = cachedRef.get();
+        if (cached != null && cached.model == currentModel) {
+            return cached.value;
+        }
+
+        ValueType result = valueFactory.apply(currentModel);
+        cachedRef.set(new ModelValue<>(currentModel, result));
+        return result;
+    }
+
+    private static final class ModelValue<ModelType, ValueType> {
+        public final ModelType model;
+        public final ValueType value;
+
+        public ModelValue(ModelType model, ValueType value) {
+            this.model = model;
+            this.value = value;
+        }
+    }
+}
@@ -9,11 +9,13 @@ import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import org.jtrim.cancel.CancellationToken;
@@ -234,6 +236,22 @@ public final class NbFileUtils {
         deleteDirectory(cancelToken, asFile.toPath());
     }
 
+    /**
+     * Moves the given file to the given destination replacing the destination
+     * file if it exists. The file is moved atomically if the file system
+     * supports it.
+     */
+    public static void moveReplace(Path src, Path dest) throws IOException {
+        ExceptionHelper.checkNotNullArgument(src, "src");
+        ExceptionHelper.checkNotNullArgument(dest, "dest");
+
+        try {
+            Files.move(src, dest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(src, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     public static void writeLinesToFile(
             Path file,
             Collection<String> lines,
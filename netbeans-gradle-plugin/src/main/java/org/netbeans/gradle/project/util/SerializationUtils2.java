@@ -1,5 +1,7 @@
 package org.netbeans.gradle.project.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -9,6 +11,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 public final class SerializationUtils2 {
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
     public static void serializeToFile(Path file, Object object) throws IOException {
         try (OutputStream fileOutput = Files.newOutputStream(file);
                 ObjectOutputStream output = new ObjectOutputStream(fileOutput)) {
@@ -16,6 +20,24 @@ public final class SerializationUtils2 {
         }
     }
 
+    /**
+     * Serializes the given object into a temporary file in the directory of
+     * the given file and then renames the temporary file to the given file.
+     * Therefore readers of the file will see either the previous content or
+     * the completely written new content, even if this method fails or the
+     * process is killed while writing the file.
+     */
+    public static void serializeToFileAtomically(Path file, Object object) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tempFile = Files.createTempFile(dir, file.getFileName().toString() + ".", TEMP_FILE_SUFFIX);
+        try {
+            serializeToFile(tempFile, object);
+            NbFileUtils.moveReplace(tempFile, file);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
     public static Object deserializeFile(Path file) throws IOException {
         try (InputStream fileInput = Files.newInputStream(file);
                 ObjectInputStream input = new ObjectInputStream(fileInput)) {
@@ -25,6 +47,22 @@ public final class SerializationUtils2 {
         }
     }
 
+    public static byte[] serializeObject(Object object) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(2048);
+        try (ObjectOutputStream output = new ObjectOutputStream(result)) {
+            output.writeObject(object);
+        }
+        return result.toByteArray();
+    }
+
+    public static Object deserializeObject(byte[] serializedObject) throws IOException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serializedObject))) {
+            return input.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
     private SerializationUtils2() {
         throw new AssertionError();
     }
@@ -0,0 +1,175 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+
+import static org.junit.Assert.*;
+
+public class ClassPathResourcesTest {
+    private ClassPathResources<String> classPathResources;
+
+    @Before
+    public void setUp() {
+        classPathResources = new ClassPathResources<>();
+    }
+
+    private static List<PathResourceImplementation> resources(String... names) throws MalformedURLException {
+        List<PathResourceImplementation> result = new ArrayList<>(names.length);
+        for (String name: names) {
+            result.add(ClassPathSupport.createResource(new URL("file:/classpath-resources-test/" + name + "/")));
+        }
+        return result;
+    }
+
+    private static Map<String, List<PathResourceImplementation>> compileAndRuntime(
+            List<PathResourceImplementation> compile,
+            List<PathResourceImplementation> runtime) {
+        Map<String, List<PathResourceImplementation>> result = new HashMap<>();
+        result.put("compile", compile);
+        result.put("runtime", runtime);
+        return result;
+    }
+
+    private EventCounter listen(String key) {
+        EventCounter result = new EventCounter();
+        classPathResources.createImplementation(key).addPropertyChangeListener(result);
+        return result;
+    }
+
+    private void update(Map<String, List<PathResourceImplementation>> newResources) {
+        classPathResources.fireChanges(classPathResources.update(newResources));
+    }
+
+    @Test
+    public void testResourcesOfClassPath() throws MalformedURLException {
+        ClassPathImplementation compile = classPathResources.createImplementation("compile");
+        assertEquals(Collections.emptyList(), compile.getResources());
+
+        update(compileAndRuntime(resources("lib1", "lib2"), resources("lib1")));
+
+        assertEquals(resources("lib1", "lib2"), compile.getResources());
+        assertEquals(resources("lib1"), classPathResources.getResources("runtime"));
+        assertEquals(Collections.emptyList(), classPathResources.getResources("boot"));
+    }
+
+    @Test
+    public void testIdenticalUpdateDoesNotFireChanges() throws MalformedURLException {
+        update(compileAndRuntime(resources("lib1", "lib2"), resources("lib1")));
+
+        EventCounter compileEvents = listen("compile");
+        EventCounter runtimeEvents = listen("runtime");
+        EventCounter bootEvents = listen("boot");
+
+        Set<String> changed = classPathResources.update(compileAndRuntime(resources("lib1", "lib2"), resources("lib1")));
+        classPathResources.fireChanges(changed);
+
+        assertEquals(Collections.emptySet(), changed);
+        assertEquals(0, compileEvents.getCount());
+        assertEquals(0, runtimeEvents.getCount());
+        assertEquals(0, bootEvents.getCount());
+    }
+
+    @Test
+    public void testOnlyChangedClassPathFiresChanges() throws MalformedURLException {
+        update(compileAndRuntime(resources("lib1", "lib2"), resources("lib1")));
+
+        EventCounter compileEvents = listen("compile");
+        EventCounter runtimeEvents = listen("runtime");
+
+        update(compileAndRuntime(resources("lib1", "lib2"), resources("lib1", "lib3")));
+
+        assertEquals(0, compileEvents.getCount());
+        assertEquals(1, runtimeEvents.getCount());
+        assertEquals(resources("lib1", "lib3"), classPathResources.getResources("runtime"));
+    }
+
+    @Test
+    public void testReorderedClassPathFiresChanges() throws MalformedURLException {
+        update(compileAndRuntime(resources("lib1", "lib2"), resources("lib1")));
+        EventCounter compileEvents = listen("compile");
+
+        update(compileAndRuntime(resources("lib2", "lib1"), resources("lib1")));
+
+        assertEquals(1, compileEvents.getCount());
+    }
+
+    @Test
+    public void testAddedAndRemovedClassPathsFireChanges() throws MalformedURLException {
+        update(Collections.singletonMap("compile", resources("lib1")));
+
+        EventCounter compileEvents = listen("compile");
+        EventCounter runtimeEvents = listen("runtime");
+
+        update(Collections.singletonMap("runtime", resources("lib1")));
+
+        assertEquals(1, compileEvents.getCount());
+        assertEquals(1, runtimeEvents.getCount());
+        assertEquals(Collections.emptyList(), classPathResources.getResources("compile"));
+    }
+
+    @Test
+    public void testEmptyClassPathIsSameAsMissing() throws MalformedURLException {
+        EventCounter compileEvents = listen("compile");
+
+        Set<String> changed = classPathResources.update(
+                compileAndRuntime(resources(), Collections.<PathResourceImplementation>emptyList()));
+
+        assertEquals(Collections.emptySet(), changed);
+        assertEquals(0, compileEvents.getCount());
+    }
+
+    @Test
+    public void testUpdateCopiesTheResources() throws MalformedURLException {
+        List<PathResourceImplementation> compile = resources("lib1");
+        update(Collections.singletonMap("compile", compile));
+
+        compile.addAll(resources("lib2"));
+
+        assertEquals(resources("lib1"), classPathResources.getResources("compile"));
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() throws MalformedURLException {
+        EventCounter compileEvents = new EventCounter();
+        ClassPathImplementation compile = classPathResources.createImplementation("compile");
+
+        compile.addPropertyChangeListener(compileEvents);
+        update(Collections.singletonMap("compile", resources("lib1")));
+        compile.removePropertyChangeListener(compileEvents);
+        update(Collections.singletonMap("compile", resources("lib2")));
+
+        assertEquals(1, compileEvents.getCount());
+        assertEquals(Arrays.asList(ClassPathImplementation.PROP_RESOURCES), compileEvents.getPropertyNames());
+    }
+
+    private static final class EventCounter implements PropertyChangeListener {
+        private final List<String> propertyNames = new ArrayList<>();
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            propertyNames.add(evt.getPropertyName());
+        }
+
+        public int getCount() {
+            return propertyNames.size();
+        }
+
+        public List<String> getPropertyNames() {
+            return propertyNames;
+        }
+    }
+}
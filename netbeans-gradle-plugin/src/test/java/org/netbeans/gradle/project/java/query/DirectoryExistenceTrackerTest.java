@@ -0,0 +1,178 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class DirectoryExistenceTrackerTest {
+    private File projectDir;
+    private AtomicInteger changeCount;
+    private DirectoryExistenceTracker tracker;
+
+    @Before
+    public void setUp() throws IOException {
+        projectDir = FileUtil.normalizeFile(Files.createTempDirectory("directory-existence-tracker-test").toFile());
+        changeCount = new AtomicInteger(0);
+        tracker = new DirectoryExistenceTracker(SyncTaskExecutor.getSimpleExecutor(), 4, new Runnable() {
+            @Override
+            public void run() {
+                changeCount.incrementAndGet();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        tracker.setDirectories(Collections.<File>emptyList(), false);
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, projectDir.toPath());
+    }
+
+    private static File file(File dir, String... relativePath) {
+        File result = dir;
+        for (String name: relativePath) {
+            result = new File(result, name);
+        }
+        return result;
+    }
+
+    private FileObject projectDirObj() {
+        FileObject result = FileUtil.toFileObject(projectDir);
+        assertNotNull("FileObject of " + projectDir, result);
+        return result;
+    }
+
+    @Test
+    public void testExistingAndMissingDirectories() throws IOException {
+        File existing = file(projectDir, "src", "main", "java");
+        File missing = file(projectDir, "src", "test", "java");
+        Files.createDirectories(existing.toPath());
+
+        tracker.setDirectories(Arrays.asList(existing, missing), false);
+
+        assertEquals(FileUtil.toFileObject(existing), tracker.tryGetDirectory(existing));
+        assertNull(tracker.tryGetDirectory(missing));
+        assertEquals(0, changeCount.get());
+    }
+
+    @Test
+    public void testManyDirectories() throws IOException {
+        List<File> dirs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            File dir = file(projectDir, "src", "sourceSet" + i, "java");
+            if (i % 3 == 0) {
+                Files.createDirectories(dir.toPath());
+            }
+            dirs.add(dir);
+        }
+
+        tracker.setDirectories(dirs, false);
+
+        for (int i = 0; i < dirs.size(); i++) {
+            File dir = dirs.get(i);
+            if (i % 3 == 0) {
+                assertNotNull(dir.toString(), tracker.tryGetDirectory(dir));
+            }
+            else {
+                assertNull(dir.toString(), tracker.tryGetDirectory(dir));
+            }
+        }
+    }
+
+    @Test
+    public void testCreatedDirectoryIsNoticed() throws IOException {
+        FileObject srcDir = projectDirObj().createFolder("src");
+        File root = file(projectDir, "src", "java");
+
+        tracker.setDirectories(Collections.singletonList(root), false);
+        assertNull(tracker.tryGetDirectory(root));
+
+        FileObject rootObj = srcDir.createFolder("java");
+
+        assertEquals(rootObj, tracker.tryGetDirectory(root));
+        assertEquals(1, changeCount.get());
+    }
+
+    @Test
+    public void testCreatedDirectoryWithMissingParentIsNoticed() throws IOException {
+        File root = file(projectDir, "src", "integTest", "java");
+
+        tracker.setDirectories(Collections.singletonList(root), false);
+        assertNull(tracker.tryGetDirectory(root));
+
+        FileObject rootObj = FileUtil.createFolder(projectDirObj(), "src/integTest/java");
+
+        assertEquals(rootObj, tracker.tryGetDirectory(root));
+        assertTrue(changeCount.get() > 0);
+    }
+
+    @Test
+    public void testDeletedDirectoryIsNoticed() throws IOException {
+        FileObject rootObj = FileUtil.createFolder(projectDirObj(), "src/main/java");
+        File root = FileUtil.toFile(rootObj);
+
+        tracker.setDirectories(Collections.singletonList(root), false);
+        assertEquals(rootObj, tracker.tryGetDirectory(root));
+
+        rootObj.delete();
+
+        assertNull(tracker.tryGetDirectory(root));
+        assertEquals(1, changeCount.get());
+    }
+
+    @Test
+    public void testChangesWithinDirectoryAreNotReported() throws IOException {
+        FileObject rootObj = FileUtil.createFolder(projectDirObj(), "src/main/java");
+        File root = FileUtil.toFile(rootObj);
+
+        tracker.setDirectories(Collections.singletonList(root), false);
+
+        rootObj.createFolder("org");
+        rootObj.createData("Foo.java");
+        rootObj.getFileObject("Foo.java").delete();
+
+        assertEquals(rootObj, tracker.tryGetDirectory(root));
+        assertEquals(0, changeCount.get());
+    }
+
+    @Test
+    public void testRemovedDirectoryIsNoLongerTracked() throws IOException {
+        FileObject srcDir = projectDirObj().createFolder("src");
+        File root1 = file(projectDir, "src", "java1");
+        File root2 = file(projectDir, "src", "java2");
+
+        tracker.setDirectories(Arrays.asList(root1, root2), false);
+        tracker.setDirectories(Collections.singletonList(root2), false);
+
+        srcDir.createFolder("java1");
+        assertEquals(0, changeCount.get());
+
+        srcDir.createFolder("java2");
+        assertEquals(1, changeCount.get());
+    }
+
+    @Test
+    public void testRecheckAllFindsDirectoriesCreatedOutsideOfTheIDE() throws IOException {
+        File root = file(projectDir, "src", "main", "java");
+        tracker.setDirectories(Collections.singletonList(root), false);
+
+        Files.createDirectories(root.toPath());
+        tracker.setDirectories(Collections.singletonList(root), true);
+
+        assertNotNull(tracker.tryGetDirectory(root));
+    }
+}
@@ -0,0 +1,145 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.jtrim.cancel.Cancellation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.openide.filesystems.FileLock;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class DirectoryListingCacheTest {
+    private File tempDir;
+    private FileObject libsDir;
+    private DirectoryListingCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = FileUtil.normalizeFile(Files.createTempDirectory("directory-listing-cache-test").toFile());
+        libsDir = createDir("libs");
+        cache = new DirectoryListingCache(2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tempDir.toPath());
+    }
+
+    private FileObject createDir(String name) throws IOException {
+        FileObject tempDirObj = FileUtil.toFileObject(tempDir);
+        assertNotNull("FileObject of " + tempDir, tempDirObj);
+        return tempDirObj.createFolder(name);
+    }
+
+    @Test
+    public void testFindsExistingChild() throws IOException {
+        FileObject sources = libsDir.createData("lib-sources.zip");
+        libsDir.createData("lib.jar");
+
+        assertEquals(sources, cache.tryGetChild(libsDir, "lib-sources.zip"));
+        assertNull(cache.tryGetChild(libsDir, "lib-javadoc.zip"));
+    }
+
+    @Test
+    public void testDirectoryIsListedOnce() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            libsDir.createData("lib" + i + ".jar");
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(cache.tryGetChild(libsDir, "lib" + i + ".jar"));
+            assertNull(cache.tryGetChild(libsDir, "lib" + i + "-sources.zip"));
+        }
+
+        assertEquals(1, cache.getListingCount());
+    }
+
+    @Test
+    public void testCreatedSiblingIsFound() throws IOException {
+        libsDir.createData("lib.jar");
+        assertNull(cache.tryGetChild(libsDir, "lib-sources.zip"));
+
+        FileObject sources = libsDir.createData("lib-sources.zip");
+        assertEquals(sources, cache.tryGetChild(libsDir, "lib-sources.zip"));
+    }
+
+    @Test
+    public void testSiblingCreatedOutsideOfTheIDEBeforeListingIsFound() throws IOException {
+        libsDir.createData("lib.jar");
+        // Make sure that the file system knows about the directory before
+        // the sibling is created.
+        libsDir.getChildren();
+
+        File sources = new File(FileUtil.toFile(libsDir), "lib-sources.zip");
+        Files.createFile(sources.toPath());
+
+        assertEquals(FileUtil.toFileObject(sources), cache.tryGetChild(libsDir, "lib-sources.zip"));
+        assertNotNull(cache.tryGetChild(libsDir, "lib.jar"));
+    }
+
+    @Test
+    public void testSiblingCreatedOutsideOfTheIDEIsFoundAfterRefresh() throws IOException {
+        libsDir.createData("lib.jar");
+        assertNull(cache.tryGetChild(libsDir, "lib-sources.zip"));
+
+        File sources = new File(FileUtil.toFile(libsDir), "lib-sources.zip");
+        Files.createFile(sources.toPath());
+        // The IDE refreshes the file system, e.g., when its window is
+        // activated.
+        libsDir.refresh();
+
+        assertEquals(FileUtil.toFileObject(sources), cache.tryGetChild(libsDir, "lib-sources.zip"));
+        assertNotNull(cache.tryGetChild(libsDir, "lib.jar"));
+    }
+
+    @Test
+    public void testDeletedSiblingIsForgotten() throws IOException {
+        libsDir.createData("lib.jar");
+        FileObject sources = libsDir.createData("lib-sources.zip");
+        assertEquals(sources, cache.tryGetChild(libsDir, "lib-sources.zip"));
+
+        sources.delete();
+        assertNull(cache.tryGetChild(libsDir, "lib-sources.zip"));
+        assertNotNull(cache.tryGetChild(libsDir, "lib.jar"));
+    }
+
+    @Test
+    public void testRenamedSiblingIsFound() throws IOException {
+        FileObject sources = libsDir.createData("lib-src.zip");
+        assertNull(cache.tryGetChild(libsDir, "lib-sources.zip"));
+
+        FileLock lock = sources.lock();
+        try {
+            sources.rename(lock, "lib-sources", "zip");
+        } finally {
+            lock.releaseLock();
+        }
+
+        assertEquals(sources, cache.tryGetChild(libsDir, "lib-sources.zip"));
+        assertNull(cache.tryGetChild(libsDir, "lib-src.zip"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDirectoryIsForgotten() throws IOException {
+        FileObject otherDir1 = createDir("other1");
+        FileObject otherDir2 = createDir("other2");
+
+        cache.tryGetChild(libsDir, "lib.jar");
+        cache.tryGetChild(otherDir1, "lib.jar");
+        cache.tryGetChild(libsDir, "lib.jar");
+        cache.tryGetChild(otherDir2, "lib.jar");
+        assertEquals(3, cache.getListingCount());
+
+        cache.tryGetChild(libsDir, "lib.jar");
+        assertEquals(3, cache.getListingCount());
+
+        cache.tryGetChild(otherDir1, "lib.jar");
+        assertEquals(4, cache.getListingCount());
+    }
+}
@@ -0,0 +1,225 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class GradleSourceForBinaryQueryTest {
+    private TestJavaProject project;
+    private GradleSourceForBinaryQuery query;
+
+    @Before
+    public void setUp() throws IOException {
+        project = new TestJavaProject("source-for-binary-test");
+        query = new GradleSourceForBinaryQuery(project.getModelRef());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        project.delete();
+    }
+
+    private File classesDir(String sourceSetName) throws IOException {
+        return project.classesDir(sourceSetName);
+    }
+
+    private File sourceRoot(String sourceSetName, String language) throws IOException {
+        return project.sourceRoot(sourceSetName, language);
+    }
+
+    private JavaSourceSet createSourceSet(String name, String... languages) throws IOException {
+        return project.createSourceSet(name, languages);
+    }
+
+    private void changeModel(JavaSourceSet... sourceSets) throws Exception {
+        project.setModel(sourceSets);
+        query.onModelChange();
+
+        // Changes are fired on the EDT.
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private SourceForBinaryQueryImplementation2.Result findSourceRoots(File binaryRoot) {
+        URL url = FileUtil.urlForArchiveOrDir(binaryRoot);
+        return query.findSourceRoots2(url);
+    }
+
+    private static List<File> toFiles(FileObject[] roots) {
+        List<File> result = new ArrayList<>(roots.length);
+        for (FileObject root: roots) {
+            result.add(FileUtil.toFile(root));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSourceRootsOfOutputDirs() throws IOException {
+        project.setModel(createSourceSet("main", "java"), createSourceSet("test", "java", "groovy"));
+
+        SourceForBinaryQueryImplementation2.Result mainResult = findSourceRoots(classesDir("main"));
+        assertEquals(Arrays.asList(sourceRoot("main", "java")), toFiles(mainResult.getRoots()));
+        assertTrue(mainResult.preferSources());
+
+        SourceForBinaryQueryImplementation2.Result testResult = findSourceRoots(classesDir("test"));
+        assertEquals(Arrays.asList(sourceRoot("test", "java"), sourceRoot("test", "groovy")),
+                toFiles(testResult.getRoots()));
+
+        SourceForBinaryQueryImplementation2.Result subDirResult = findSourceRoots(project.createDir("build", "classes", "main", "org"));
+        assertEquals(Arrays.asList(sourceRoot("main", "java")), toFiles(subDirResult.getRoots()));
+
+        assertNull(findSourceRoots(project.createDir("build", "libs")));
+    }
+
+    @Test
+    public void testReturnedRootsCannotBeModified() throws IOException {
+        project.setModel(createSourceSet("main", "java"));
+
+        SourceForBinaryQueryImplementation2.Result result = findSourceRoots(classesDir("main"));
+        result.getRoots()[0] = null;
+        assertEquals(Arrays.asList(sourceRoot("main", "java")), toFiles(result.getRoots()));
+    }
+
+    @Test
+    public void testMissingSourceRootIsFoundWhenCreated() throws IOException {
+        File newRoot = new File(project.getProjectDir(), "generated-src");
+
+        JavaSourceSet.Builder sourceSet = project.sourceSetBuilder("main");
+        sourceSet.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.JAVA, Collections.singleton(newRoot)));
+        project.setModel(sourceSet.create());
+
+        SourceForBinaryQueryImplementation2.Result result = findSourceRoots(classesDir("main"));
+        assertEquals(0, result.getRoots().length);
+        assertFalse(result.preferSources());
+
+        Files.createDirectories(newRoot.toPath());
+        FileUtil.refreshFor(project.getProjectDir());
+        assertEquals(Arrays.asList(newRoot), toFiles(result.getRoots()));
+    }
+
+    @Test
+    public void testAddingSourceSetDoesNotChangeOtherResults() throws Exception {
+        project.setModel(createSourceSet("main", "java"), createSourceSet("test", "java"));
+
+        SourceForBinaryQueryImplementation2.Result mainResult = findSourceRoots(classesDir("main"));
+        CountingListener listener = new CountingListener();
+        mainResult.addChangeListener(listener);
+
+        assertNull(findSourceRoots(classesDir("integTest")));
+
+        changeModel(createSourceSet("main", "java"), createSourceSet("test", "java"), createSourceSet("integTest", "java"));
+
+        assertEquals(0, listener.getCallCount());
+        assertEquals(Arrays.asList(sourceRoot("main", "java")), toFiles(mainResult.getRoots()));
+
+        SourceForBinaryQueryImplementation2.Result integTestResult = findSourceRoots(classesDir("integTest"));
+        assertNotNull(integTestResult);
+        assertEquals(Arrays.asList(sourceRoot("integTest", "java")), toFiles(integTestResult.getRoots()));
+    }
+
+    @Test
+    public void testRemovingSourceSetChangesItsResult() throws Exception {
+        project.setModel(createSourceSet("main", "java"), createSourceSet("test", "java"));
+
+        SourceForBinaryQueryImplementation2.Result mainResult = findSourceRoots(classesDir("main"));
+        SourceForBinaryQueryImplementation2.Result testResult = findSourceRoots(classesDir("test"));
+        CountingListener mainListener = new CountingListener();
+        CountingListener testListener = new CountingListener();
+        mainResult.addChangeListener(mainListener);
+        testResult.addChangeListener(testListener);
+
+        changeModel(createSourceSet("main", "java"));
+
+        assertEquals(0, mainListener.getCallCount());
+        assertEquals(1, testListener.getCallCount());
+        assertEquals(0, testResult.getRoots().length);
+        assertFalse(testResult.preferSources());
+    }
+
+    @Test
+    public void testChangingSourceRootsChangesTheResult() throws Exception {
+        project.setModel(createSourceSet("main", "java"));
+
+        SourceForBinaryQueryImplementation2.Result mainResult = findSourceRoots(classesDir("main"));
+        CountingListener listener = new CountingListener();
+        mainResult.addChangeListener(listener);
+
+        changeModel(createSourceSet("main", "java", "groovy"));
+
+        assertEquals(1, listener.getCallCount());
+        assertEquals(Arrays.asList(sourceRoot("main", "java"), sourceRoot("main", "groovy")),
+                toFiles(mainResult.getRoots()));
+    }
+
+    @Test
+    public void testCreatingSourceRootChangesTheResultOnReload() throws Exception {
+        File newRoot = new File(project.getProjectDir(), "generated-src");
+
+        JavaSourceSet.Builder sourceSet = project.sourceSetBuilder("main");
+        sourceSet.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.JAVA, Collections.singleton(newRoot)));
+        JavaSourceSet mainSourceSet = sourceSet.create();
+        project.setModel(mainSourceSet);
+
+        SourceForBinaryQueryImplementation2.Result mainResult = findSourceRoots(classesDir("main"));
+        CountingListener listener = new CountingListener();
+        mainResult.addChangeListener(listener);
+
+        Files.createDirectories(newRoot.toPath());
+        FileUtil.refreshFor(project.getProjectDir());
+
+        changeModel(mainSourceSet);
+
+        assertEquals(1, listener.getCallCount());
+        assertEquals(Arrays.asList(newRoot), toFiles(mainResult.getRoots()));
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() throws Exception {
+        project.setModel(createSourceSet("main", "java"));
+
+        SourceForBinaryQueryImplementation2.Result mainResult = findSourceRoots(classesDir("main"));
+        CountingListener listener = new CountingListener();
+        mainResult.addChangeListener(listener);
+        mainResult.removeChangeListener(listener);
+
+        changeModel(createSourceSet("main", "java", "groovy"));
+
+        assertEquals(0, listener.getCallCount());
+    }
+
+    private static final class CountingListener implements ChangeListener {
+        private final AtomicInteger callCount = new AtomicInteger(0);
+
+        public int getCallCount() {
+            return callCount.get();
+        }
+
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            callCount.incrementAndGet();
+        }
+    }
+}
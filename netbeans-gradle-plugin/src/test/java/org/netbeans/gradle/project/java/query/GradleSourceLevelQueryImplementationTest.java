@@ -0,0 +1,142 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.property.MutableProperty;
+import org.jtrim.property.PropertyFactory;
+import org.jtrim.property.PropertySource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.util.CachedModelValue;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.spi.java.queries.SourceLevelQueryImplementation2;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class GradleSourceLevelQueryImplementationTest {
+    private TestJavaProject project;
+    private MutableProperty<String> sourceLevel;
+    private AtomicInteger sourceLevelRequestCount;
+    private GradleSourceLevelQueryImplementation query;
+
+    @Before
+    public void setUp() throws IOException {
+        project = new TestJavaProject("source-level-query-test");
+        sourceLevel = PropertyFactory.memProperty("1.7");
+        sourceLevelRequestCount = new AtomicInteger(0);
+
+        PropertySource<String> countingSourceLevel = new PropertySource<String>() {
+            @Override
+            public String getValue() {
+                sourceLevelRequestCount.incrementAndGet();
+                return sourceLevel.getValue();
+            }
+
+            @Override
+            public ListenerRef addChangeListener(Runnable listener) {
+                return sourceLevel.addChangeListener(listener);
+            }
+        };
+
+        query = new GradleSourceLevelQueryImplementation(
+                FileUtil.toFileObject(project.getProjectDir()),
+                new CachedModelValue<>(project.getModelRef(), new NbFunction<NbJavaModel, SourceRootIndex>() {
+                    @Override
+                    public SourceRootIndex apply(NbJavaModel model) {
+                        return new SourceRootIndex(model);
+                    }
+                }),
+                countingSourceLevel);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        project.delete();
+    }
+
+    private File sourceRoot(String sourceSetName) throws IOException {
+        return project.sourceRoot(sourceSetName);
+    }
+
+    @Test
+    public void testFilesOfSourceRootsShareResult() throws IOException {
+        project.setModel("main", "test");
+        FileObject source = project.createFile(sourceRoot("main"), "org", "example", "Foo.java");
+        FileObject unitTest = project.createFile(sourceRoot("test"), "org", "example", "FooTest.java");
+
+        SourceLevelQueryImplementation2.Result result = query.getSourceLevel(source);
+        assertNotNull(result);
+        assertSame(result, query.getSourceLevel(unitTest));
+        assertSame(result, query.getSourceLevel(FileUtil.toFileObject(sourceRoot("main"))));
+        assertEquals("1.7", result.getSourceLevel());
+    }
+
+    @Test
+    public void testFileOutsideOfSourceRoots() throws IOException {
+        project.setModel("main");
+        FileObject similarlyNamed = project.createFile(new File(new File(project.getProjectDir(), "src"), "main"), "Foo.java");
+
+        assertNull(query.getSourceLevel(similarlyNamed));
+    }
+
+    @Test
+    public void testModelChangeRefreshesSourceRoots() throws IOException {
+        project.setModel("main");
+        FileObject extraSource = project.createFile(sourceRoot("extra"), "Bar.java");
+
+        assertNull(query.getSourceLevel(extraSource));
+
+        project.setModel("main", "extra");
+        assertNotNull(query.getSourceLevel(extraSource));
+    }
+
+    @Test
+    public void testSourceLevelChangeWithoutListeners() throws IOException {
+        project.setModel("main");
+        SourceLevelQueryImplementation2.Result result = query.getSourceLevel(project.createFile(sourceRoot("main"), "Foo.java"));
+
+        assertEquals("1.7", result.getSourceLevel());
+        sourceLevel.setValue("1.8");
+        assertEquals("1.8", result.getSourceLevel());
+    }
+
+    @Test
+    public void testSourceLevelChangeIsFiredAndInvalidatesCache() throws IOException {
+        project.setModel("main");
+        SourceLevelQueryImplementation2.Result result = query.getSourceLevel(project.createFile(sourceRoot("main"), "Foo.java"));
+
+        final AtomicInteger changeCount = new AtomicInteger(0);
+        ChangeListener listener = new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                changeCount.incrementAndGet();
+            }
+        };
+        result.addChangeListener(listener);
+
+        int requestCountBefore = sourceLevelRequestCount.get();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("1.7", result.getSourceLevel());
+        }
+        assertEquals(requestCountBefore + 1, sourceLevelRequestCount.get());
+
+        sourceLevel.setValue("1.8");
+        assertEquals(1, changeCount.get());
+        assertEquals("1.8", result.getSourceLevel());
+        assertEquals("1.8", result.getSourceLevel());
+        assertEquals(requestCountBefore + 2, sourceLevelRequestCount.get());
+
+        result.removeChangeListener(listener);
+        sourceLevel.setValue("1.6");
+        assertEquals(1, changeCount.get());
+        assertEquals("1.6", result.getSourceLevel());
+    }
+}
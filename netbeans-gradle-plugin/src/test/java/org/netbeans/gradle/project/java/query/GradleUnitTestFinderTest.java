@@ -0,0 +1,113 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class GradleUnitTestFinderTest {
+    private TestJavaProject project;
+    private GradleUnitTestFinder testFinder;
+
+    @Before
+    public void setUp() throws IOException {
+        project = new TestJavaProject("unit-test-finder-test");
+        testFinder = new GradleUnitTestFinder(project.getModelRef());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        project.delete();
+    }
+
+    private File sourceRoot(String sourceSetName) throws IOException {
+        return project.sourceRoot(sourceSetName);
+    }
+
+    private List<URL> urls(String... sourceSetNames) throws IOException {
+        List<URL> result = new ArrayList<>(sourceSetNames.length);
+        for (String name: sourceSetNames) {
+            result.add(FileUtil.urlForArchiveOrDir(sourceRoot(name)));
+        }
+        return result;
+    }
+
+    private static List<URL> asList(URL[] urls) {
+        return urls != null ? Arrays.asList(urls) : null;
+    }
+
+    @Test
+    public void testFindUnitTestsOfSource() throws IOException {
+        project.setModel("main", "test", "integTest");
+        FileObject source = project.createFile(sourceRoot("main"), "org", "example", "Foo.java");
+
+        assertEquals(urls("test", "integTest"), asList(testFinder.findUnitTests(source)));
+        assertNull(testFinder.findSources(source));
+    }
+
+    @Test
+    public void testFindSourcesOfUnitTest() throws IOException {
+        project.setModel("main", "extra", "test");
+        FileObject unitTest = project.createFile(sourceRoot("test"), "org", "example", "FooTest.java");
+
+        assertEquals(urls("main", "extra"), asList(testFinder.findSources(unitTest)));
+        assertNull(testFinder.findUnitTests(unitTest));
+    }
+
+    @Test
+    public void testSourceRootIsSource() throws IOException {
+        project.setModel("main", "test");
+        FileObject sourceRoot = FileUtil.toFileObject(sourceRoot("main"));
+
+        assertEquals(urls("test"), asList(testFinder.findUnitTests(sourceRoot)));
+    }
+
+    @Test
+    public void testFileOutsideOfSourceRoots() throws IOException {
+        project.setModel("main", "test");
+        FileObject buildScript = project.createFile(project.getProjectDir(), "build.gradle");
+        FileObject similarlyNamed = project.createFile(project.createDir("src", "main", "java2"), "Foo.java");
+
+        assertNull(testFinder.findUnitTests(buildScript));
+        assertEquals(urls("main"), asList(testFinder.findSources(buildScript)));
+        assertNull(testFinder.findUnitTests(similarlyNamed));
+    }
+
+    @Test
+    public void testReturnedRootsCannotBeModified() throws IOException {
+        project.setModel("main", "test");
+        FileObject source = project.createFile(sourceRoot("main"), "Foo.java");
+
+        testFinder.findUnitTests(source)[0] = null;
+        assertEquals(urls("test"), asList(testFinder.findUnitTests(source)));
+    }
+
+    @Test
+    public void testModelChangeRefreshesRoots() throws IOException {
+        project.setModel("main", "test");
+        FileObject source = project.createFile(sourceRoot("main"), "Foo.java");
+        FileObject extraSource = project.createFile(sourceRoot("extra"), "Bar.java");
+
+        assertEquals(urls("test"), asList(testFinder.findUnitTests(source)));
+        assertNull(testFinder.findUnitTests(extraSource));
+
+        project.setModel("main", "extra", "test", "integTest");
+
+        assertEquals(urls("test", "integTest"), asList(testFinder.findUnitTests(source)));
+        assertEquals(urls("test", "integTest"), asList(testFinder.findUnitTests(extraSource)));
+
+        project.setModel("extra", "test");
+
+        assertNull(testFinder.findUnitTests(source));
+        assertEquals(urls("extra"), asList(testFinder.findSources(source)));
+    }
+}
@@ -0,0 +1,150 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+
+import static org.junit.Assert.*;
+
+public class SharedClassPathsTest {
+    private SharedClassPaths sharedClassPaths;
+
+    @Before
+    public void setUp() {
+        sharedClassPaths = new SharedClassPaths();
+    }
+
+    private static URL url(String name) throws MalformedURLException {
+        return new URL("file:/shared-classpaths-test/" + name + "/");
+    }
+
+    private static List<PathResourceImplementation> resources(String... names) throws MalformedURLException {
+        List<PathResourceImplementation> result = new ArrayList<>(names.length);
+        for (String name: names) {
+            result.add(ClassPathSupport.createResource(url(name)));
+        }
+        return result;
+    }
+
+    private static List<URL> entries(ClassPath classPath) {
+        List<URL> result = new ArrayList<>();
+        for (ClassPath.Entry entry: classPath.entries()) {
+            result.add(entry.getURL());
+        }
+        return result;
+    }
+
+    @Test
+    public void testClassPathContainsResourcesInOrder() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef ref = sharedClassPaths.acquire(resources("lib2", "lib1", "lib3"));
+
+        assertEquals(Arrays.asList(url("lib2"), url("lib1"), url("lib3")), entries(ref.getClassPath()));
+    }
+
+    @Test
+    public void testSameResourcesAreShared() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef ref1 = sharedClassPaths.acquire(resources("lib1", "lib2"));
+        SharedClassPaths.ClassPathRef ref2 = sharedClassPaths.acquire(resources("lib1", "lib2"));
+
+        assertSame(ref1.getClassPath(), ref2.getClassPath());
+        assertEquals(1, sharedClassPaths.getClassPathCount());
+    }
+
+    @Test
+    public void testDifferentResourcesAreNotShared() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef ref1 = sharedClassPaths.acquire(resources("lib1", "lib2"));
+        SharedClassPaths.ClassPathRef ref2 = sharedClassPaths.acquire(resources("lib2", "lib1"));
+        SharedClassPaths.ClassPathRef ref3 = sharedClassPaths.acquire(resources("lib1"));
+
+        assertNotSame(ref1.getClassPath(), ref2.getClassPath());
+        assertNotSame(ref1.getClassPath(), ref3.getClassPath());
+        assertEquals(3, sharedClassPaths.getClassPathCount());
+    }
+
+    @Test
+    public void testAcquiredResourcesAreCopied() throws MalformedURLException {
+        List<PathResourceImplementation> resources = resources("lib1");
+        SharedClassPaths.ClassPathRef ref1 = sharedClassPaths.acquire(resources);
+
+        resources.addAll(resources("lib2"));
+        SharedClassPaths.ClassPathRef ref2 = sharedClassPaths.acquire(resources("lib1"));
+
+        assertSame(ref1.getClassPath(), ref2.getClassPath());
+        assertEquals(Collections.singletonList(url("lib1")), entries(ref1.getClassPath()));
+    }
+
+    @Test
+    public void testClassPathIsForgottenWhenAllReferencesAreReleased() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef ref1 = sharedClassPaths.acquire(resources("lib1"));
+        SharedClassPaths.ClassPathRef ref2 = sharedClassPaths.acquire(resources("lib1"));
+        ClassPath classPath = ref1.getClassPath();
+
+        ref1.release();
+        assertEquals(1, sharedClassPaths.getClassPathCount());
+
+        SharedClassPaths.ClassPathRef ref3 = sharedClassPaths.acquire(resources("lib1"));
+        assertSame(classPath, ref3.getClassPath());
+
+        ref2.release();
+        assertEquals(1, sharedClassPaths.getClassPathCount());
+
+        ref3.release();
+        assertEquals(0, sharedClassPaths.getClassPathCount());
+    }
+
+    @Test
+    public void testReleasingTheLastReference() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef ref = sharedClassPaths.acquire(resources("lib1"));
+        ClassPath classPath = ref.getClassPath();
+
+        ref.release();
+        assertEquals(0, sharedClassPaths.getClassPathCount());
+
+        SharedClassPaths.ClassPathRef newRef = sharedClassPaths.acquire(resources("lib1"));
+        assertNotSame(classPath, newRef.getClassPath());
+    }
+
+    @Test
+    public void testMultipleReleaseIsIgnored() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef ref1 = sharedClassPaths.acquire(resources("lib1"));
+        SharedClassPaths.ClassPathRef ref2 = sharedClassPaths.acquire(resources("lib1"));
+
+        ref1.release();
+        ref1.release();
+
+        assertEquals(1, sharedClassPaths.getClassPathCount());
+        assertSame(ref2.getClassPath(), sharedClassPaths.acquire(resources("lib1")).getClassPath());
+    }
+
+    @Test
+    public void testChangedClassPathOfOneProject() throws MalformedURLException {
+        SharedClassPaths.ClassPathRef project1Ref = sharedClassPaths.acquire(resources("lib1", "lib2"));
+        SharedClassPaths.ClassPathRef project2Ref = sharedClassPaths.acquire(resources("lib1", "lib2"));
+        ClassPath oldClassPath = project1Ref.getClassPath();
+
+        // The first project is reloaded with a new dependency: It acquires
+        // its new classpath, then releases the old one.
+        SharedClassPaths.ClassPathRef newProject1Ref = sharedClassPaths.acquire(resources("lib1", "lib2", "lib3"));
+        project1Ref.release();
+
+        assertEquals(Arrays.asList(url("lib1"), url("lib2"), url("lib3")), entries(newProject1Ref.getClassPath()));
+        assertSame(oldClassPath, project2Ref.getClassPath());
+        assertEquals(Arrays.asList(url("lib1"), url("lib2")), entries(project2Ref.getClassPath()));
+        assertEquals(2, sharedClassPaths.getClassPathCount());
+
+        // Then the second project gets the same dependency.
+        SharedClassPaths.ClassPathRef newProject2Ref = sharedClassPaths.acquire(resources("lib1", "lib2", "lib3"));
+        project2Ref.release();
+
+        assertSame(newProject1Ref.getClassPath(), newProject2Ref.getClassPath());
+        assertEquals(1, sharedClassPaths.getClassPathCount());
+    }
+}
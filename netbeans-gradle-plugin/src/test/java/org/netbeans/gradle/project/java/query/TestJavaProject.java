@@ -0,0 +1,144 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.cancel.Cancellation;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.project.java.model.JavaModelSource;
+import org.netbeans.gradle.project.java.model.JavaProjectDependency;
+import org.netbeans.gradle.project.java.model.NbCodeCoverage;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.NbSupplier;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+/**
+ * A Java project in a temporary directory whose current model can be replaced
+ * by the tests of the queries of this package.
+ */
+final class TestJavaProject {
+    private final File projectDir;
+    private final AtomicReference<NbJavaModel> modelRef;
+
+    public TestJavaProject(String dirPrefix) throws IOException {
+        this.projectDir = FileUtil.normalizeFile(Files.createTempDirectory(dirPrefix).toFile());
+        this.modelRef = new AtomicReference<>(null);
+    }
+
+    public void delete() throws IOException {
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, projectDir.toPath());
+    }
+
+    public File getProjectDir() {
+        return projectDir;
+    }
+
+    public NbSupplier<NbJavaModel> getModelRef() {
+        return new NbSupplier<NbJavaModel>() {
+            @Override
+            public NbJavaModel get() {
+                return modelRef.get();
+            }
+        };
+    }
+
+    public File createDir(String... names) throws IOException {
+        File result = projectDir;
+        for (String name: names) {
+            result = new File(result, name);
+        }
+        Files.createDirectories(result.toPath());
+        return result;
+    }
+
+    public FileObject createFile(File dir, String... relativePath) throws IOException {
+        File result = dir;
+        for (String name: relativePath) {
+            result = new File(result, name);
+        }
+        Files.createDirectories(result.getParentFile().toPath());
+        Files.createFile(result.toPath());
+
+        FileObject resultObj = FileUtil.toFileObject(result);
+        assertNotNull("FileObject of " + result, resultObj);
+        return resultObj;
+    }
+
+    public File classesDir(String sourceSetName) throws IOException {
+        return createDir("build", "classes", sourceSetName);
+    }
+
+    public File sourceRoot(String sourceSetName) throws IOException {
+        return sourceRoot(sourceSetName, "java");
+    }
+
+    public File sourceRoot(String sourceSetName, String language) throws IOException {
+        return createDir("src", sourceSetName, language);
+    }
+
+    public JavaSourceSet.Builder sourceSetBuilder(String name) throws IOException {
+        return new JavaSourceSet.Builder(
+                name,
+                new JavaOutputDirs(classesDir(name), createDir("build", "resources", name), Collections.<File>emptySet()));
+    }
+
+    public JavaSourceSet createSourceSet(String name, String... languages) throws IOException {
+        JavaSourceSet.Builder result = sourceSetBuilder(name);
+        for (String language: languages) {
+            result.addSourceGroup(new JavaSourceGroup(
+                    JavaSourceGroupName.JAVA,
+                    Collections.singleton(sourceRoot(name, language))));
+        }
+        return result.create();
+    }
+
+    /**
+     * Sets the current model to have the given source sets, each of them
+     * having a single Java source root.
+     */
+    public void setModel(String... sourceSetNames) throws IOException {
+        List<JavaSourceSet> sourceSets = new ArrayList<>(sourceSetNames.length);
+        for (String name: sourceSetNames) {
+            sourceSets.add(createSourceSet(name, "java"));
+        }
+        setModel(sourceSets);
+    }
+
+    public void setModel(JavaSourceSet... sourceSets) {
+        setModel(Arrays.asList(sourceSets));
+    }
+
+    private void setModel(List<JavaSourceSet> sourceSets) {
+        GenericProjectProperties properties = NbGradleProjectTreeTest.createProperties("app", ":app");
+        NbJavaModule module = new NbJavaModule(
+                properties,
+                new JavaCompatibilityModel("1.7", "1.7"),
+                sourceSets,
+                Collections.<NbListedDir>emptyList(),
+                JavaTestModel.getDefaulTestModel(projectDir),
+                NbCodeCoverage.NO_CODE_COVERAGE);
+
+        modelRef.set(NbJavaModel.createModel(
+                JavaModelSource.GRADLE_1_8_API,
+                module,
+                Collections.<File, JavaProjectDependency>emptyMap()));
+    }
+}
@@ -0,0 +1,166 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.jtrim.concurrent.ManualTaskExecutor;
+import org.junit.Test;
+import org.netbeans.gradle.project.NbGradleProject;
+
+import static org.junit.Assert.*;
+
+public class AsyncPersistentModelCacheTest {
+    private static NbGradleModel createModel(String projectName) {
+        File projectDir = new File("async-cache-test", projectName).getAbsoluteFile();
+        return new NbGradleModel(NbGradleMultiProjectDef.createEmpty(projectDir));
+    }
+
+    @Test
+    public void testNothingIsWrittenBeforeTheWriterRuns() {
+        RecordingCache wrapped = new RecordingCache();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        AsyncPersistentModelCache cache = new AsyncPersistentModelCache(wrapped, executor);
+
+        cache.saveGradleModels(Arrays.asList(createModel("project1"), createModel("project2")));
+
+        assertTrue(wrapped.getSaves().isEmpty());
+        assertEquals(2, cache.getPendingModelCount());
+    }
+
+    @Test
+    public void testRepeatedSavesAreCoalesced() {
+        RecordingCache wrapped = new RecordingCache();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        AsyncPersistentModelCache cache = new AsyncPersistentModelCache(wrapped, executor);
+
+        NbGradleModel model1 = createModel("project1");
+        NbGradleModel model2 = createModel("project1");
+        NbGradleModel model3 = createModel("project1");
+        NbGradleModel otherModel = createModel("project2");
+
+        cache.saveGradleModels(Collections.singleton(model1));
+        cache.saveGradleModels(Arrays.asList(model2, otherModel));
+        cache.saveGradleModels(Collections.singleton(model3));
+
+        executor.executeCurrentlySubmitted();
+
+        List<List<NbGradleModel>> saves = wrapped.getSaves();
+        assertEquals("Number of writes", 1, saves.size());
+
+        List<NbGradleModel> written = saves.get(0);
+        assertEquals(2, written.size());
+        assertTrue("Must write the latest model", written.contains(model3));
+        assertTrue(written.contains(otherModel));
+        assertFalse(written.contains(model1));
+        assertFalse(written.contains(model2));
+
+        assertEquals(0, cache.getPendingModelCount());
+    }
+
+    @Test
+    public void testSaveAfterWriteIsWrittenAgain() {
+        RecordingCache wrapped = new RecordingCache();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        AsyncPersistentModelCache cache = new AsyncPersistentModelCache(wrapped, executor);
+
+        NbGradleModel model1 = createModel("project1");
+        NbGradleModel model2 = createModel("project1");
+
+        cache.saveGradleModels(Collections.singleton(model1));
+        executor.executeCurrentlySubmitted();
+
+        cache.saveGradleModels(Collections.singleton(model2));
+        executor.executeCurrentlySubmitted();
+
+        List<List<NbGradleModel>> saves = wrapped.getSaves();
+        assertEquals(2, saves.size());
+        assertEquals(Collections.singletonList(model1), saves.get(0));
+        assertEquals(Collections.singletonList(model2), saves.get(1));
+    }
+
+    @Test
+    public void testDifferentSpellingsOfTheSameProjectAreCoalesced() {
+        RecordingCache wrapped = new RecordingCache();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        AsyncPersistentModelCache cache = new AsyncPersistentModelCache(wrapped, executor);
+
+        NbGradleModel model1 = createModel("project1");
+        NbGradleModel model2 = createModel("other" + File.separator + ".." + File.separator + "project1");
+
+        cache.saveGradleModels(Collections.singleton(model1));
+        cache.saveGradleModels(Collections.singleton(model2));
+
+        assertEquals(1, cache.getPendingModelCount());
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(Collections.singletonList(model2), wrapped.getSaves().get(0));
+    }
+
+    @Test
+    public void testFlushWritesPendingModels() {
+        RecordingCache wrapped = new RecordingCache();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        AsyncPersistentModelCache cache = new AsyncPersistentModelCache(wrapped, executor);
+
+        NbGradleModel model1 = createModel("project1");
+        NbGradleModel model2 = createModel("project2");
+        cache.saveGradleModels(Arrays.asList(model1, model2));
+
+        cache.flush();
+
+        List<List<NbGradleModel>> saves = wrapped.getSaves();
+        assertEquals(1, saves.size());
+        assertEquals(Arrays.asList(model1, model2), saves.get(0));
+        assertEquals(0, cache.getPendingModelCount());
+
+        // The already scheduled write task must not write anything again.
+        executor.executeCurrentlySubmitted();
+        assertEquals(1, wrapped.getSaves().size());
+    }
+
+    @Test
+    public void testFailedWriteIsNotRetriedForever() {
+        RecordingCache wrapped = new RecordingCache();
+        wrapped.setFailure(new IOException("Test failure"));
+
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        AsyncPersistentModelCache cache = new AsyncPersistentModelCache(wrapped, executor);
+
+        cache.saveGradleModels(Collections.singleton(createModel("project1")));
+        executor.executeCurrentlySubmitted();
+
+        assertEquals(1, wrapped.getSaves().size());
+        assertEquals(0, cache.getPendingModelCount());
+    }
+
+    private static final class RecordingCache implements PersistentModelCache {
+        private final List<List<NbGradleModel>> saves = new ArrayList<>();
+        private IOException failure = null;
+
+        public synchronized void setFailure(IOException failure) {
+            this.failure = failure;
+        }
+
+        public synchronized List<List<NbGradleModel>> getSaves() {
+            return new ArrayList<>(saves);
+        }
+
+        @Override
+        public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) {
+            return null;
+        }
+
+        @Override
+        public synchronized void saveGradleModels(Collection<NbGradleModel> models) throws IOException {
+            saves.add(new ArrayList<>(models));
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.gradle.project.NbGradleProject;
+
+import static org.junit.Assert.*;
+
+public class PrefetchingModelCacheTest {
+    private static final int PROJECT_COUNT = 100;
+
+    private static Path getRootDir() {
+        return new File("prefetch-test-root").getAbsoluteFile().toPath();
+    }
+
+    private static File getProjectDir(int index) {
+        return getRootDir().resolve("subproject" + index).toFile();
+    }
+
+    private static NbGradleModel createModel(File projectDir) {
+        NbGenericModelInfo genericInfo = new NbGenericModelInfo(
+                NbGradleMultiProjectDef.createEmpty(projectDir),
+                getRootDir().resolve("settings.gradle"));
+        return new NbGradleModel(genericInfo, Collections.<String, Object>emptyMap(), false);
+    }
+
+    private static CountingStore createStoreWithAllProjects() throws IOException {
+        List<NbGradleModel> models = new ArrayList<>(PROJECT_COUNT);
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            models.add(createModel(getProjectDir(i)));
+        }
+
+        CountingStore store = new CountingStore();
+        store.saveGradleModels(models);
+        return store;
+    }
+
+    @Test
+    public void testOpeningAllProjectsReadsTheStoreOnce() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            assertTrue("Model of project " + i, cache.hasModel(getProjectDir(i), getRootDir()));
+        }
+
+        assertEquals("Number of disk reads", 1, store.getReadCount());
+    }
+
+    @Test
+    public void testRepeatedRequestsAreServedFromMemory() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        for (int pass = 0; pass < 3; pass++) {
+            for (int i = 0; i < PROJECT_COUNT; i++) {
+                assertTrue(cache.hasModel(getProjectDir(i), getRootDir()));
+            }
+        }
+
+        assertEquals("Number of disk reads", 1, store.getReadCount());
+    }
+
+    @Test
+    public void testUnknownProjectDoesNotCauseDiskRead() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        assertTrue(cache.hasModel(getProjectDir(0), getRootDir()));
+        assertFalse(cache.hasModel(getProjectDir(PROJECT_COUNT), getRootDir()));
+        assertFalse(cache.hasModel(getProjectDir(PROJECT_COUNT + 1), getRootDir()));
+
+        assertEquals("Number of disk reads", 1, store.getReadCount());
+    }
+
+    @Test
+    public void testSavedModelsAreServedFromMemory() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        assertTrue(cache.hasModel(getProjectDir(0), getRootDir()));
+
+        File newProjectDir = getProjectDir(PROJECT_COUNT);
+        cache.saveGradleModels(Collections.singleton(createModel(newProjectDir)));
+
+        assertTrue(cache.hasModel(newProjectDir, getRootDir()));
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            assertTrue(cache.hasModel(getProjectDir(i), getRootDir()));
+        }
+
+        assertEquals("Number of disk reads", 1, store.getReadCount());
+    }
+
+    @Test
+    public void testExternalChangeCausesReload() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        File newProjectDir = getProjectDir(PROJECT_COUNT);
+        assertFalse(cache.hasModel(newProjectDir, getRootDir()));
+
+        // Saved bypassing the cache, as if it was saved by another process.
+        store.saveGradleModels(Collections.singleton(createModel(newProjectDir)));
+
+        assertTrue(cache.hasModel(newProjectDir, getRootDir()));
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            assertTrue(cache.hasModel(getProjectDir(i), getRootDir()));
+        }
+
+        assertEquals("Number of disk reads", 2, store.getReadCount());
+    }
+
+    @Test
+    public void testRequestingTheSameProjectTwiceReadsTheStoreOnce() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        SerializedNbGradleModels model1 = cache.tryGetSerializedModel(getProjectDir(0), getRootDir());
+        SerializedNbGradleModels model2 = cache.tryGetSerializedModel(getProjectDir(0), getRootDir());
+
+        assertNotNull(model1);
+        assertSame(model1, model2);
+        assertEquals("Number of disk reads", 1, store.getReadCount());
+    }
+
+    @Test
+    public void testSavedModelIsServedFromMemory() throws IOException {
+        CountingStore store = createStoreWithAllProjects();
+        PrefetchingModelCache cache = new PrefetchingModelCache(store);
+
+        File projectDir = getProjectDir(0);
+        SerializedNbGradleModels prevModel = cache.tryGetSerializedModel(projectDir, getRootDir());
+
+        cache.saveGradleModels(Collections.singleton(createModel(projectDir)));
+
+        SerializedNbGradleModels newModel = cache.tryGetSerializedModel(projectDir, getRootDir());
+        assertNotNull(newModel);
+        assertNotSame(prevModel, newModel);
+        assertEquals("Number of disk reads", 1, store.getReadCount());
+    }
+
+    private static final class CountingStore implements PersistentModelStore {
+        private final Map<File, SerializedNbGradleModels> models = new HashMap<>();
+        private int version = 0;
+        private int readCount = 0;
+
+        public synchronized int getReadCount() {
+            return readCount;
+        }
+
+        @Override
+        public synchronized Object getFingerprint(Path rootProjectDir) {
+            return version;
+        }
+
+        @Override
+        public synchronized Collection<SerializedNbGradleModels> readAllModels(Path rootProjectDir) {
+            readCount++;
+            return new ArrayList<>(models.values());
+        }
+
+        @Override
+        public synchronized NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) {
+            // Models must be read in a single pass, this is only counted to
+            // detect if they are not.
+            readCount++;
+            return null;
+        }
+
+        @Override
+        public synchronized void saveGradleModels(Collection<NbGradleModel> newModels) {
+            for (NbGradleModel model: newModels) {
+                models.put(model.getProjectDir(), SerializedNbGradleModels.createSerialized(model));
+            }
+            version++;
+        }
+    }
+}
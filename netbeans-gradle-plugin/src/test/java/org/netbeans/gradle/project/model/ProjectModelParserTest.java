@@ -0,0 +1,345 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim.concurrent.MonitorableTaskExecutorService;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.jtrim.concurrent.TaskExecutor;
+import org.junit.Test;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.FetchedBuildModels;
+import org.netbeans.gradle.model.FetchedModels;
+import org.netbeans.gradle.model.FetchedProjectModels;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleMultiProjectDef;
+import org.netbeans.gradle.model.GradleProjectTree;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.project.ConcurrentModelParser;
+import org.netbeans.gradle.project.NbGradleExtensionRef;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.api.entry.GradleProjectExtension2;
+import org.netbeans.gradle.project.api.entry.GradleProjectExtensionDef;
+import org.netbeans.gradle.project.api.entry.ModelLoadResult;
+import org.netbeans.gradle.project.api.entry.ParsedModel;
+import org.openide.util.Lookup;
+
+import static org.junit.Assert.*;
+
+public class ProjectModelParserTest {
+    private static final int PROJECT_COUNT = 50;
+    private static final int EXTENSION_COUNT = 5;
+
+    private static File getRootDir() {
+        return new File("parser-test-root").getAbsoluteFile();
+    }
+
+    private static String getExtensionName(int index) {
+        return "test-ext" + index;
+    }
+
+    private static FetchedModels createFetchedModels(int projectCount) {
+        File rootDir = getRootDir();
+
+        List<GradleProjectTree> subprojectTrees = new ArrayList<>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            String name = "subproject" + i;
+            GenericProjectProperties properties = new GenericProjectProperties(name, ":" + name, new File(rootDir, name));
+            subprojectTrees.add(new GradleProjectTree(
+                    properties,
+                    Collections.<GradleTaskID>emptyList(),
+                    Collections.<GradleProjectTree>emptyList()));
+        }
+
+        GradleProjectTree rootTree = new GradleProjectTree(
+                new GenericProjectProperties("root", ":", rootDir),
+                Collections.<GradleTaskID>emptyList(),
+                subprojectTrees);
+
+        List<FetchedProjectModels> otherModels = new ArrayList<>(projectCount);
+        for (GradleProjectTree subprojectTree: subprojectTrees) {
+            otherModels.add(createProjectModels(rootTree, subprojectTree));
+        }
+
+        return new FetchedModels(
+                new FetchedBuildModels(Collections.<Object, List<?>>emptyMap()),
+                createProjectModels(rootTree, rootTree),
+                otherModels);
+    }
+
+    private static FetchedProjectModels createProjectModels(GradleProjectTree rootTree, GradleProjectTree projectTree) {
+        String projectName = projectTree.getGenericProperties().getProjectName();
+        Map<Class<?>, Object> toolingModels = Collections.<Class<?>, Object>singletonMap(
+                String.class,
+                "tooling-model-of-" + projectName);
+
+        return new FetchedProjectModels(
+                new GradleMultiProjectDef(rootTree, projectTree),
+                Collections.<Object, List<?>>emptyMap(),
+                toolingModels,
+                null);
+    }
+
+    private static List<TestExtensionDef> createExtensionDefs() {
+        List<TestExtensionDef> result = new ArrayList<>(EXTENSION_COUNT);
+        for (int i = 0; i < EXTENSION_COUNT; i++) {
+            // The first extension parses the models of all the projects at once.
+            String name = getExtensionName(i);
+            boolean parseAllProjects = i == 0;
+            // Every other extension allows its models to be parsed concurrently.
+            result.add(i % 2 == 0
+                    ? new TestExtensionDef(name, parseAllProjects)
+                    : new ConcurrentTestExtensionDef(name, parseAllProjects));
+        }
+        return result;
+    }
+
+    private static List<NbGradleExtensionRef> createExtensions(List<TestExtensionDef> defs) {
+        List<NbGradleExtensionRef> result = new ArrayList<>(defs.size());
+        for (TestExtensionDef def: defs) {
+            result.add(new NbGradleExtensionRef(def, new TestExtension()));
+        }
+        return result;
+    }
+
+    private static Map<String, List<Class<?>>> createToolingModelNeeds() {
+        // Only every other extension requests the tooling model, so that
+        // both the shared and the extension specific lookups are used.
+        Map<String, List<Class<?>>> result = new HashMap<>();
+        for (int i = 0; i < EXTENSION_COUNT; i += 2) {
+            result.put(getExtensionName(i), Collections.<Class<?>>singletonList(String.class));
+        }
+        return result;
+    }
+
+    private static NbModelLoader.Result parse(FetchedModels fetchedModels, TaskExecutor parseExecutor) {
+        return parse(fetchedModels, createExtensionDefs(), parseExecutor);
+    }
+
+    private static NbModelLoader.Result parse(
+            FetchedModels fetchedModels,
+            List<TestExtensionDef> extensionDefs,
+            TaskExecutor parseExecutor) {
+
+        Path settingsFile = getRootDir().toPath().resolve("settings.gradle");
+        NbGradle18ModelLoader.ProjectModelParser parser = new NbGradle18ModelLoader.ProjectModelParser(
+                null,
+                createExtensions(extensionDefs),
+                SettingsGradleDef.DEFAULT,
+                settingsFile,
+                createToolingModelNeeds(),
+                parseExecutor);
+        return parser.parseModel(fetchedModels);
+    }
+
+    private static Map<File, Map<String, Object>> getExtensionModels(NbModelLoader.Result result) {
+        Map<File, Map<String, Object>> models = new HashMap<>();
+        models.put(result.getMainModel().getProjectDir(), result.getMainModel().getExtensionModels());
+        for (NbGradleModel model: result.getOtherModels()) {
+            models.put(model.getProjectDir(), model.getExtensionModels());
+        }
+        return models;
+    }
+
+    private static List<File> getOtherProjectDirs(NbModelLoader.Result result) {
+        List<File> projectDirs = new ArrayList<>();
+        for (NbGradleModel model: result.getOtherModels()) {
+            projectDirs.add(model.getProjectDir());
+        }
+        return projectDirs;
+    }
+
+    @Test
+    public void testSerialParsing() {
+        FetchedModels fetchedModels = createFetchedModels(PROJECT_COUNT);
+        NbModelLoader.Result result = parse(fetchedModels, SyncTaskExecutor.getSimpleExecutor());
+
+        assertEquals(getRootDir(), result.getMainModel().getProjectDir());
+        assertEquals(PROJECT_COUNT, result.getOtherModels().size());
+        assertTrue(result.getIssues().isEmpty());
+
+        Map<File, Map<String, Object>> models = getExtensionModels(result);
+        for (int i = 0; i < PROJECT_COUNT; i++) {
+            String projectName = "subproject" + i;
+            Map<String, Object> projectModels = models.get(new File(getRootDir(), projectName));
+
+            assertEquals(EXTENSION_COUNT, projectModels.size());
+            assertEquals(getExtensionName(0) + ":" + projectName + ":tooling-model-of-" + projectName,
+                    projectModels.get(getExtensionName(0)));
+            assertEquals(getExtensionName(1) + ":" + projectName + ":" + projectName,
+                    projectModels.get(getExtensionName(1)));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testParallelParsingGivesTheSameResultAsSerial() {
+        FetchedModels fetchedModels = createFetchedModels(PROJECT_COUNT);
+        NbModelLoader.Result serialResult = parse(fetchedModels, SyncTaskExecutor.getSimpleExecutor());
+
+        MonitorableTaskExecutorService executor = NbTaskExecutors.newStoppableExecutor("Parser-Test", 4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                NbModelLoader.Result parallelResult = parse(fetchedModels, executor);
+
+                assertEquals(getExtensionModels(serialResult), getExtensionModels(parallelResult));
+                assertEquals(getOtherProjectDirs(serialResult), getOtherProjectDirs(parallelResult));
+                assertTrue(parallelResult.getIssues().isEmpty());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testNotConcurrentExtensionsAreParsedSerially() {
+        FetchedModels fetchedModels = createFetchedModels(PROJECT_COUNT);
+
+        MonitorableTaskExecutorService executor = NbTaskExecutors.newStoppableExecutor("Parser-Test", 4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                List<TestExtensionDef> extensionDefs = createExtensionDefs();
+                parse(fetchedModels, extensionDefs, executor);
+
+                for (TestExtensionDef extensionDef: extensionDefs) {
+                    if (!(extensionDef instanceof ConcurrentModelParser)) {
+                        assertEquals(extensionDef.getName(), 1, extensionDef.getMaxActiveCalls());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class TestExtensionDef implements GradleProjectExtensionDef<String> {
+        private final String name;
+        private final boolean parseAllProjects;
+        private final AtomicInteger activeCalls;
+        private final AtomicInteger maxActiveCalls;
+
+        public TestExtensionDef(String name, boolean parseAllProjects) {
+            this.name = name;
+            this.parseAllProjects = parseAllProjects;
+            this.activeCalls = new AtomicInteger(0);
+            this.maxActiveCalls = new AtomicInteger(0);
+        }
+
+        public int getMaxActiveCalls() {
+            return maxActiveCalls.get();
+        }
+
+        private void updateMaxActiveCalls(int currentActiveCalls) {
+            int prevMax;
+            do {
+                prevMax = maxActiveCalls.get();
+                if (prevMax >= currentActiveCalls) {
+                    return;
+                }
+            } while (!maxActiveCalls.compareAndSet(prevMax, currentActiveCalls));
+        }
+
+        private String parseProjectModel(Lookup lookup) {
+            GenericProjectProperties properties = lookup.lookup(GenericProjectProperties.class);
+            String toolingModel = lookup.lookup(String.class);
+            return name + ":" + properties.getProjectName() + ":"
+                    + (toolingModel != null ? toolingModel : properties.getProjectName());
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return name;
+        }
+
+        @Override
+        public Lookup getLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public Class<String> getModelType() {
+            return String.class;
+        }
+
+        @Override
+        public ParsedModel<String> parseModel(ModelLoadResult retrievedModels) {
+            updateMaxActiveCalls(activeCalls.incrementAndGet());
+            try {
+                // Give the other parser threads a chance to overlap with this call.
+                Thread.yield();
+                return parseModelUnmonitored(retrievedModels);
+            } finally {
+                activeCalls.decrementAndGet();
+            }
+        }
+
+        private ParsedModel<String> parseModelUnmonitored(ModelLoadResult retrievedModels) {
+            String mainModel = parseProjectModel(retrievedModels.getMainProjectModels());
+            if (!parseAllProjects) {
+                return new ParsedModel<>(mainModel);
+            }
+
+            Map<File, String> otherModels = new HashMap<>();
+            for (Map.Entry<File, Lookup> entry: retrievedModels.getEvaluatedProjectsModel().entrySet()) {
+                otherModels.put(entry.getKey(), parseProjectModel(entry.getValue()));
+            }
+            return new ParsedModel<>(mainModel, otherModels);
+        }
+
+        @Override
+        public GradleProjectExtension2<String> createExtension(Project project) {
+            return new TestExtension();
+        }
+
+        @Override
+        public Set<String> getSuppressedExtensions() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static final class ConcurrentTestExtensionDef
+    extends
+            TestExtensionDef
+    implements
+            ConcurrentModelParser {
+
+        public ConcurrentTestExtensionDef(String name, boolean parseAllProjects) {
+            super(name, parseAllProjects);
+        }
+    }
+
+    private static final class TestExtension implements GradleProjectExtension2<String> {
+        @Override
+        public Lookup getPermanentProjectLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public Lookup getProjectLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public Lookup getExtensionLookup() {
+            return Lookup.EMPTY;
+        }
+
+        @Override
+        public void activateExtension(String parsedModel) {
+        }
+
+        @Override
+        public void deactivateExtension() {
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.cancel.Cancellation;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class SegmentFileStoreTest {
+    private static byte[] toBytes(String str) {
+        return str.getBytes(StringUtils.UTF8);
+    }
+
+    private static String tryReadStr(SegmentFileStore store, String key) throws IOException {
+        byte[] result = store.tryRead(key);
+        return result != null ? new String(result, StringUtils.UTF8) : null;
+    }
+
+    private static Map<String, byte[]> values(String... keysAndValues) {
+        Map<String, byte[]> result = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            result.put(keysAndValues[i], toBytes(keysAndValues[i + 1]));
+        }
+        return result;
+    }
+
+    private static SegmentFileStore createStore(Path file) {
+        return createStore(file, false);
+    }
+
+    private static SegmentFileStore createStore(Path file, boolean memoryMappedReads) {
+        // Never compacts.
+        return new SegmentFileStore(file, memoryMappedReads, Long.MAX_VALUE, 1.0);
+    }
+
+    private static Path getLockFile(Path file) {
+        return file.resolveSibling(file.getFileName().toString() + ".lock");
+    }
+
+    private static List<Path> listDir(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> dirContent = Files.newDirectoryStream(dir)) {
+            for (Path file: dirContent) {
+                result.add(file.getFileName());
+            }
+        }
+        return result;
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static void withTempDir(TempDirTask task) throws Exception {
+        Path tempDir = Files.createTempDirectory("nb-segment-store-test");
+        try {
+            task.run(tempDir);
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tempDir);
+        }
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        for (final boolean memoryMappedReads: Arrays.asList(false, true)) {
+            withTempDir(new TempDirTask() {
+                @Override
+                public void run(Path tempDir) throws Exception {
+                    Path file = tempDir.resolve("subdir").resolve("store.segment");
+                    SegmentFileStore store = createStore(file, memoryMappedReads);
+
+                    assertNull(store.tryRead("key1"));
+
+                    store.write(values("key1", "value1", "key2", "value2"));
+                    store.write(values("key1", "value1b"));
+
+                    assertEquals("value1b", tryReadStr(store, "key1"));
+                    assertEquals("value2", tryReadStr(store, "key2"));
+                    assertNull(tryReadStr(store, "key3"));
+
+                    SegmentFileStore reopened = createStore(file, memoryMappedReads);
+                    assertEquals("value1b", tryReadStr(reopened, "key1"));
+                    assertEquals("value2", tryReadStr(reopened, "key2"));
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testReadAll() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                SegmentFileStore store = createStore(file);
+
+                assertTrue(store.readAll().isEmpty());
+
+                store.write(values("key1", "value1", "key2", "value2"));
+                store.write(values("key1", "value1b", "key3", "value3"));
+
+                Map<String, byte[]> allValues = createStore(file).readAll();
+                assertEquals(3, allValues.size());
+                assertEquals("value1b", new String(allValues.get("key1"), StringUtils.UTF8));
+                assertEquals("value2", new String(allValues.get("key2"), StringUtils.UTF8));
+                assertEquals("value3", new String(allValues.get("key3"), StringUtils.UTF8));
+            }
+        });
+    }
+
+    @Test
+    public void testSeesWritesOfOtherInstances() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                SegmentFileStore store1 = createStore(file);
+                SegmentFileStore store2 = createStore(file);
+
+                store1.write(values("key1", "value1"));
+                assertEquals("value1", tryReadStr(store2, "key1"));
+
+                store2.write(values("key1", "value2"));
+                assertEquals("value2", tryReadStr(store1, "key1"));
+            }
+        });
+    }
+
+    @Test
+    public void testSeesSameSizeRewriteOfOtherProcess() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                Path otherFile = tempDir.resolve("other.segment");
+
+                SegmentFileStore store = createStore(file);
+                store.write(values("key1", "value1"));
+                assertEquals("value1", tryReadStr(store, "key1"));
+
+                createStore(otherFile).write(values("key1", "value2"));
+                FileTime lastModifiedTime = Files.getLastModifiedTime(file);
+                Files.copy(otherFile, file, StandardCopyOption.REPLACE_EXISTING);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(lastModifiedTime.toMillis() + 10000));
+
+                assertEquals("value2", tryReadStr(store, "key1"));
+            }
+        });
+    }
+
+    @Test
+    public void testWriteLocksSeparateFile() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("subdir").resolve("store.segment");
+                createStore(file).write(values("key1", "value1"));
+
+                assertTrue(Files.isRegularFile(getLockFile(file)));
+            }
+        });
+    }
+
+    @Test
+    public void testRecoversFromGarbageAfterLastWrite() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                createStore(file).write(values("key1", "value1", "key2", "value2"));
+
+                Files.write(file, new byte[]{1, 0, 0, 0, 100, 5, 6}, StandardOpenOption.APPEND);
+
+                SegmentFileStore store = createStore(file);
+                assertEquals("value1", tryReadStr(store, "key1"));
+                assertEquals("value2", tryReadStr(store, "key2"));
+
+                store.write(values("key3", "value3"));
+
+                SegmentFileStore reopened = createStore(file);
+                assertEquals("value1", tryReadStr(reopened, "key1"));
+                assertEquals("value2", tryReadStr(reopened, "key2"));
+                assertEquals("value3", tryReadStr(reopened, "key3"));
+            }
+        });
+    }
+
+    @Test
+    public void testRecoversFromTornWrite() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                createStore(file).write(values("key1", "value1", "key2", "value2"));
+                long sizeAfterFirstWrite = Files.size(file);
+
+                createStore(file).write(values("key1", "a much longer new value for key1"));
+
+                // Simulate a crash in the middle of writing the new value.
+                truncate(file, sizeAfterFirstWrite + 10);
+
+                SegmentFileStore store = createStore(file);
+                assertEquals("value1", tryReadStr(store, "key1"));
+                assertEquals("value2", tryReadStr(store, "key2"));
+            }
+        });
+    }
+
+    @Test
+    public void testRecoversValuesWrittenBeforeMissingIndex() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                createStore(file).write(values("key1", "value1"));
+                createStore(file).write(values("key2", "value2"));
+
+                // Cut off the trailer of the last write, so only its index is lost.
+                truncate(file, Files.size(file) - 1);
+
+                SegmentFileStore store = createStore(file);
+                assertEquals("value1", tryReadStr(store, "key1"));
+                assertEquals("value2", tryReadStr(store, "key2"));
+            }
+        });
+    }
+
+    @Test
+    public void testIgnoresFileWithInvalidHeader() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                Files.write(file, toBytes("This is not a segment file."));
+
+                SegmentFileStore store = createStore(file);
+                assertNull(store.tryRead("key1"));
+
+                store.write(values("key1", "value1"));
+                assertEquals("value1", tryReadStr(createStore(file), "key1"));
+            }
+        });
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                SegmentFileStore store = new SegmentFileStore(file, false, 1024, 0.5);
+
+                char[] longValue = new char[200];
+                Arrays.fill(longValue, 'x');
+                String valuePrefix = new String(longValue);
+
+                store.write(values("constant", "constant-value"));
+                for (int i = 0; i < 100; i++) {
+                    store.write(values("changing", valuePrefix + i));
+                }
+
+                assertTrue("File must have been compacted: " + Files.size(file), Files.size(file) < 2048);
+                assertEquals(valuePrefix + 99, tryReadStr(store, "changing"));
+                assertEquals("constant-value", tryReadStr(store, "constant"));
+
+                SegmentFileStore reopened = createStore(file);
+                assertEquals(valuePrefix + 99, tryReadStr(reopened, "changing"));
+                assertEquals("constant-value", tryReadStr(reopened, "constant"));
+
+                List<Path> remainingFiles = listDir(tempDir);
+                Collections.sort(remainingFiles);
+                assertEquals("Temporary files must be removed.",
+                        Arrays.asList(file.getFileName(), tempDir.relativize(getLockFile(file))),
+                        remainingFiles);
+            }
+        });
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentReadersAndWriter() throws Exception {
+        withTempDir(new TempDirTask() {
+            @Override
+            public void run(Path tempDir) throws Exception {
+                Path file = tempDir.resolve("store.segment");
+                final SegmentFileStore store = new SegmentFileStore(file, true, 4096, 0.5);
+
+                final int keyCount = 10;
+                final int writeCount = 200;
+                final int readerCount = 4;
+
+                final CountDownLatch startLatch = new CountDownLatch(1);
+                final AtomicReference<Throwable> failure = new AtomicReference<>(null);
+                final AtomicBoolean done = new AtomicBoolean(false);
+
+                List<Thread> threads = new ArrayList<>();
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            startLatch.await();
+                            for (int i = 0; i < writeCount; i++) {
+                                store.write(values("key" + (i % keyCount), "key" + (i % keyCount) + ":" + i));
+                            }
+                        } catch (Throwable ex) {
+                            failure.compareAndSet(null, ex);
+                        } finally {
+                            done.set(true);
+                        }
+                    }
+                }));
+
+                for (int readerIndex = 0; readerIndex < readerCount; readerIndex++) {
+                    threads.add(new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                startLatch.await();
+                                int[] lastSeen = new int[keyCount];
+                                Arrays.fill(lastSeen, -1);
+
+                                while (!done.get()) {
+                                    for (int i = 0; i < keyCount; i++) {
+                                        String value = tryReadStr(store, "key" + i);
+                                        if (value == null) {
+                                            assertEquals("Value disappeared for key" + i, -1, lastSeen[i]);
+                                            continue;
+                                        }
+
+                                        String prefix = "key" + i + ":";
+                                        assertTrue("Unexpected value: " + value, value.startsWith(prefix));
+
+                                        int version = Integer.parseInt(value.substring(prefix.length()));
+                                        assertTrue("Older value was read.", version >= lastSeen[i]);
+                                        lastSeen[i] = version;
+                                    }
+                                }
+                            } catch (Throwable ex) {
+                                failure.compareAndSet(null, ex);
+                            }
+                        }
+                    }));
+                }
+
+                for (Thread thread: threads) {
+                    thread.start();
+                }
+                startLatch.countDown();
+                for (Thread thread: threads) {
+                    thread.join();
+                }
+
+                Throwable error = failure.get();
+                if (error != null) {
+                    throw new AssertionError(error);
+                }
+
+                for (int i = 0; i < keyCount; i++) {
+                    int lastVersion = writeCount - keyCount + i;
+                    assertEquals("key" + i + ":" + lastVersion, tryReadStr(createStore(file), "key" + i));
+                }
+            }
+        });
+    }
+
+    private interface TempDirTask {
+        public void run(Path tempDir) throws Exception;
+    }
+}
@@ -0,0 +1,125 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AnchorMatcherTest {
+    @SafeVarargs
+    private static AnchorMatcher create(Collection<String>... anchorGroups) {
+        return new AnchorMatcher(Arrays.asList(anchorGroups));
+    }
+
+    private static Collection<String> anchors(String... anchors) {
+        return Arrays.asList(anchors);
+    }
+
+    private static void verifyMatches(AnchorMatcher matcher, String line, boolean... expectedMatches) {
+        assertEquals(expectedMatches.length, matcher.getGroupCount());
+
+        long[] matched = matcher.findMatchingGroups(line);
+        for (int i = 0; i < expectedMatches.length; i++) {
+            assertEquals("Group " + i + " for line: " + line, expectedMatches[i], AnchorMatcher.isMatched(matched, i));
+        }
+    }
+
+    @Test
+    public void testOverlappingAnchors() {
+        AnchorMatcher matcher = create(anchors("he"), anchors("she"), anchors("his"), anchors("hers"));
+
+        verifyMatches(matcher, "ushers", true, true, false, true);
+        verifyMatches(matcher, "this", false, false, true, false);
+        verifyMatches(matcher, "h", false, false, false, false);
+        verifyMatches(matcher, "", false, false, false, false);
+    }
+
+    @Test
+    public void testAnyAnchorOfGroupMatches() {
+        AnchorMatcher matcher = create(anchors("http://", "https://", "file://"), anchors(".java:"));
+
+        verifyMatches(matcher, "Download https://repo/lib.jar", true, false);
+        verifyMatches(matcher, "See file:///tmp/report.html", true, false);
+        verifyMatches(matcher, "\tat a.B.c(B.java:12)", false, true);
+        verifyMatches(matcher, "http://host/B.java:12", true, true);
+        verifyMatches(matcher, "http:/ https:/ .java", false, false);
+    }
+
+    @Test
+    public void testIgnoresCase() {
+        AnchorMatcher matcher = create(anchors("* Exception is:"), anchors("/Home/User/Project"));
+
+        verifyMatches(matcher, "* EXCEPTION IS:", true, false);
+        verifyMatches(matcher, "/home/user/PROJECT/src/App.java", false, true);
+    }
+
+    @Test
+    public void testBackslashMatchesSlash() {
+        AnchorMatcher matcher = create(anchors("C:/Users/Project"));
+
+        verifyMatches(matcher, "C:\\Users\\Project\\src\\App.java:3: error", true);
+        verifyMatches(matcher, "c:/users\\project", true);
+        verifyMatches(matcher, "C:\\Users\\Other", false);
+    }
+
+    @Test
+    public void testNonAsciiAnchors() {
+        AnchorMatcher matcher = create(anchors("/\u00C1rv\u00EDzt\u0171r\u0151/"), anchors("\u65E5\u672C"));
+
+        verifyMatches(matcher, "/home/\u00E1RV\u00CDZT\u0170R\u0150/App.java", true, false);
+        verifyMatches(matcher, "\u65E5\u672C\u8A9E", false, true);
+        verifyMatches(matcher, "\u65E5 \u672C", false, false);
+    }
+
+    @Test
+    public void testNullAndEmptyAnchorsMatchEveryLine() {
+        List<Collection<String>> groups = Arrays.asList(
+                null,
+                anchors(""),
+                Collections.<String>emptyList(),
+                anchors("x"));
+        AnchorMatcher matcher = new AnchorMatcher(groups);
+
+        verifyMatches(matcher, "", true, true, false, false);
+        verifyMatches(matcher, "abc", true, true, false, false);
+        verifyMatches(matcher, "xyz", true, true, false, true);
+    }
+
+    @Test
+    public void testManyGroups() {
+        Collection<String>[] groups = createGroups(100);
+        AnchorMatcher matcher = create(groups);
+
+        long[] matched = matcher.findMatchingGroups("anchor7; anchor70; anchor99;");
+        for (int i = 0; i < groups.length; i++) {
+            boolean expected = i == 7 || i == 70 || i == 99;
+            assertEquals("Group " + i, expected, AnchorMatcher.isMatched(matched, i));
+        }
+    }
+
+    @Test
+    public void testMaskIsResetBetweenLines() {
+        Collection<String>[] groups = createGroups(100);
+        AnchorMatcher matcher = create(groups);
+
+        long[] matched1 = matcher.findMatchingGroups("anchor7; anchor70;");
+        long[] matched2 = matcher.findMatchingGroups("anchor99;");
+        assertSame("The mask is reused.", matched1, matched2);
+
+        for (int i = 0; i < groups.length; i++) {
+            assertEquals("Group " + i, i == 99, AnchorMatcher.isMatched(matched2, i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<String>[] createGroups(int groupCount) {
+        Collection<String>[] result = new Collection[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            result[i] = anchors("anchor" + i + ";");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,313 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.concurrent.MonitorableTaskExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.NbTaskExecutors;
+
+import static org.junit.Assert.*;
+
+public class BatchedLineHandlerTest {
+    private MonitorableTaskExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = NbTaskExecutors.newStoppableExecutor("BatchedLineHandlerTest", 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static List<String> createLines(int lineCount) {
+        List<String> result = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            result.add("Line " + i);
+        }
+        return result;
+    }
+
+    private static void waitForLineCount(RecordingHandler handler, int lineCount) throws InterruptedException {
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (handler.getLines().size() < lineCount) {
+            assertTrue("Timeout waiting for the lines.", System.nanoTime() < endTime);
+            Thread.sleep(1);
+        }
+    }
+
+    private static Thread startWriter(
+            final BatchedLineHandler handler,
+            final List<String> lines,
+            final AtomicReference<Throwable> failure) {
+
+        Thread result = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (String line: lines) {
+                        handler.writeLine(line);
+                    }
+                } catch (Throwable ex) {
+                    failure.set(ex);
+                }
+            }
+        });
+        result.start();
+        return result;
+    }
+
+    @Test(timeout = 30000)
+    public void testLinesAreForwardedInOrder() throws IOException {
+        RecordingHandler wrapped = new RecordingHandler();
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 100, 400);
+
+        List<String> lines = createLines(10000);
+        for (String line: lines) {
+            handler.writeLine(line);
+            handler.flush();
+        }
+        handler.close();
+
+        assertEquals(lines, wrapped.getLines());
+        assertEquals(0, handler.getDroppedLineCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testLinesOfCreatedHandlersKeepTheirOrder() throws IOException {
+        List<String> allLines = Collections.synchronizedList(new ArrayList<String>());
+        RecordingHandler stdOut = new RecordingHandler(allLines);
+        RecordingHandler stdErr = new RecordingHandler(allLines);
+
+        BatchedLineHandler handler = new BatchedLineHandler(stdOut, executor, 10, 100, 400);
+        LineOutputWriter.Handler stdErrHandler = handler.createHandler(stdErr);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String line = "Line " + i;
+            if (i % 3 == 0) {
+                stdErrHandler.writeLine(line);
+            }
+            else {
+                handler.writeLine(line);
+            }
+            expected.add(line);
+        }
+        handler.close();
+
+        assertEquals(expected, allLines);
+        assertTrue(stdOut.getFlushCount() > 0);
+        assertTrue(stdErr.getFlushCount() > 0);
+    }
+
+    @Test(timeout = 30000)
+    public void testBatchesAreFlushed() throws IOException {
+        RecordingHandler wrapped = new RecordingHandler();
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10000, 100, 1000);
+
+        List<String> lines = createLines(1000);
+        for (String line: lines) {
+            handler.writeLine(line);
+            handler.flush();
+        }
+        handler.close();
+
+        int flushCount = wrapped.getFlushCount();
+        assertTrue("Flush count: " + flushCount, flushCount > 1);
+        assertTrue("Flush count: " + flushCount, flushCount < lines.size() / 2);
+    }
+
+    @Test(timeout = 30000)
+    public void testLinesAreForwardedWithoutClose() throws Exception {
+        RecordingHandler wrapped = new RecordingHandler();
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 1000, 1000);
+
+        handler.writeLine("Line 1");
+        waitForLineCount(wrapped, 1);
+        assertTrue(wrapped.getFlushCount() > 0);
+
+        handler.writeLine("Line 2");
+        waitForLineCount(wrapped, 2);
+
+        handler.close();
+        assertEquals(Arrays.asList("Line 1", "Line 2"), wrapped.getLines());
+    }
+
+    @Test(timeout = 30000)
+    public void testCloseForwardsPendingLinesImmediately() throws IOException {
+        RecordingHandler wrapped = new RecordingHandler();
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 60000, 1000, 1000);
+
+        List<String> lines = createLines(10);
+        for (String line: lines) {
+            handler.writeLine(line);
+        }
+
+        long startTime = System.nanoTime();
+        handler.close();
+        long closeTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertTrue("Close must not wait for the flush period: " + closeTimeMs + " ms", closeTimeMs < 10000);
+        assertEquals(lines, wrapped.getLines());
+        assertTrue(wrapped.getFlushCount() > 0);
+    }
+
+    @Test(timeout = 30000)
+    public void testCloseWithoutLines() throws IOException {
+        RecordingHandler wrapped = new RecordingHandler();
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 100, 100);
+
+        handler.close();
+        handler.close();
+
+        assertEquals(Collections.<String>emptyList(), wrapped.getLines());
+        assertEquals(1, wrapped.getFlushCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testLinesAfterCloseAreDropped() throws IOException {
+        RecordingHandler wrapped = new RecordingHandler();
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 100, 100);
+
+        handler.writeLine("Line 0");
+        handler.close();
+        handler.writeLine("Line 1");
+
+        assertEquals(createLines(1), wrapped.getLines());
+        assertEquals(1, handler.getDroppedLineCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testWriterIsBlockedBySlowHandler() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler wrapped = new RecordingHandler(release);
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 10, 100);
+
+        List<String> lines = createLines(1000);
+        AtomicReference<Throwable> failure = new AtomicReference<>(null);
+        Thread writer = startWriter(handler, lines, failure);
+
+        writer.join(500);
+        assertTrue("The writer must wait for the slow handler.", writer.isAlive());
+
+        release.countDown();
+        writer.join();
+        handler.close();
+
+        assertNull(failure.get());
+        assertEquals(lines, wrapped.getLines());
+        assertTrue(handler.getDelayedLineCount() > 0);
+        assertTrue(handler.getDelayNanos() > 0);
+        assertEquals(0, handler.getDroppedLineCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testCloseWhileWriterIsBlocked() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler wrapped = new RecordingHandler(release);
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 10, 100);
+
+        List<String> lines = createLines(1000);
+        AtomicReference<Throwable> failure = new AtomicReference<>(null);
+        Thread writer = startWriter(handler, lines, failure);
+
+        writer.join(500);
+        assertTrue("The writer must wait for the slow handler.", writer.isAlive());
+
+        // Cancelling the task closes the output while Gradle might still write to it.
+        release.countDown();
+        handler.close();
+        writer.join();
+
+        assertNull(failure.get());
+
+        List<String> forwarded = wrapped.getLines();
+        assertEquals(lines.subList(0, forwarded.size()), forwarded);
+        assertEquals(lines.size(), forwarded.size() + handler.getDroppedLineCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testFailingHandlerDoesNotBlockWriter() throws IOException {
+        final AtomicInteger writeCount = new AtomicInteger(0);
+        LineOutputWriter.Handler wrapped = new LineOutputWriter.Handler() {
+            @Override
+            public void writeLine(String line) throws IOException {
+                writeCount.incrementAndGet();
+                throw new IOException("Test failure");
+            }
+
+            @Override
+            public void flush() throws IOException {
+            }
+        };
+        BatchedLineHandler handler = new BatchedLineHandler(wrapped, executor, 10, 10, 100);
+
+        List<String> lines = createLines(1000);
+        for (String line: lines) {
+            handler.writeLine(line);
+        }
+        handler.close();
+
+        assertEquals(1, writeCount.get());
+        assertEquals(lines.size(), handler.getDroppedLineCount());
+    }
+
+    private static final class RecordingHandler implements LineOutputWriter.Handler {
+        private final CountDownLatch release;
+        private final List<String> lines;
+        private final AtomicInteger flushCount;
+
+        public RecordingHandler() {
+            this(new CountDownLatch(0));
+        }
+
+        public RecordingHandler(CountDownLatch release) {
+            this(release, Collections.synchronizedList(new ArrayList<String>()));
+        }
+
+        public RecordingHandler(List<String> lines) {
+            this(new CountDownLatch(0), lines);
+        }
+
+        private RecordingHandler(CountDownLatch release, List<String> lines) {
+            this.release = release;
+            this.lines = lines;
+            this.flushCount = new AtomicInteger(0);
+        }
+
+        public List<String> getLines() {
+            synchronized (lines) {
+                return new ArrayList<>(lines);
+            }
+        }
+
+        public int getFlushCount() {
+            return flushCount.get();
+        }
+
+        @Override
+        public void writeLine(String line) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+            lines.add(line);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompilerDiagnosticTest {
+    private Path tempDir;
+    private String javaFile;
+    private String groovyFile;
+    private String kotlinFile;
+    private FileExistenceCache fileCache;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("compiler-diagnostic-test");
+        javaFile = createFile("Foo.java");
+        groovyFile = createFile("build.gradle");
+        kotlinFile = createFile("Main.kt");
+        fileCache = new FileExistenceCache(10);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(tempDir.resolve("Foo.java"));
+        Files.deleteIfExists(tempDir.resolve("build.gradle"));
+        Files.deleteIfExists(tempDir.resolve("Main.kt"));
+        Files.deleteIfExists(tempDir);
+    }
+
+    private String createFile(String name) throws IOException {
+        return Files.createFile(tempDir.resolve(name)).toString();
+    }
+
+    private CompilerDiagnostic parse(String line) {
+        return CompilerDiagnostic.tryParse(line, fileCache);
+    }
+
+    private static void assertDiagnostic(
+            String line,
+            CompilerDiagnostic diagnostic,
+            String expectedPath,
+            String expectedLink,
+            int expectedLineNumber,
+            int expectedColumnNumber) {
+
+        assertNotNull("Diagnostic in line: " + line, diagnostic);
+        assertEquals(expectedPath, diagnostic.getPath());
+        assertEquals(expectedLink, line.substring(diagnostic.getStartIndex(), diagnostic.getEndIndex()));
+        assertEquals(expectedLineNumber, diagnostic.getLineNumber());
+        assertEquals(expectedColumnNumber, diagnostic.getColumnNumber());
+    }
+
+    @Test
+    public void testJavac() {
+        String line = javaFile + ":12: error: cannot find symbol";
+        assertDiagnostic(line, parse(line), javaFile, javaFile + ":12", 12, -1);
+    }
+
+    @Test
+    public void testJavacWarning() {
+        String line = javaFile + ":7: warning: [deprecation] Date(String) in Date has been deprecated";
+        assertDiagnostic(line, parse(line), javaFile, javaFile + ":7", 7, -1);
+    }
+
+    @Test
+    public void testLineAndColumn() {
+        String line = javaFile + ":12:17: error: ';' expected";
+        assertDiagnostic(line, parse(line), javaFile, javaFile + ":12:17", 12, 17);
+    }
+
+    @Test
+    public void testGroovyc() {
+        String line = groovyFile + ": 3: unable to resolve class Foo";
+        assertDiagnostic(line, parse(line), groovyFile, groovyFile + ": 3", 3, -1);
+    }
+
+    @Test
+    public void testGroovycIndented() {
+        String line = "  " + groovyFile + ": 25: expecting '}', found '' @ line 25, column 1.";
+        assertDiagnostic(line, parse(line), groovyFile, groovyFile + ": 25", 25, -1);
+    }
+
+    @Test
+    public void testKotlincParenthesized() {
+        String line = "e: " + kotlinFile + ": (12, 5): Unresolved reference: bar";
+        assertDiagnostic(line, parse(line), kotlinFile, kotlinFile + ": (12, 5)", 12, 5);
+    }
+
+    @Test
+    public void testKotlincWarning() {
+        String line = "w: " + kotlinFile + ": (3, 9): Variable 'x' is never used";
+        assertDiagnostic(line, parse(line), kotlinFile, kotlinFile + ": (3, 9)", 3, 9);
+    }
+
+    @Test
+    public void testKotlincFileUrl() {
+        String line = "e: file://" + kotlinFile + ":12:5 Unresolved reference: bar";
+        assertDiagnostic(line, parse(line), kotlinFile, kotlinFile + ":12:5", 12, 5);
+    }
+
+    @Test
+    public void testPathWithoutLineNumber() {
+        String line = javaFile + ": warning: Some input files use unchecked or unsafe operations.";
+        assertDiagnostic(line, parse(line), javaFile, javaFile, -1, -1);
+    }
+
+    @Test
+    public void testPathAtEndOfLine() {
+        String line = javaFile + ":";
+        assertDiagnostic(line, parse(line), javaFile, javaFile, -1, -1);
+    }
+
+    @Test
+    public void testMalformedParenthesizedLocation() {
+        String line = "e: " + kotlinFile + ": (12 5): Unresolved reference: bar";
+        assertDiagnostic(line, parse(line), kotlinFile, kotlinFile, -1, -1);
+    }
+
+    @Test
+    public void testTooLongLineNumber() {
+        String line = javaFile + ":12345678901: error: cannot find symbol";
+        assertDiagnostic(line, parse(line), javaFile, javaFile, -1, -1);
+    }
+
+    @Test
+    public void testMissingFile() {
+        assertNull(parse(tempDir.resolve("Missing.java") + ":12: error: cannot find symbol"));
+    }
+
+    @Test
+    public void testDirectoryIsNotFile() {
+        assertNull(parse(tempDir + ":12: error: cannot find symbol"));
+    }
+
+    @Test
+    public void testLinesWithoutPath() {
+        assertNull(parse("  symbol:   class Bar"));
+        assertNull(parse("  location: class Foo"));
+        assertNull(parse("1 error"));
+        assertNull(parse("FAILURE: Build failed with an exception."));
+        assertNull(parse("* What went wrong:"));
+        assertNull(parse("Execution failed for task ':compileJava'."));
+        assertNull(parse("e: "));
+        assertNull(parse(""));
+    }
+}
@@ -0,0 +1,53 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FileExistenceCacheTest {
+    @Test
+    public void testRemembersResult() throws IOException {
+        Path file = Files.createTempFile("nb-file-cache-test", ".txt");
+        Path dir = Files.createTempDirectory("nb-file-cache-test");
+        try {
+            FileExistenceCache cache = new FileExistenceCache(10);
+
+            assertTrue(cache.isFile(file.toString()));
+            assertFalse(cache.isFile(dir.toString()));
+
+            Files.delete(file);
+            assertTrue("Cached result", cache.isFile(file.toString()));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testForgetsLeastRecentlyUsed() throws IOException {
+        Path file1 = Files.createTempFile("nb-file-cache-test", ".txt");
+        Path file2 = Files.createTempFile("nb-file-cache-test", ".txt");
+        Path file3 = Files.createTempFile("nb-file-cache-test", ".txt");
+        try {
+            FileExistenceCache cache = new FileExistenceCache(2);
+
+            assertTrue(cache.isFile(file1.toString()));
+            assertTrue(cache.isFile(file2.toString()));
+            assertTrue(cache.isFile(file1.toString()));
+            assertTrue(cache.isFile(file3.toString()));
+
+            Files.delete(file1);
+            Files.delete(file2);
+
+            assertTrue("Recently used file must be cached.", cache.isFile(file1.toString()));
+            assertFalse("Least recently used file must be removed.", cache.isFile(file2.toString()));
+        } finally {
+            Files.deleteIfExists(file1);
+            Files.deleteIfExists(file2);
+            Files.deleteIfExists(file3);
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -170,13 +177,141 @@ public class IOTabMaintainerTest {
         assertEquals("tab1 #2", tabRef2.getTab().caption);
     }
 
+    @Test
+    public void testLowestIndexIsUsedInAnyCloseOrder() throws IOException {
+        IOTabMaintainer<Integer, Tab> maintainer = create();
+
+        int tabCount = 10;
+        List<IOTabRef<Tab>> tabRefs = new ArrayList<>();
+        for (int i = 0; i < tabCount; i++) {
+            tabRefs.add(maintainer.getTab(1, "tab1"));
+        }
+
+        Collections.shuffle(tabRefs, new Random(5));
+        for (IOTabRef<Tab> tabRef: tabRefs) {
+            tabRef.close();
+        }
+
+        for (int i = 0; i < tabCount; i++) {
+            String expectedCaption = i == 0 ? "tab1" : "tab1 #" + (i + 1);
+            assertEquals(expectedCaption, maintainer.getTab(1, "XXX").getTab().caption);
+        }
+    }
+
+    @Test
+    public void testDestroyedTabIsSkippedForLowerIndex() throws IOException {
+        IOTabMaintainer<Integer, Tab> maintainer = create();
+
+        IOTabRef<Tab> tabRef1 = maintainer.getTab(1, "tab1");
+        IOTabRef<Tab> tabRef2 = maintainer.getTab(1, "tab1");
+        IOTabRef<Tab> tabRef3 = maintainer.getTab(1, "tab1");
+
+        tabRef1.close();
+        tabRef2.close();
+        tabRef3.close();
+
+        tabRef1.getTab().destroy();
+
+        assertSame(tabRef2.getTab(), maintainer.getTab(1, "XXX").getTab());
+        assertSame(tabRef3.getTab(), maintainer.getTab(1, "XXX").getTab());
+    }
+
+    @Test
+    public void testDestroyedTabsAreRemovedIncrementally() throws IOException {
+        IOTabMaintainer<Integer, Tab> maintainer = create();
+
+        int tabCount = 20;
+        List<IOTabRef<Tab>> tabRefs = new ArrayList<>();
+        for (int i = 0; i < tabCount; i++) {
+            tabRefs.add(maintainer.getTab(i, "tab" + i));
+        }
+        for (IOTabRef<Tab> tabRef: tabRefs) {
+            tabRef.close();
+            tabRef.getTab().destroy();
+        }
+        assertEquals(tabCount, maintainer.getAvailableTabCount());
+
+        int requestCount = 0;
+        while (maintainer.getAvailableTabCount() > 0) {
+            int prevCount = maintainer.getAvailableTabCount();
+
+            maintainer.getTab(-1, "other");
+            requestCount++;
+
+            assertTrue("Each request must remove some destroyed tabs.",
+                    maintainer.getAvailableTabCount() < prevCount);
+            assertTrue("Each request must only check a few tabs.",
+                    maintainer.getAvailableTabCount() >= tabCount - 4 * requestCount);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentRequestsNeverShareTabs() throws Exception {
+        final IOTabMaintainer<Integer, Tab> maintainer = create();
+
+        final int threadCount = 8;
+        final int requestCount = 2000;
+        final int keyCount = 4;
+        final AtomicReference<Throwable> failure = new AtomicReference<>(null);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            final Random random = new Random(i);
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < requestCount; j++) {
+                            int key = random.nextInt(keyCount);
+                            try (IOTabRef<Tab> tabRef = maintainer.getTab(key, "tab" + key)) {
+                                Tab tab = tabRef.getTab();
+                                assertTrue("Tab caption: " + tab.caption, tab.caption.startsWith("tab" + key));
+                                assertEquals("Users of " + tab, 1, tab.users.incrementAndGet());
+
+                                Thread.yield();
+
+                                tab.users.decrementAndGet();
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread: threads) {
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new AssertionError(error);
+        }
+
+        int availableCount = maintainer.getAvailableTabCount();
+        assertTrue("Available tabs: " + availableCount, availableCount <= threadCount * keyCount);
+
+        for (int key = 0; key < keyCount; key++) {
+            assertEquals("tab" + key, maintainer.getTab(key, "XXX").getTab().caption);
+        }
+    }
+
     private static final class Tab implements IOTabDef {
         public final String caption;
+        public final AtomicInteger users;
         private volatile boolean destroyed;
         private volatile boolean closed;
 
         public Tab(String caption) {
             this.caption = caption;
+            this.users = new AtomicInteger(0);
             this.destroyed = false;
             this.closed = false;
         }
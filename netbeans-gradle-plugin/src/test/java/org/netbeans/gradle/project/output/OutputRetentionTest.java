@@ -0,0 +1,259 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+
+public class OutputRetentionTest {
+    private static SmartOutputHandler createHandler(
+            OutputWriter output,
+            OutputRetention retention,
+            SmartOutputHandler.Consumer... consumers) {
+
+        SmartOutputHandler.Builder builder = new SmartOutputHandler.Builder(
+                InputOutput.NULL,
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                Arrays.asList(consumers));
+        builder.setRetention(retention);
+        return builder.create();
+    }
+
+    private static List<String> readLines(OutputSpool spool) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(spool.openReader())) {
+            String line = reader.readLine();
+            while (line != null) {
+                result.add(line);
+                line = reader.readLine();
+            }
+        }
+        return result;
+    }
+
+    private static List<String> lineRange(String prefix, int startIndex, int endIndex) {
+        List<String> result = new ArrayList<>();
+        for (int i = startIndex; i < endIndex; i++) {
+            result.add(prefix + i);
+        }
+        return result;
+    }
+
+    @Test
+    public void testKeepsEveryLineBelowLimit() throws IOException {
+        Path file = Files.createTempFile("nb-output-retention-test", ".log.gz");
+        try {
+            TabOutputWriter tab = new TabOutputWriter();
+            FileSpoolFactory spoolFactory = new FileSpoolFactory(file);
+            try (OutputRetention retention = new OutputRetention(tab, spoolFactory, 10)) {
+                SmartOutputHandler handler = createHandler(tab, retention);
+                for (String line: lineRange("Line ", 0, 10)) {
+                    handler.writeLine(line);
+                }
+            }
+
+            assertEquals(0, tab.getResetCount());
+            assertEquals(lineRange("Line ", 0, 10), tab.getLines());
+            assertNull("No spool is needed below the limit.", spoolFactory.getSpool());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testTruncatesAndKeepsRecentLines() throws IOException {
+        Path file = Files.createTempFile("nb-output-retention-test", ".log.gz");
+        try {
+            TabOutputWriter tab = new TabOutputWriter();
+            FileSpoolFactory spoolFactory = new FileSpoolFactory(file);
+            try (OutputRetention retention = new OutputRetention(tab, spoolFactory, 10)) {
+                SmartOutputHandler handler = createHandler(tab, retention);
+                for (String line: lineRange("Line ", 0, 11)) {
+                    handler.writeLine(line);
+                }
+
+                assertEquals(1, tab.getResetCount());
+
+                List<String> lines = tab.getLines();
+                assertEquals(7, lines.size());
+                assertTrue("Truncation marker", lines.get(0).contains("5"));
+                assertEquals(lineRange("Line ", 5, 11), lines.subList(1, lines.size()));
+                assertEquals(1, tab.getListeners().size());
+
+                assertEquals(lineRange("Line ", 0, 11), readLines(spoolFactory.getSpool()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSpoolsEveryLineOfBothStreams() throws IOException {
+        Path file = Files.createTempFile("nb-output-retention-test", ".log.gz");
+        try {
+            TabOutputWriter tab = new TabOutputWriter();
+            FileSpoolFactory spoolFactory = new FileSpoolFactory(file);
+            try (OutputRetention retention = new OutputRetention(tab, spoolFactory, 4)) {
+                SmartOutputHandler stdOut = createHandler(tab, retention);
+                SmartOutputHandler stdErr = createHandler(tab, retention);
+
+                List<String> expectedLines = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    String line = "Line " + i;
+                    expectedLines.add(line);
+
+                    SmartOutputHandler handler = i % 3 == 0 ? stdErr : stdOut;
+                    handler.writeLine(line);
+
+                    assertTrue("Lines in the tab: " + tab.getLines(), tab.getLines().size() <= 4);
+                    assertEquals(line, tab.getLines().get(tab.getLines().size() - 1));
+                }
+
+                assertEquals(expectedLines, readLines(spoolFactory.getSpool()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReprintsLinesWithTheSameConsumer() throws IOException {
+        Path file = Files.createTempFile("nb-output-retention-test", ".log.gz");
+        try {
+            TabOutputWriter tab = new TabOutputWriter();
+            try (OutputRetention retention = new OutputRetention(tab, new FileSpoolFactory(file), 6)) {
+                SmartOutputHandler handler = createHandler(tab, retention, new LinkConsumer());
+                handler.writeLine("Line 0");
+                handler.writeLine("Line 1");
+                handler.writeLine("Line 2");
+                handler.writeLine("link 3");
+                handler.writeLine("Line 4");
+                handler.writeLine("link 5");
+                handler.writeLine("Line 6");
+            }
+
+            List<String> lines = tab.getLines();
+            assertEquals(Arrays.asList("[link 3]", "Line 4", "[link 5]", "Line 6"), lines.subList(1, lines.size()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testKeepsSpoolUntilMarkerIsCleared() throws IOException {
+        Path file = Files.createTempFile("nb-output-retention-test", ".log.gz");
+        try {
+            TabOutputWriter tab = new TabOutputWriter();
+            try (OutputRetention retention = new OutputRetention(tab, new FileSpoolFactory(file), 2)) {
+                SmartOutputHandler handler = createHandler(tab, retention);
+                handler.writeLine("Line 0");
+                handler.writeLine("Line 1");
+                handler.writeLine("Line 2");
+            }
+
+            assertTrue("The truncation marker still refers to the spool.", Files.exists(file));
+
+            for (OutputListener listener: tab.getListeners()) {
+                listener.outputLineCleared(null);
+            }
+            assertFalse(Files.exists(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static final class FileSpoolFactory implements OutputRetention.SpoolFactory {
+        private final Path file;
+        private OutputSpool spool;
+
+        public FileSpoolFactory(Path file) {
+            this.file = file;
+            this.spool = null;
+        }
+
+        public OutputSpool getSpool() {
+            return spool;
+        }
+
+        @Override
+        public OutputSpool createSpool() throws IOException {
+            assertNull("The spool must only be created once.", spool);
+            spool = new OutputSpool(file);
+            return spool;
+        }
+    }
+
+    private static final class LinkConsumer implements SmartOutputHandler.Consumer {
+        @Override
+        public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException {
+            if (!line.startsWith("link")) {
+                return false;
+            }
+
+            output.println("[" + line + "]");
+            return true;
+        }
+    }
+
+    private static final class TabOutputWriter extends OutputWriter {
+        private final StringWriter content;
+        private final List<OutputListener> listeners;
+        private int resetCount;
+
+        public TabOutputWriter() {
+            this(new StringWriter());
+        }
+
+        private TabOutputWriter(StringWriter content) {
+            super(content);
+            this.content = content;
+            this.listeners = new ArrayList<>();
+            this.resetCount = 0;
+        }
+
+        public List<String> getLines() {
+            flush();
+            String[] lines = content.toString().split("\r?\n", -1);
+            return Arrays.asList(lines).subList(0, lines.length - 1);
+        }
+
+        public List<OutputListener> getListeners() {
+            return listeners;
+        }
+
+        public int getResetCount() {
+            return resetCount;
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+            listeners.add(l);
+            println(s);
+        }
+
+        @Override
+        public void reset() throws IOException {
+            flush();
+            content.getBuffer().setLength(0);
+
+            for (OutputListener listener: listeners) {
+                listener.outputLineCleared(null);
+            }
+            listeners.clear();
+            resetCount++;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OutputSpoolTest {
+    private static Path createSpoolFile() throws IOException {
+        return Files.createTempFile("nb-output-spool-test", ".log.gz");
+    }
+
+    private static List<String> readLines(OutputSpool spool) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(spool.openReader())) {
+            String line = reader.readLine();
+            while (line != null) {
+                result.add(line);
+                line = reader.readLine();
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testReadsAppendedLines() throws IOException {
+        Path file = createSpoolFile();
+        try {
+            OutputSpool spool = new OutputSpool(file);
+            List<String> lines = Arrays.asList(
+                    "Executing: gradle build",
+                    "",
+                    "\u00E1rv\u00EDzt\u0171r\u0151 \u65E5\u672C\u8A9E \uD83D\uDE00",
+                    ":compileJava UP-TO-DATE");
+            for (String line: lines) {
+                spool.appendLine(line);
+            }
+
+            assertEquals(lines.size(), spool.getLineCount());
+            assertEquals(lines, readLines(spool));
+            spool.release();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReadsEmptySpool() throws IOException {
+        Path file = createSpoolFile();
+        try {
+            OutputSpool spool = new OutputSpool(file);
+            assertEquals(Collections.emptyList(), readLines(spool));
+            spool.release();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testAppendsWhileReading() throws IOException {
+        Path file = createSpoolFile();
+        try {
+            OutputSpool spool = new OutputSpool(file);
+            List<String> expectedLines = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                String line = "Line " + i;
+                spool.appendLine(line);
+                expectedLines.add(line);
+
+                if (i % 2500 == 0) {
+                    assertEquals(expectedLines, readLines(spool));
+                }
+            }
+
+            try (Reader reader = spool.openReader()) {
+                spool.appendLine("Appended after opening the reader");
+
+                BufferedReader lineReader = new BufferedReader(reader);
+                for (String expectedLine: expectedLines) {
+                    assertEquals(expectedLine, lineReader.readLine());
+                }
+                assertNull(lineReader.readLine());
+            }
+
+            expectedLines.add("Appended after opening the reader");
+            assertEquals(expectedLines, readLines(spool));
+            spool.release();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testDeletesFileAfterLastRelease() throws IOException {
+        Path file = createSpoolFile();
+        try {
+            OutputSpool spool = new OutputSpool(file);
+            spool.appendLine("Line");
+
+            spool.retain();
+            spool.release();
+            assertTrue(Files.exists(file));
+            assertEquals(Arrays.asList("Line"), readLines(spool));
+
+            spool.release();
+            assertFalse(Files.exists(file));
+
+            // Extra calls must not fail.
+            spool.release();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testAppendAfterReleaseFails() throws IOException {
+        Path file = createSpoolFile();
+        try {
+            OutputSpool spool = new OutputSpool(file);
+            spool.release();
+            spool.appendLine("Line");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class OutputUrlConsumerTest {
+    private static final String CORPUS_SEPARATOR = " => ";
+
+    private static List<String[]> readCorpus() throws IOException {
+        String resourcePath = OutputUrlConsumerTest.class.getPackage().getName().replace('.', '/') + "/url-corpus.txt";
+        InputStream input = OutputUrlConsumerTest.class.getClassLoader().getResourceAsStream(resourcePath);
+        if (input == null) {
+            throw new IOException("Missing resource: " + resourcePath);
+        }
+
+        List<String[]> result = new ArrayList<>();
+        try (Reader reader = new InputStreamReader(input, StringUtils.UTF8)) {
+            LineNumberReader lineReader = new LineNumberReader(reader);
+            String line = lineReader.readLine();
+            while (line != null) {
+                if (!line.startsWith("#")) {
+                    int separatorIndex = line.indexOf(CORPUS_SEPARATOR);
+                    if (separatorIndex < 0) {
+                        throw new IOException("Invalid corpus line " + lineReader.getLineNumber() + ": " + line);
+                    }
+
+                    String outputLine = line.substring(0, separatorIndex).replace("\\t", "\t");
+                    String expectedUrl = line.substring(separatorIndex + CORPUS_SEPARATOR.length());
+                    result.add(new String[]{outputLine, expectedUrl});
+                }
+                line = lineReader.readLine();
+            }
+        }
+        return result;
+    }
+
+    private static String findUrl(String line) {
+        OutputLinkDef link = new OutputUrlConsumer().tryFindLink(line);
+        if (link == null) {
+            return "";
+        }
+
+        assertNotNull(link.getAction());
+        return line.substring(link.getStartIndex(), link.getEndIndex());
+    }
+
+    @Test
+    public void testCorpus() throws IOException {
+        List<String[]> corpus = readCorpus();
+        assertFalse("Corpus must not be empty.", corpus.isEmpty());
+
+        for (String[] entry: corpus) {
+            String outputLine = entry[0];
+            String expectedUrl = entry[1];
+            assertEquals("URL in line: " + outputLine, expectedUrl, findUrl(outputLine));
+        }
+    }
+
+    @Test
+    public void testLinkRangeIsInLine() {
+        String line = "Open (http://example.org/a_(b)), then continue";
+        OutputLinkDef link = new OutputUrlConsumer().tryFindLink(line);
+
+        assertNotNull(link);
+        assertEquals(line.indexOf("http"), link.getStartIndex());
+        assertEquals(line.indexOf("),"), link.getEndIndex());
+    }
+
+    @Test
+    public void testLongLineWithoutUrl() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            line.append("http:/ :// ");
+        }
+        assertEquals("", findUrl(line.toString()));
+    }
+}
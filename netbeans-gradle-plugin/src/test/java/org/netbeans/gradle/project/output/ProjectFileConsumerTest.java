@@ -0,0 +1,74 @@
+package org.netbeans.gradle.project.output;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProjectFileConsumerTest {
+    private static final String UNIX_PROJECT_PATH = "/home/user/Projects/MyApp";
+    private static final String WINDOWS_PROJECT_PATH = "C:/Users/User/Projects/MyApp";
+
+    @Test
+    public void testUnixPathFound() {
+        String line = "/home/user/Projects/MyApp/src/main/java/App.java:12: error: cannot find symbol";
+        assertEquals(0, ProjectFileConsumer.indexOfPath(line, UNIX_PROJECT_PATH, '/'));
+    }
+
+    @Test
+    public void testUnixPathFoundAfterPrefix() {
+        String line = "[ant:javac] /home/user/Projects/MyApp/src/App.java:3: warning";
+        assertEquals(12, ProjectFileConsumer.indexOfPath(line, UNIX_PROJECT_PATH, '/'));
+    }
+
+    @Test
+    public void testUnixPathIgnoresCase() {
+        String line = "Compiling /HOME/USER/projects/myapp/src/App.java";
+        assertEquals(10, ProjectFileConsumer.indexOfPath(line, UNIX_PROJECT_PATH, '/'));
+    }
+
+    @Test
+    public void testUnixPathNotFound() {
+        assertEquals(-1, ProjectFileConsumer.indexOfPath("BUILD SUCCESSFUL", UNIX_PROJECT_PATH, '/'));
+        assertEquals(-1, ProjectFileConsumer.indexOfPath("/home/user/Projects/MyAp", UNIX_PROJECT_PATH, '/'));
+        assertEquals(-1, ProjectFileConsumer.indexOfPath("/home/user/Projects/Other/App.java", UNIX_PROJECT_PATH, '/'));
+        assertEquals(-1, ProjectFileConsumer.indexOfPath("", UNIX_PROJECT_PATH, '/'));
+    }
+
+    @Test
+    public void testUnixPathDoesNotMatchBackslash() {
+        String line = "\\home\\user\\Projects\\MyApp\\src\\App.java";
+        assertEquals(-1, ProjectFileConsumer.indexOfPath(line, UNIX_PROJECT_PATH, '/'));
+    }
+
+    @Test
+    public void testWindowsPathFound() {
+        String line = "C:\\Users\\User\\Projects\\MyApp\\src\\main\\java\\App.java:12: error: cannot find symbol";
+        assertEquals(0, ProjectFileConsumer.indexOfPath(line, WINDOWS_PROJECT_PATH, '\\'));
+    }
+
+    @Test
+    public void testWindowsPathIgnoresCase() {
+        String line = "Compiling c:\\users\\USER\\projects\\MYAPP\\src\\App.java";
+        assertEquals(10, ProjectFileConsumer.indexOfPath(line, WINDOWS_PROJECT_PATH, '\\'));
+    }
+
+    @Test
+    public void testWindowsPathWithMixedSeparators() {
+        String line = "file: C:/Users/User\\Projects/MyApp\\build.gradle";
+        assertEquals(6, ProjectFileConsumer.indexOfPath(line, WINDOWS_PROJECT_PATH, '\\'));
+    }
+
+    @Test
+    public void testWindowsPathNotFound() {
+        String line = "D:\\Users\\User\\Projects\\MyApp\\src\\App.java";
+        assertEquals(-1, ProjectFileConsumer.indexOfPath(line, WINDOWS_PROJECT_PATH, '\\'));
+    }
+
+    @Test
+    public void testLastIndexOfSeparator() {
+        assertEquals(6, ProjectFileConsumer.lastIndexOfSeparator("/a/b/c/App.java", '/'));
+        assertEquals(8, ProjectFileConsumer.lastIndexOfSeparator("C:\\a\\b/c\\App.java", '\\'));
+        assertEquals(-1, ProjectFileConsumer.lastIndexOfSeparator("C:\\a\\App.java", '/'));
+        assertEquals(-1, ProjectFileConsumer.lastIndexOfSeparator("App.java", '\\'));
+    }
+}
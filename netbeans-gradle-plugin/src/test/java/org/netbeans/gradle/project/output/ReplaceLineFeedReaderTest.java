@@ -1,8 +1,10 @@
 package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Random;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -13,8 +15,10 @@ public class ReplaceLineFeedReaderTest {
     }
 
     private static String readString(String text, String lineSeparator, int bufferOffset, int... bufferLengths) throws IOException {
-        ReplaceLineFeedReader reader = newCrLFReader(text, lineSeparator);
+        return readString(newCrLFReader(text, lineSeparator), text, bufferOffset, bufferLengths);
+    }
 
+    private static String readString(Reader reader, String text, int bufferOffset, int... bufferLengths) throws IOException {
         StringWriter result = new StringWriter(2 * text.length());
 
         int bufferIndex = 0;
@@ -89,4 +93,127 @@ public class ReplaceLineFeedReaderTest {
         String output = readString(text, lineSeparator, 0, 1);
         assertEquals("\r\nFirst Line\r\nSecond Line\r\nThird Line\r\n", output);
     }
+
+    private static String replaceLf(String text, String lineSeparator) {
+        StringBuilder result = new StringBuilder();
+        char prevChar = '\0';
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\n' && prevChar != '\r') {
+                result.append(lineSeparator);
+            }
+            else {
+                result.append(ch);
+            }
+            prevChar = ch;
+        }
+        return result.toString();
+    }
+
+    private static void testReadWithSmallBuffers(String text, String lineSeparator) throws IOException {
+        String expected = replaceLf(text, lineSeparator);
+        for (int srcReadLength = 1; srcReadLength <= 3; srcReadLength++) {
+            for (int bufferSize = 1; bufferSize <= 4; bufferSize++) {
+                for (int readLength = 1; readLength <= 4; readLength++) {
+                    Reader src = new ChunkedReader(text, srcReadLength);
+                    Reader reader = new ReplaceLineFeedReader(src, lineSeparator, bufferSize);
+                    String output = readString(reader, text, 0, readLength);
+                    assertEquals("srcReadLength=" + srcReadLength + ", bufferSize=" + bufferSize + ", readLength=" + readLength,
+                            expected, output);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSeparatorAcrossBufferBoundaries() throws Exception {
+        testReadWithSmallBuffers("a\nb\n\nc\n", "\r\n");
+        testReadWithSmallBuffers("a\nb\n\nc\n", "\r");
+    }
+
+    @Test
+    public void testLongSeparatorAcrossBufferBoundaries() throws Exception {
+        testReadWithSmallBuffers("\nab\n\nc", "<line-end>");
+    }
+
+    @Test
+    public void testCrLfAcrossBufferBoundaries() throws Exception {
+        testReadWithSmallBuffers("a\r\nb\r\r\n\n\r\nc\r", "\r\n");
+        testReadWithSmallBuffers("\r\n\n\r\n", "\r");
+    }
+
+    @Test
+    public void testZeroLengthRead() throws Exception {
+        ReplaceLineFeedReader reader = newCrLFReader("a\n", "\r\n");
+        char[] buffer = new char[4];
+
+        assertEquals(0, reader.read(buffer, 0, 0));
+        assertEquals(3, reader.read(buffer, 0, 4));
+        assertEquals("a\r\n", new String(buffer, 0, 3));
+        assertEquals(0, reader.read(buffer, 4, 0));
+        assertEquals(-1, reader.read(buffer, 0, 4));
+    }
+
+    @Test
+    public void testRestOfSeparatorIsReturnedWithoutReadingSource() throws Exception {
+        ChunkedReader src = new ChunkedReader("\n", 1);
+        ReplaceLineFeedReader reader = new ReplaceLineFeedReader(src, "\r\n");
+
+        assertEquals('\r', reader.read());
+        assertEquals(1, src.getReadCount());
+
+        assertEquals('\n', reader.read());
+        assertEquals(1, src.getReadCount());
+
+        assertEquals(-1, reader.read());
+    }
+
+    @Test
+    public void testLargeInput() throws Exception {
+        Random random = new Random(56);
+        StringBuilder text = new StringBuilder();
+        String chars = "abc\r\n\n\n";
+        while (text.length() < 3 * 1024 * 1024) {
+            text.append(chars.charAt(random.nextInt(chars.length())));
+        }
+
+        String textStr = text.toString();
+        String output = readString(textStr, "\r\n", 3, 1, 8191, 8192, 8193, 100000);
+        assertEquals(replaceLf(textStr, "\r\n"), output);
+    }
+
+    private static final class ChunkedReader extends Reader {
+        private final String text;
+        private final int maxReadLength;
+        private int offset;
+        private int readCount;
+
+        public ChunkedReader(String text, int maxReadLength) {
+            this.text = text;
+            this.maxReadLength = maxReadLength;
+            this.offset = 0;
+            this.readCount = 0;
+        }
+
+        public int getReadCount() {
+            return readCount;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            readCount++;
+            if (offset >= text.length()) {
+                return -1;
+            }
+
+            int length = Math.min(Math.min(len, maxReadLength), text.length() - offset);
+            text.getChars(offset, offset + length, cbuf, off);
+            offset += length;
+            return length;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
 }
@@ -0,0 +1,423 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Assume;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+
+public class SmartOutputHandlerTest {
+    private static final String PROJECT_PATH = "/home/user/project";
+
+    private static List<String> readBuildLog() throws IOException {
+        String resourcePath = SmartOutputHandlerTest.class.getPackage().getName().replace('.', '/') + "/build-log.txt";
+        InputStream input = SmartOutputHandlerTest.class.getClassLoader().getResourceAsStream(resourcePath);
+        if (input == null) {
+            throw new IOException("Missing resource: " + resourcePath);
+        }
+
+        List<String> result = new ArrayList<>();
+        try (Reader reader = new InputStreamReader(input, StringUtils.UTF8)) {
+            LineNumberReader lineReader = new LineNumberReader(reader);
+            String line = lineReader.readLine();
+            while (line != null) {
+                result.add(line);
+                line = lineReader.readLine();
+            }
+        }
+        return result;
+    }
+
+    private static List<RecordingFinder> createFinders(boolean anchored) {
+        return Arrays.asList(
+                new RecordingFinder(new PatternFinder(".java:", "(?:\\[catch\\])?\\sat (.*)\\((.*)\\.java\\:(\\d+)\\)"), anchored),
+                new RecordingFinder(new OutputUrlConsumer(), anchored),
+                new RecordingFinder(new ProjectPathFinder(PROJECT_PATH), anchored),
+                new RecordingFinder(new PatternFinder(":", "^(.+\\.java):(\\d+)"), anchored));
+    }
+
+    private static List<String> processBuildLog(List<RecordingFinder> finders, StringWriter plainOutput) throws IOException {
+        List<SmartOutputHandler.Consumer> consumers = Arrays.<SmartOutputHandler.Consumer>asList(
+                new BuildErrorConsumer(),
+                new OutputLinkPrinter(finders.toArray(new OutputLinkFinder[finders.size()])));
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                InputOutput.NULL,
+                new TestOutputWriter(plainOutput),
+                Collections.<TaskOutputProcessor>emptyList(),
+                consumers);
+
+        for (String line: readBuildLog()) {
+            handler.writeLine(line);
+        }
+        handler.flush();
+
+        List<String> links = new ArrayList<>();
+        for (RecordingFinder finder: finders) {
+            links.addAll(finder.getFoundLinks());
+        }
+        return links;
+    }
+
+    @Test
+    public void testAnchorsDoNotChangeTheFoundLinks() throws IOException {
+        StringWriter expectedOutput = new StringWriter();
+        List<String> expectedLinks = processBuildLog(createFinders(false), expectedOutput);
+
+        StringWriter actualOutput = new StringWriter();
+        List<String> actualLinks = processBuildLog(createFinders(true), actualOutput);
+
+        assertFalse("The build log must contain links.", expectedLinks.isEmpty());
+        assertEquals(expectedLinks, actualLinks);
+        assertEquals(expectedOutput.toString(), actualOutput.toString());
+    }
+
+    @Test
+    public void testConsumerIsOnlyCalledForLinesWithAnchors() throws IOException {
+        CountingConsumer anchoredConsumer = new CountingConsumer(Arrays.asList("http://", "https://"));
+        CountingConsumer unanchoredConsumer = new CountingConsumer(null);
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                InputOutput.NULL,
+                new TestOutputWriter(new StringWriter()),
+                Collections.<TaskOutputProcessor>emptyList(),
+                Arrays.<SmartOutputHandler.Consumer>asList(anchoredConsumer, unanchoredConsumer));
+
+        handler.writeLine("BUILD SUCCESSFUL");
+        handler.writeLine("Download HTTPS://repo/lib.jar");
+        handler.writeLine("See http://example.org");
+        handler.writeLine("Total time: 1 secs");
+
+        assertEquals(Arrays.asList("Download HTTPS://repo/lib.jar", "See http://example.org"),
+                anchoredConsumer.getLines());
+        assertEquals(4, unanchoredConsumer.getLines().size());
+    }
+
+    @Test
+    public void testVisitorIsOnlyCalledForLinesWithAnchors() throws IOException {
+        CountingProcessor anchoredVisitor = new CountingProcessor(Collections.singleton("dt_socket"));
+        CountingProcessor unanchoredVisitor = new CountingProcessor(null);
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                InputOutput.NULL,
+                new TestOutputWriter(new StringWriter()),
+                Arrays.<TaskOutputProcessor>asList(anchoredVisitor, unanchoredVisitor),
+                Collections.<SmartOutputHandler.Consumer>emptyList());
+
+        handler.writeLine(":run");
+        handler.writeLine("Listening for transport DT_SOCKET at address: 5005");
+        handler.writeLine("BUILD SUCCESSFUL");
+
+        assertEquals(Collections.singletonList("Listening for transport DT_SOCKET at address: 5005"),
+                anchoredVisitor.getLines());
+        assertEquals(3, unanchoredVisitor.getLines().size());
+    }
+
+    private static OutputStatistics.Counter getCounter(OutputStatistics statistics, String name) {
+        for (OutputStatistics.Counter counter: statistics.getCounters()) {
+            if (counter.getName().equals(name)) {
+                return counter;
+            }
+        }
+        throw new AssertionError("Missing counter: " + name + " in " + statistics.getCounters());
+    }
+
+    @Test
+    public void testStatisticsCountInvocationsAndMatches() throws IOException {
+        OutputStatistics statistics = new OutputStatistics("testStatisticsCountInvocationsAndMatches");
+        CountingConsumer anchoredConsumer = new CountingConsumer(Arrays.asList("http://", "https://"));
+
+        SmartOutputHandler.Builder builder = new SmartOutputHandler.Builder(
+                InputOutput.NULL,
+                new TestOutputWriter(new StringWriter()),
+                Arrays.<TaskOutputProcessor>asList(new NoOpProcessor()),
+                Arrays.<SmartOutputHandler.Consumer>asList(
+                        anchoredConsumer,
+                        new OutputLinkPrinter(statistics, new OutputUrlConsumer())));
+        builder.setStatistics(statistics);
+        SmartOutputHandler handler = builder.create();
+
+        handler.writeLine("BUILD SUCCESSFUL");
+        handler.writeLine("Download HTTPS://repo/lib.jar");
+        handler.writeLine("See http://example.org");
+        handler.writeLine("Total time: 1 secs");
+
+        OutputStatistics.Counter processorCounter = getCounter(statistics, "processor: NoOpProcessor");
+        assertEquals(4, processorCounter.getInvocationCount());
+        assertEquals(0, processorCounter.getMatchCount());
+
+        OutputStatistics.Counter anchoredCounter = getCounter(statistics, "consumer: CountingConsumer");
+        assertEquals(2, anchoredCounter.getInvocationCount());
+        assertEquals(0, anchoredCounter.getMatchCount());
+
+        OutputStatistics.Counter printerCounter = getCounter(statistics, "consumer: OutputLinkPrinter");
+        assertEquals(2, printerCounter.getInvocationCount());
+        assertEquals(2, printerCounter.getMatchCount());
+
+        // The finder is invoked multiple times for each line containing a
+        // link (for the parts of the line around the link), but it is only
+        // recorded once for each line.
+        OutputStatistics.Counter finderCounter
+                = getCounter(statistics, "consumer: OutputLinkPrinter / link finder: OutputUrlConsumer");
+        assertEquals(2, finderCounter.getInvocationCount());
+        assertEquals(2, finderCounter.getMatchCount());
+        assertTrue(finderCounter.getNanos() > 0);
+        assertTrue(finderCounter.getNanos() <= printerCounter.getNanos());
+
+        String summary = statistics.getSummary();
+        assertTrue(summary, summary.contains("consumer: OutputLinkPrinter: invocations: 2, matches: 2"));
+    }
+
+    private static long measureAllocatedBytes(
+            com.sun.management.ThreadMXBean threadBean,
+            SmartOutputHandler handler,
+            int lineCount) throws IOException {
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < lineCount; i++) {
+            handler.writeLine("Some line of the output without links");
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+    }
+
+    private static long measureMinAllocatedBytes(
+            com.sun.management.ThreadMXBean threadBean,
+            SmartOutputHandler handler,
+            int lineCount) throws IOException {
+        long result = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            result = Math.min(result, measureAllocatedBytes(threadBean, handler, lineCount));
+        }
+        return result;
+    }
+
+    private static SmartOutputHandler createNonAllocatingHandler(OutputStatistics statistics) {
+        SmartOutputHandler.Builder builder = new SmartOutputHandler.Builder(
+                InputOutput.NULL,
+                new TestOutputWriter(new NullWriter()),
+                Arrays.<TaskOutputProcessor>asList(new NoOpProcessor()),
+                Arrays.<SmartOutputHandler.Consumer>asList(new OutputLinkPrinter(statistics, new NoLinkFinder())));
+        builder.setStatistics(statistics);
+        return builder.create();
+    }
+
+    @Test
+    public void testStatisticsDoNotAllocatePerLine() throws IOException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("Requires measuring allocated memory per thread.",
+                threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean)threadBean).isThreadAllocatedMemoryEnabled());
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+
+        int lineCount = 10000;
+        SmartOutputHandler disabledHandler = createNonAllocatingHandler(null);
+        SmartOutputHandler enabledHandler = createNonAllocatingHandler(new OutputStatistics("allocation test"));
+
+        long disabledBytes = measureMinAllocatedBytes(allocationBean, disabledHandler, lineCount);
+        long enabledBytes = measureMinAllocatedBytes(allocationBean, enabledHandler, lineCount);
+
+        // Recording an invocation must not allocate, so disabling the
+        // statistics (which skips recording) cannot add allocations either.
+        // Allow some slack for the allocations of the measurement itself.
+        long maxExtraBytes = lineCount;
+        assertTrue("Allocated with statistics: " + enabledBytes + ", without: " + disabledBytes,
+                enabledBytes <= disabledBytes + maxExtraBytes);
+    }
+
+    private static final class TestOutputWriter extends OutputWriter {
+        public TestOutputWriter(Writer output) {
+            super(output);
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+            println(s);
+        }
+
+        @Override
+        public void reset() throws IOException {
+        }
+    }
+
+    private static final class CountingConsumer implements SmartOutputHandler.Consumer, LineAnchorProvider {
+        private final Collection<String> anchors;
+        private final List<String> lines;
+
+        public CountingConsumer(Collection<String> anchors) {
+            this.anchors = anchors;
+            this.lines = new ArrayList<>();
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        @Override
+        public Collection<String> getLineAnchors() {
+            return anchors;
+        }
+
+        @Override
+        public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) {
+            lines.add(line);
+            return false;
+        }
+    }
+
+    private static final class PatternFinder implements OutputLinkFinder, LineAnchorProvider {
+        private final Collection<String> anchors;
+        private final Pattern pattern;
+
+        public PatternFinder(String anchor, String pattern) {
+            this.anchors = Collections.singleton(anchor);
+            this.pattern = Pattern.compile(pattern);
+        }
+
+        @Override
+        public Collection<String> getLineAnchors() {
+            return anchors;
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            Matcher matcher = pattern.matcher(line);
+            if (!matcher.find()) {
+                return null;
+            }
+            return new OutputLinkDef(matcher.start(), matcher.end(), new NoOpTask());
+        }
+    }
+
+    private static final class ProjectPathFinder implements OutputLinkFinder, LineAnchorProvider {
+        private final String projectPath;
+
+        public ProjectPathFinder(String projectPath) {
+            this.projectPath = projectPath;
+        }
+
+        @Override
+        public Collection<String> getLineAnchors() {
+            return Collections.singleton(projectPath);
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            int startIndex = ProjectFileConsumer.indexOfPath(line, projectPath, '\\');
+            if (startIndex < 0) {
+                return null;
+            }
+
+            int endIndex = line.indexOf(' ', startIndex);
+            return new OutputLinkDef(startIndex, endIndex >= 0 ? endIndex : line.length(), new NoOpTask());
+        }
+    }
+
+    private static final class RecordingFinder implements OutputLinkFinder, LineAnchorProvider {
+        private final OutputLinkFinder wrapped;
+        private final boolean anchored;
+        private final List<String> foundLinks;
+
+        public RecordingFinder(OutputLinkFinder wrapped, boolean anchored) {
+            this.wrapped = wrapped;
+            this.anchored = anchored;
+            this.foundLinks = new ArrayList<>();
+        }
+
+        public List<String> getFoundLinks() {
+            return foundLinks;
+        }
+
+        @Override
+        public Collection<String> getLineAnchors() {
+            return anchored && wrapped instanceof LineAnchorProvider
+                    ? ((LineAnchorProvider)wrapped).getLineAnchors()
+                    : null;
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            OutputLinkDef result = wrapped.tryFindLink(line);
+            if (result != null) {
+                foundLinks.add(line.substring(result.getStartIndex(), result.getEndIndex()));
+            }
+            return result;
+        }
+    }
+
+    private static final class CountingProcessor implements TaskOutputProcessor, LineAnchorProvider {
+        private final Collection<String> anchors;
+        private final List<String> lines;
+
+        public CountingProcessor(Collection<String> anchors) {
+            this.anchors = anchors;
+            this.lines = new ArrayList<>();
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        @Override
+        public Collection<String> getLineAnchors() {
+            return anchors;
+        }
+
+        @Override
+        public void processLine(String line) {
+            lines.add(line);
+        }
+    }
+
+    private static final class NoOpProcessor implements TaskOutputProcessor {
+        @Override
+        public void processLine(String line) {
+        }
+    }
+
+    private static final class NoLinkFinder implements OutputLinkFinder {
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            return null;
+        }
+    }
+
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class NoOpTask implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
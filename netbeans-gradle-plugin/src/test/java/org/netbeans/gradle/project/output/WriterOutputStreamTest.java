@@ -0,0 +1,97 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class WriterOutputStreamTest {
+    private static final Charset[] CHARSETS = new Charset[] {
+        StringUtils.UTF8,
+        Charset.forName("UTF-16"),
+        Charset.forName("UTF-16LE"),
+        Charset.forName("UTF-16BE"),
+    };
+
+    private static final String TEXT
+            = "Gradle: \u00E1rv\u00EDzt\u0171r\u0151 t\u00FCk\u00F6rf\u00FAr\u00F3g\u00E9p"
+            + " \u20AC \u65E5\u672C\u8A9E \uD83D\uDE00 \uD834\uDD1E end\n";
+
+    private static String writeSplit(Charset charset, byte[] bytes, int splitOffset, int bufferSize) throws IOException {
+        StringWriter result = new StringWriter();
+        try (WriterOutputStream output = new WriterOutputStream(result, charset, bufferSize)) {
+            output.write(bytes, 0, splitOffset);
+            output.write(bytes, splitOffset, bytes.length - splitOffset);
+        }
+        return result.toString();
+    }
+
+    private static void testSplitAtEveryOffset(int bufferSize) throws IOException {
+        for (Charset charset: CHARSETS) {
+            byte[] bytes = TEXT.getBytes(charset);
+            for (int splitOffset = 0; splitOffset <= bytes.length; splitOffset++) {
+                assertEquals("Charset: " + charset.name() + ", split offset: " + splitOffset,
+                        TEXT,
+                        writeSplit(charset, bytes, splitOffset, bufferSize));
+            }
+        }
+    }
+
+    @Test
+    public void testSplitAtEveryOffset() throws IOException {
+        testSplitAtEveryOffset(1024);
+    }
+
+    @Test
+    public void testSplitAtEveryOffsetWithSmallBuffer() throws IOException {
+        testSplitAtEveryOffset(16);
+    }
+
+    @Test
+    public void testSingleByteWrites() throws IOException {
+        for (Charset charset: CHARSETS) {
+            StringWriter result = new StringWriter();
+            try (WriterOutputStream output = new WriterOutputStream(result, charset, 16)) {
+                for (byte b: TEXT.getBytes(charset)) {
+                    output.write(b);
+                }
+            }
+            assertEquals("Charset: " + charset.name(), TEXT, result.toString());
+        }
+    }
+
+    @Test
+    public void testCompleteCharactersAreForwardedImmediately() throws IOException {
+        StringWriter result = new StringWriter();
+        WriterOutputStream output = new WriterOutputStream(result, StringUtils.UTF8);
+
+        byte[] bytes = "a\u20AC".getBytes(StringUtils.UTF8);
+        output.write(bytes, 0, bytes.length - 1);
+        assertEquals("a", result.toString());
+
+        output.write(bytes, bytes.length - 1, 1);
+        assertEquals("a\u20AC", result.toString());
+    }
+
+    @Test
+    public void testIncompleteCharacterIsReplacedOnClose() throws IOException {
+        StringWriter result = new StringWriter();
+        WriterOutputStream output = new WriterOutputStream(result, StringUtils.UTF8);
+
+        byte[] bytes = "a\u20AC".getBytes(StringUtils.UTF8);
+        output.write(bytes, 0, bytes.length - 1);
+        output.close();
+
+        assertEquals("a\uFFFD", result.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException {
+        WriterOutputStream output = new WriterOutputStream(new StringWriter(), StringUtils.UTF8);
+        output.close();
+        output.write(1);
+    }
+}
@@ -0,0 +1,124 @@
+package org.netbeans.gradle.project.properties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.property.MutableProperty;
+import org.jtrim.property.PropertyFactory;
+import org.jtrim.property.PropertySource;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachedValuePropertyTest {
+    @Test
+    public void testValueIsNotCachedWithoutListeners() {
+        CountingProperty wrapped = new CountingProperty(1);
+        PropertySource<Integer> cached = NbProperties.cachedValue(wrapped);
+
+        assertEquals(1, cached.getValue().intValue());
+        assertEquals(1, cached.getValue().intValue());
+        assertEquals(2, wrapped.getValueCount());
+
+        wrapped.setValue(2);
+        assertEquals(2, cached.getValue().intValue());
+    }
+
+    @Test
+    public void testValueIsCachedWhileListening() {
+        CountingProperty wrapped = new CountingProperty(1);
+        PropertySource<Integer> cached = NbProperties.cachedValue(wrapped);
+
+        ListenerRef listenerRef = cached.addChangeListener(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        assertEquals(1, cached.getValue().intValue());
+        assertEquals(1, cached.getValue().intValue());
+        assertEquals(1, wrapped.getValueCount());
+
+        wrapped.setValue(2);
+        assertEquals(2, cached.getValue().intValue());
+        assertEquals(2, cached.getValue().intValue());
+        assertEquals(2, wrapped.getValueCount());
+
+        listenerRef.unregister();
+
+        wrapped.setValue(3);
+        assertEquals(3, cached.getValue().intValue());
+        assertEquals(3, cached.getValue().intValue());
+        assertEquals(4, wrapped.getValueCount());
+    }
+
+    @Test
+    public void testListenerSeesNewValue() {
+        CountingProperty wrapped = new CountingProperty(1);
+        final PropertySource<Integer> cached = NbProperties.cachedValue(wrapped);
+
+        final AtomicReference<Integer> seenValueRef = new AtomicReference<>(null);
+        cached.addChangeListener(new Runnable() {
+            @Override
+            public void run() {
+                seenValueRef.set(cached.getValue());
+            }
+        });
+
+        assertEquals(1, cached.getValue().intValue());
+
+        wrapped.setValue(2);
+        assertEquals(2, seenValueRef.get().intValue());
+    }
+
+    @Test
+    public void testUnregisteredListenerIsNotNotified() {
+        CountingProperty wrapped = new CountingProperty(1);
+        PropertySource<Integer> cached = NbProperties.cachedValue(wrapped);
+
+        final AtomicInteger callCount = new AtomicInteger(0);
+        ListenerRef listenerRef = cached.addChangeListener(new Runnable() {
+            @Override
+            public void run() {
+                callCount.incrementAndGet();
+            }
+        });
+
+        wrapped.setValue(2);
+        listenerRef.unregister();
+        listenerRef.unregister();
+        wrapped.setValue(3);
+
+        assertEquals(1, callCount.get());
+        assertEquals(3, cached.getValue().intValue());
+    }
+
+    private static final class CountingProperty implements PropertySource<Integer> {
+        private final MutableProperty<Integer> wrapped;
+        private final AtomicInteger valueCount;
+
+        public CountingProperty(int initialValue) {
+            this.wrapped = PropertyFactory.memProperty(initialValue);
+            this.valueCount = new AtomicInteger(0);
+        }
+
+        public void setValue(int value) {
+            wrapped.setValue(value);
+        }
+
+        public int getValueCount() {
+            return valueCount.get();
+        }
+
+        @Override
+        public Integer getValue() {
+            valueCount.incrementAndGet();
+            return wrapped.getValue();
+        }
+
+        @Override
+        public ListenerRef addChangeListener(Runnable listener) {
+            return wrapped.addChangeListener(listener);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.netbeans.gradle.project.properties;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WeakValueHashMapTest {
+    @Test
+    public void testValueIsRemovedWhenUnreferenced() throws InterruptedException {
+        WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+        Object value = new Object();
+        map.put("key", value);
+        map.put("unreferenced-key", new Object());
+
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (map.containsKey("unreferenced-key")) {
+            assertTrue("Timeout waiting for the garbage collector.", System.nanoTime() < endTime);
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertSame(value, map.get("key"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testReplacedValueIsNotRemovedWithTheUnreferencedOne() {
+        WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+
+        // The value of the first put is garbage immediately, so its reference
+        // might be enqueued only after the second put replaced it.
+        for (int i = 0; i < 1000000; i++) {
+            map.put("key", new byte[1024]);
+
+            Object value = new Object();
+            map.put("key", value);
+            assertSame(value, map.get("key"));
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.netbeans.gradle.project.query;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim.cancel.Cancellation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.NbConsumer;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class BuildScriptClassPathsTest {
+    private File tempDir;
+    private List<ClassPath> registeredClassPaths;
+    private List<ClassPath> unregisteredClassPaths;
+    private BuildScriptClassPaths classPaths;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = FileUtil.normalizeFile(Files.createTempDirectory("build-script-classpaths-test").toFile());
+        registeredClassPaths = Collections.synchronizedList(new ArrayList<ClassPath>());
+        unregisteredClassPaths = Collections.synchronizedList(new ArrayList<ClassPath>());
+        classPaths = new BuildScriptClassPaths(new NbConsumer<ClassPath>() {
+            @Override
+            public void accept(ClassPath classPath) {
+                registeredClassPaths.add(classPath);
+            }
+        }, new NbConsumer<ClassPath>() {
+            @Override
+            public void accept(ClassPath classPath) {
+                unregisteredClassPaths.add(classPath);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tempDir.toPath());
+    }
+
+    private File createDir(String name) throws IOException {
+        File result = new File(tempDir, name);
+        Files.createDirectories(result.toPath());
+        return result;
+    }
+
+    private Path rootBuildDir(String name) {
+        return new File(tempDir, name).toPath();
+    }
+
+    private static List<URL> toUrls(File... files) {
+        List<URL> result = new ArrayList<>(files.length);
+        for (File file: files) {
+            result.add(FileUtil.urlForArchiveOrDir(file));
+        }
+        return result;
+    }
+
+    private static List<URL> getEntryUrls(ClassPath classPath) {
+        List<URL> result = new ArrayList<>();
+        for (ClassPath.Entry entry: classPath.entries()) {
+            result.add(entry.getURL());
+        }
+        return result;
+    }
+
+    private static AtomicInteger countEntryChanges(ClassPath classPath) {
+        final AtomicInteger result = new AtomicInteger(0);
+        classPath.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (ClassPath.PROP_ENTRIES.equals(evt.getPropertyName())) {
+                    result.incrementAndGet();
+                }
+            }
+        });
+        return result;
+    }
+
+    @Test
+    public void testNoClassPathWithoutProjects() {
+        Path rootBuild = rootBuildDir("build");
+
+        assertNull(classPaths.tryGetClassPath(rootBuild));
+        assertNull(classPaths.tryGetClassPath(rootBuild));
+        assertEquals(0, classPaths.getBuildCount());
+        assertTrue(registeredClassPaths.isEmpty());
+    }
+
+    @Test
+    public void testClassPathIsSharedWithinBuild() throws IOException {
+        List<File> lib = Collections.singletonList(createDir("lib"));
+        classPaths.addProject(rootBuildDir("build1"), lib);
+        classPaths.addProject(rootBuildDir("build2"), lib);
+
+        ClassPath classPath1 = classPaths.tryGetClassPath(rootBuildDir("build1"));
+        ClassPath classPath2 = classPaths.tryGetClassPath(rootBuildDir("build1"));
+        ClassPath otherClassPath = classPaths.tryGetClassPath(rootBuildDir("build2"));
+
+        assertNotNull(classPath1);
+        assertSame(classPath1, classPath2);
+        assertNotSame(classPath1, otherClassPath);
+    }
+
+    @Test
+    public void testAddingProjectsDoesNotCreateNewClassPath() throws IOException {
+        Path rootBuild = rootBuildDir("build");
+        classPaths.addProject(rootBuild, Collections.singletonList(createDir("lib1")));
+        ClassPath classPath = classPaths.tryGetClassPath(rootBuild);
+
+        classPaths.addProject(rootBuild, Collections.singletonList(createDir("lib2")));
+
+        assertSame(classPath, classPaths.tryGetClassPath(rootBuild));
+        assertEquals(Collections.singletonList(classPath), registeredClassPaths);
+    }
+
+    @Test
+    public void testClassPathIsRegisteredWhileItHasProjects() throws IOException {
+        Path rootBuild = rootBuildDir("build");
+
+        CloseableAction.Ref project1 = classPaths.addProject(rootBuild, Collections.singletonList(createDir("lib1")));
+        CloseableAction.Ref project2 = classPaths.addProject(rootBuild, Collections.singletonList(createDir("lib2")));
+        ClassPath classPath = classPaths.tryGetClassPath(rootBuild);
+        assertEquals(Collections.singletonList(classPath), registeredClassPaths);
+
+        project1.close();
+        assertTrue(unregisteredClassPaths.isEmpty());
+        assertEquals(1, classPaths.getBuildCount());
+
+        project2.close();
+        assertEquals(Collections.singletonList(classPath), unregisteredClassPaths);
+        assertEquals(0, classPaths.getBuildCount());
+        assertNull(classPaths.tryGetClassPath(rootBuild));
+
+        // Closing the same reference again must not unregister again.
+        project2.close();
+        assertEquals(1, unregisteredClassPaths.size());
+    }
+
+    @Test
+    public void testBuildIsRegisteredAgainAfterReopened() throws IOException {
+        Path rootBuild = rootBuildDir("build");
+        List<File> lib = Collections.singletonList(createDir("lib"));
+
+        classPaths.addProject(rootBuild, lib).close();
+        classPaths.addProject(rootBuild, lib);
+
+        ClassPath classPath = classPaths.tryGetClassPath(rootBuild);
+        assertEquals(2, registeredClassPaths.size());
+        assertSame(classPath, registeredClassPaths.get(1));
+        assertNotSame(registeredClassPaths.get(0), classPath);
+    }
+
+    @Test
+    public void testClassPathOfRemovedProjectIsRemoved() throws IOException {
+        File lib1 = createDir("lib1");
+        File lib2 = createDir("lib2");
+
+        Path rootBuild = rootBuildDir("build");
+        CloseableAction.Ref project1 = classPaths.addProject(rootBuild, Arrays.asList(lib1, lib2));
+        classPaths.addProject(rootBuild, Collections.singletonList(lib1));
+
+        ClassPath classPath = classPaths.tryGetClassPath(rootBuild);
+        assertEquals(toUrls(lib1, lib2), getEntryUrls(classPath));
+
+        AtomicInteger changeCount = countEntryChanges(classPath);
+        project1.close();
+
+        assertEquals(toUrls(lib1), getEntryUrls(classPath));
+        assertEquals(1, changeCount.get());
+    }
+
+    @Test
+    public void testClassPathContainsGradleLibsAndBuildScriptClassPath() throws IOException {
+        File gradleLib = createDir("gradle-lib");
+        File lib1 = createDir("lib1");
+        File lib2 = createDir("lib2");
+        File lib3 = createDir("lib3");
+
+        Path rootBuild = rootBuildDir("build");
+        classPaths.setGradleLibs(toUrls(gradleLib));
+        classPaths.addProject(rootBuild, Arrays.asList(lib1, lib2));
+        classPaths.addProject(rootBuild, Arrays.asList(lib1, lib3));
+
+        assertEquals(toUrls(gradleLib, lib1, lib2, lib3), getEntryUrls(classPaths.tryGetClassPath(rootBuild)));
+    }
+
+    @Test
+    public void testBuildsDoNotShareBuildScriptClassPath() throws IOException {
+        File lib1 = createDir("lib1");
+        File lib2 = createDir("lib2");
+
+        classPaths.addProject(rootBuildDir("build1"), Collections.singletonList(lib1));
+        classPaths.addProject(rootBuildDir("build2"), Collections.singletonList(lib2));
+
+        assertEquals(toUrls(lib1), getEntryUrls(classPaths.tryGetClassPath(rootBuildDir("build1"))));
+        assertEquals(toUrls(lib2), getEntryUrls(classPaths.tryGetClassPath(rootBuildDir("build2"))));
+    }
+
+    @Test
+    public void testRefreshOnGradleHomeChange() throws IOException {
+        File gradleLib1 = createDir("gradle-lib1");
+        File gradleLib2 = createDir("gradle-lib2");
+        File lib = createDir("lib");
+
+        Path rootBuild1 = rootBuildDir("build1");
+        Path rootBuild2 = rootBuildDir("build2");
+
+        classPaths.setGradleLibs(toUrls(gradleLib1));
+        classPaths.addProject(rootBuild1, Collections.singletonList(lib));
+        classPaths.addProject(rootBuild2, Collections.<File>emptyList());
+
+        ClassPath classPath1 = classPaths.tryGetClassPath(rootBuild1);
+        ClassPath classPath2 = classPaths.tryGetClassPath(rootBuild2);
+        assertEquals(toUrls(gradleLib1, lib), getEntryUrls(classPath1));
+        assertEquals(toUrls(gradleLib1), getEntryUrls(classPath2));
+
+        AtomicInteger changeCount1 = countEntryChanges(classPath1);
+        AtomicInteger changeCount2 = countEntryChanges(classPath2);
+
+        classPaths.setGradleLibs(toUrls(gradleLib2));
+
+        assertEquals(toUrls(gradleLib2, lib), getEntryUrls(classPath1));
+        assertEquals(toUrls(gradleLib2), getEntryUrls(classPath2));
+        assertEquals(1, changeCount1.get());
+        assertEquals(1, changeCount2.get());
+    }
+
+    @Test
+    public void testNoRefreshForSameGradleLibs() throws IOException {
+        File gradleLib = createDir("gradle-lib");
+
+        classPaths.setGradleLibs(toUrls(gradleLib));
+        classPaths.addProject(rootBuildDir("build"), Collections.<File>emptyList());
+        ClassPath classPath = classPaths.tryGetClassPath(rootBuildDir("build"));
+        assertEquals(toUrls(gradleLib), getEntryUrls(classPath));
+
+        AtomicInteger changeCount = countEntryChanges(classPath);
+        classPaths.setGradleLibs(toUrls(gradleLib));
+
+        assertEquals(0, changeCount.get());
+    }
+
+    @Test
+    public void testNoRefreshForSameBuildScriptClassPath() throws IOException {
+        File lib1 = createDir("lib1");
+        File lib2 = createDir("lib2");
+
+        Path rootBuild = rootBuildDir("build");
+
+        CloseableAction.Ref project1 = classPaths.addProject(rootBuild, Arrays.asList(lib1, lib2));
+        ClassPath classPath = classPaths.tryGetClassPath(rootBuild);
+        assertEquals(toUrls(lib1, lib2), getEntryUrls(classPath));
+
+        AtomicInteger changeCount = countEntryChanges(classPath);
+
+        // Neither the same classpath again (i.e., a reloaded model) nor a
+        // subset of the known entries changes the shared classpath.
+        CloseableAction.Ref reloadedProject1 = classPaths.addProject(rootBuild, Arrays.asList(lib1, lib2));
+        project1.close();
+        classPaths.addProject(rootBuild, Collections.singletonList(lib1));
+        assertEquals(0, changeCount.get());
+
+        classPaths.addProject(rootBuild, Collections.singletonList(lib1));
+        reloadedProject1.close();
+        assertEquals(toUrls(lib1), getEntryUrls(classPath));
+        assertEquals(1, changeCount.get());
+        assertTrue(unregisteredClassPaths.isEmpty());
+    }
+}
@@ -0,0 +1,141 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.api.queries.SharabilityQuery.Sharability;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.project.model.NbGenericModelInfo;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleMultiProjectDef;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.netbeans.gradle.project.util.NbSupplier;
+
+import static org.junit.Assert.*;
+
+public class GradleSharabilityQueryTest {
+    private File rootDir;
+    private NbGradleProjectTree rootProject;
+    private NbGradleProjectTree subproject1;
+    private NbGradleProjectTree subproject2;
+    private AtomicReference<NbGradleModel> modelRef;
+    private GradleSharabilityQuery query;
+
+    @Before
+    public void setUp() {
+        rootDir = new File(new File(System.getProperty("java.io.tmpdir"), "sharability-test"), "root").getAbsoluteFile();
+
+        NbGradleProjectTree nested = createTree(":sub1:nested", file("sub1", "nested"));
+        subproject1 = createTree(":sub1", file("sub1"), nested);
+        subproject2 = createTree(":sub2", file("sub2"));
+        rootProject = new NbGradleProjectTree(
+                new GenericProjectProperties("root", ":", rootDir),
+                Collections.<GradleTaskID>emptyList(),
+                Arrays.asList(subproject1, subproject2));
+
+        modelRef = new AtomicReference<>(null);
+        query = new GradleSharabilityQuery(new NbSupplier<NbGradleModel>() {
+            @Override
+            public NbGradleModel get() {
+                return modelRef.get();
+            }
+        });
+
+        setMainProject(subproject1);
+    }
+
+    private NbGradleProjectTree createTree(String fullName, File projectDir, NbGradleProjectTree... children) {
+        GenericProjectProperties properties = new GenericProjectProperties(
+                projectDir.getName(),
+                fullName,
+                projectDir);
+        return new NbGradleProjectTree(properties, Collections.<GradleTaskID>emptyList(), Arrays.asList(children));
+    }
+
+    private void setMainProject(NbGradleProjectTree mainProject) {
+        NbGradleMultiProjectDef projectDef = new NbGradleMultiProjectDef(rootProject, mainProject);
+        NbGenericModelInfo genericInfo = new NbGenericModelInfo(
+                projectDef,
+                new File(rootDir, "settings.gradle").toPath());
+        modelRef.set(new NbGradleModel(genericInfo, Collections.<String, Object>emptyMap(), false));
+    }
+
+    private File file(String... relativePath) {
+        File result = rootDir;
+        for (String name: relativePath) {
+            result = new File(result, name);
+        }
+        return result;
+    }
+
+    private Sharability getSharability(String... relativePath) {
+        return query.getSharability(file(relativePath).toURI());
+    }
+
+    @Test
+    public void testSourcesOfProjectAreSharable() {
+        assertEquals(Sharability.SHARABLE, getSharability("sub1"));
+        assertEquals(Sharability.SHARABLE, getSharability("sub1", "build.gradle"));
+        assertEquals(Sharability.SHARABLE, getSharability("sub1", "src", "main", "java", "Foo.java"));
+        assertEquals(Sharability.SHARABLE, getSharability("sub1", "buildSrc", "Foo.java"));
+    }
+
+    @Test
+    public void testBuildDirIsNotSharable() {
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub1", "build"));
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub1", "build", "classes", "main", "Foo.class"));
+    }
+
+    @Test
+    public void testBuildDirOfNestedSubprojectIsNotSharable() {
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub1", "nested", "build", "classes", "Foo.class"));
+        assertEquals(Sharability.SHARABLE, getSharability("sub1", "nested", "src", "Foo.java"));
+    }
+
+    @Test
+    public void testBuildDirsOfOtherProjectsAreNotSharable() {
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("build", "tmp"));
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub2", "build", "libs", "sub2.jar"));
+        assertEquals(Sharability.UNKNOWN, getSharability("sub2", "src", "Foo.java"));
+    }
+
+    @Test
+    public void testSettingsDirsAreNotSharable() {
+        assertEquals(Sharability.NOT_SHARABLE, getSharability(".nb-gradle", "profiles", "debug.xml"));
+        assertEquals(Sharability.NOT_SHARABLE, getSharability(".nb-gradle", "private", "cache", "cache.bin"));
+    }
+
+    @Test
+    public void testUnrelatedFilesAreUnknown() {
+        assertEquals(Sharability.UNKNOWN, getSharability("settings.gradle"));
+        assertEquals(Sharability.UNKNOWN, query.getSharability(rootDir.getParentFile().toURI()));
+        assertEquals(Sharability.UNKNOWN, query.getSharability(URI.create("http://example.com/sub1/build")));
+    }
+
+    @Test
+    public void testModelChangeIsRecognized() {
+        assertEquals(Sharability.SHARABLE, getSharability("sub1", "src", "Foo.java"));
+        assertEquals(Sharability.UNKNOWN, getSharability("sub2", "src", "Foo.java"));
+
+        setMainProject(subproject2);
+
+        assertEquals(Sharability.UNKNOWN, getSharability("sub1", "src", "Foo.java"));
+        assertEquals(Sharability.SHARABLE, getSharability("sub2", "src", "Foo.java"));
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub1", "build", "Foo.class"));
+    }
+
+    @Test
+    public void testRootProjectWithSubprojects() {
+        setMainProject(rootProject);
+
+        assertEquals(Sharability.SHARABLE, getSharability("settings.gradle"));
+        assertEquals(Sharability.SHARABLE, getSharability("sub2", "src", "Foo.java"));
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub2", "build", "Foo.class"));
+        assertEquals(Sharability.NOT_SHARABLE, getSharability("sub1", "nested", "build", "Foo.class"));
+    }
+}
@@ -0,0 +1,162 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.property.MutableProperty;
+import org.jtrim.property.PropertyFactory;
+import org.jtrim.property.PropertySource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbSupplier;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class GradleSourceEncodingQueryTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    private File rootDir;
+    private File projectDir;
+    private MutableProperty<Object> model;
+    private MutableProperty<Charset> sourceEncoding;
+    private AtomicInteger ownerQueryCount;
+    private AtomicInteger encodingQueryCount;
+    private GradleSourceEncodingQuery query;
+
+    @Before
+    public void setUp() throws IOException {
+        rootDir = FileUtil.normalizeFile(Files.createTempDirectory("source-encoding-query-test").toFile());
+        projectDir = new File(rootDir, "project");
+        model = PropertyFactory.memProperty(new Object());
+        sourceEncoding = PropertyFactory.memProperty(UTF8);
+        ownerQueryCount = new AtomicInteger(0);
+        encodingQueryCount = new AtomicInteger(0);
+
+        query = new GradleSourceEncodingQuery(model, new NbFunction<FileObject, Boolean>() {
+            @Override
+            public Boolean apply(FileObject file) {
+                ownerQueryCount.incrementAndGet();
+                return NbFileUtils.isParentOrSame(projectDir, FileUtil.toFile(file));
+            }
+        }, new NbSupplier<PropertySource<Charset>>() {
+            @Override
+            public PropertySource<Charset> get() {
+                return new PropertySource<Charset>() {
+                    @Override
+                    public Charset getValue() {
+                        encodingQueryCount.incrementAndGet();
+                        return sourceEncoding.getValue();
+                    }
+
+                    @Override
+                    public ListenerRef addChangeListener(Runnable listener) {
+                        return sourceEncoding.addChangeListener(listener);
+                    }
+                };
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, rootDir.toPath());
+    }
+
+    private FileObject createFile(File dir, String... relativePath) throws IOException {
+        File result = dir;
+        for (String name: relativePath) {
+            result = new File(result, name);
+        }
+        Files.createDirectories(result.getParentFile().toPath());
+        Files.createFile(result.toPath());
+
+        FileObject resultObj = FileUtil.toFileObject(result);
+        assertNotNull("FileObject of " + result, resultObj);
+        return resultObj;
+    }
+
+    @Test
+    public void testEncodingOfOwnedFiles() throws IOException {
+        FileObject source = createFile(projectDir, "src", "main", "java", "Foo.java");
+
+        assertEquals(UTF8, query.getEncoding(source));
+        assertEquals(UTF8, query.getEncoding(source.getParent()));
+    }
+
+    @Test
+    public void testEncodingOfNotOwnedFiles() throws IOException {
+        FileObject otherFile = createFile(rootDir, "other", "Foo.java");
+
+        assertNull(query.getEncoding(otherFile));
+        assertNull(query.getEncoding(otherFile.getParent()));
+    }
+
+    @Test
+    public void testOwnerIsQueriedOncePerDirectory() throws IOException {
+        File sourceDir = new File(projectDir, "src");
+        FileObject source1 = createFile(sourceDir, "Foo1.java");
+        FileObject source2 = createFile(sourceDir, "Foo2.java");
+        FileObject source3 = createFile(sourceDir, "Foo3.java");
+
+        assertEquals(UTF8, query.getEncoding(source1));
+        assertEquals(UTF8, query.getEncoding(source2));
+        assertEquals(UTF8, query.getEncoding(source3));
+        assertEquals(UTF8, query.getEncoding(source1.getParent()));
+
+        assertEquals(1, ownerQueryCount.get());
+    }
+
+    @Test
+    public void testModelChangeForgetsOwners() throws IOException {
+        FileObject source = createFile(projectDir, "Foo.java");
+
+        assertEquals(UTF8, query.getEncoding(source));
+        assertEquals(UTF8, query.getEncoding(source));
+        assertEquals(1, ownerQueryCount.get());
+
+        model.setValue(new Object());
+
+        assertEquals(UTF8, query.getEncoding(source));
+        assertEquals(2, ownerQueryCount.get());
+    }
+
+    @Test
+    public void testEncodingIsCachedUntilChanged() throws IOException {
+        File sourceDir = new File(projectDir, "src");
+        FileObject source1 = createFile(sourceDir, "Foo1.java");
+        FileObject source2 = createFile(sourceDir, "Foo2.java");
+
+        assertEquals(UTF8, query.getEncoding(source1));
+        assertEquals(UTF8, query.getEncoding(source2));
+        assertEquals(1, encodingQueryCount.get());
+
+        sourceEncoding.setValue(LATIN1);
+
+        assertEquals(LATIN1, query.getEncoding(source1));
+        assertEquals(LATIN1, query.getEncoding(source2));
+        assertEquals(2, encodingQueryCount.get());
+    }
+
+    @Test
+    public void testSourceEncodingChange() throws IOException {
+        FileObject source = createFile(projectDir, "Foo.java");
+
+        assertEquals(UTF8, query.getEncoding(source));
+
+        sourceEncoding.setValue(LATIN1);
+        assertEquals(LATIN1, query.getEncoding(source));
+
+        sourceEncoding.setValue(UTF8);
+        assertEquals(UTF8, query.getEncoding(source));
+    }
+}
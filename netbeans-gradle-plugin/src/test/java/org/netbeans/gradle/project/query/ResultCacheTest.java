@@ -0,0 +1,165 @@
+package org.netbeans.gradle.project.query;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+    private static void collectGarbage(WeakReference<?> ref) throws InterruptedException {
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ref.get() != null) {
+            assertTrue("Timeout waiting for the garbage collector.", System.nanoTime() < endTime);
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testCachedResultIsReturned() {
+        ResultCache<String, Object> cache = new ResultCache<>(10);
+        Object result = new Object();
+
+        assertNull(cache.tryGet("key"));
+        assertSame(result, cache.putIfAbsent("key", result));
+        assertSame(result, cache.tryGet("key"));
+        assertNull(cache.tryGet("other-key"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsTheFirstResult() {
+        ResultCache<String, Object> cache = new ResultCache<>(10);
+        Object result1 = new Object();
+        Object result2 = new Object();
+
+        assertSame(result1, cache.putIfAbsent("key", result1));
+        assertSame(result1, cache.putIfAbsent("key", result2));
+        assertSame(result1, cache.tryGet("key"));
+    }
+
+    @Test
+    public void testLiveResultIsKeptAfterEviction() throws InterruptedException {
+        ResultCache<String, Object> cache = new ResultCache<>(2);
+        Object result = new Object();
+        cache.putIfAbsent("key", result);
+
+        for (int i = 0; i < 10; i++) {
+            cache.putIfAbsent("key" + i, new Object());
+        }
+
+        System.gc();
+        assertSame(result, cache.tryGet("key"));
+    }
+
+    @Test
+    public void testRecentResultIsKeptWithoutReferences() throws InterruptedException {
+        ResultCache<String, Object> cache = new ResultCache<>(2);
+        cache.putIfAbsent("key", new Object());
+
+        WeakReference<Object> probe = new WeakReference<>(new Object());
+        collectGarbage(probe);
+
+        assertNotNull(cache.tryGet("key"));
+    }
+
+    @Test
+    public void testUnreferencedResultIsForgottenAfterEviction() throws InterruptedException {
+        ResultCache<String, Object> cache = new ResultCache<>(2);
+        Object result = new Object();
+        WeakReference<Object> resultRef = new WeakReference<>(result);
+        cache.putIfAbsent("key", result);
+        result = null;
+
+        cache.putIfAbsent("key1", new Object());
+        cache.putIfAbsent("key2", new Object());
+
+        collectGarbage(resultRef);
+        assertNull(cache.tryGet("key"));
+    }
+
+    @Test
+    public void testAccessMakesResultRecent() throws InterruptedException {
+        ResultCache<String, Object> cache = new ResultCache<>(2);
+        Object result = new Object();
+        WeakReference<Object> resultRef = new WeakReference<>(result);
+        cache.putIfAbsent("key", result);
+        result = null;
+
+        cache.putIfAbsent("key1", new Object());
+        assertNotNull(cache.tryGet("key"));
+        cache.putIfAbsent("key2", new Object());
+
+        WeakReference<Object> probe = new WeakReference<>(new Object());
+        collectGarbage(probe);
+
+        assertNotNull(resultRef.get());
+        assertNotNull(cache.tryGet("key"));
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentAccess() throws Throwable {
+        final ResultCache<Integer, Object> cache = new ResultCache<>(8);
+        final int keyCount = 32;
+        int threadCount = 8;
+
+        final List<Object> keptResults = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            keptResults.add(null);
+        }
+
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>(null);
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startSignal.await();
+                        for (int round = 0; round < 1000; round++) {
+                            int key = round % keyCount;
+                            Object result = cache.tryGet(key);
+                            if (result == null) {
+                                result = cache.putIfAbsent(key, new Object());
+                            }
+
+                            synchronized (keptResults) {
+                                Object kept = keptResults.get(key);
+                                if (kept == null) {
+                                    keptResults.set(key, result);
+                                }
+                                else {
+                                    assertSame("Result of " + key, kept, result);
+                                }
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        startSignal.countDown();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+
+        assertEquals(threadCount * 1000, cache.getHitCount() + cache.getMissCount());
+    }
+}
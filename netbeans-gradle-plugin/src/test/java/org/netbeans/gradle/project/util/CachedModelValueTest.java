@@ -0,0 +1,48 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachedModelValueTest {
+    private AtomicReference<Object> modelRef;
+    private AtomicInteger deriveCount;
+    private CachedModelValue<Object, String> value;
+
+    @Before
+    public void setUp() {
+        modelRef = new AtomicReference<>(new Object());
+        deriveCount = new AtomicInteger(0);
+        value = new CachedModelValue<>(new NbSupplier<Object>() {
+            @Override
+            public Object get() {
+                return modelRef.get();
+            }
+        }, new NbFunction<Object, String>() {
+            @Override
+            public String apply(Object model) {
+                return "value" + deriveCount.incrementAndGet();
+            }
+        });
+    }
+
+    @Test
+    public void testValueIsDerivedOncePerModel() {
+        assertEquals("value1", value.get());
+        assertEquals("value1", value.get());
+        assertEquals(1, deriveCount.get());
+    }
+
+    @Test
+    public void testValueIsDerivedAgainForNewModel() {
+        assertEquals("value1", value.get());
+
+        modelRef.set(new Object());
+        assertEquals("value2", value.get());
+        assertEquals("value2", value.get());
+        assertEquals(2, deriveCount.get());
+    }
+}
@@ -0,0 +1,82 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jtrim.cancel.Cancellation;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SerializationUtils2Test {
+    private static List<Path> listDir(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> dirContent = Files.newDirectoryStream(dir)) {
+            for (Path file: dirContent) {
+                result.add(file.getFileName());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testAtomicWriteRoundTrip() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-serialization-test");
+        try {
+            Path file = tmpDir.resolve("model.ser");
+
+            SerializationUtils2.serializeToFileAtomically(file, "first");
+            assertEquals("first", SerializationUtils2.deserializeFile(file));
+
+            SerializationUtils2.serializeToFileAtomically(file, "second");
+            assertEquals("second", SerializationUtils2.deserializeFile(file));
+
+            assertEquals(Arrays.asList(file.getFileName()), listDir(tmpDir));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testFailedAtomicWriteKeepsPreviousContent() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-serialization-test");
+        try {
+            Path file = tmpDir.resolve("model.ser");
+            SerializationUtils2.serializeToFileAtomically(file, "previous");
+
+            try {
+                SerializationUtils2.serializeToFileAtomically(file, new Object());
+                fail("Expected NotSerializableException.");
+            } catch (NotSerializableException ex) {
+            }
+
+            assertEquals("previous", SerializationUtils2.deserializeFile(file));
+            assertEquals("Partially written files must be removed.",
+                    Arrays.asList(file.getFileName()),
+                    listDir(tmpDir));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testPartiallyWrittenFileIsRejected() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-serialization-test");
+        try {
+            Path file = tmpDir.resolve("model.ser");
+            SerializationUtils2.serializeToFile(file, "some longer content to be truncated");
+
+            byte[] content = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(content, content.length / 2));
+
+            SerializationUtils2.deserializeFile(file);
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+}